@@ -0,0 +1,176 @@
+package com.ikea.warehouse_data_ingestion_service.config;
+
+import com.ikea.warehouse_data_ingestion_service.service.producer.FairSendScheduler;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Executors of the ingestion path. With {@code spring.threads.virtual.enabled=true} Spring Boot
+ * moves Tomcat request handling onto virtual threads; the same flag switches the executors
+ * below to virtual threads while keeping their pool and queue bounds. Also enables
+ * {@code @Scheduled} housekeeping such as the expiry of idle resumable uploads.
+ */
+@Configuration
+@EnableScheduling
+public class IngestionConfig {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${app.ingestion.pipeline.max-concurrent-runs:8}")
+    private Integer maxConcurrentRuns;
+
+    @Value("${app.ingestion.jobs.workers:4}")
+    private Integer jobWorkers;
+
+    @Value("${app.ingestion.jobs.queue-capacity:100}")
+    private Integer jobQueueCapacity;
+
+    @Value("${app.ingestion.drop.workers:2}")
+    private Integer dropWorkers;
+
+    @Value("${app.ingestion.ndjson.parallelism:0}")
+    private Integer ndjsonParallelism;
+
+    @Value("${app.kafka.producer-pool.size:1}")
+    private Integer producerPoolSize;
+
+    @Value("${app.ingestion.fair-scheduling.capacity:0}")
+    private Long fairSchedulingCapacity;
+
+    @Value("${app.ingestion.fair-scheduling.weights:}")
+    private List<String> fairSchedulingWeights;
+
+    /**
+     * Runs the map and publish stages of the ingestion pipeline (two threads per run).
+     */
+    @Bean
+    public ThreadPoolTaskExecutor ingestionPipelineExecutor() {
+        ThreadPoolTaskExecutor executor = newExecutor("ingest-pipeline-");
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(maxConcurrentRuns * 2);
+        executor.setQueueCapacity(0);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Runs asynchronous upload jobs. Submissions beyond the queue capacity are rejected.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor ingestionJobExecutor() {
+        ThreadPoolTaskExecutor executor = newExecutor("ingest-job-");
+        executor.setCorePoolSize(jobWorkers);
+        executor.setMaxPoolSize(jobWorkers);
+        executor.setQueueCapacity(jobQueueCapacity);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        return executor;
+    }
+
+    /**
+     * Ingests files claimed from drop directories. The watcher only claims a file when one of
+     * the {@code workers} is free; the queue just absorbs hand-over races.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.ingestion.drop.enabled", havingValue = "true")
+    public ThreadPoolTaskExecutor dropDirectoryExecutor() {
+        ThreadPoolTaskExecutor executor = newExecutor("ingest-drop-");
+        executor.setCorePoolSize(dropWorkers);
+        executor.setMaxPoolSize(dropWorkers);
+        executor.setQueueCapacity(dropWorkers);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        return executor;
+    }
+
+    /**
+     * Parses NDJSON chunks for all uploads; CPU-bound, so always platform threads. A parallelism
+     * of 0 uses one thread per available core.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool ndjsonParserPool() {
+        int parallelism = ndjsonParallelism > 0 ? ndjsonParallelism : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool.ForkJoinWorkerThreadFactory threadFactory = pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("ndjson-parse-" + thread.getPoolIndex());
+            return thread;
+        };
+        return new ForkJoinPool(parallelism, threadFactory, null, true);
+    }
+
+    /**
+     * Runs Kafka send completion callbacks. On platform threads they stay inline on the producer
+     * I/O thread; in virtual-thread mode each completion hops to its own virtual thread, so any
+     * code waiting on an ack future never ties up the producer's sender thread.
+     */
+    @Bean
+    public TaskExecutor kafkaCompletionExecutor() {
+        if (!virtualThreads) {
+            return new SyncTaskExecutor();
+        }
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("kafka-ack-");
+        executor.setVirtualThreads(true);
+        return executor;
+    }
+
+    /**
+     * Enqueues batch windows on the producer pool members other than the first, which the
+     * sending thread feeds itself. When all threads are busy the sending thread enqueues the
+     * records itself, so concurrent uploads never queue behind each other here.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor kafkaPublishExecutor() {
+        ThreadPoolTaskExecutor executor = newExecutor("kafka-publish-");
+        executor.setCorePoolSize(Math.max(1, producerPoolSize - 1));
+        executor.setMaxPoolSize(Math.max(1, (producerPoolSize - 1) * maxConcurrentRuns));
+        executor.setQueueCapacity(0);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    /**
+     * Shares send capacity between concurrent uploads by tenant; weights are configured as
+     * {@code tenant=weight} pairs.
+     */
+    @Bean
+    public FairSendScheduler fairSendScheduler(MeterRegistry meterRegistry) {
+        Map<String, Double> weights = new HashMap<>();
+        for (String entry : fairSchedulingWeights) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected tenant=weight in app.ingestion.fair-scheduling.weights, got '" + entry + "'");
+            }
+            weights.put(entry.substring(0, separator).strip(), Double.parseDouble(entry.substring(separator + 1).strip()));
+        }
+        return new FairSendScheduler(fairSchedulingCapacity, weights, meterRegistry);
+    }
+
+    private ThreadPoolTaskExecutor newExecutor(String threadNamePrefix) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(threadNamePrefix);
+        if (virtualThreads) {
+            executor.setThreadFactory(Thread.ofVirtual().name(threadNamePrefix, 0).factory());
+        }
+        return executor;
+    }
+}
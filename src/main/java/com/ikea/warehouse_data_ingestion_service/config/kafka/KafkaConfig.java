@@ -1,24 +1,36 @@
 package com.ikea.warehouse_data_ingestion_service.config.kafka;
 
+import com.ikea.warehouse_data_ingestion_service.serialization.EventFormat;
+import com.ikea.warehouse_data_ingestion_service.service.producer.ProducerProfile;
+import com.ikea.warehouse_data_ingestion_service.service.producer.ProducerTemplates;
+import com.ikea.warehouse_data_ingestion_service.service.producer.TransactionalProducers;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.*;
 import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
-import org.springframework.kafka.support.serializer.JsonSerializer;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.IntFunction;
 
 @Slf4j
 @Configuration
@@ -44,32 +56,180 @@ public class KafkaConfig {
     @Value("${spring.kafka.producer.linger-ms}")
     private Integer lingerMs;
 
+    @Value("${spring.kafka.producer.compression-type:none}")
+    private String compressionType;
+
+    @Value("${spring.kafka.producer.buffer-memory:33554432}")
+    private Long bufferMemory;
+
+    @Value("${app.kafka.value-format:json}")
+    private EventFormat valueFormat;
+
+    @Value("${app.kafka.profiles.low-latency.batch-size:16384}")
+    private Integer lowLatencyBatchSize;
+
+    @Value("${app.kafka.profiles.low-latency.linger-ms:0}")
+    private Integer lowLatencyLingerMs;
+
+    @Value("${app.kafka.profiles.low-latency.compression-type:none}")
+    private String lowLatencyCompressionType;
+
+    @Value("${app.kafka.profiles.bulk.batch-size:524288}")
+    private Integer bulkBatchSize;
+
+    @Value("${app.kafka.profiles.bulk.linger-ms:100}")
+    private Integer bulkLingerMs;
+
+    @Value("${app.kafka.profiles.bulk.compression-type:zstd}")
+    private String bulkCompressionType;
+
+    @Value("${app.kafka.profiles.bulk.buffer-memory:67108864}")
+    private Long bulkBufferMemory;
+
+    @Value("${app.kafka.producer-pool.size:1}")
+    private Integer producerPoolSize;
+
+    @Value("${app.kafka.transactions.producers:4}")
+    private Integer transactionalProducers;
+
+    @Value("${app.kafka.transactions.id-prefix:warehouse-ingestion-tx-}")
+    private String transactionIdPrefix;
+
+    @Value("${app.kafka.transactions.timeout:5m}")
+    private Duration transactionTimeout;
+
+    @Value("${app.kafka.transactions.acquire-timeout:30s}")
+    private Duration transactionAcquireTimeout;
+
+    /**
+     * Balanced profile, configured by {@code spring.kafka.producer.*}.
+     */
     @Bean
     public ProducerFactory<String, Object> producerFactory() {
+        return balancedProducerFactory(0);
+    }
+
+    @Bean
+    public ProducerFactory<String, Object> lowLatencyProducerFactory() {
+        return lowLatencyProducerFactory(0);
+    }
+
+    @Bean
+    public ProducerFactory<String, Object> bulkProducerFactory() {
+        return bulkProducerFactory(0);
+    }
+
+    private ProducerFactory<String, Object> balancedProducerFactory(int poolIndex) {
+        return producerFactory(ProducerProfile.BALANCED, poolIndex, batchSize, lingerMs, compressionType, bufferMemory);
+    }
+
+    private ProducerFactory<String, Object> lowLatencyProducerFactory(int poolIndex) {
+        return producerFactory(ProducerProfile.LOW_LATENCY, poolIndex, lowLatencyBatchSize, lowLatencyLingerMs, lowLatencyCompressionType, bufferMemory);
+    }
+
+    private ProducerFactory<String, Object> bulkProducerFactory(int poolIndex) {
+        return producerFactory(ProducerProfile.BULK, poolIndex, bulkBatchSize, bulkLingerMs, bulkCompressionType, bulkBufferMemory);
+    }
+
+    private ProducerFactory<String, Object> producerFactory(ProducerProfile profile, int poolIndex, Integer batchSize, Integer lingerMs,
+                                                            String compressionType, Long bufferMemory) {
+        Map<String, Object> configProps = producerConfig(batchSize, lingerMs, compressionType, bufferMemory);
+        configProps.put(ProducerConfig.CLIENT_ID_CONFIG, "warehouse-ingestion-" + profile.tag() + (poolIndex > 0 ? "-" + poolIndex : ""));
+        if (poolIndex == 0) {
+            log.info("Kafka producer profile {}: batch.size={}, linger.ms={}, compression={}, value format {}, {} producer(s)",
+                    profile.tag(), batchSize, lingerMs, compressionType, valueFormat, producerPoolSize);
+        }
+        return new DefaultKafkaProducerFactory<>(configProps);
+    }
+
+    private Map<String, Object> producerConfig(Integer batchSize, Integer lingerMs, String compressionType, Long bufferMemory) {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, valueFormat.serializer());
         configProps.put(ProducerConfig.ACKS_CONFIG, "all");
         configProps.put(ProducerConfig.RETRIES_CONFIG, retryAttempts);
         configProps.put(ProducerConfig.RETRY_BACKOFF_MS_CONFIG, backoffDelay);
         configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
         configProps.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
-        configProps.put(ProducerConfig.BUFFER_MEMORY_CONFIG, 33554432);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        configProps.put(ProducerConfig.BUFFER_MEMORY_CONFIG, bufferMemory);
         configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
         configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
         configProps.put(ProducerConfig.INTERCEPTOR_CLASSES_CONFIG, "io.opentelemetry.instrumentation.kafkaclients.v2_6.TracingProducerInterceptor");
+        return configProps;
+    }
 
-        return new DefaultKafkaProducerFactory<>(configProps);
+    /**
+     * Producers of atomic uploads. They use the bulk tuning, since a transaction's records are
+     * only awaited at commit, and each gets the transactional id {@code <id-prefix><n>}. The
+     * prefix must be unique per instance: a producer that reuses an id fences the previous one.
+     */
+    @Bean
+    public TransactionalProducers transactionalProducers(MeterRegistry meterRegistry) {
+        Map<String, Object> configProps = producerConfig(bulkBatchSize, bulkLingerMs, bulkCompressionType, bulkBufferMemory);
+        configProps.put(ProducerConfig.CLIENT_ID_CONFIG, "warehouse-ingestion-tx");
+        configProps.put(ProducerConfig.TRANSACTION_TIMEOUT_CONFIG, (int) transactionTimeout.toMillis());
+        DefaultKafkaProducerFactory<String, Object> producerFactory = new DefaultKafkaProducerFactory<>(configProps);
+        producerFactory.setTransactionIdPrefix(transactionIdPrefix);
+        log.info("Kafka transactional producers: {} with transactional id prefix {}, transaction timeout {}",
+                transactionalProducers, transactionIdPrefix, transactionTimeout);
+        return new TransactionalProducers(producerFactory, transactionalProducers, transactionAcquireTimeout, meterRegistry);
     }
 
     @Bean
+    @Primary
     public KafkaTemplate<String, Object> kafkaTemplate() {
-        KafkaTemplate<String, Object> kafkaTemplate = new KafkaTemplate<>(producerFactory());
+        return kafkaTemplate(producerFactory());
+    }
+
+    @Bean
+    public KafkaTemplate<String, Object> lowLatencyKafkaTemplate() {
+        return kafkaTemplate(lowLatencyProducerFactory());
+    }
+
+    @Bean
+    public KafkaTemplate<String, Object> bulkKafkaTemplate() {
+        return kafkaTemplate(bulkProducerFactory());
+    }
+
+    private static KafkaTemplate<String, Object> kafkaTemplate(ProducerFactory<String, Object> producerFactory) {
+        KafkaTemplate<String, Object> kafkaTemplate = new KafkaTemplate<>(producerFactory);
         kafkaTemplate.setObservationEnabled(true);
         return kafkaTemplate;
     }
 
+    /**
+     * Article -> products reverse index; compacted so the latest chunk per key is retained indefinitely.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.ingestion.article-index.enabled", havingValue = "true")
+    public NewTopic articleProductsTopic(@Value("${app.kafka.topics.article-products}") String topic) {
+        return TopicBuilder.name(topic).compact().build();
+    }
+
+    /**
+     * Every profile gets {@code app.kafka.producer-pool.size} producers: its template bean plus
+     * one extra template, with its own producer, per additional pool member.
+     */
+    @Bean
+    public ProducerTemplates producerTemplates() {
+        return new ProducerTemplates()
+                .register(ProducerProfile.LOW_LATENCY, pool(lowLatencyKafkaTemplate(), this::lowLatencyProducerFactory), lowLatencyBatchSize)
+                .register(ProducerProfile.BALANCED, pool(kafkaTemplate(), this::balancedProducerFactory), batchSize)
+                .register(ProducerProfile.BULK, pool(bulkKafkaTemplate(), this::bulkProducerFactory), bulkBatchSize);
+    }
+
+    private List<KafkaTemplate<String, Object>> pool(KafkaTemplate<String, Object> template,
+                                                     IntFunction<ProducerFactory<String, Object>> producerFactory) {
+        List<KafkaTemplate<String, Object>> pool = new ArrayList<>(producerPoolSize);
+        pool.add(template);
+        for (int poolIndex = 1; poolIndex < producerPoolSize; poolIndex++) {
+            pool.add(kafkaTemplate(producerFactory.apply(poolIndex)));
+        }
+        return pool;
+    }
+
     @Bean
     public ConsumerFactory<String, Object> consumerFactory() {
         Map<String, Object> configProps = new HashMap<>();
@@ -77,8 +237,8 @@ public class KafkaConfig {
         configProps.put(ConsumerConfig.GROUP_ID_CONFIG, consumerGroupId);
         configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
-        configProps.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class);
-        configProps.put(JsonDeserializer.TRUSTED_PACKAGES, "com.ikea.warehouse_data_ingestion_service.data");
+        configProps.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, valueFormat.deserializer());
+        configProps.put(JsonDeserializer.TRUSTED_PACKAGES, "com.ikea.warehouse_data_ingestion_service.data.*");
         configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
         configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
 
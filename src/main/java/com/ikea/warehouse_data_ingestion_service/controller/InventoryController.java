@@ -1,24 +1,42 @@
 package com.ikea.warehouse_data_ingestion_service.controller;
 
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
+import com.ikea.warehouse_data_ingestion_service.data.dto.IngestionJobResponse;
 import com.ikea.warehouse_data_ingestion_service.service.InventoryService;
+import com.ikea.warehouse_data_ingestion_service.service.UploadOutcome;
+import com.ikea.warehouse_data_ingestion_service.service.admission.UploadAdmission;
+import com.ikea.warehouse_data_ingestion_service.service.job.IngestionJob;
+import com.ikea.warehouse_data_ingestion_service.service.job.IngestionJobService;
+import com.ikea.warehouse_data_ingestion_service.service.job.IngestionJobStatus;
+import com.ikea.warehouse_data_ingestion_service.service.parser.RecordFormat;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.Compression;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionProgress;
+import com.ikea.warehouse_data_ingestion_service.util.RequestHeaders;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.parameters.RequestBody;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.time.Instant;
 
+import static com.ikea.warehouse_data_ingestion_service.util.ErrorMessages.INVENTORY_DUPLICATE_SKIPPED;
 import static com.ikea.warehouse_data_ingestion_service.util.ErrorMessages.INVENTORY_UPLOADED_SUCCESS;
 
 @RequiredArgsConstructor
@@ -30,24 +48,110 @@ import static com.ikea.warehouse_data_ingestion_service.util.ErrorMessages.INVEN
 public class InventoryController {
 
     private final InventoryService inventoryService;
+    private final IngestionJobService ingestionJobService;
+    private final UploadAdmission uploadAdmission;
 
     @Operation(
         summary = "Upload inventory JSON file",
-        description = "Uploads and processes an inventory JSON file containing article stock information"
+        description = "Uploads and processes an inventory JSON file (optionally gzip- or zstd-compressed) containing article stock information"
     )
-    @ApiResponse(responseCode = "200", description = "Inventory uploaded successfully")
+    @ApiResponse(responseCode = "200", description = "Inventory uploaded successfully, or skipped as a duplicate of a recent upload")
     @ApiResponse(responseCode = "400", description = "Invalid file format or content")
+    @ApiResponse(responseCode = "429", description = "Producers are saturated; retry after the Retry-After delay")
     @PostMapping(value = "/upload", consumes = "multipart/form-data")
     public ResponseEntity<String> uploadInventory(
+        @Parameter(description = "Warehouse (tenant) the upload belongs to; concurrent uploads share send capacity fairly by warehouse")
+        @RequestHeader(value = RequestHeaders.WAREHOUSE_ID, required = false) String warehouseId,
         @Parameter(description = "Inventory JSON file", required = true, content = @Content(mediaType = "application/json"))
         @RequestParam("file") MultipartFile file) throws IOException {
 
         log.info("Starting inventory file upload - filename: {}, size: {} bytes",
                    file.getOriginalFilename(), file.getSize());
 
-        inventoryService.proceedFile(file, Instant.now());
+        IngestionProgress progress = progress(file.getSize(), warehouseId);
+        UploadAdmission.Ticket ticket = uploadAdmission.admit(FileType.INVENTORY, file.getSize());
+        try {
+            if (inventoryService.proceedFile(file, Instant.now(), progress) == UploadOutcome.DUPLICATE_SKIPPED) {
+                return ResponseEntity.ok(INVENTORY_DUPLICATE_SKIPPED);
+            }
+            ticket.published(progress);
+        } finally {
+            ticket.close();
+        }
+
+        return ResponseEntity.ok(INVENTORY_UPLOADED_SUCCESS);
+    }
+
+    @Operation(
+        summary = "Upload inventory as a raw JSON or NDJSON request body",
+        description = "Reads the request body straight from the connection: a inventory JSON document (application/json) "
+                + "or one inventory item per line (application/x-ndjson). "
+                + "Nothing is buffered or written to disk before parsing starts. gzip or zstd bodies are inflated on the fly"
+    )
+    @ApiResponse(responseCode = "200", description = "Inventory uploaded successfully")
+    @ApiResponse(responseCode = "400", description = "Invalid JSON or content")
+    @ApiResponse(responseCode = "429", description = "Producers are saturated; retry after the Retry-After delay")
+    @PostMapping(value = "/upload/raw", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<String> uploadInventoryRaw(
+        @Parameter(description = "Warehouse (tenant) the upload belongs to; concurrent uploads share send capacity fairly by warehouse")
+        @RequestHeader(value = RequestHeaders.WAREHOUSE_ID, required = false) String warehouseId,
+        @Parameter(hidden = true) @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+        @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, required = false) Long contentLength,
+        @Parameter(description = "gzip or zstd if the body is compressed")
+        @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+        @RequestBody(description = "Inventory JSON document or NDJSON records", required = true, content = {
+            @Content(mediaType = MediaType.APPLICATION_JSON_VALUE), @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE)})
+        InputStream body) throws IOException {
+
+        log.info("Starting raw inventory upload - content type: {}, encoding: {}, size: {} bytes", contentType, contentEncoding, contentLength);
+
+        long sizeBytes = contentLength != null ? contentLength : -1;
+        IngestionProgress progress = progress(sizeBytes, warehouseId);
+        UploadAdmission.Ticket ticket = uploadAdmission.admit(FileType.INVENTORY, sizeBytes);
+        try {
+            inventoryService.ingest(body, RecordFormat.of(contentType), Compression.fromContentEncoding(contentEncoding), Instant.now(),
+                    progress);
+            ticket.published(progress);
+        } finally {
+            ticket.close();
+        }
 
         return ResponseEntity.ok(INVENTORY_UPLOADED_SUCCESS);
     }
 
+    @Operation(
+        summary = "Upload inventory JSON file asynchronously",
+        description = "Accepts the inventory file and processes it in the background. Poll the returned job via /api/v1/jobs/{jobId}"
+    )
+    @ApiResponse(responseCode = "200", description = "Identical to a recent upload; job finished as SKIPPED")
+    @ApiResponse(responseCode = "202", description = "Upload accepted, processing started")
+    @ApiResponse(responseCode = "400", description = "Empty file")
+    @ApiResponse(responseCode = "503", description = "Job queue is full")
+    @PostMapping(value = "/upload/async", consumes = "multipart/form-data")
+    public ResponseEntity<IngestionJobResponse> uploadInventoryAsync(
+        @Parameter(description = "Warehouse (tenant) the upload belongs to; concurrent uploads share send capacity fairly by warehouse")
+        @RequestHeader(value = RequestHeaders.WAREHOUSE_ID, required = false) String warehouseId,
+        @Parameter(description = "Inventory JSON file", required = true, content = @Content(mediaType = "application/json"))
+        @RequestParam("file") MultipartFile file) throws IOException {
+
+        Instant fileCreatedAt = Instant.now();
+        IngestionJob job = ingestionJobService.submit(FileType.INVENTORY, file,
+                (inputStream, progress) -> {
+                    progress.useTenant(warehouseId);
+                    inventoryService.ingest(inputStream, fileCreatedAt, progress);
+                });
+
+        if (job.getStatus() == IngestionJobStatus.SKIPPED) {
+            return ResponseEntity.ok(job.toResponse());
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/jobs/" + job.getId()))
+                .body(job.toResponse());
+    }
+
+    private static IngestionProgress progress(long sizeBytes, String warehouseId) {
+        IngestionProgress progress = new IngestionProgress(sizeBytes);
+        progress.useTenant(warehouseId);
+        return progress;
+    }
 }
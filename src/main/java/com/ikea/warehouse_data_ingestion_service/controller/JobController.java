@@ -0,0 +1,41 @@
+package com.ikea.warehouse_data_ingestion_service.controller;
+
+import com.ikea.warehouse_data_ingestion_service.data.dto.IngestionJobResponse;
+import com.ikea.warehouse_data_ingestion_service.exception.JobNotFoundException;
+import com.ikea.warehouse_data_ingestion_service.service.job.IngestionJob;
+import com.ikea.warehouse_data_ingestion_service.service.job.IngestionJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/jobs")
+@Tag(name = "Job Controller", description = "Reports progress of asynchronous uploads")
+public class JobController {
+
+    private final IngestionJobService ingestionJobService;
+
+    @Operation(
+        summary = "Get upload job status",
+        description = "Returns the status and record counters (parsed, sent, acked, failed) of an asynchronous upload"
+    )
+    @ApiResponse(responseCode = "200", description = "Job found")
+    @ApiResponse(responseCode = "404", description = "Unknown or evicted job")
+    @GetMapping("/{jobId}")
+    public ResponseEntity<IngestionJobResponse> getJob(
+        @Parameter(description = "Job identifier returned by the async upload endpoint", required = true)
+        @PathVariable String jobId) {
+
+        return ResponseEntity.ok(ingestionJobService.find(jobId)
+                .map(IngestionJob::toResponse)
+                .orElseThrow(() -> new JobNotFoundException(jobId)));
+    }
+}
@@ -1,23 +1,40 @@
 package com.ikea.warehouse_data_ingestion_service.controller;
 
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
+import com.ikea.warehouse_data_ingestion_service.data.dto.IngestionJobResponse;
 import com.ikea.warehouse_data_ingestion_service.service.ProductService;
+import com.ikea.warehouse_data_ingestion_service.service.UploadOutcome;
+import com.ikea.warehouse_data_ingestion_service.service.admission.UploadAdmission;
+import com.ikea.warehouse_data_ingestion_service.service.job.IngestionJob;
+import com.ikea.warehouse_data_ingestion_service.service.job.IngestionJobService;
+import com.ikea.warehouse_data_ingestion_service.service.job.IngestionJobStatus;
+import com.ikea.warehouse_data_ingestion_service.service.parser.RecordFormat;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.Compression;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionProgress;
 import com.ikea.warehouse_data_ingestion_service.util.ErrorMessages;
+import com.ikea.warehouse_data_ingestion_service.util.RequestHeaders;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.parameters.RequestBody;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.time.Instant;
 
 @Slf4j
@@ -29,15 +46,20 @@ import java.time.Instant;
 public class ProductController {
 
     private final ProductService productService;
+    private final IngestionJobService ingestionJobService;
+    private final UploadAdmission uploadAdmission;
 
     @Operation(
         summary = "Upload products JSON file",
-        description = "Uploads and processes a products JSON file containing product definitions and their required articles"
+        description = "Uploads and processes a products JSON file (optionally gzip- or zstd-compressed) containing product definitions and their required articles"
     )
-    @ApiResponse(responseCode = "200", description = "Products uploaded successfully")
+    @ApiResponse(responseCode = "200", description = "Products uploaded successfully, or skipped as a duplicate of a recent upload")
     @ApiResponse(responseCode = "400", description = "Invalid file format or content")
+    @ApiResponse(responseCode = "429", description = "Producers are saturated; retry after the Retry-After delay")
     @PostMapping(value = "/upload", consumes = "multipart/form-data")
     public ResponseEntity<String> uploadProducts(
+        @Parameter(description = "Warehouse (tenant) the upload belongs to; concurrent uploads share send capacity fairly by warehouse")
+        @RequestHeader(value = RequestHeaders.WAREHOUSE_ID, required = false) String warehouseId,
         @Parameter(
             description = "Products JSON file",
             required = true,
@@ -48,9 +70,90 @@ public class ProductController {
         log.info("Starting product file upload - filename: {}, size: {} bytes",
                    file.getOriginalFilename(), file.getSize());
 
-        productService.proceedFile(file, Instant.now());
+        IngestionProgress progress = progress(file.getSize(), warehouseId);
+        UploadAdmission.Ticket ticket = uploadAdmission.admit(FileType.PRODUCTS, file.getSize());
+        try {
+            if (productService.proceedFile(file, Instant.now(), progress) == UploadOutcome.DUPLICATE_SKIPPED) {
+                return ResponseEntity.ok(ErrorMessages.PRODUCTS_DUPLICATE_SKIPPED);
+            }
+            ticket.published(progress);
+        } finally {
+            ticket.close();
+        }
+
+        return ResponseEntity.ok(ErrorMessages.PRODUCTS_UPLOADED_SUCCESS);
+    }
+
+    @Operation(
+        summary = "Upload products as a raw JSON or NDJSON request body",
+        description = "Reads the request body straight from the connection: a products JSON document (application/json) "
+                + "or one product per line (application/x-ndjson). "
+                + "Nothing is buffered or written to disk before parsing starts. gzip or zstd bodies are inflated on the fly"
+    )
+    @ApiResponse(responseCode = "200", description = "Products uploaded successfully")
+    @ApiResponse(responseCode = "400", description = "Invalid JSON or content")
+    @ApiResponse(responseCode = "429", description = "Producers are saturated; retry after the Retry-After delay")
+    @PostMapping(value = "/upload/raw", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<String> uploadProductsRaw(
+        @Parameter(description = "Warehouse (tenant) the upload belongs to; concurrent uploads share send capacity fairly by warehouse")
+        @RequestHeader(value = RequestHeaders.WAREHOUSE_ID, required = false) String warehouseId,
+        @Parameter(hidden = true) @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+        @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, required = false) Long contentLength,
+        @Parameter(description = "gzip or zstd if the body is compressed")
+        @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+        @RequestBody(description = "Products JSON document or NDJSON records", required = true, content = {
+            @Content(mediaType = MediaType.APPLICATION_JSON_VALUE), @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE)})
+        InputStream body) throws IOException {
+
+        log.info("Starting raw product upload - content type: {}, encoding: {}, size: {} bytes", contentType, contentEncoding, contentLength);
+
+        long sizeBytes = contentLength != null ? contentLength : -1;
+        IngestionProgress progress = progress(sizeBytes, warehouseId);
+        UploadAdmission.Ticket ticket = uploadAdmission.admit(FileType.PRODUCTS, sizeBytes);
+        try {
+            productService.ingest(body, RecordFormat.of(contentType), Compression.fromContentEncoding(contentEncoding), Instant.now(),
+                    progress);
+            ticket.published(progress);
+        } finally {
+            ticket.close();
+        }
 
         return ResponseEntity.ok(ErrorMessages.PRODUCTS_UPLOADED_SUCCESS);
     }
 
+    @Operation(
+        summary = "Upload products JSON file asynchronously",
+        description = "Accepts the products file and processes it in the background. Poll the returned job via /api/v1/jobs/{jobId}"
+    )
+    @ApiResponse(responseCode = "200", description = "Identical to a recent upload; job finished as SKIPPED")
+    @ApiResponse(responseCode = "202", description = "Upload accepted, processing started")
+    @ApiResponse(responseCode = "400", description = "Empty file")
+    @ApiResponse(responseCode = "503", description = "Job queue is full")
+    @PostMapping(value = "/upload/async", consumes = "multipart/form-data")
+    public ResponseEntity<IngestionJobResponse> uploadProductsAsync(
+        @Parameter(description = "Warehouse (tenant) the upload belongs to; concurrent uploads share send capacity fairly by warehouse")
+        @RequestHeader(value = RequestHeaders.WAREHOUSE_ID, required = false) String warehouseId,
+        @Parameter(description = "Products JSON file", required = true, content = @Content(mediaType = "application/json"))
+        @RequestParam("file") MultipartFile file) throws IOException {
+
+        Instant fileCreatedAt = Instant.now();
+        IngestionJob job = ingestionJobService.submit(FileType.PRODUCTS, file,
+                (inputStream, progress) -> {
+                    progress.useTenant(warehouseId);
+                    productService.ingest(inputStream, fileCreatedAt, progress);
+                });
+
+        if (job.getStatus() == IngestionJobStatus.SKIPPED) {
+            return ResponseEntity.ok(job.toResponse());
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/jobs/" + job.getId()))
+                .body(job.toResponse());
+    }
+
+    private static IngestionProgress progress(long sizeBytes, String warehouseId) {
+        IngestionProgress progress = new IngestionProgress(sizeBytes);
+        progress.useTenant(warehouseId);
+        return progress;
+    }
 }
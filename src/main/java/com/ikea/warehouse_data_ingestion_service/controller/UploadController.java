@@ -0,0 +1,148 @@
+package com.ikea.warehouse_data_ingestion_service.controller;
+
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
+import com.ikea.warehouse_data_ingestion_service.data.dto.IngestionJobResponse;
+import com.ikea.warehouse_data_ingestion_service.data.dto.UploadSessionResponse;
+import com.ikea.warehouse_data_ingestion_service.service.InventoryService;
+import com.ikea.warehouse_data_ingestion_service.service.ProductService;
+import com.ikea.warehouse_data_ingestion_service.service.job.IngestionJob;
+import com.ikea.warehouse_data_ingestion_service.service.job.IngestionJobStatus;
+import com.ikea.warehouse_data_ingestion_service.service.job.IngestionTask;
+import com.ikea.warehouse_data_ingestion_service.service.upload.ContentRange;
+import com.ikea.warehouse_data_ingestion_service.service.upload.UploadSession;
+import com.ikea.warehouse_data_ingestion_service.service.upload.UploadSessionService;
+import com.ikea.warehouse_data_ingestion_service.util.RequestHeaders;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Instant;
+
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/uploads")
+@Tag(name = "Upload Controller", description = "Resumable chunked uploads for very large files")
+public class UploadController {
+
+    private final UploadSessionService uploadSessionService;
+    private final InventoryService inventoryService;
+    private final ProductService productService;
+
+    @Operation(
+        summary = "Start a resumable upload",
+        description = "Creates an upload session. Send the file with PUT /api/v1/uploads/{uploadId} chunks, then commit it"
+    )
+    @ApiResponse(responseCode = "201", description = "Upload session created")
+    @ApiResponse(responseCode = "413", description = "Declared size exceeds the maximum upload size")
+    @PostMapping
+    public ResponseEntity<UploadSessionResponse> startUpload(
+        @Parameter(description = "Warehouse (tenant) the upload belongs to; concurrent uploads share send capacity fairly by warehouse")
+        @RequestHeader(value = RequestHeaders.WAREHOUSE_ID, required = false) String warehouseId,
+        @Parameter(description = "Type of the file", required = true) @RequestParam FileType fileType,
+        @Parameter(description = "Original file name") @RequestParam(required = false) String filename,
+        @Parameter(description = "File size in bytes, if known up front") @RequestParam(required = false) Long size) throws IOException {
+
+        UploadSession session = uploadSessionService.start(fileType, filename, size, warehouseId);
+        return ResponseEntity.created(URI.create("/api/v1/uploads/" + session.getId()))
+                .body(session.toResponse(uploadSessionService.getSessionTtl()));
+    }
+
+    @Operation(
+        summary = "Append a chunk",
+        description = "Appends the request body at the byte range given by Content-Range (e.g. 'bytes 0-8388607/*'). "
+                + "The range must start at the current offset of the upload"
+    )
+    @ApiResponse(responseCode = "200", description = "Chunk appended; the response carries the new offset")
+    @ApiResponse(responseCode = "400", description = "Invalid Content-Range or chunk body shorter than its range")
+    @ApiResponse(responseCode = "404", description = "Unknown, committed or expired upload")
+    @ApiResponse(responseCode = "409", description = "Chunk does not start at the current offset")
+    @PutMapping("/{uploadId}")
+    public ResponseEntity<UploadSessionResponse> appendChunk(
+        @Parameter(description = "Upload identifier", required = true) @PathVariable String uploadId,
+        @Parameter(description = "Byte range of the chunk, 'bytes <first>-<last>/<total or *>'", required = true)
+        @RequestHeader(HttpHeaders.CONTENT_RANGE) String contentRange,
+        InputStream body) throws IOException {
+
+        UploadSession session = uploadSessionService.append(uploadId, ContentRange.parse(contentRange), body);
+        return ResponseEntity.ok(session.toResponse(uploadSessionService.getSessionTtl()));
+    }
+
+    @Operation(
+        summary = "Get upload offset",
+        description = "Returns how many bytes of the upload have been received, i.e. where to resume"
+    )
+    @ApiResponse(responseCode = "200", description = "Upload found")
+    @ApiResponse(responseCode = "404", description = "Unknown, committed or expired upload")
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<UploadSessionResponse> getUpload(
+        @Parameter(description = "Upload identifier", required = true) @PathVariable String uploadId) {
+
+        return ResponseEntity.ok(uploadSessionService.get(uploadId).toResponse(uploadSessionService.getSessionTtl()));
+    }
+
+    @Operation(
+        summary = "Commit a resumable upload",
+        description = "Processes the received file in the background. Poll the returned job via /api/v1/jobs/{jobId}"
+    )
+    @ApiResponse(responseCode = "200", description = "Identical to a recent upload; job finished as SKIPPED")
+    @ApiResponse(responseCode = "202", description = "Upload committed, processing started")
+    @ApiResponse(responseCode = "400", description = "Upload is empty or fewer bytes than declared were received")
+    @ApiResponse(responseCode = "404", description = "Unknown, committed or expired upload")
+    @ApiResponse(responseCode = "503", description = "Job queue is full; the upload stays open and the commit can be retried")
+    @PostMapping("/{uploadId}/commit")
+    public ResponseEntity<IngestionJobResponse> commitUpload(
+        @Parameter(description = "Upload identifier", required = true) @PathVariable String uploadId) throws IOException {
+
+        UploadSession session = uploadSessionService.get(uploadId);
+        IngestionJob job = uploadSessionService.commit(uploadId, task(session.getFileType(), session.getTenant(), Instant.now()));
+
+        if (job.getStatus() == IngestionJobStatus.SKIPPED) {
+            return ResponseEntity.ok(job.toResponse());
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/jobs/" + job.getId()))
+                .body(job.toResponse());
+    }
+
+    @Operation(summary = "Abort a resumable upload", description = "Discards the upload session and the bytes received so far")
+    @ApiResponse(responseCode = "204", description = "Upload discarded")
+    @ApiResponse(responseCode = "404", description = "Unknown, committed or expired upload")
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<Void> abortUpload(
+        @Parameter(description = "Upload identifier", required = true) @PathVariable String uploadId) {
+
+        uploadSessionService.abort(uploadId);
+        return ResponseEntity.noContent().build();
+    }
+
+    private IngestionTask task(FileType fileType, String warehouseId, Instant fileCreatedAt) {
+        return switch (fileType) {
+            case INVENTORY -> (inputStream, progress) -> {
+                progress.useTenant(warehouseId);
+                inventoryService.ingest(inputStream, fileCreatedAt, progress);
+            };
+            case PRODUCTS -> (inputStream, progress) -> {
+                progress.useTenant(warehouseId);
+                productService.ingest(inputStream, fileCreatedAt, progress);
+            };
+        };
+    }
+}
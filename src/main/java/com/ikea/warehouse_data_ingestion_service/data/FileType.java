@@ -0,0 +1,9 @@
+package com.ikea.warehouse_data_ingestion_service.data;
+
+/**
+ * Kind of warehouse file accepted by the ingestion endpoints.
+ */
+public enum FileType {
+    INVENTORY,
+    PRODUCTS
+}
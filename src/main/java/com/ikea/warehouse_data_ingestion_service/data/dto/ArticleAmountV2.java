@@ -0,0 +1,18 @@
+package com.ikea.warehouse_data_ingestion_service.data.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.ikea.warehouse_data_ingestion_service.service.parser.IntQuantityDeserializer;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Article requirement with a typed quantity (v2 event schema)")
+public record ArticleAmountV2(
+    @JsonProperty("art_id")
+    @Schema(description = "Article identifier", example = "1")
+    String artId,
+
+    @JsonProperty(value = "amount_of", required = true)
+    @JsonDeserialize(using = IntQuantityDeserializer.class)
+    @Schema(description = "Required quantity of this article, a non-negative integer or quoted integer", example = "4")
+    int amountOf
+) {}
@@ -0,0 +1,57 @@
+package com.ikea.warehouse_data_ingestion_service.data.dto;
+
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+
+@Schema(description = "Status and progress of an asynchronous upload job")
+public record IngestionJobResponse(
+    @Schema(description = "Job identifier", example = "5f0c6f7e-3c1a-4b8e-9d3e-0e7a2b1c4d5f")
+    String jobId,
+
+    @Schema(description = "Type of the uploaded file", example = "INVENTORY")
+    FileType fileType,
+
+    @Schema(description = "Original file name", example = "inventory.json")
+    String filename,
+
+    @Schema(description = "Uploaded file size in bytes", example = "1048576")
+    long sizeBytes,
+
+    @Schema(description = "Job status (QUEUED, RUNNING, SUCCEEDED, FAILED, SKIPPED)", example = "RUNNING")
+    String status,
+
+    @Schema(description = "Records read from the file so far", example = "12000")
+    long parsed,
+
+    @Schema(description = "Records handed to the Kafka producer so far", example = "11500")
+    long sent,
+
+    @Schema(description = "Records acknowledged by the broker so far", example = "11000")
+    long acked,
+
+    @Schema(description = "Records the broker failed to acknowledge", example = "0")
+    long failed,
+
+    @Schema(description = "Records skipped because they were unchanged since the last upload (delta mode)", example = "11760")
+    long suppressed,
+
+    @Schema(description = "Records whose key already appeared earlier in the same file", example = "3")
+    long duplicates,
+
+    @Schema(description = "Kafka producer profile the upload was routed to", example = "bulk")
+    String producerProfile,
+
+    @Schema(description = "Failure reason when status is FAILED, skip reason when SKIPPED")
+    String error,
+
+    @Schema(description = "When the upload was accepted")
+    Instant submittedAt,
+
+    @Schema(description = "When processing started")
+    Instant startedAt,
+
+    @Schema(description = "When processing finished")
+    Instant finishedAt
+) {}
@@ -0,0 +1,21 @@
+package com.ikea.warehouse_data_ingestion_service.data.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.ikea.warehouse_data_ingestion_service.service.parser.LongQuantityDeserializer;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Inventory item with a typed stock quantity (v2 event schema)")
+public record InventoryItemV2(
+    @JsonProperty("art_id")
+    @Schema(description = "Unique article identifier", example = "1")
+    String artId,
+
+    @Schema(description = "Name of the inventory item", example = "leg")
+    String name,
+
+    @JsonProperty(required = true)
+    @JsonDeserialize(using = LongQuantityDeserializer.class)
+    @Schema(description = "Available stock quantity, a non-negative integer or quoted integer", example = "12")
+    long stock
+) {}
@@ -0,0 +1,16 @@
+package com.ikea.warehouse_data_ingestion_service.data.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Product definition with typed article quantities (v2 event schema)")
+public record ProductV2(
+    @Schema(description = "Product name", example = "Dining Chair")
+    String name,
+
+    @JsonProperty("contain_articles")
+    @Schema(description = "List of articles required to build this product")
+    List<ArticleAmountV2> containArticles
+) {}
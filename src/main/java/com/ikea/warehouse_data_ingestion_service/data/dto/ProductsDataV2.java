@@ -0,0 +1,11 @@
+package com.ikea.warehouse_data_ingestion_service.data.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Wrapper for products data read with the v2 event schema")
+public record ProductsDataV2(
+    @Schema(description = "List of products")
+    List<ProductV2> products
+) {}
@@ -0,0 +1,30 @@
+package com.ikea.warehouse_data_ingestion_service.data.dto;
+
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+
+@Schema(description = "State of a resumable upload")
+public record UploadSessionResponse(
+    @Schema(description = "Upload session identifier", example = "0b9d3c1e-7f2a-4c5d-8e6f-1a2b3c4d5e6f")
+    String uploadId,
+
+    @Schema(description = "Type of the uploaded file", example = "INVENTORY")
+    FileType fileType,
+
+    @Schema(description = "Original file name", example = "inventory.json")
+    String filename,
+
+    @Schema(description = "Bytes received so far; the next chunk must start at this offset", example = "8388608")
+    long offset,
+
+    @Schema(description = "Declared file size in bytes, null until known", example = "734003200")
+    Long totalBytes,
+
+    @Schema(description = "When the upload session was started")
+    Instant createdAt,
+
+    @Schema(description = "When the session expires if no further chunk arrives")
+    Instant expiresAt
+) {}
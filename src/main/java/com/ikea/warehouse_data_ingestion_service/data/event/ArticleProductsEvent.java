@@ -0,0 +1,20 @@
+package com.ikea.warehouse_data_ingestion_service.data.event;
+
+import lombok.Builder;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * One chunk of the article -> products reverse index, keyed {@code <artId>/<chunk>} on the
+ * compacted article-products topic. The products of an article are the union of its chunks
+ * {@code 0 .. chunkCount - 1}; chunks at or above {@code chunkCount} are stale.
+ */
+@Builder(toBuilder = true)
+public record ArticleProductsEvent(
+        String artId,
+        int chunk,
+        int chunkCount,
+        List<String> products,
+        Instant fileCreatedAt
+) {}
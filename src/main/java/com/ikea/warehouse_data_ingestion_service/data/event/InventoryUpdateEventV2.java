@@ -0,0 +1,9 @@
+package com.ikea.warehouse_data_ingestion_service.data.event;
+
+import lombok.Builder;
+
+import java.time.Instant;
+
+/** {@link InventoryUpdateEvent} with {@code stock} as a number. */
+@Builder(toBuilder = true)
+public record InventoryUpdateEventV2(String artId, String name, long stock, Instant fileCreatedAt) {}
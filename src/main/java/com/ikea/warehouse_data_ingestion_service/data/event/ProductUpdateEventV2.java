@@ -0,0 +1,15 @@
+package com.ikea.warehouse_data_ingestion_service.data.event;
+
+import com.ikea.warehouse_data_ingestion_service.data.dto.ArticleAmountV2;
+import lombok.Builder;
+
+import java.time.Instant;
+import java.util.List;
+
+/** {@link ProductUpdateEvent} with every {@code amountOf} as a number. */
+@Builder(toBuilder = true)
+public record ProductUpdateEventV2(
+        String name,
+        List<ArticleAmountV2> containArticles,
+        Instant fileCreatedAt
+) {}
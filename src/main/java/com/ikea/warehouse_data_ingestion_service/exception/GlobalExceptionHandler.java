@@ -5,6 +5,7 @@ import com.ikea.warehouse_data_ingestion_service.util.ErrorMessages;
 import io.swagger.v3.oas.annotations.Hidden;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.HttpMediaTypeNotSupportedException;
@@ -17,6 +18,7 @@ import org.springframework.web.multipart.MultipartException;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.RejectedExecutionException;
 
 import static com.ikea.warehouse_data_ingestion_service.util.ErrorTypes.FILE_PROCESSING_ERROR;
 
@@ -128,6 +130,73 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
     }
 
+    @ExceptionHandler(JobNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleJobNotFoundException(JobNotFoundException ex, HttpServletRequest request) {
+        log.warn("Job lookup failed: {}", ex.getMessage());
+        ErrorResponse errorResponse = new ErrorResponse(
+            "JOB_NOT_FOUND",
+            ex.getMessage(),
+            HttpStatus.NOT_FOUND.value(),
+            request.getRequestURI(),
+            LocalDateTime.now().format(TIMESTAMP_FORMATTER)
+        );
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+    }
+
+    @ExceptionHandler(UploadSessionNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleUploadSessionNotFoundException(UploadSessionNotFoundException ex, HttpServletRequest request) {
+        log.warn("Upload lookup failed: {}", ex.getMessage());
+        ErrorResponse errorResponse = new ErrorResponse(
+            "UPLOAD_NOT_FOUND",
+            ex.getMessage(),
+            HttpStatus.NOT_FOUND.value(),
+            request.getRequestURI(),
+            LocalDateTime.now().format(TIMESTAMP_FORMATTER)
+        );
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+    }
+
+    @ExceptionHandler(UploadConflictException.class)
+    public ResponseEntity<ErrorResponse> handleUploadConflictException(UploadConflictException ex, HttpServletRequest request) {
+        log.warn("Upload chunk rejected: {}", ex.getMessage());
+        ErrorResponse errorResponse = new ErrorResponse(
+            "UPLOAD_OFFSET_CONFLICT",
+            ex.getMessage(),
+            HttpStatus.CONFLICT.value(),
+            request.getRequestURI(),
+            LocalDateTime.now().format(TIMESTAMP_FORMATTER)
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<ErrorResponse> handleRejectedExecutionException(RejectedExecutionException ex, HttpServletRequest request) {
+        log.warn("Upload rejected, ingestion busy: {}", ex.getMessage());
+        ErrorResponse errorResponse = new ErrorResponse(
+            "INGESTION_BUSY",
+            ErrorMessages.INGESTION_BUSY,
+            HttpStatus.SERVICE_UNAVAILABLE.value(),
+            request.getRequestURI(),
+            LocalDateTime.now().format(TIMESTAMP_FORMATTER)
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(errorResponse);
+    }
+
+    @ExceptionHandler(IngestionOverloadedException.class)
+    public ResponseEntity<ErrorResponse> handleIngestionOverloadedException(IngestionOverloadedException ex, HttpServletRequest request) {
+        log.warn("Upload not admitted: {}", ex.getMessage());
+        ErrorResponse errorResponse = new ErrorResponse(
+            "INGESTION_OVERLOADED",
+            ex.getMessage(),
+            HttpStatus.TOO_MANY_REQUESTS.value(),
+            request.getRequestURI(),
+            LocalDateTime.now().format(TIMESTAMP_FORMATTER)
+        );
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter().toSeconds()))
+                .body(errorResponse);
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ErrorResponse> handleIllegalArgumentException(IllegalArgumentException ex, HttpServletRequest request) {
         log.error("Illegal Argument Exception occurred: {}", ex.getMessage(), ex);
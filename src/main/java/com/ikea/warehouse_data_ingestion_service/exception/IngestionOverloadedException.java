@@ -0,0 +1,21 @@
+package com.ikea.warehouse_data_ingestion_service.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Thrown when an upload is not admitted because the producers are already saturated.
+ * {@code retryAfter} is the estimated time until the upload would be admitted. This exception
+ * will be caught by the GlobalExceptionHandler and converted to a proper ErrorResponse.
+ */
+@Getter
+public class IngestionOverloadedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public IngestionOverloadedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
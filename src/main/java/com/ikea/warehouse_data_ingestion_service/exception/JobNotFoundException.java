@@ -0,0 +1,12 @@
+package com.ikea.warehouse_data_ingestion_service.exception;
+
+/**
+ * Thrown when a job id is unknown or its state has already been evicted.
+ * This exception will be caught by the GlobalExceptionHandler and converted to a proper ErrorResponse.
+ */
+public class JobNotFoundException extends RuntimeException {
+
+    public JobNotFoundException(String jobId) {
+        super("Job not found: " + jobId);
+    }
+}
@@ -0,0 +1,19 @@
+package com.ikea.warehouse_data_ingestion_service.exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a chunk does not start at the current offset of its resumable upload, or while
+ * another request is still writing to the same upload. {@code offset} is where the client has to
+ * resume. This exception will be caught by the GlobalExceptionHandler and converted to a proper ErrorResponse.
+ */
+@Getter
+public class UploadConflictException extends RuntimeException {
+
+    private final long offset;
+
+    public UploadConflictException(String message, long offset) {
+        super(message);
+        this.offset = offset;
+    }
+}
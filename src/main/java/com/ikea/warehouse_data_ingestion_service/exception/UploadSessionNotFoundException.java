@@ -0,0 +1,12 @@
+package com.ikea.warehouse_data_ingestion_service.exception;
+
+/**
+ * Thrown when a resumable upload id is unknown, already committed or expired.
+ * This exception will be caught by the GlobalExceptionHandler and converted to a proper ErrorResponse.
+ */
+public class UploadSessionNotFoundException extends RuntimeException {
+
+    public UploadSessionNotFoundException(String uploadId) {
+        super("Upload not found: " + uploadId);
+    }
+}
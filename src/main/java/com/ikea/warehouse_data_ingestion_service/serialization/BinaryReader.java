@@ -0,0 +1,66 @@
+package com.ikea.warehouse_data_ingestion_service.serialization;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Reads the primitive encodings written by {@link BinaryWriter}.
+ */
+final class BinaryReader {
+
+    private final byte[] buffer;
+    private int position;
+
+    BinaryReader(byte[] buffer, int offset) {
+        this.buffer = buffer;
+        this.position = offset;
+    }
+
+    int readByte() {
+        if (position >= buffer.length) {
+            throw new SerializationException("Unexpected end of binary event at offset " + position);
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Malformed varint at offset " + position);
+    }
+
+    long readZigZag() {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    String readString() {
+        long length = readVarLong();
+        if (length == 0) {
+            return null;
+        }
+        int byteCount = Math.toIntExact(length - 1);
+        if (position + byteCount > buffer.length) {
+            throw new SerializationException("String of " + byteCount + " bytes exceeds binary event at offset " + position);
+        }
+        String value = new String(buffer, position, byteCount, StandardCharsets.UTF_8);
+        position += byteCount;
+        return value;
+    }
+
+    Instant readInstant() {
+        if (readByte() == 0) {
+            return null;
+        }
+        long epochSecond = readZigZag();
+        return Instant.ofEpochSecond(epochSecond, readVarLong());
+    }
+}
@@ -0,0 +1,155 @@
+package com.ikea.warehouse_data_ingestion_service.serialization;
+
+import com.ikea.warehouse_data_ingestion_service.data.dto.ArticleAmount;
+import com.ikea.warehouse_data_ingestion_service.data.dto.ArticleAmountV2;
+import com.ikea.warehouse_data_ingestion_service.data.event.InventoryUpdateEvent;
+import com.ikea.warehouse_data_ingestion_service.data.event.InventoryUpdateEventV2;
+import com.ikea.warehouse_data_ingestion_service.data.event.ProductUpdateEvent;
+import com.ikea.warehouse_data_ingestion_service.data.event.ProductUpdateEventV2;
+import lombok.experimental.UtilityClass;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary encoding of the update events. Every payload starts with a two byte header:
+ * {@link #MAGIC} followed by the schema id, so consumers can decode it without a schema
+ * registry and tell it apart from JSON payloads. Fields are written positionally in record
+ * component order; a new field or type change gets a new schema id and old ids stay decodable.
+ */
+@UtilityClass
+public class EventBinaryCodec {
+
+    /** First byte of every binary payload; never the first byte of a JSON document. */
+    public static final byte MAGIC = (byte) 0xEB;
+
+    public static final byte INVENTORY_UPDATE_V1 = 1;
+    public static final byte PRODUCT_UPDATE_V1 = 2;
+    public static final byte INVENTORY_UPDATE_V2 = 3;
+    public static final byte PRODUCT_UPDATE_V2 = 4;
+
+    private static final int HEADER_LENGTH = 2;
+
+    public static boolean supports(Object event) {
+        return event instanceof InventoryUpdateEvent || event instanceof ProductUpdateEvent
+                || event instanceof InventoryUpdateEventV2 || event instanceof ProductUpdateEventV2;
+    }
+
+    public static boolean isBinary(byte[] payload) {
+        return payload != null && payload.length >= HEADER_LENGTH && payload[0] == MAGIC;
+    }
+
+    public static byte schemaId(Object event) {
+        return switch (event) {
+            case InventoryUpdateEvent ignored -> INVENTORY_UPDATE_V1;
+            case ProductUpdateEvent ignored -> PRODUCT_UPDATE_V1;
+            case InventoryUpdateEventV2 ignored -> INVENTORY_UPDATE_V2;
+            case ProductUpdateEventV2 ignored -> PRODUCT_UPDATE_V2;
+            default -> throw new SerializationException("No binary schema for " + event.getClass().getName());
+        };
+    }
+
+    public static byte[] encode(Object event) {
+        BinaryWriter writer = new BinaryWriter(64);
+        writer.writeByte(MAGIC);
+        writer.writeByte(schemaId(event));
+        switch (event) {
+            case InventoryUpdateEvent inventory -> writeInventoryV1(writer, inventory);
+            case ProductUpdateEvent product -> writeProductV1(writer, product);
+            case InventoryUpdateEventV2 inventory -> writeInventoryV2(writer, inventory);
+            case ProductUpdateEventV2 product -> writeProductV2(writer, product);
+            default -> throw new SerializationException("No binary schema for " + event.getClass().getName());
+        }
+        return writer.toByteArray();
+    }
+
+    public static Object decode(byte[] payload) {
+        if (!isBinary(payload)) {
+            throw new SerializationException("Payload is not a binary event");
+        }
+        BinaryReader reader = new BinaryReader(payload, HEADER_LENGTH);
+        return switch (payload[1]) {
+            case INVENTORY_UPDATE_V1 -> readInventoryV1(reader);
+            case PRODUCT_UPDATE_V1 -> readProductV1(reader);
+            case INVENTORY_UPDATE_V2 -> readInventoryV2(reader);
+            case PRODUCT_UPDATE_V2 -> readProductV2(reader);
+            default -> throw new SerializationException("Unknown binary event schema id " + payload[1]);
+        };
+    }
+
+    private static void writeInventoryV1(BinaryWriter writer, InventoryUpdateEvent event) {
+        writer.writeString(event.artId());
+        writer.writeString(event.name());
+        writer.writeString(event.stock());
+        writer.writeInstant(event.fileCreatedAt());
+    }
+
+    private static InventoryUpdateEvent readInventoryV1(BinaryReader reader) {
+        return new InventoryUpdateEvent(reader.readString(), reader.readString(), reader.readString(), reader.readInstant());
+    }
+
+    private static void writeProductV1(BinaryWriter writer, ProductUpdateEvent event) {
+        writer.writeString(event.name());
+        List<ArticleAmount> articles = event.containArticles();
+        // count + 1, so 0 encodes a null list
+        writer.writeVarLong(articles == null ? 0 : articles.size() + 1L);
+        if (articles != null) {
+            for (ArticleAmount article : articles) {
+                writer.writeString(article.artId());
+                writer.writeString(article.amountOf());
+            }
+        }
+        writer.writeInstant(event.fileCreatedAt());
+    }
+
+    private static ProductUpdateEvent readProductV1(BinaryReader reader) {
+        String name = reader.readString();
+        long count = reader.readVarLong();
+        List<ArticleAmount> articles = null;
+        if (count > 0) {
+            articles = new ArrayList<>((int) Math.min(count - 1, 1024));
+            for (long i = 1; i < count; i++) {
+                articles.add(new ArticleAmount(reader.readString(), reader.readString()));
+            }
+        }
+        return new ProductUpdateEvent(name, articles, reader.readInstant());
+    }
+
+    private static void writeInventoryV2(BinaryWriter writer, InventoryUpdateEventV2 event) {
+        writer.writeString(event.artId());
+        writer.writeString(event.name());
+        writer.writeVarLong(event.stock());
+        writer.writeInstant(event.fileCreatedAt());
+    }
+
+    private static InventoryUpdateEventV2 readInventoryV2(BinaryReader reader) {
+        return new InventoryUpdateEventV2(reader.readString(), reader.readString(), reader.readVarLong(), reader.readInstant());
+    }
+
+    private static void writeProductV2(BinaryWriter writer, ProductUpdateEventV2 event) {
+        writer.writeString(event.name());
+        List<ArticleAmountV2> articles = event.containArticles();
+        writer.writeVarLong(articles == null ? 0 : articles.size() + 1L);
+        if (articles != null) {
+            for (ArticleAmountV2 article : articles) {
+                writer.writeString(article.artId());
+                writer.writeVarLong(article.amountOf());
+            }
+        }
+        writer.writeInstant(event.fileCreatedAt());
+    }
+
+    private static ProductUpdateEventV2 readProductV2(BinaryReader reader) {
+        String name = reader.readString();
+        long count = reader.readVarLong();
+        List<ArticleAmountV2> articles = null;
+        if (count > 0) {
+            articles = new ArrayList<>((int) Math.min(count - 1, 1024));
+            for (long i = 1; i < count; i++) {
+                articles.add(new ArticleAmountV2(reader.readString(), (int) reader.readVarLong()));
+            }
+        }
+        return new ProductUpdateEventV2(name, articles, reader.readInstant());
+    }
+}
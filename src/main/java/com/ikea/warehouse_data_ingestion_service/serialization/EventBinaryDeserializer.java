@@ -0,0 +1,43 @@
+package com.ikea.warehouse_data_ingestion_service.serialization;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.Map;
+
+/**
+ * Counterpart of {@link EventBinarySerializer}. Payloads starting with {@link EventBinaryCodec#MAGIC}
+ * are decoded by schema id; anything else is handed to a {@link JsonDeserializer}, so a consumer
+ * keeps working while producers switch between formats.
+ */
+public class EventBinaryDeserializer implements Deserializer<Object> {
+
+    private final JsonDeserializer<Object> fallback = new JsonDeserializer<>();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        fallback.configure(configs, isKey);
+    }
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (EventBinaryCodec.isBinary(data)) {
+            return EventBinaryCodec.decode(data);
+        }
+        return headers == null ? fallback.deserialize(topic, data) : fallback.deserialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        fallback.close();
+    }
+}
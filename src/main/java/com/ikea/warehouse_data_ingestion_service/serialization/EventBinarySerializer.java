@@ -0,0 +1,49 @@
+package com.ikea.warehouse_data_ingestion_service.serialization;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Map;
+
+/**
+ * Value serializer writing {@link EventBinaryCodec} payloads for the update events. The schema id
+ * is also added as the {@value #SCHEMA_ID_HEADER} record header so consumers can route without
+ * reading the payload. Any other value type falls back to JSON.
+ */
+public class EventBinarySerializer implements Serializer<Object> {
+
+    public static final String SCHEMA_ID_HEADER = "event-schema-id";
+
+    private final JsonSerializer<Object> fallback = new JsonSerializer<>();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        fallback.configure(configs, isKey);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        return serialize(topic, null, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (data == null) {
+            return null;
+        }
+        if (!EventBinaryCodec.supports(data)) {
+            return fallback.serialize(topic, headers, data);
+        }
+        if (headers != null) {
+            headers.remove(SCHEMA_ID_HEADER);
+            headers.add(SCHEMA_ID_HEADER, new byte[]{EventBinaryCodec.schemaId(data)});
+        }
+        return EventBinaryCodec.encode(data);
+    }
+
+    @Override
+    public void close() {
+        fallback.close();
+    }
+}
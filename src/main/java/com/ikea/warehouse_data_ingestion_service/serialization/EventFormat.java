@@ -0,0 +1,38 @@
+package com.ikea.warehouse_data_ingestion_service.serialization;
+
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+/**
+ * Wire format of the event values, selected with {@code app.kafka.value-format}.
+ */
+public enum EventFormat {
+    /** Spring's reflective JSON serializer with type headers. */
+    JSON(JsonSerializer.class, JsonDeserializer.class),
+    /** {@link EventBinaryCodec} payloads; consumers still read JSON written before the switch. */
+    BINARY(EventBinarySerializer.class, EventBinaryDeserializer.class);
+
+    // Class literals of generic classes are raw, so Class<? extends Serializer<?>> would not accept them
+    @SuppressWarnings("rawtypes")
+    private final Class<? extends Serializer> serializer;
+    @SuppressWarnings("rawtypes")
+    private final Class<? extends Deserializer> deserializer;
+
+    @SuppressWarnings("rawtypes")
+    EventFormat(Class<? extends Serializer> serializer, Class<? extends Deserializer> deserializer) {
+        this.serializer = serializer;
+        this.deserializer = deserializer;
+    }
+
+    @SuppressWarnings("rawtypes")
+    public Class<? extends Serializer> serializer() {
+        return serializer;
+    }
+
+    @SuppressWarnings("rawtypes")
+    public Class<? extends Deserializer> deserializer() {
+        return deserializer;
+    }
+}
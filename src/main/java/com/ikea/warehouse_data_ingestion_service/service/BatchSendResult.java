@@ -0,0 +1,26 @@
+package com.ikea.warehouse_data_ingestion_service.service;
+
+import java.util.List;
+
+/**
+ * Outcome of {@link KafkaProducerService#sendBatch}: how many records the broker acknowledged
+ * and the keys that still failed after the bulk retries.
+ */
+public record BatchSendResult(String topic, int total, int succeeded, List<String> failedKeys) {
+
+    private static final int MAX_KEYS_IN_MESSAGE = 20;
+
+    public int failed() {
+        return failedKeys.size();
+    }
+
+    public boolean hasFailures() {
+        return !failedKeys.isEmpty();
+    }
+
+    public String failureMessage() {
+        List<String> sample = failedKeys.size() > MAX_KEYS_IN_MESSAGE ? failedKeys.subList(0, MAX_KEYS_IN_MESSAGE) : failedKeys;
+        return "%d of %d records failed to publish to %s, failed keys: %s%s".formatted(
+                failed(), total, topic, sample, failedKeys.size() > sample.size() ? " ..." : "");
+    }
+}
@@ -0,0 +1,24 @@
+package com.ikea.warehouse_data_ingestion_service.service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * How the records of one file type are read and turned into events under one {@link EventSchema}.
+ *
+ * @param documentType wrapper document deserialized as a whole in batch mode
+ * @param records      the record array of {@code documentType}
+ * @param recordType   element type of the record array, read one at a time in streaming and pipeline modes
+ * @param key          Kafka record key
+ * @param toEvent      builds the event from a record and the file creation time
+ * @param fingerprint  content fingerprint of an event for delta ingestion
+ */
+public record EventMapping<D, R, E>(Class<D> documentType,
+                             Function<D, List<R>> records,
+                             Class<R> recordType,
+                             Function<R, String> key,
+                             BiFunction<R, Instant, E> toEvent,
+                             ToLongFunction<E> fingerprint) {}
@@ -0,0 +1,14 @@
+package com.ikea.warehouse_data_ingestion_service.service;
+
+/**
+ * Shape of the events published for an upload.
+ */
+public enum EventSchema {
+    /** {@code InventoryUpdateEvent} / {@code ProductUpdateEvent}: quantities are passed through as strings. */
+    V1,
+    /**
+     * {@code InventoryUpdateEventV2} / {@code ProductUpdateEventV2}: quantities are parsed into
+     * {@code long} stock and {@code int} amounts; a malformed quantity fails the upload with 400.
+     */
+    V2
+}
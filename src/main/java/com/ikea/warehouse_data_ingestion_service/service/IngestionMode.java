@@ -0,0 +1,17 @@
+package com.ikea.warehouse_data_ingestion_service.service;
+
+/**
+ * How an uploaded file travels from the request body to Kafka.
+ */
+public enum IngestionMode {
+    /** Deserialize the whole file, build a key->event map and send it as one batch. */
+    BATCH,
+    /** Walk the record array token by token and send each event as soon as it is read. */
+    STREAMING,
+    /** Parse, map and publish on separate stages connected by bounded queues. */
+    PIPELINE,
+    /** Stream records like {@link #STREAMING} into one Kafka transaction, committed once the file is read. */
+    ATOMIC,
+    /** Stream records like {@link #STREAMING} into the local event spool; a background drainer publishes them. */
+    SPOOLED
+}
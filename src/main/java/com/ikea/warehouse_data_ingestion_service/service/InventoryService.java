@@ -1,10 +1,33 @@
 package com.ikea.warehouse_data_ingestion_service.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
 import com.ikea.warehouse_data_ingestion_service.data.dto.InventoryData;
+import com.ikea.warehouse_data_ingestion_service.data.dto.InventoryDataV2;
 import com.ikea.warehouse_data_ingestion_service.data.dto.InventoryItem;
+import com.ikea.warehouse_data_ingestion_service.data.dto.InventoryItemV2;
 import com.ikea.warehouse_data_ingestion_service.data.event.InventoryUpdateEvent;
+import com.ikea.warehouse_data_ingestion_service.data.event.InventoryUpdateEventV2;
 import com.ikea.warehouse_data_ingestion_service.exception.FileProcessingException;
+import com.ikea.warehouse_data_ingestion_service.exception.KafkaProduceFailedException;
+import com.ikea.warehouse_data_ingestion_service.service.dedup.DuplicateKeyCollapser;
+import com.ikea.warehouse_data_ingestion_service.service.dedup.KeyCollapseSession;
+import com.ikea.warehouse_data_ingestion_service.service.dedup.UploadDeduplicator;
+import com.ikea.warehouse_data_ingestion_service.service.delta.DeltaSession;
+import com.ikea.warehouse_data_ingestion_service.service.delta.DeltaTracker;
+import com.ikea.warehouse_data_ingestion_service.service.delta.Fingerprints;
+import com.ikea.warehouse_data_ingestion_service.service.metrics.IngestionMetrics;
+import com.ikea.warehouse_data_ingestion_service.service.parser.JsonRecordStreamReader;
+import com.ikea.warehouse_data_ingestion_service.service.parser.RecordFormat;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.Compression;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionPipeline;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionProgress;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionStage;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.PipelineResult;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.TimedInputStream;
+import com.ikea.warehouse_data_ingestion_service.service.producer.ProducerProfile;
+import com.ikea.warehouse_data_ingestion_service.service.producer.ProducerProfileRouter;
+import com.ikea.warehouse_data_ingestion_service.service.spool.EventSpool;
 import com.ikea.warehouse_data_ingestion_service.util.ErrorMessages;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,8 +37,12 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.time.Instant;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import static com.ikea.warehouse_data_ingestion_service.util.ErrorTypes.FILE_PROCESSING_ERROR;
 
@@ -25,26 +52,255 @@ import static com.ikea.warehouse_data_ingestion_service.util.ErrorTypes.FILE_PRO
 @RequiredArgsConstructor
 public class InventoryService {
 
+    private static final String INVENTORY_FIELD = "inventory";
+
+    private static final EventMapping<InventoryData, InventoryItem, InventoryUpdateEvent> V1 = new EventMapping<>(
+            InventoryData.class, InventoryData::inventory, InventoryItem.class, InventoryItem::artId,
+            InventoryService::toEvent, InventoryService::fingerprint);
+    private static final EventMapping<InventoryDataV2, InventoryItemV2, InventoryUpdateEventV2> V2 = new EventMapping<>(
+            InventoryDataV2.class, InventoryDataV2::inventory, InventoryItemV2.class, InventoryItemV2::artId,
+            InventoryService::toEventV2, InventoryService::fingerprintV2);
+
     private final ObjectMapper objectMapper;
     private final KafkaProducerService kafkaProducerService;
+    private final JsonRecordStreamReader recordStreamReader;
+    private final IngestionPipeline ingestionPipeline;
+    private final ProducerProfileRouter producerProfileRouter;
+    private final DeltaTracker deltaTracker;
+    private final UploadDeduplicator uploadDeduplicator;
+    private final DuplicateKeyCollapser duplicateKeyCollapser;
+    private final IngestionMetrics ingestionMetrics;
+    private final EventSpool eventSpool;
 
     @Value("${app.kafka.topics.inventory}")
     private String inventoryTopic;
 
-    public void proceedFile(MultipartFile file, Instant fileCreatedAt) throws IOException {
+    @Value("${app.ingestion.mode:batch}")
+    private IngestionMode ingestionMode = IngestionMode.BATCH;
+
+    @Value("${app.ingestion.event-schema:v1}")
+    private EventSchema eventSchema = EventSchema.V1;
+
+    /**
+     * Publishes the uploaded file unless it is identical to a recent successful upload.
+     */
+    public UploadOutcome proceedFile(MultipartFile file, Instant fileCreatedAt) throws IOException {
+        return proceedFile(file, fileCreatedAt, new IngestionProgress(ObjectUtils.isEmpty(file) ? 0 : file.getSize()));
+    }
+
+    /**
+     * Like {@link #proceedFile(MultipartFile, Instant)}, reporting into {@code progress}, e.g. with
+     * the records scheduled as its {@link IngestionProgress#tenant()}'s against concurrent uploads
+     * of other tenants.
+     */
+    public UploadOutcome proceedFile(MultipartFile file, Instant fileCreatedAt, IngestionProgress progress) throws IOException {
         if (ObjectUtils.isEmpty(file)) {
             throw new FileProcessingException(ErrorMessages.FILE_EMPTY, FILE_PROCESSING_ERROR);
         }
 
-        InventoryData inventoryData = objectMapper.readValue(file.getInputStream(), InventoryData.class);
+        String contentHash = uploadDeduplicator.digest(file);
+        if (uploadDeduplicator.isDuplicate(FileType.INVENTORY, contentHash)) {
+            return UploadOutcome.DUPLICATE_SKIPPED;
+        }
+        try (InputStream inputStream = file.getInputStream()) {
+            ingest(inputStream, fileCreatedAt, progress);
+        }
+        uploadDeduplicator.remember(FileType.INVENTORY, contentHash);
+        return UploadOutcome.PUBLISHED;
+    }
+
+    /**
+     * Publishes the inventory file read from {@code inputStream} using the configured
+     * {@link IngestionMode}, reporting record counts into {@code progress} as it goes.
+     * A gzip- or zstd-compressed file is recognised by its magic bytes and inflated while it is read.
+     */
+    public void ingest(InputStream inputStream, Instant fileCreatedAt, IngestionProgress progress) throws IOException {
+        ingest(inputStream, RecordFormat.JSON, fileCreatedAt, progress);
+    }
+
+    /**
+     * Like {@link #ingest(InputStream, Instant, IngestionProgress)} for records laid out in {@code format},
+     * e.g. a request body read directly from the connection.
+     */
+    public void ingest(InputStream inputStream, RecordFormat format, Instant fileCreatedAt, IngestionProgress progress) throws IOException {
+        ingest(inputStream, format, Compression.NONE, fileCreatedAt, progress);
+    }
+
+    /**
+     * Like {@link #ingest(InputStream, RecordFormat, Instant, IngestionProgress)} for a payload
+     * declared as {@code compression}, e.g. by its {@code Content-Encoding}. Closes {@code inputStream}.
+     */
+    public void ingest(InputStream inputStream, RecordFormat format, Compression compression, Instant fileCreatedAt,
+                       IngestionProgress progress) throws IOException {
+        ingestionMetrics.started(FileType.INVENTORY, progress);
+        try (InputStream decoded = Compression.decode(inputStream, compression, progress)) {
+            InputStream timedStream = new TimedInputStream(decoded, progress);
+            switch (ingestionMode) {
+                case STREAMING, ATOMIC, SPOOLED -> proceedStream(timedStream, format, fileCreatedAt, progress, mapping(), ingestionMode);
+                case PIPELINE -> proceedPipeline(timedStream, format, fileCreatedAt, progress, mapping());
+                default -> proceedBatch(timedStream, format, fileCreatedAt, progress, mapping());
+            }
+        } finally {
+            if (ingestionMode != IngestionMode.ATOMIC && ingestionMode != IngestionMode.SPOOLED) {
+                producerProfileRouter.recordBatchFill(progress.producerProfile());
+            }
+            ingestionMetrics.finished(FileType.INVENTORY, inventoryTopic, progress);
+        }
+    }
+
+    private <D, R, E> void proceedBatch(InputStream inputStream, RecordFormat format, Instant fileCreatedAt, IngestionProgress progress,
+                                        EventMapping<D, R, E> mapping) throws IOException {
+        long parseStarted = progress.parseStarted();
+        List<R> records = readRecords(inputStream, format, mapping);
+        progress.parseFinished(parseStarted);
+
+        long mapStart = System.nanoTime();
+        KeyCollapseSession duplicates = duplicateKeyCollapser.open(FileType.INVENTORY, progress);
+        Map<String, E> events = new LinkedHashMap<>();
+        for (R inventoryItem : records) {
+            progress.recordParsed();
+            duplicates.put(events, mapping.key().apply(inventoryItem), mapping.toEvent().apply(inventoryItem, fileCreatedAt));
+        }
+        DeltaSession delta = deltaTracker.open(FileType.INVENTORY, progress);
+        events.entrySet().removeIf(entry -> !delta.isChanged(entry.getKey(), mapping.fingerprint().applyAsLong(entry.getValue())));
+        progress.addStageNanos(IngestionStage.MAP, System.nanoTime() - mapStart);
+        ProducerProfile profile = producerProfileRouter.route(progress, events.size());
+        BatchSendResult result = kafkaProducerService.sendBatch(inventoryTopic, events, profile, progress);
+        if (result.hasFailures()) {
+            throw new KafkaProduceFailedException(result.failureMessage());
+        }
+        delta.commit();
+    }
+
+    public long proceedStream(InputStream inputStream, Instant fileCreatedAt) throws IOException {
+        return proceedStream(inputStream, fileCreatedAt, new IngestionProgress());
+    }
+
+    /**
+     * Streaming mode: walks the {@code inventory} array token by token and publishes
+     * each event as soon as its record has been read.
+     */
+    public long proceedStream(InputStream inputStream, Instant fileCreatedAt, IngestionProgress progress) throws IOException {
+        return proceedStream(inputStream, RecordFormat.JSON, fileCreatedAt, progress, mapping(), IngestionMode.STREAMING);
+    }
+
+    /**
+     * Streaming, atomic and spooled modes; in atomic mode the records are sent in one transaction
+     * that is committed after the last record was read and aborted if reading or sending fails,
+     * in spooled mode they are written to the event spool and published later.
+     */
+    private <D, R, E> long proceedStream(InputStream inputStream, RecordFormat format, Instant fileCreatedAt, IngestionProgress progress,
+                                         EventMapping<D, R, E> mapping, IngestionMode mode) throws IOException {
+        if (mode == IngestionMode.STREAMING) {
+            producerProfileRouter.route(progress, ProducerProfileRouter.UNKNOWN);
+        }
+        KeyCollapseSession duplicates = duplicateKeyCollapser.open(FileType.INVENTORY, progress);
+        DeltaSession delta = deltaTracker.open(FileType.INVENTORY, progress);
+        long count;
+        long parseStarted = progress.parseStarted();
+        try (KafkaProducerService.PublishSession session = openSession(mode, progress)) {
+            count = recordStreamReader.read(inputStream, format, INVENTORY_FIELD, mapping.recordType(), inventoryItem -> {
+                long mapStart = System.nanoTime();
+                progress.recordParsed();
+                String key = mapping.key().apply(inventoryItem);
+                E event = duplicates.admit(key) ? mapping.toEvent().apply(inventoryItem, fileCreatedAt) : null;
+                boolean changed = event != null && delta.isChanged(key, mapping.fingerprint().applyAsLong(event));
+                progress.addStageNanos(IngestionStage.MAP, System.nanoTime() - mapStart);
+                if (changed) {
+                    session.send(key, event);
+                }
+            });
+            progress.parseFinished(parseStarted);
+            session.commit();
+        }
+        delta.commit();
+        switch (mode) {
+            case ATOMIC -> log.info("Committed {} inventory records to topic {} in one transaction", count, inventoryTopic);
+            case SPOOLED -> log.info("Spooled {} inventory records for topic {}", count, inventoryTopic);
+            default -> log.info("Streamed {} inventory records to topic {}", count, inventoryTopic);
+        }
+        return count;
+    }
+
+    private KafkaProducerService.PublishSession openSession(IngestionMode mode, IngestionProgress progress) {
+        return switch (mode) {
+            case ATOMIC -> kafkaProducerService.openTransaction(inventoryTopic, progress);
+            case SPOOLED -> eventSpool.openSession(inventoryTopic, progress);
+            default -> kafkaProducerService.openStream(inventoryTopic, progress);
+        };
+    }
+
+    /**
+     * Pipeline mode: parsing, mapping and publishing of the {@code inventory} array overlap on
+     * separate stages, with the number of unacknowledged records bounded by the pipeline window.
+     */
+    public PipelineResult proceedPipeline(InputStream inputStream, Instant fileCreatedAt, IngestionProgress progress) throws IOException {
+        return proceedPipeline(inputStream, RecordFormat.JSON, fileCreatedAt, progress, mapping());
+    }
+
+    private <D, R, E> PipelineResult proceedPipeline(InputStream inputStream, RecordFormat format, Instant fileCreatedAt,
+                                                     IngestionProgress progress, EventMapping<D, R, E> mapping) throws IOException {
+        producerProfileRouter.route(progress, ProducerProfileRouter.UNKNOWN);
+        KeyCollapseSession duplicates = duplicateKeyCollapser.open(FileType.INVENTORY, progress);
+        DeltaSession delta = deltaTracker.open(FileType.INVENTORY, progress);
+        PipelineResult result = ingestionPipeline.run(inventoryTopic,
+                sink -> recordStreamReader.read(inputStream, format, INVENTORY_FIELD, mapping.recordType(), sink),
+                mapping.key(),
+                (inventoryItem, key) -> {
+                    if (!duplicates.admit(key)) {
+                        return null;
+                    }
+                    E event = mapping.toEvent().apply(inventoryItem, fileCreatedAt);
+                    return delta.isChanged(key, mapping.fingerprint().applyAsLong(event)) ? event : null;
+                },
+                progress);
+        delta.commit();
+        return result;
+    }
+
+    /** Batch mode: the whole wrapper document, or every line of an NDJSON upload. */
+    private <D, R> List<R> readRecords(InputStream inputStream, RecordFormat format, EventMapping<D, R, ?> mapping) throws IOException {
+        if (format == RecordFormat.NDJSON) {
+            List<R> records = new ArrayList<>();
+            recordStreamReader.readLines(inputStream, mapping.recordType(), records::add);
+            return records;
+        }
+        return mapping.records().apply(objectMapper.readValue(inputStream, mapping.documentType()));
+    }
+
+    private EventMapping<?, ?, ?> mapping() {
+        return eventMapping(eventSchema);
+    }
+
+    /** Reading and event mapping of inventory records under {@code eventSchema}. */
+    public static EventMapping<?, ?, ?> eventMapping(EventSchema eventSchema) {
+        return eventSchema == EventSchema.V2 ? V2 : V1;
+    }
+
+    private static InventoryUpdateEvent toEvent(InventoryItem inventoryItem, Instant fileCreatedAt) {
+        return InventoryUpdateEvent.builder()
+                .artId(inventoryItem.artId())
+                .name(inventoryItem.name())
+                .stock(inventoryItem.stock())
+                .fileCreatedAt(fileCreatedAt)
+                .build();
+    }
+
+    private static InventoryUpdateEventV2 toEventV2(InventoryItemV2 inventoryItem, Instant fileCreatedAt) {
+        return InventoryUpdateEventV2.builder()
+                .artId(inventoryItem.artId())
+                .name(inventoryItem.name())
+                .stock(inventoryItem.stock())
+                .fileCreatedAt(fileCreatedAt)
+                .build();
+    }
+
+    /** Content fingerprint for delta ingestion; {@code fileCreatedAt} changes every upload and is left out. */
+    private static long fingerprint(InventoryUpdateEvent event) {
+        return Fingerprints.of(event.name(), event.stock());
+    }
 
-        kafkaProducerService.sendBatch(inventoryTopic, inventoryData.inventory()
-                .stream()
-                .collect(Collectors.toMap(InventoryItem::artId, inventoryItem -> InventoryUpdateEvent.builder()
-                        .artId(inventoryItem.artId())
-                        .name(inventoryItem.name())
-                        .stock(inventoryItem.stock())
-                        .fileCreatedAt(fileCreatedAt)
-                        .build())));
+    private static long fingerprintV2(InventoryUpdateEventV2 event) {
+        return Fingerprints.finish(Fingerprints.mix(Fingerprints.mix(Fingerprints.start(), event.name()), event.stock()));
     }
 }
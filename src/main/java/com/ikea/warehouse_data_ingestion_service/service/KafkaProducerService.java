@@ -1,37 +1,525 @@
 package com.ikea.warehouse_data_ingestion_service.service;
 
 import com.ikea.warehouse_data_ingestion_service.exception.KafkaProduceFailedException;
-import lombok.RequiredArgsConstructor;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionProgress;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionStage;
+import com.ikea.warehouse_data_ingestion_service.service.producer.FairSendScheduler;
+import com.ikea.warehouse_data_ingestion_service.service.producer.ProducerPool;
+import com.ikea.warehouse_data_ingestion_service.service.producer.ProducerProfile;
+import com.ikea.warehouse_data_ingestion_service.service.producer.ProducerTemplates;
+import com.ikea.warehouse_data_ingestion_service.service.producer.TransactionalProducers;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntPredicate;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class KafkaProducerService {
 
-    private final KafkaTemplate<String, Object> kafkaTemplate;
-
-    public <T> void sendBatch(String topic, Map<String,T> eventMap) {
-            List<CompletableFuture<SendResult<String, Object>>> futures = new ArrayList<>();
-            eventMap.forEach((key, event) -> {
-                CompletableFuture<SendResult<String, Object>> completableFuture = kafkaTemplate.send(topic, key, event);
-                futures.add(completableFuture);
-                completableFuture.whenComplete((stringObjectSendResult, throwable) -> {
-                    if (throwable != null) {
-                        log.error("Sending kafka message failed with the following exception : {}, topic : {}, event: {}", throwable.getMessage(), topic, event);
-                        throw new KafkaProduceFailedException(throwable.getMessage(), throwable);
-                    }
-                });
+    private static final long COMPLETION_POLL_NANOS = 1_000_000;
+
+    private final ProducerTemplates producerTemplates;
+    private final Executor completionExecutor;
+    private final Executor publishExecutor;
+    private final TransactionalProducers transactionalProducers;
+    private final FairSendScheduler sendScheduler;
+
+    @Value("${app.kafka.batch.window-size:5000}")
+    private int windowSize = 5000;
+
+    @Value("${app.kafka.batch.ack-timeout:30s}")
+    private Duration ackTimeout = Duration.ofSeconds(30);
+
+    @Value("${app.kafka.batch.retry-attempts:2}")
+    private int retryAttempts = 2;
+
+    @Value("${app.kafka.batch.retry-backoff:500ms}")
+    private Duration retryBackoff = Duration.ofMillis(500);
+
+    public KafkaProducerService(ProducerTemplates producerTemplates,
+                                @Qualifier("kafkaCompletionExecutor") Executor completionExecutor,
+                                @Qualifier("kafkaPublishExecutor") Executor publishExecutor,
+                                TransactionalProducers transactionalProducers,
+                                FairSendScheduler sendScheduler) {
+        this.producerTemplates = producerTemplates;
+        this.completionExecutor = completionExecutor;
+        this.publishExecutor = publishExecutor;
+        this.transactionalProducers = transactionalProducers;
+        this.sendScheduler = sendScheduler;
+    }
+
+    public <T> BatchSendResult sendBatch(String topic, Map<String, T> eventMap) {
+        return sendBatch(topic, eventMap, ProducerProfile.BALANCED);
+    }
+
+    /**
+     * Sends {@code eventMap} in windows of {@code window-size} records. The records of a window
+     * are split by the {@link ProducerPool} member owning their partition and enqueued on all
+     * members in parallel, each member in map order. Each window is flushed
+     * and its acks are awaited for at most {@code ack-timeout}; records that failed or were not
+     * acknowledged in time are re-sent together as one bulk retry, up to {@code retry-attempts}
+     * times. Never throws for broker failures: the returned result lists the keys that still failed.
+     */
+    public <T> BatchSendResult sendBatch(String topic, Map<String, T> eventMap, ProducerProfile profile) {
+        return sendBatch(topic, eventMap, profile, new IngestionProgress());
+    }
+
+    /**
+     * Like {@link #sendBatch(String, Map, ProducerProfile)}, also counting sent, acknowledged and
+     * failed records into {@code progress} window by window, together with the time spent in the
+     * {@link IngestionStage#ENQUEUE} and {@link IngestionStage#ACK} stages.
+     */
+    public <T> BatchSendResult sendBatch(String topic, Map<String, T> eventMap, ProducerProfile profile, IngestionProgress progress) {
+        ProducerPool pool = producerTemplates.pool(profile);
+        List<String> failedKeys = new ArrayList<>();
+        List<Map.Entry<String, T>> window = new ArrayList<>(Math.min(windowSize, eventMap.size()));
+        for (Map.Entry<String, T> entry : eventMap.entrySet()) {
+            window.add(entry);
+            if (window.size() == windowSize) {
+                failedKeys.addAll(sendWindow(pool, topic, window, progress));
+                window = new ArrayList<>(windowSize);
+            }
+        }
+        if (!window.isEmpty()) {
+            failedKeys.addAll(sendWindow(pool, topic, window, progress));
+        }
+        BatchSendResult result = new BatchSendResult(topic, eventMap.size(), eventMap.size() - failedKeys.size(), failedKeys);
+        if (result.hasFailures()) {
+            log.error("Batch to topic {} finished with failures - acked: {}, failed: {}", topic, result.succeeded(), result.failed());
+        } else {
+            log.info("Batch to topic {} acknowledged - records: {}", topic, result.succeeded());
+        }
+        return result;
+    }
+
+    /**
+     * Sends one window, including its retries. Each attempt waits for send capacity of the
+     * upload's tenant granted by the {@link FairSendScheduler} and returns it once the attempt's
+     * acks are in, so the backoff before a retry holds no capacity and a retry asks only for the
+     * records that failed. Waiting for capacity counts as enqueue time.
+     */
+    private <T> List<String> sendWindow(ProducerPool pool, String topic, List<Map.Entry<String, T>> window,
+                                        IngestionProgress progress) {
+        long granted = schedule(window.size(), progress);
+        progress.addSent(window.size());
+        List<Map.Entry<String, T>> pending = window;
+        for (int attempt = 1; ; attempt++) {
+            List<Map.Entry<String, T>> failed;
+            try {
+                failed = sendAndAwaitAcks(pool, topic, pending, progress);
+            } finally {
+                sendScheduler.release(granted);
+            }
+            progress.addAcked(pending.size() - failed.size());
+            if (failed.isEmpty() || attempt > retryAttempts) {
+                return failedKeys(failed, progress);
+            }
+            log.warn("Retrying {} failed records to topic {} in bulk (retry {}/{})", failed.size(), topic, attempt, retryAttempts);
+            if (!sleep(retryBackoff)) {
+                return failedKeys(failed, progress);
+            }
+            try {
+                granted = schedule(failed.size(), progress);
+            } catch (KafkaProduceFailedException e) {
+                // interrupted while waiting for capacity
+                return failedKeys(failed, progress);
+            }
+            pending = failed;
+        }
+    }
+
+    private long schedule(int records, IngestionProgress progress) {
+        long scheduleStart = System.nanoTime();
+        long granted = sendScheduler.acquire(progress.tenant(), records);
+        progress.addStageNanos(IngestionStage.ENQUEUE, System.nanoTime() - scheduleStart);
+        return granted;
+    }
+
+    private static <T> List<String> failedKeys(List<Map.Entry<String, T>> failed, IngestionProgress progress) {
+        progress.addFailed(failed.size());
+        return failed.stream().map(Map.Entry::getKey).toList();
+    }
+
+    private <T> List<Map.Entry<String, T>> sendAndAwaitAcks(ProducerPool pool, String topic,
+                                                            List<Map.Entry<String, T>> records, IngestionProgress progress) {
+        long enqueueStart = System.nanoTime();
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        CompletableFuture<SendResult<String, Object>>[] futures = new CompletableFuture[records.size()];
+        enqueue(pool, topic, records, futures);
+        long ackStart = System.nanoTime();
+        progress.addStageNanos(IngestionStage.ENQUEUE, ackStart - enqueueStart);
+        try {
+            awaitAcks(pool, topic, futures);
+        } finally {
+            progress.addStageNanos(IngestionStage.ACK, System.nanoTime() - ackStart);
+        }
+
+        List<Map.Entry<String, T>> failed = new ArrayList<>();
+        for (int i = 0; i < futures.length; i++) {
+            CompletableFuture<SendResult<String, Object>> future = futures[i];
+            if (!future.isDone() || future.isCompletedExceptionally()) {
+                failed.add(records.get(i));
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Sends {@code records} through the pool members owning their partitions, storing each
+     * send's future at the record's index. Members are fed in parallel, the first one on the
+     * calling thread; each member receives its records in their original order.
+     */
+    private <T> void enqueue(ProducerPool pool, String topic, List<Map.Entry<String, T>> records,
+                             CompletableFuture<SendResult<String, Object>>[] futures) {
+        if (pool.size() == 1) {
+            enqueue(pool.member(0), topic, records, null, futures);
+            return;
+        }
+        int[] members = new int[records.size()];
+        for (int i = 0; i < members.length; i++) {
+            try {
+                members[i] = pool.memberFor(topic, records.get(i).getKey());
+            } catch (RuntimeException e) {
+                // the partition count could not be fetched; retried with the window's other failures
+                members[i] = -1;
+                futures[i] = CompletableFuture.failedFuture(e);
+            }
+        }
+        List<CompletableFuture<Void>> handOffs = new ArrayList<>(pool.size() - 1);
+        for (int member = 1; member < pool.size(); member++) {
+            int index = member;
+            handOffs.add(CompletableFuture.runAsync(
+                    () -> enqueue(pool.member(index), topic, records, i -> members[i] == index, futures), publishExecutor));
+        }
+        enqueue(pool.member(0), topic, records, i -> members[i] == 0, futures);
+        for (CompletableFuture<Void> handOff : handOffs) {
+            handOff.join();
+        }
+    }
+
+    private static <T> void enqueue(KafkaTemplate<String, Object> kafkaTemplate, String topic, List<Map.Entry<String, T>> records,
+                                    IntPredicate owned, CompletableFuture<SendResult<String, Object>>[] futures) {
+        for (int i = 0; i < records.size(); i++) {
+            if (owned != null && !owned.test(i)) {
+                continue;
+            }
+            Map.Entry<String, T> entry = records.get(i);
+            try {
+                futures[i] = kafkaTemplate.send(topic, entry.getKey(), entry.getValue());
+            } catch (RuntimeException e) {
+                futures[i] = CompletableFuture.failedFuture(e);
+            }
+        }
+    }
+
+    private void awaitAcks(ProducerPool pool, String topic, CompletableFuture<SendResult<String, Object>>[] futures) {
+        pool.flush();
+        try {
+            CompletableFuture.allOf(futures).get(ackTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Timed out after {} waiting for acks of {} records to topic {}", ackTimeout, futures.length, topic);
+        } catch (ExecutionException e) {
+            log.error("Sending kafka message failed with the following exception : {}, topic : {}", e.getCause().getMessage(), topic);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static boolean sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Sends a single record. Callbacks attached to the returned future run on the
+     * {@code kafkaCompletionExecutor}, not necessarily on the producer I/O thread.
+     */
+    public CompletableFuture<SendResult<String, Object>> send(String topic, String key, Object event) {
+        return send(topic, key, event, ProducerProfile.BALANCED);
+    }
+
+    public CompletableFuture<SendResult<String, Object>> send(String topic, String key, Object event, ProducerProfile profile) {
+        return producerTemplates.pool(profile).forKey(topic, key).send(topic, key, event)
+                .whenCompleteAsync((result, throwable) -> {}, completionExecutor);
+    }
+
+    /**
+     * Sends a single record of the upload tracked by {@code progress}, through the producer of
+     * its {@link IngestionProgress#producerProfile()} and within the send capacity of its
+     * {@link IngestionProgress#tenant()}. Waiting for capacity counts as enqueue time.
+     */
+    public CompletableFuture<SendResult<String, Object>> send(String topic, String key, Object event, IngestionProgress progress) {
+        long granted = sendScheduler.acquire(progress.tenant(), 1);
+        CompletableFuture<SendResult<String, Object>> future;
+        try {
+            future = send(topic, key, event, progress.producerProfile());
+        } catch (RuntimeException e) {
+            sendScheduler.release(granted);
+            throw e;
+        }
+        return future.whenComplete((result, throwable) -> sendScheduler.release(granted));
+    }
+
+    public void flush() {
+        flush(ProducerProfile.BALANCED);
+    }
+
+    public void flush(ProducerProfile profile) {
+        producerTemplates.pool(profile).flush();
+    }
+
+    /**
+     * Opens a send session for records that are produced one at a time (streaming mode).
+     * No per-record future is retained, so memory does not grow with the number of records;
+     * closing the session flushes the producer and surfaces the first failure, if any.
+     * Records go through the producer of {@link IngestionProgress#producerProfile()}.
+     */
+    public StreamSession openStream(String topic) {
+        return new StreamSession(topic, new IngestionProgress());
+    }
+
+    public StreamSession openStream(String topic, IngestionProgress progress) {
+        return new StreamSession(topic, progress);
+    }
+
+    /**
+     * Opens a Kafka transaction on a free transactional producer (atomic mode). Records sent
+     * through the session are not awaited one by one; {@link TransactionSession#commit()} flushes
+     * them and commits once, and closing an uncommitted session aborts, so consumers reading
+     * committed records see all of the session's records or none.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException if no transactional producer became free in time
+     */
+    public TransactionSession openTransaction(String topic, IngestionProgress progress) {
+        if (transactionalProducers == null) {
+            throw new IllegalStateException("Transactional producers are not configured");
+        }
+        return new TransactionSession(topic, progress);
+    }
+
+    /**
+     * Records published one at a time by a streaming, atomic or spooled upload; spooled uploads
+     * write to the {@link com.ikea.warehouse_data_ingestion_service.service.spool.EventSpool}.
+     */
+    public interface PublishSession extends AutoCloseable {
+
+        void send(String key, Object event);
+
+        long sent();
+
+        /** Called once every record was sent; makes the records final where the session supports it. */
+        void commit();
+
+        @Override
+        void close();
+    }
+
+    public final class StreamSession implements PublishSession {
+
+        private final String topic;
+        private final IngestionProgress progress;
+        private final AtomicLong sent = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong pending = new AtomicLong();
+        private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+
+        private StreamSession(String topic, IngestionProgress progress) {
+            this.topic = topic;
+            this.progress = progress;
+        }
+
+        public void send(String key, Object event) {
+            sent.incrementAndGet();
+            pending.incrementAndGet();
+            progress.recordSent();
+            CompletableFuture<SendResult<String, Object>> future;
+            long enqueueStart = System.nanoTime();
+            try {
+                future = KafkaProducerService.this.send(topic, key, event, progress);
+            } catch (RuntimeException e) {
+                pending.decrementAndGet();
+                throw e;
+            } finally {
+                progress.addStageNanos(IngestionStage.ENQUEUE, System.nanoTime() - enqueueStart);
+            }
+            future.whenComplete((result, throwable) -> {
+                if (throwable != null) {
+                    failed.incrementAndGet();
+                    progress.recordFailed();
+                    firstFailure.compareAndSet(null, throwable);
+                    log.error("Sending kafka message failed with the following exception : {}, topic : {}, key: {}", throwable.getMessage(), topic, key);
+                } else {
+                    progress.recordAcked();
+                }
+                pending.decrementAndGet();
             });
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+        }
+
+        public long sent() {
+            return sent.get();
+        }
+
+        public long failed() {
+            return failed.get();
+        }
+
+        /** Nothing to commit: records are final once acknowledged, and {@link #close()} waits for that. */
+        @Override
+        public void commit() {
+        }
+
+        @Override
+        public void close() {
+            long drainStart = System.nanoTime();
+            try {
+                flush(progress.producerProfile());
+                awaitPending();
+            } finally {
+                progress.addStageNanos(IngestionStage.ACK, System.nanoTime() - drainStart);
+            }
+            Throwable failure = firstFailure.get();
+            if (failure != null) {
+                throw new KafkaProduceFailedException(
+                        "%d of %d records failed to publish to %s: %s".formatted(failed.get(), sent.get(), topic, failure.getMessage()),
+                        failure);
+            }
+        }
+
+        private void awaitPending() {
+            // completion callbacks may still be running on the completion executor
+            long deadline = System.nanoTime() + ackTimeout.toNanos();
+            while (pending.get() > 0) {
+                if (System.nanoTime() - deadline > 0) {
+                    throw new KafkaProduceFailedException(
+                            "Timed out after %s waiting for %d acks from %s".formatted(ackTimeout, pending.get(), topic));
+                }
+                LockSupport.parkNanos(COMPLETION_POLL_NANOS);
+            }
+        }
     }
 
+    public final class TransactionSession implements PublishSession {
+
+        private final String topic;
+        private final IngestionProgress progress;
+        private final Producer<String, Object> producer;
+        private final AtomicLong sent = new AtomicLong();
+        private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+        private boolean committed;
+
+        private TransactionSession(String topic, IngestionProgress progress) {
+            this.topic = topic;
+            this.progress = progress;
+            this.producer = transactionalProducers.acquire();
+            try {
+                producer.beginTransaction();
+            } catch (RuntimeException e) {
+                transactionalProducers.release(producer);
+                throw new KafkaProduceFailedException("Could not begin a transaction for %s: %s".formatted(topic, e.getMessage()), e);
+            }
+        }
+
+        @Override
+        public void send(String key, Object event) {
+            sent.incrementAndGet();
+            progress.recordSent();
+            long enqueueStart = System.nanoTime();
+            long granted = sendScheduler.acquire(progress.tenant(), 1);
+            try {
+                producer.send(new ProducerRecord<>(topic, key, event), (metadata, exception) -> {
+                    sendScheduler.release(granted);
+                    if (exception != null) {
+                        firstFailure.compareAndSet(null, exception);
+                    }
+                });
+            } catch (RuntimeException e) {
+                sendScheduler.release(granted);
+                throw e;
+            } finally {
+                progress.addStageNanos(IngestionStage.ENQUEUE, System.nanoTime() - enqueueStart);
+            }
+        }
+
+        @Override
+        public long sent() {
+            return sent.get();
+        }
+
+        /**
+         * Flushes and commits the transaction; every record counts as acknowledged once it is
+         * committed. If a send failed or the commit fails, the transaction is aborted.
+         *
+         * @throws KafkaProduceFailedException if the transaction could not be committed
+         */
+        @Override
+        public void commit() {
+            Throwable failure = firstFailure.get();
+            if (failure != null) {
+                throw new KafkaProduceFailedException(
+                        "Sending to %s failed, transaction of %d records aborted: %s".formatted(topic, sent.get(), failure.getMessage()), failure);
+            }
+            long commitStart = System.nanoTime();
+            try {
+                producer.commitTransaction();
+            } catch (RuntimeException e) {
+                progress.addStageNanos(IngestionStage.ACK, System.nanoTime() - commitStart);
+                throw new KafkaProduceFailedException(
+                        "Committing %d records to %s failed: %s".formatted(sent.get(), topic, e.getMessage()), e);
+            }
+            long commitNanos = System.nanoTime() - commitStart;
+            committed = true;
+            progress.addStageNanos(IngestionStage.ACK, commitNanos);
+            progress.addAcked(sent.get());
+            transactionalProducers.recordCompletion(topic, true, commitNanos);
+        }
+
+        /** Aborts the transaction unless it was committed, and hands the producer back. */
+        @Override
+        public void close() {
+            try {
+                if (!committed) {
+                    abort();
+                }
+            } finally {
+                transactionalProducers.release(producer);
+            }
+        }
+
+        private void abort() {
+            progress.addFailed(sent.get());
+            long abortStart = System.nanoTime();
+            try {
+                producer.abortTransaction();
+                log.warn("Aborted the transaction of {} records to topic {}", sent.get(), topic);
+            } catch (RuntimeException e) {
+                // the producer is discarded on release; the broker aborts the transaction when it times out or the id is reused
+                log.error("Aborting the transaction of {} records to topic {} failed: {}", sent.get(), topic, e.getMessage());
+            }
+            transactionalProducers.recordCompletion(topic, false, System.nanoTime() - abortStart);
+        }
+    }
 }
@@ -1,10 +1,37 @@
 package com.ikea.warehouse_data_ingestion_service.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
+import com.ikea.warehouse_data_ingestion_service.data.dto.ArticleAmount;
+import com.ikea.warehouse_data_ingestion_service.data.dto.ArticleAmountV2;
 import com.ikea.warehouse_data_ingestion_service.data.dto.Product;
+import com.ikea.warehouse_data_ingestion_service.data.dto.ProductV2;
 import com.ikea.warehouse_data_ingestion_service.data.dto.ProductsData;
+import com.ikea.warehouse_data_ingestion_service.data.dto.ProductsDataV2;
 import com.ikea.warehouse_data_ingestion_service.data.event.ProductUpdateEvent;
+import com.ikea.warehouse_data_ingestion_service.data.event.ProductUpdateEventV2;
 import com.ikea.warehouse_data_ingestion_service.exception.FileProcessingException;
+import com.ikea.warehouse_data_ingestion_service.exception.KafkaProduceFailedException;
+import com.ikea.warehouse_data_ingestion_service.service.dedup.DuplicateKeyCollapser;
+import com.ikea.warehouse_data_ingestion_service.service.dedup.KeyCollapseSession;
+import com.ikea.warehouse_data_ingestion_service.service.dedup.UploadDeduplicator;
+import com.ikea.warehouse_data_ingestion_service.service.delta.DeltaSession;
+import com.ikea.warehouse_data_ingestion_service.service.delta.DeltaTracker;
+import com.ikea.warehouse_data_ingestion_service.service.delta.Fingerprints;
+import com.ikea.warehouse_data_ingestion_service.service.index.ArticleIndexPublisher;
+import com.ikea.warehouse_data_ingestion_service.service.index.ArticleProductIndex;
+import com.ikea.warehouse_data_ingestion_service.service.metrics.IngestionMetrics;
+import com.ikea.warehouse_data_ingestion_service.service.parser.JsonRecordStreamReader;
+import com.ikea.warehouse_data_ingestion_service.service.parser.RecordFormat;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.Compression;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionPipeline;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionProgress;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionStage;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.PipelineResult;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.TimedInputStream;
+import com.ikea.warehouse_data_ingestion_service.service.producer.ProducerProfile;
+import com.ikea.warehouse_data_ingestion_service.service.producer.ProducerProfileRouter;
+import com.ikea.warehouse_data_ingestion_service.service.spool.EventSpool;
 import com.ikea.warehouse_data_ingestion_service.util.ErrorMessages;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,8 +41,12 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.time.Instant;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import static com.ikea.warehouse_data_ingestion_service.util.ErrorTypes.FILE_PROCESSING_ERROR;
 
@@ -23,23 +54,310 @@ import static com.ikea.warehouse_data_ingestion_service.util.ErrorTypes.FILE_PRO
 @Slf4j
 @Service
 public class ProductService {
+    private static final String PRODUCTS_FIELD = "products";
+
+    private static final EventMapping<ProductsData, Product, ProductUpdateEvent> V1 = new EventMapping<>(
+            ProductsData.class, ProductsData::products, Product.class, Product::name,
+            ProductService::toEvent, ProductService::fingerprint);
+    private static final EventMapping<ProductsDataV2, ProductV2, ProductUpdateEventV2> V2 = new EventMapping<>(
+            ProductsDataV2.class, ProductsDataV2::products, ProductV2.class, ProductV2::name,
+            ProductService::toEventV2, ProductService::fingerprintV2);
+
     private final ObjectMapper objectMapper;
     private final KafkaProducerService kafkaProducerService;
-    
+    private final JsonRecordStreamReader recordStreamReader;
+    private final IngestionPipeline ingestionPipeline;
+    private final ProducerProfileRouter producerProfileRouter;
+    private final DeltaTracker deltaTracker;
+    private final UploadDeduplicator uploadDeduplicator;
+    private final DuplicateKeyCollapser duplicateKeyCollapser;
+    private final ArticleIndexPublisher articleIndexPublisher;
+    private final IngestionMetrics ingestionMetrics;
+    private final EventSpool eventSpool;
+
     @Value("${app.kafka.topics.product}")
     private String productTopic;
 
-    public void proceedFile(MultipartFile file, Instant fileCreatedAt) throws IOException {
+    @Value("${app.ingestion.mode:batch}")
+    private IngestionMode ingestionMode = IngestionMode.BATCH;
+
+    @Value("${app.ingestion.event-schema:v1}")
+    private EventSchema eventSchema = EventSchema.V1;
+
+    /**
+     * Publishes the uploaded file unless it is identical to a recent successful upload.
+     */
+    public UploadOutcome proceedFile(MultipartFile file, Instant fileCreatedAt) throws IOException {
+        return proceedFile(file, fileCreatedAt, new IngestionProgress(ObjectUtils.isEmpty(file) ? 0 : file.getSize()));
+    }
+
+    /**
+     * Like {@link #proceedFile(MultipartFile, Instant)}, reporting into {@code progress}, e.g. with
+     * the records scheduled as its {@link IngestionProgress#tenant()}'s against concurrent uploads
+     * of other tenants.
+     */
+    public UploadOutcome proceedFile(MultipartFile file, Instant fileCreatedAt, IngestionProgress progress) throws IOException {
         if (ObjectUtils.isEmpty(file)) {
             throw new FileProcessingException(ErrorMessages.FILE_EMPTY, FILE_PROCESSING_ERROR);
         }
-        ProductsData productsData = objectMapper.readValue(file.getInputStream(), ProductsData.class);
-        kafkaProducerService.sendBatch(productTopic, productsData.products()
-                .stream()
-                .collect(Collectors.toMap(Product::name, product -> ProductUpdateEvent.builder()
-                        .name(product.name())
-                        .containArticles(product.containArticles())
-                        .fileCreatedAt(fileCreatedAt)
-                        .build())));
+
+        String contentHash = uploadDeduplicator.digest(file);
+        if (uploadDeduplicator.isDuplicate(FileType.PRODUCTS, contentHash)) {
+            return UploadOutcome.DUPLICATE_SKIPPED;
+        }
+        try (InputStream inputStream = file.getInputStream()) {
+            ingest(inputStream, fileCreatedAt, progress);
+        }
+        uploadDeduplicator.remember(FileType.PRODUCTS, contentHash);
+        return UploadOutcome.PUBLISHED;
+    }
+
+    /**
+     * Publishes the products file read from {@code inputStream} using the configured
+     * {@link IngestionMode}, reporting record counts into {@code progress} as it goes.
+     * A gzip- or zstd-compressed file is recognised by its magic bytes and inflated while it is read.
+     */
+    public void ingest(InputStream inputStream, Instant fileCreatedAt, IngestionProgress progress) throws IOException {
+        ingest(inputStream, RecordFormat.JSON, fileCreatedAt, progress);
+    }
+
+    /**
+     * Like {@link #ingest(InputStream, Instant, IngestionProgress)} for records laid out in {@code format},
+     * e.g. a request body read directly from the connection.
+     */
+    public void ingest(InputStream inputStream, RecordFormat format, Instant fileCreatedAt, IngestionProgress progress) throws IOException {
+        ingest(inputStream, format, Compression.NONE, fileCreatedAt, progress);
+    }
+
+    /**
+     * Like {@link #ingest(InputStream, RecordFormat, Instant, IngestionProgress)} for a payload
+     * declared as {@code compression}, e.g. by its {@code Content-Encoding}. Closes {@code inputStream}.
+     */
+    public void ingest(InputStream inputStream, RecordFormat format, Compression compression, Instant fileCreatedAt,
+                       IngestionProgress progress) throws IOException {
+        ingestionMetrics.started(FileType.PRODUCTS, progress);
+        try (InputStream decoded = Compression.decode(inputStream, compression, progress)) {
+            InputStream timedStream = new TimedInputStream(decoded, progress);
+            switch (ingestionMode) {
+                case STREAMING, ATOMIC, SPOOLED -> proceedStream(timedStream, format, fileCreatedAt, progress, mapping(), ingestionMode);
+                case PIPELINE -> proceedPipeline(timedStream, format, fileCreatedAt, progress, mapping());
+                default -> proceedBatch(timedStream, format, fileCreatedAt, progress, mapping());
+            }
+        } finally {
+            if (ingestionMode != IngestionMode.ATOMIC && ingestionMode != IngestionMode.SPOOLED) {
+                producerProfileRouter.recordBatchFill(progress.producerProfile());
+            }
+            ingestionMetrics.finished(FileType.PRODUCTS, productTopic, progress);
+        }
+    }
+
+    private <D, R, E> void proceedBatch(InputStream inputStream, RecordFormat format, Instant fileCreatedAt, IngestionProgress progress,
+                                        EventMapping<D, R, E> mapping) throws IOException {
+        long parseStarted = progress.parseStarted();
+        List<R> records = readRecords(inputStream, format, mapping);
+        progress.parseFinished(parseStarted);
+
+        long mapStart = System.nanoTime();
+        KeyCollapseSession duplicates = duplicateKeyCollapser.open(FileType.PRODUCTS, progress);
+        Map<String, E> events = new LinkedHashMap<>();
+        for (R product : records) {
+            progress.recordParsed();
+            duplicates.put(events, mapping.key().apply(product), mapping.toEvent().apply(product, fileCreatedAt));
+        }
+        ArticleProductIndex.Builder articleIndex = articleIndexBuilder();
+        events.values().forEach(event -> addToIndex(articleIndex, event));
+        DeltaSession delta = deltaTracker.open(FileType.PRODUCTS, progress);
+        events.entrySet().removeIf(entry -> !delta.isChanged(entry.getKey(), mapping.fingerprint().applyAsLong(entry.getValue())));
+        progress.addStageNanos(IngestionStage.MAP, System.nanoTime() - mapStart);
+        ProducerProfile profile = producerProfileRouter.route(progress, events.size());
+        BatchSendResult result = kafkaProducerService.sendBatch(productTopic, events, profile, progress);
+        if (result.hasFailures()) {
+            throw new KafkaProduceFailedException(result.failureMessage());
+        }
+        delta.commit();
+        publishArticleIndex(articleIndex, fileCreatedAt);
+    }
+
+    public long proceedStream(InputStream inputStream, Instant fileCreatedAt) throws IOException {
+        return proceedStream(inputStream, fileCreatedAt, new IngestionProgress());
+    }
+
+    /**
+     * Streaming mode: walks the {@code products} array token by token and publishes
+     * each event as soon as its record has been read.
+     */
+    public long proceedStream(InputStream inputStream, Instant fileCreatedAt, IngestionProgress progress) throws IOException {
+        return proceedStream(inputStream, RecordFormat.JSON, fileCreatedAt, progress, mapping(), IngestionMode.STREAMING);
+    }
+
+    /**
+     * Streaming, atomic and spooled modes; in atomic mode the records are sent in one transaction
+     * that is committed after the last record was read and aborted if reading or sending fails,
+     * in spooled mode they are written to the event spool and published later. The article index
+     * is always sent to Kafka directly once the records are durable, as the spool cannot encode it.
+     */
+    private <D, R, E> long proceedStream(InputStream inputStream, RecordFormat format, Instant fileCreatedAt, IngestionProgress progress,
+                                         EventMapping<D, R, E> mapping, IngestionMode mode) throws IOException {
+        if (mode == IngestionMode.STREAMING) {
+            producerProfileRouter.route(progress, ProducerProfileRouter.UNKNOWN);
+        }
+        KeyCollapseSession duplicates = duplicateKeyCollapser.open(FileType.PRODUCTS, progress);
+        DeltaSession delta = deltaTracker.open(FileType.PRODUCTS, progress);
+        ArticleProductIndex.Builder articleIndex = articleIndexBuilder();
+        long count;
+        long parseStarted = progress.parseStarted();
+        try (KafkaProducerService.PublishSession session = openSession(mode, progress)) {
+            count = recordStreamReader.read(inputStream, format, PRODUCTS_FIELD, mapping.recordType(), product -> {
+                long mapStart = System.nanoTime();
+                progress.recordParsed();
+                String key = mapping.key().apply(product);
+                E event = duplicates.admit(key) ? mapping.toEvent().apply(product, fileCreatedAt) : null;
+                if (event != null) {
+                    addToIndex(articleIndex, event);
+                }
+                boolean changed = event != null && delta.isChanged(key, mapping.fingerprint().applyAsLong(event));
+                progress.addStageNanos(IngestionStage.MAP, System.nanoTime() - mapStart);
+                if (changed) {
+                    session.send(key, event);
+                }
+            });
+            progress.parseFinished(parseStarted);
+            session.commit();
+        }
+        delta.commit();
+        publishArticleIndex(articleIndex, fileCreatedAt);
+        switch (mode) {
+            case ATOMIC -> log.info("Committed {} product records to topic {} in one transaction", count, productTopic);
+            case SPOOLED -> log.info("Spooled {} product records for topic {}", count, productTopic);
+            default -> log.info("Streamed {} product records to topic {}", count, productTopic);
+        }
+        return count;
+    }
+
+    private KafkaProducerService.PublishSession openSession(IngestionMode mode, IngestionProgress progress) {
+        return switch (mode) {
+            case ATOMIC -> kafkaProducerService.openTransaction(productTopic, progress);
+            case SPOOLED -> eventSpool.openSession(productTopic, progress);
+            default -> kafkaProducerService.openStream(productTopic, progress);
+        };
+    }
+
+    /**
+     * Pipeline mode: parsing, mapping and publishing of the {@code products} array overlap on
+     * separate stages, with the number of unacknowledged records bounded by the pipeline window.
+     */
+    public PipelineResult proceedPipeline(InputStream inputStream, Instant fileCreatedAt, IngestionProgress progress) throws IOException {
+        return proceedPipeline(inputStream, RecordFormat.JSON, fileCreatedAt, progress, mapping());
+    }
+
+    private <D, R, E> PipelineResult proceedPipeline(InputStream inputStream, RecordFormat format, Instant fileCreatedAt,
+                                                     IngestionProgress progress, EventMapping<D, R, E> mapping) throws IOException {
+        producerProfileRouter.route(progress, ProducerProfileRouter.UNKNOWN);
+        KeyCollapseSession duplicates = duplicateKeyCollapser.open(FileType.PRODUCTS, progress);
+        DeltaSession delta = deltaTracker.open(FileType.PRODUCTS, progress);
+        ArticleProductIndex.Builder articleIndex = articleIndexBuilder();
+        PipelineResult result = ingestionPipeline.run(productTopic,
+                sink -> recordStreamReader.read(inputStream, format, PRODUCTS_FIELD, mapping.recordType(), sink),
+                mapping.key(),
+                (product, key) -> {
+                    if (!duplicates.admit(key)) {
+                        return null;
+                    }
+                    E event = mapping.toEvent().apply(product, fileCreatedAt);
+                    addToIndex(articleIndex, event);
+                    return delta.isChanged(key, mapping.fingerprint().applyAsLong(event)) ? event : null;
+                },
+                progress);
+        delta.commit();
+        publishArticleIndex(articleIndex, fileCreatedAt);
+        return result;
+    }
+
+    /** Builder for the article -> products reverse index, or null when it is not published. */
+    private ArticleProductIndex.Builder articleIndexBuilder() {
+        return articleIndexPublisher.isEnabled() ? ArticleProductIndex.builder() : null;
+    }
+
+    private static void addToIndex(ArticleProductIndex.Builder articleIndex, Object event) {
+        if (articleIndex == null) {
+            return;
+        }
+        switch (event) {
+            case ProductUpdateEvent product -> {
+                articleIndex.product(product.name());
+                if (product.containArticles() != null) {
+                    product.containArticles().forEach(article -> articleIndex.article(article.artId()));
+                }
+            }
+            case ProductUpdateEventV2 product -> {
+                articleIndex.product(product.name());
+                if (product.containArticles() != null) {
+                    product.containArticles().forEach(article -> articleIndex.article(article.artId()));
+                }
+            }
+            default -> throw new IllegalArgumentException("Not a product event: " + event.getClass().getName());
+        }
+    }
+
+    private void publishArticleIndex(ArticleProductIndex.Builder articleIndex, Instant fileCreatedAt) {
+        if (articleIndex != null) {
+            articleIndexPublisher.publish(articleIndex.build(), fileCreatedAt);
+        }
+    }
+
+    /** Batch mode: the whole wrapper document, or every line of an NDJSON upload. */
+    private <D, R> List<R> readRecords(InputStream inputStream, RecordFormat format, EventMapping<D, R, ?> mapping) throws IOException {
+        if (format == RecordFormat.NDJSON) {
+            List<R> records = new ArrayList<>();
+            recordStreamReader.readLines(inputStream, mapping.recordType(), records::add);
+            return records;
+        }
+        return mapping.records().apply(objectMapper.readValue(inputStream, mapping.documentType()));
+    }
+
+    private EventMapping<?, ?, ?> mapping() {
+        return eventMapping(eventSchema);
+    }
+
+    /** Reading and event mapping of product records under {@code eventSchema}. */
+    public static EventMapping<?, ?, ?> eventMapping(EventSchema eventSchema) {
+        return eventSchema == EventSchema.V2 ? V2 : V1;
+    }
+
+    private static ProductUpdateEvent toEvent(Product product, Instant fileCreatedAt) {
+        return ProductUpdateEvent.builder()
+                .name(product.name())
+                .containArticles(product.containArticles())
+                .fileCreatedAt(fileCreatedAt)
+                .build();
+    }
+
+    private static ProductUpdateEventV2 toEventV2(ProductV2 product, Instant fileCreatedAt) {
+        return ProductUpdateEventV2.builder()
+                .name(product.name())
+                .containArticles(product.containArticles())
+                .fileCreatedAt(fileCreatedAt)
+                .build();
+    }
+
+    /** Content fingerprint for delta ingestion; {@code fileCreatedAt} changes every upload and is left out. */
+    private static long fingerprint(ProductUpdateEvent event) {
+        long hash = Fingerprints.start();
+        if (event.containArticles() != null) {
+            for (ArticleAmount article : event.containArticles()) {
+                hash = Fingerprints.mix(Fingerprints.mix(hash, article.artId()), article.amountOf());
+            }
+        }
+        return Fingerprints.finish(hash);
+    }
+
+    private static long fingerprintV2(ProductUpdateEventV2 event) {
+        long hash = Fingerprints.start();
+        if (event.containArticles() != null) {
+            for (ArticleAmountV2 article : event.containArticles()) {
+                hash = Fingerprints.mix(Fingerprints.mix(hash, article.artId()), article.amountOf());
+            }
+        }
+        return Fingerprints.finish(hash);
     }
 }
@@ -0,0 +1,11 @@
+package com.ikea.warehouse_data_ingestion_service.service;
+
+/**
+ * Result of a synchronous upload.
+ */
+public enum UploadOutcome {
+    /** Every record was published and acknowledged. */
+    PUBLISHED,
+    /** The file is identical to a recent successful upload; nothing was published. */
+    DUPLICATE_SKIPPED
+}
@@ -0,0 +1,201 @@
+package com.ikea.warehouse_data_ingestion_service.service.admission;
+
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
+import com.ikea.warehouse_data_ingestion_service.exception.IngestionOverloadedException;
+import com.ikea.warehouse_data_ingestion_service.service.IngestionMode;
+import com.ikea.warehouse_data_ingestion_service.service.metrics.IngestionMetrics;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.Compression;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionProgress;
+import com.ikea.warehouse_data_ingestion_service.service.producer.ProducerTemplates;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+import static com.ikea.warehouse_data_ingestion_service.util.ErrorMessages.INGESTION_OVERLOADED;
+
+/**
+ * Admission control for synchronous uploads. Before an upload starts publishing it is checked
+ * against the producers' load and rejected with a retry delay when admitting it would stall
+ * the uploads already running:
+ * <ul>
+ *   <li>the fullest profile's {@code buffer.memory} is above {@code max-buffer-utilization};</li>
+ *   <li>more than {@code max-in-flight-records} records await their acks;</li>
+ *   <li>the bytes of the running uploads plus this one would take longer than
+ *       {@code target-latency} to publish at the observed throughput.</li>
+ * </ul>
+ * Throughput is measured here: bytes read by successfully published uploads per second during
+ * which at least one upload was running, smoothed over samples of at least a second. An upload is always admitted
+ * when nothing else runs, so a file larger than the target can still get through. In
+ * {@code spooled} mode uploads only write to the local spool, so the producer checks are skipped:
+ * the spool drainer fills the producer buffer while it catches up on a backlog, which is exactly
+ * when the spool should absorb uploads. Off unless
+ * {@code app.ingestion.admission.enabled} is set; every upload is admitted then.
+ */
+@Slf4j
+@Component
+public class UploadAdmission {
+
+    private static final long SAMPLE_NANOS = Duration.ofSeconds(1).toNanos();
+    private static final double SMOOTHING = 0.3;
+
+    private final ProducerTemplates producerTemplates;
+    private final IngestionMetrics ingestionMetrics;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier nanoTime;
+
+    @Value("${app.ingestion.admission.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.ingestion.mode:batch}")
+    private IngestionMode ingestionMode = IngestionMode.BATCH;
+
+    @Value("${app.ingestion.admission.target-latency:30s}")
+    private Duration targetLatency = Duration.ofSeconds(30);
+
+    @Value("${app.ingestion.admission.max-buffer-utilization:0.9}")
+    private double maxBufferUtilization = 0.9;
+
+    @Value("${app.ingestion.admission.max-in-flight-records:1000000}")
+    private long maxInFlightRecords = 1_000_000;
+
+    @Value("${app.ingestion.admission.max-retry-after:60s}")
+    private Duration maxRetryAfter = Duration.ofSeconds(60);
+
+    private int uploadsInProgress;
+    private long bytesInProgress;
+    private long lastTransitionNanos;
+    private long sampleBusyNanos;
+    private long sampleBytes;
+    private double bytesPerSecond;
+
+    @Autowired
+    public UploadAdmission(ProducerTemplates producerTemplates, IngestionMetrics ingestionMetrics, MeterRegistry meterRegistry) {
+        this(producerTemplates, ingestionMetrics, meterRegistry, System::nanoTime);
+    }
+
+    UploadAdmission(ProducerTemplates producerTemplates, IngestionMetrics ingestionMetrics, MeterRegistry meterRegistry,
+                    LongSupplier nanoTime) {
+        this.producerTemplates = producerTemplates;
+        this.ingestionMetrics = ingestionMetrics;
+        this.meterRegistry = meterRegistry;
+        this.nanoTime = nanoTime;
+        Gauge.builder("ingestion.admission.throughput", this, UploadAdmission::throughput)
+                .description("Upload bytes published per second while uploads were running, as used for admission")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admits an upload of {@code sizeBytes} (negative if unknown, which only the load checks
+     * apply to). The returned ticket must be closed once the upload has finished.
+     *
+     * @throws IngestionOverloadedException if the upload should be retried later
+     */
+    public synchronized Ticket admit(FileType fileType, long sizeBytes) {
+        if (!enabled) {
+            return new Ticket(-1);
+        }
+        accrueBusyTime();
+        long size = Math.max(0, sizeBytes);
+        double drainSeconds = bytesPerSecond > 0 ? bytesInProgress / bytesPerSecond : 0;
+
+        if (ingestionMode != IngestionMode.SPOOLED) {
+            double bufferUtilization = producerTemplates.bufferUtilization();
+            if (bufferUtilization >= maxBufferUtilization) {
+                throw reject(fileType, "buffer", "producer buffer %.0f%% full".formatted(bufferUtilization * 100), drainSeconds);
+            }
+            long inFlight = ingestionMetrics.inFlight();
+            if (inFlight >= maxInFlightRecords) {
+                throw reject(fileType, "in_flight", "%d records awaiting acks".formatted(inFlight), drainSeconds);
+            }
+        }
+        if (uploadsInProgress > 0 && bytesPerSecond > 0) {
+            double estimatedSeconds = (bytesInProgress + size) / bytesPerSecond;
+            double targetSeconds = targetLatency.toNanos() / 1e9;
+            if (estimatedSeconds > targetSeconds) {
+                throw reject(fileType, "latency", "%d uploads running, estimated %.1f s to publish this one, target %d s"
+                        .formatted(uploadsInProgress, estimatedSeconds, targetLatency.toSeconds()), estimatedSeconds - targetSeconds);
+            }
+        }
+        uploadsInProgress++;
+        bytesInProgress += size;
+        return new Ticket(size);
+    }
+
+    /** Bytes per second published while uploads were running; 0 until the first sample. */
+    public synchronized double throughput() {
+        return bytesPerSecond;
+    }
+
+    private synchronized void release(long size, long publishedBytes) {
+        accrueBusyTime();
+        uploadsInProgress--;
+        bytesInProgress -= size;
+        sampleBytes += publishedBytes;
+        if (sampleBusyNanos >= SAMPLE_NANOS && sampleBytes > 0) {
+            double sample = sampleBytes / (sampleBusyNanos / 1e9);
+            bytesPerSecond = bytesPerSecond > 0 ? SMOOTHING * sample + (1 - SMOOTHING) * bytesPerSecond : sample;
+            sampleBusyNanos = 0;
+            sampleBytes = 0;
+        }
+    }
+
+    private void accrueBusyTime() {
+        long now = nanoTime.getAsLong();
+        if (uploadsInProgress > 0) {
+            sampleBusyNanos += now - lastTransitionNanos;
+        }
+        lastTransitionNanos = now;
+    }
+
+    private IngestionOverloadedException reject(FileType fileType, String reason, String detail, double retrySeconds) {
+        long retryAfter = Math.clamp((long) Math.ceil(retrySeconds), 1, Math.max(1, maxRetryAfter.toSeconds()));
+        Counter.builder("ingestion.admission.rejected")
+                .tag("file_type", fileType.name().toLowerCase(Locale.ROOT))
+                .tag("reason", reason)
+                .description("Uploads rejected with 429 by admission control")
+                .register(meterRegistry)
+                .increment();
+        log.warn("Rejecting {} upload: {}; retry after {} s", fileType, detail, retryAfter);
+        return new IngestionOverloadedException(INGESTION_OVERLOADED.formatted(detail, retryAfter), Duration.ofSeconds(retryAfter));
+    }
+
+    /**
+     * An admitted upload; closing it again has no effect. Only uploads marked {@link #published}
+     * count towards the measured throughput, so failed and skipped uploads do not skew it.
+     */
+    public final class Ticket implements AutoCloseable {
+
+        private final long size;
+        private long publishedBytes;
+        private boolean closed;
+
+        private Ticket(long size) {
+            this.size = size;
+        }
+
+        /**
+         * Marks the upload as published, counting the bytes it read as received, i.e. compressed
+         * if it was, like the size it was admitted with.
+         */
+        public void published(IngestionProgress progress) {
+            publishedBytes = progress.compression() == Compression.NONE ? progress.bytesRead() : progress.compressedBytesRead();
+        }
+
+        @Override
+        public void close() {
+            if (!closed && size >= 0) {
+                release(size, publishedBytes);
+            }
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.ikea.warehouse_data_ingestion_service.service.dedup;
+
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionProgress;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Resolves keys that occur more than once within a single file according to the configured
+ * {@link DuplicateKeyPolicy}, so a repeated key no longer fails the whole upload.
+ */
+@Component
+public class DuplicateKeyCollapser {
+
+    private final Map<FileType, Counter> duplicateCounters = new EnumMap<>(FileType.class);
+
+    @Value("${app.ingestion.duplicate-keys.policy:last-wins}")
+    private DuplicateKeyPolicy policy = DuplicateKeyPolicy.LAST_WINS;
+
+    public DuplicateKeyCollapser(MeterRegistry meterRegistry) {
+        for (FileType fileType : FileType.values()) {
+            duplicateCounters.put(fileType, Counter.builder("ingestion.duplicate.keys")
+                    .tag("file_type", fileType.name().toLowerCase())
+                    .description("Records whose key already appeared earlier in the same file")
+                    .register(meterRegistry));
+        }
+    }
+
+    public DuplicateKeyPolicy policy() {
+        return policy;
+    }
+
+    /** Starts tracking the keys of one upload. */
+    public KeyCollapseSession open(FileType fileType, IngestionProgress progress) {
+        return new KeyCollapseSession(policy, fileType, progress, duplicateCounters.get(fileType));
+    }
+}
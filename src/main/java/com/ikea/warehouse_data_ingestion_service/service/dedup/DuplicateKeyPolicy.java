@@ -0,0 +1,13 @@
+package com.ikea.warehouse_data_ingestion_service.service.dedup;
+
+/**
+ * What to do with a record whose key already appeared earlier in the same file.
+ */
+public enum DuplicateKeyPolicy {
+    /** The later record replaces the earlier one. */
+    LAST_WINS,
+    /** The later record is dropped. */
+    FIRST_WINS,
+    /** The upload fails with 400 at the first duplicate. */
+    REJECT
+}
@@ -0,0 +1,77 @@
+package com.ikea.warehouse_data_ingestion_service.service.dedup;
+
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
+import com.ikea.warehouse_data_ingestion_service.exception.FileProcessingException;
+import com.ikea.warehouse_data_ingestion_service.service.delta.Fingerprints;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionProgress;
+import io.micrometer.core.instrument.Counter;
+
+import java.util.Map;
+
+import static com.ikea.warehouse_data_ingestion_service.util.ErrorTypes.FILE_PROCESSING_ERROR;
+
+/**
+ * Duplicate-key state of a single upload, used by one thread at a time (the stage that
+ * builds events). Batch mode collapses into the event map itself; streaming and pipeline
+ * modes only remember a 64-bit hash of every key seen.
+ */
+public final class KeyCollapseSession {
+
+    private final DuplicateKeyPolicy policy;
+    private final FileType fileType;
+    private final IngestionProgress progress;
+    private final Counter duplicateCounter;
+    private KeyIndex seen;
+    private long duplicates;
+
+    KeyCollapseSession(DuplicateKeyPolicy policy, FileType fileType, IngestionProgress progress, Counter duplicateCounter) {
+        this.policy = policy;
+        this.fileType = fileType;
+        this.progress = progress;
+        this.duplicateCounter = duplicateCounter;
+    }
+
+    /**
+     * Batch mode: adds {@code event} to {@code events}, resolving a repeated key by the policy.
+     * Under {@link DuplicateKeyPolicy#REJECT} this fails before anything has been published.
+     */
+    public <V> void put(Map<String, V> events, String key, V event) {
+        V previous = policy == DuplicateKeyPolicy.FIRST_WINS ? events.putIfAbsent(key, event) : events.put(key, event);
+        if (previous != null) {
+            duplicate(key);
+        }
+    }
+
+    /**
+     * Streaming and pipeline modes: whether the record with {@code key} should be published.
+     * A repeated key is dropped under {@link DuplicateKeyPolicy#FIRST_WINS}. Under
+     * {@link DuplicateKeyPolicy#LAST_WINS} it is published again: the earlier record has already
+     * been sent and the later one supersedes it on the same partition. Key hashes are 64 bits
+     * wide, so two distinct keys are taken for duplicates only with negligible probability.
+     */
+    public boolean admit(String key) {
+        if (seen == null) {
+            seen = new KeyIndex();
+        }
+        if (seen.add(Fingerprints.of(key))) {
+            return true;
+        }
+        duplicate(key);
+        return policy == DuplicateKeyPolicy.LAST_WINS;
+    }
+
+    private void duplicate(String key) {
+        if (policy == DuplicateKeyPolicy.REJECT) {
+            throw new FileProcessingException(
+                    "Duplicate key '%s' in %s file".formatted(key, fileType.name().toLowerCase()), FILE_PROCESSING_ERROR);
+        }
+        duplicates++;
+        progress.recordDuplicate();
+        duplicateCounter.increment();
+    }
+
+    /** Repeated keys collapsed so far. */
+    public long duplicates() {
+        return duplicates;
+    }
+}
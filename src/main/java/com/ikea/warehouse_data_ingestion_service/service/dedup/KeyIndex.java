@@ -0,0 +1,55 @@
+package com.ikea.warehouse_data_ingestion_service.service.dedup;
+
+/**
+ * Open-addressing set of 64-bit key hashes in a single {@code long[]} (at most about 11 bytes
+ * per key at the maximum load factor, no per-entry objects). Hash 0 marks an empty slot, so a
+ * key hashing to 0 is stored as 1. Not thread-safe; owned by one upload.
+ */
+class KeyIndex {
+
+    private static final int MIN_CAPACITY = 1024;
+    private static final double MAX_LOAD = 0.75;
+
+    private long[] keys = new long[MIN_CAPACITY];
+    private int size;
+
+    /** Adds {@code keyHash}; returns false when it was already present. */
+    boolean add(long keyHash) {
+        long key = keyHash == 0 ? 1 : keyHash;
+        int slot = slot(keys, key);
+        if (keys[slot] != 0) {
+            return false;
+        }
+        if (size + 1 > keys.length * MAX_LOAD) {
+            grow();
+            slot = slot(keys, key);
+        }
+        keys[slot] = key;
+        size++;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        keys = new long[oldKeys.length * 2];
+        for (long key : oldKeys) {
+            if (key != 0) {
+                keys[slot(keys, key)] = key;
+            }
+        }
+    }
+
+    /** Slot holding {@code key}, or the empty slot where it would be inserted (linear probing). */
+    private static int slot(long[] keys, long key) {
+        int mask = keys.length - 1;
+        int slot = (int) (key ^ (key >>> 32)) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
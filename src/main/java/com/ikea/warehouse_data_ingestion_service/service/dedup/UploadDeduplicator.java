@@ -0,0 +1,138 @@
+package com.ikea.warehouse_data_ingestion_service.service.dedup;
+
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Recognises uploads whose content is identical to a recent successful upload of the same file
+ * type. Content is identified by its SHA-256, computed while the payload streams through
+ * (see {@link #newDigest()} / {@link #digest(MultipartFile)}). Hashes are remembered only after
+ * an upload succeeded, in a per file type LRU of at most {@code max-entries} hashes that expire
+ * after {@code ttl}.
+ */
+@Slf4j
+@Component
+public class UploadDeduplicator {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Map<FileType, RecentHashes> recent = new EnumMap<>(FileType.class);
+    private final Map<FileType, Counter> skipped = new EnumMap<>(FileType.class);
+
+    @Value("${app.ingestion.dedup.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.ingestion.dedup.ttl:10m}")
+    private Duration ttl = Duration.ofMinutes(10);
+
+    @Value("${app.ingestion.dedup.max-entries:1000}")
+    private int maxEntries = 1000;
+
+    public UploadDeduplicator(MeterRegistry meterRegistry) {
+        for (FileType fileType : FileType.values()) {
+            recent.put(fileType, new RecentHashes());
+            skipped.put(fileType, Counter.builder("ingestion.dedup.skipped")
+                    .tag("file_type", fileType.name().toLowerCase())
+                    .description("Uploads skipped because an identical file was ingested recently")
+                    .register(meterRegistry));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** A fresh SHA-256 digest for hashing a payload while it is copied or parsed. */
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public static String toHex(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Streams the stored multipart content through SHA-256 without holding it in memory.
+     * Returns {@code null} when deduplication is disabled.
+     */
+    public String digest(MultipartFile file) throws IOException {
+        if (!enabled) {
+            return null;
+        }
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream inputStream = file.getInputStream()) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return toHex(digest);
+    }
+
+    /** Whether {@code contentHash} matches a non-expired successful upload of {@code fileType}. */
+    public boolean isDuplicate(FileType fileType, String contentHash) {
+        if (!enabled || contentHash == null) {
+            return false;
+        }
+        boolean duplicate = recent.get(fileType).contains(contentHash, System.nanoTime());
+        if (duplicate) {
+            skipped.get(fileType).increment();
+            log.info("{} upload with SHA-256 {} is identical to a recent upload, skipping", fileType, contentHash);
+        }
+        return duplicate;
+    }
+
+    /** Records a successfully ingested upload. */
+    public void remember(FileType fileType, String contentHash) {
+        if (enabled && contentHash != null) {
+            recent.get(fileType).add(contentHash, System.nanoTime() + ttl.toNanos());
+        }
+    }
+
+    /** Access-ordered map of hash to expiry (in {@link System#nanoTime()} units). */
+    private final class RecentHashes {
+
+        private final LinkedHashMap<String, Long> expiries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maxEntries;
+            }
+        };
+
+        synchronized boolean contains(String hash, long now) {
+            Long expiry = expiries.get(hash);
+            if (expiry == null) {
+                return false;
+            }
+            if (expiry - now <= 0) {
+                expiries.remove(hash);
+                return false;
+            }
+            return true;
+        }
+
+        synchronized void add(String hash, long expiry) {
+            expiries.put(hash, expiry);
+        }
+    }
+}
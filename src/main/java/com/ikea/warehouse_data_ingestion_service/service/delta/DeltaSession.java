@@ -0,0 +1,88 @@
+package com.ikea.warehouse_data_ingestion_service.service.delta;
+
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionProgress;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+
+/**
+ * Delta state of a single upload. {@link #isChanged} is called by one thread at a time (the
+ * stage that filters records); fingerprints of changed records are buffered in primitive
+ * arrays and written to the shared index by {@link #commit()} once the upload has succeeded.
+ */
+@Slf4j
+public final class DeltaSession {
+
+    private static final DeltaSession DISABLED = new DeltaSession(null, null, null, null);
+
+    private final DeltaTracker tracker;
+    private final FileType fileType;
+    private final FingerprintIndex index;
+    private final IngestionProgress progress;
+    private long[] pendingKeys = new long[0];
+    private long[] pendingFingerprints = new long[0];
+    private int pending;
+    private long suppressed;
+
+    DeltaSession(DeltaTracker tracker, FileType fileType, FingerprintIndex index, IngestionProgress progress) {
+        this.tracker = tracker;
+        this.fileType = fileType;
+        this.index = index;
+        this.progress = progress;
+    }
+
+    static DeltaSession disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Returns false, counting the record as suppressed, when {@code key} was last published with
+     * the same {@code fingerprint}; otherwise remembers the pair for {@link #commit()}.
+     */
+    public boolean isChanged(String key, long fingerprint) {
+        if (index == null) {
+            return true;
+        }
+        long keyHash = Fingerprints.of(key);
+        if (index.matches(keyHash, fingerprint)) {
+            suppressed++;
+            progress.recordSuppressed();
+            return false;
+        }
+        if (pending == pendingKeys.length) {
+            int capacity = Math.max(256, pending * 2);
+            pendingKeys = Arrays.copyOf(pendingKeys, capacity);
+            pendingFingerprints = Arrays.copyOf(pendingFingerprints, capacity);
+        }
+        pendingKeys[pending] = keyHash;
+        pendingFingerprints[pending] = fingerprint;
+        pending++;
+        return true;
+    }
+
+    /** Records the fingerprints of this upload's published records as the last known state. */
+    public void commit() {
+        if (index == null) {
+            return;
+        }
+        int dropped = 0;
+        for (int i = 0; i < pending; i++) {
+            if (!index.put(pendingKeys[i], pendingFingerprints[i])) {
+                dropped++;
+            }
+        }
+        if (dropped > 0) {
+            log.warn("Delta index for {} is full; {} new keys are not tracked and will be republished", fileType, dropped);
+        }
+        tracker.suppressed(fileType, suppressed);
+        log.info("Delta ingestion for {} - changed: {}, suppressed: {}", fileType, pending, suppressed);
+        pendingKeys = new long[0];
+        pendingFingerprints = new long[0];
+        pending = 0;
+    }
+
+    public long suppressed() {
+        return suppressed;
+    }
+}
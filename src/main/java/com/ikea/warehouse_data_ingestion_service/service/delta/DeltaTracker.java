@@ -0,0 +1,68 @@
+package com.ikea.warehouse_data_ingestion_service.service.delta;
+
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionProgress;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Delta ingestion: remembers a fingerprint of the last published content of every key, per
+ * file type, so records whose content did not change since the previous upload can be skipped.
+ * Fingerprints of an upload only become visible once the whole upload has been acknowledged
+ * (see {@link DeltaSession#commit()}); a failed upload republishes its changes next time.
+ * The index lives in memory and starts empty after a restart.
+ */
+@Slf4j
+@Component
+public class DeltaTracker {
+
+    private final Map<FileType, FingerprintIndex> indexes = new EnumMap<>(FileType.class);
+    private final Map<FileType, Counter> suppressedCounters = new EnumMap<>(FileType.class);
+
+    @Value("${app.ingestion.delta.enabled:false}")
+    private boolean enabled;
+
+    public DeltaTracker(@Value("${app.ingestion.delta.max-keys:5000000}") long maxKeys, MeterRegistry meterRegistry) {
+        for (FileType fileType : FileType.values()) {
+            FingerprintIndex index = new FingerprintIndex(maxKeys);
+            String tag = fileType.name().toLowerCase();
+            indexes.put(fileType, index);
+            suppressedCounters.put(fileType, Counter.builder("ingestion.delta.suppressed")
+                    .tag("file_type", tag)
+                    .description("Records skipped because their content did not change since the last upload")
+                    .register(meterRegistry));
+            Gauge.builder("ingestion.delta.keys", index, FingerprintIndex::size)
+                    .tag("file_type", tag)
+                    .description("Keys held in the delta fingerprint index")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Starts tracking one upload. When delta mode is disabled the session reports every record
+     * as changed and commits nothing.
+     */
+    public DeltaSession open(FileType fileType, IngestionProgress progress) {
+        if (!enabled) {
+            return DeltaSession.disabled();
+        }
+        return new DeltaSession(this, fileType, indexes.get(fileType), progress);
+    }
+
+    /** Forgets every fingerprint of {@code fileType}, so the next upload is published in full. */
+    public void reset(FileType fileType) {
+        indexes.get(fileType).clear();
+        log.info("Delta index for {} cleared", fileType);
+    }
+
+    void suppressed(FileType fileType, long count) {
+        suppressedCounters.get(fileType).increment(count);
+    }
+}
@@ -0,0 +1,92 @@
+package com.ikea.warehouse_data_ingestion_service.service.delta;
+
+/**
+ * Open-addressing hash map from a 64-bit key hash to a 64-bit content fingerprint, stored in
+ * two parallel {@code long[]} arrays (16 bytes per slot, no per-entry objects). The table doubles
+ * in size, so that is about 21 bytes per key at the maximum load factor and up to twice that just
+ * after growing; at 5M keys the 8M-slot table takes about 27 bytes per key. Key hash 0 marks an
+ * empty slot, so a real key hashing to 0 is stored as 1. All methods are synchronized; uploads of
+ * the same file type may share the index.
+ */
+class FingerprintIndex {
+
+    private static final int MIN_CAPACITY = 1024;
+    private static final double MAX_LOAD = 0.75;
+
+    private final long maxKeys;
+    private long[] keys;
+    private long[] fingerprints;
+    private int size;
+
+    FingerprintIndex(long maxKeys) {
+        this.maxKeys = maxKeys;
+        this.keys = new long[MIN_CAPACITY];
+        this.fingerprints = new long[MIN_CAPACITY];
+    }
+
+    /** Whether {@code keyHash} is present with exactly {@code fingerprint}. */
+    synchronized boolean matches(long keyHash, long fingerprint) {
+        int slot = slot(keys, normalize(keyHash));
+        return keys[slot] != 0 && fingerprints[slot] == fingerprint;
+    }
+
+    /**
+     * Stores {@code fingerprint} for {@code keyHash}. Returns false, leaving the index unchanged,
+     * when the key is new and the index already holds {@code maxKeys} keys.
+     */
+    synchronized boolean put(long keyHash, long fingerprint) {
+        long key = normalize(keyHash);
+        int slot = slot(keys, key);
+        if (keys[slot] == 0) {
+            if (size >= maxKeys) {
+                return false;
+            }
+            if (size + 1 > keys.length * MAX_LOAD) {
+                grow();
+                slot = slot(keys, key);
+            }
+            keys[slot] = key;
+            size++;
+        }
+        fingerprints[slot] = fingerprint;
+        return true;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized void clear() {
+        keys = new long[MIN_CAPACITY];
+        fingerprints = new long[MIN_CAPACITY];
+        size = 0;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldFingerprints = fingerprints;
+        keys = new long[oldKeys.length * 2];
+        fingerprints = new long[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = slot(keys, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                fingerprints[slot] = oldFingerprints[i];
+            }
+        }
+    }
+
+    /** Slot holding {@code key}, or the empty slot where it would be inserted (linear probing). */
+    private static int slot(long[] keys, long key) {
+        int mask = keys.length - 1;
+        int slot = (int) (key ^ (key >>> 32)) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static long normalize(long keyHash) {
+        return keyHash == 0 ? 1 : keyHash;
+    }
+}
@@ -0,0 +1,56 @@
+package com.ikea.warehouse_data_ingestion_service.service.delta;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * 64-bit hashes of keys and record contents for the delta index: FNV-1a over the UTF-16
+ * chars, with a separator between fields so ("ab", "c") and ("a", "bc") differ, followed
+ * by the MurmurHash3 finaliser to spread the bits.
+ */
+@UtilityClass
+public class Fingerprints {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long NULL_FIELD = 0x9e3779b97f4a7c15L;
+
+    public static long of(String value) {
+        return finish(mix(FNV_OFFSET, value));
+    }
+
+    public static long of(String first, String second) {
+        return finish(mix(mix(FNV_OFFSET, first), second));
+    }
+
+    /** Starts an incremental fingerprint; feed fields with {@link #mix} and end with {@link #finish}. */
+    public static long start() {
+        return FNV_OFFSET;
+    }
+
+    public static long mix(long hash, String value) {
+        if (value == null) {
+            return (hash ^ NULL_FIELD) * FNV_PRIME;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        // field separator
+        return (hash ^ 0xFFFF) * FNV_PRIME;
+    }
+
+    public static long mix(long hash, long value) {
+        for (int shift = 0; shift < 64; shift += 16) {
+            hash = (hash ^ ((value >>> shift) & 0xFFFF)) * FNV_PRIME;
+        }
+        return (hash ^ 0xFFFF) * FNV_PRIME;
+    }
+
+    public static long finish(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
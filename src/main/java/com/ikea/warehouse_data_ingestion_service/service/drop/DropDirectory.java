@@ -0,0 +1,29 @@
+package com.ikea.warehouse_data_ingestion_service.service.drop;
+
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A watched directory and its working subdirectories. Files are delivered into {@code incoming},
+ * claimed into this instance's {@code processing} directory and end up in {@code archive} or
+ * {@code error}.
+ */
+record DropDirectory(FileType fileType, Path incoming, Path processing, Path archive, Path error) {
+
+    static final String PROCESSING_DIR = ".processing";
+    static final String ARCHIVE_DIR = "archive";
+    static final String ERROR_DIR = "error";
+
+    /** Resolves the layout under {@code incoming} and creates the missing directories. */
+    static DropDirectory create(FileType fileType, Path incoming, String instanceId) throws IOException {
+        DropDirectory directory = new DropDirectory(fileType, incoming, incoming.resolve(PROCESSING_DIR).resolve(instanceId),
+                incoming.resolve(ARCHIVE_DIR), incoming.resolve(ERROR_DIR));
+        Files.createDirectories(directory.processing());
+        Files.createDirectories(directory.archive());
+        Files.createDirectories(directory.error());
+        return directory;
+    }
+}
@@ -0,0 +1,360 @@
+package com.ikea.warehouse_data_ingestion_service.service.drop;
+
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
+import com.ikea.warehouse_data_ingestion_service.service.InventoryService;
+import com.ikea.warehouse_data_ingestion_service.service.ProductService;
+import com.ikea.warehouse_data_ingestion_service.service.parser.RecordFormat;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.Compression;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionProgress;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingests files dropped into local directories, e.g. a volume that sites deliver to over SFTP.
+ * Each configured directory is watched with a {@link WatchService} and rescanned every
+ * {@code scan-interval}, in case an event was missed or the file system does not report changes.
+ * A file is claimed once it has not changed for {@code settle-time}. It is claimed by renaming it
+ * into this instance's processing directory, so only one instance picks it up. It is then read
+ * through memory-mapped regions and published by {@link InventoryService} / {@link ProductService}
+ * like an upload. Afterwards it is moved to {@code archive}, or to {@code error} next to a
+ * {@code .error} file with the failure.
+ * At most {@code workers} files are ingested at a time; other files stay in the directory until
+ * a worker is free. Files left in the processing directory by a crash are put back on start.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.ingestion.drop.enabled", havingValue = "true")
+public class DropDirectoryWatcher implements SmartLifecycle {
+
+    private static final long RETRY_MILLIS = 1_000;
+    /** Names SFTP and copy tools commonly write to before renaming the finished file. */
+    private static final List<String> PARTIAL_SUFFIXES = List.of(".part", ".partial", ".tmp", ".filepart");
+    private static final DateTimeFormatter CLAIM_PREFIX = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmssSSS'-'").withZone(ZoneOffset.UTC);
+    private static final int CLAIM_PREFIX_LENGTH = 19;
+
+    private final InventoryService inventoryService;
+    private final ProductService productService;
+    private final Executor dropExecutor;
+    private final Semaphore workers;
+    private final MeterRegistry meterRegistry;
+    private final List<DropDirectory> directories = new ArrayList<>();
+
+    @Value("${app.ingestion.drop.inventory-dirs:}")
+    private String[] inventoryDirs = new String[0];
+
+    @Value("${app.ingestion.drop.products-dirs:}")
+    private String[] productsDirs = new String[0];
+
+    @Value("${app.ingestion.drop.instance-id:${HOSTNAME:local}}")
+    private String instanceId = "local";
+
+    @Value("${app.ingestion.drop.settle-time:5s}")
+    private Duration settleTime = Duration.ofSeconds(5);
+
+    @Value("${app.ingestion.drop.scan-interval:30s}")
+    private Duration scanInterval = Duration.ofSeconds(30);
+
+    @Value("${app.ingestion.drop.map-region-size:64MB}")
+    private DataSize mapRegionSize = DataSize.ofMegabytes(64);
+
+    private volatile boolean running;
+    private WatchService watchService;
+    private Thread watcherThread;
+
+    public DropDirectoryWatcher(InventoryService inventoryService, ProductService productService,
+                                @Qualifier("dropDirectoryExecutor") Executor dropExecutor,
+                                @Value("${app.ingestion.drop.workers:2}") int workers, MeterRegistry meterRegistry) {
+        this.inventoryService = inventoryService;
+        this.productService = productService;
+        this.dropExecutor = dropExecutor;
+        this.workers = new Semaphore(workers);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void start() {
+        try {
+            watchService = Path.of(".").getFileSystem().newWatchService();
+            register(FileType.INVENTORY, inventoryDirs);
+            register(FileType.PRODUCTS, productsDirs);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not set up drop directories", e);
+        }
+        running = true;
+        watcherThread = Thread.ofPlatform().name("drop-watcher").daemon().start(this::watch);
+        log.info("Watching drop directories {} with {} workers", directories.stream().map(DropDirectory::incoming).toList(),
+                workers.availablePermits());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+            watcherThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (IOException e) {
+            log.warn("Could not close the drop directory watch service: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** Sets up {@code incoming} for {@code fileType} and requeues files a previous run left claimed. */
+    DropDirectory register(FileType fileType, Path incoming) throws IOException {
+        DropDirectory directory = DropDirectory.create(fileType, incoming, instanceId);
+        try (DirectoryStream<Path> orphans = Files.newDirectoryStream(directory.processing())) {
+            for (Path orphan : orphans) {
+                Path requeued = requeue(directory, orphan);
+                log.warn("Requeued {} left in {} by a previous run", requeued, directory.processing());
+            }
+        }
+        if (watchService != null) {
+            incoming.register(watchService, StandardWatchEventKinds.ENTRY_CREATE);
+        }
+        directories.add(directory);
+        return directory;
+    }
+
+    private void register(FileType fileType, String[] paths) throws IOException {
+        for (String path : paths) {
+            if (!path.isBlank()) {
+                register(fileType, Path.of(path.trim()));
+            }
+        }
+    }
+
+    private void watch() {
+        boolean pending = scanAll();
+        while (running) {
+            try {
+                WatchKey key = watchService.poll(pending ? RETRY_MILLIS : scanInterval.toMillis(), TimeUnit.MILLISECONDS);
+                while (key != null) {
+                    key.pollEvents();
+                    key.reset();
+                    key = watchService.poll();
+                }
+                pending = scanAll();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ClosedWatchServiceException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.error("Scanning drop directories failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private boolean scanAll() {
+        boolean pending = false;
+        for (DropDirectory directory : directories) {
+            pending |= scan(directory);
+        }
+        return pending;
+    }
+
+    /**
+     * Claims and submits every settled file in {@code directory} while workers are free.
+     *
+     * @return whether files were left behind because they are still being written or no worker was free
+     */
+    boolean scan(DropDirectory directory) {
+        boolean pending = false;
+        Instant now = Instant.now();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory.incoming(), DropDirectoryWatcher::isCandidate)) {
+            for (Path file : files) {
+                if (!isSettled(file, now)) {
+                    pending = true;
+                    continue;
+                }
+                if (!workers.tryAcquire()) {
+                    return true;
+                }
+                Path claimed;
+                try {
+                    claimed = claim(directory, file, now);
+                } catch (IOException e) {
+                    workers.release();
+                    log.error("Could not claim dropped file {}: {}", file, e.getMessage());
+                    continue;
+                }
+                if (claimed == null) {
+                    workers.release();
+                    continue;
+                }
+                try {
+                    dropExecutor.execute(() -> process(directory, claimed));
+                } catch (RejectedExecutionException e) {
+                    workers.release();
+                    requeueRejected(directory, claimed);
+                    return true;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not scan drop directory {}: {}", directory.incoming(), e.getMessage());
+        }
+        return pending;
+    }
+
+    /** Ingests a claimed file and moves it to the archive or error directory. */
+    void process(DropDirectory directory, Path claimed) {
+        String name = originalName(claimed.getFileName().toString());
+        try {
+            IngestionProgress progress = new IngestionProgress(Files.size(claimed));
+            Instant fileCreatedAt = Files.getLastModifiedTime(claimed).toInstant();
+            try (InputStream inputStream = new MappedFileInputStream(claimed, mapRegionSize.toBytes())) {
+                ingest(directory.fileType(), inputStream, formatOf(name), fileCreatedAt, progress);
+            }
+            move(claimed, directory.archive());
+            filesCounter(directory.fileType(), "archived").increment();
+            log.info("Ingested dropped {} file {} - parsed: {}, acked: {}", directory.fileType(), name, progress.parsed(), progress.acked());
+        } catch (Exception e) {
+            log.error("Ingesting dropped {} file {} failed: {}", directory.fileType(), name, e.getMessage(), e);
+            Path failed = move(claimed, directory.error());
+            if (failed != null) {
+                writeError(failed, e);
+            }
+            filesCounter(directory.fileType(), "failed").increment();
+        } finally {
+            workers.release();
+        }
+    }
+
+    private void ingest(FileType fileType, InputStream inputStream, RecordFormat format, Instant fileCreatedAt,
+                        IngestionProgress progress) throws IOException {
+        switch (fileType) {
+            case INVENTORY -> inventoryService.ingest(inputStream, format, Compression.NONE, fileCreatedAt, progress);
+            case PRODUCTS -> productService.ingest(inputStream, format, Compression.NONE, fileCreatedAt, progress);
+        }
+    }
+
+    private boolean isSettled(Path file, Instant now) {
+        try {
+            return !Files.getLastModifiedTime(file).toInstant().plus(settleTime).isAfter(now);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** Atomically moves {@code file} into the processing directory; {@code null} if another instance got it first. */
+    private Path claim(DropDirectory directory, Path file, Instant now) throws IOException {
+        Path claimed = directory.processing().resolve(CLAIM_PREFIX.format(now) + file.getFileName());
+        try {
+            return Files.move(file, claimed, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /** Hands a claimed file the executor rejected back to the incoming directory; a restart requeues it otherwise. */
+    private static void requeueRejected(DropDirectory directory, Path claimed) {
+        try {
+            requeue(directory, claimed);
+        } catch (IOException e) {
+            log.error("Could not requeue {}, it stays in {} until the next start: {}", claimed, directory.processing(), e.getMessage());
+        }
+    }
+
+    /**
+     * Moves a claimed file back to the incoming directory under its original name, or keeps the
+     * claim prefix if a new file of that name was dropped meanwhile, so neither file is replaced.
+     */
+    private static Path requeue(DropDirectory directory, Path claimed) throws IOException {
+        String claimedName = claimed.getFileName().toString();
+        Path original = directory.incoming().resolve(originalName(claimedName));
+        if (Files.notExists(original)) {
+            try {
+                // unlike ATOMIC_MOVE, a plain move refuses to replace a file that appeared since the check
+                return Files.move(claimed, original);
+            } catch (FileAlreadyExistsException e) {
+                // fall through to the claimed name
+            }
+        }
+        return Files.move(claimed, directory.incoming().resolve(claimedName));
+    }
+
+    private static Path move(Path claimed, Path targetDirectory) {
+        try {
+            return Files.move(claimed, targetDirectory.resolve(claimed.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.error("Could not move {} to {}: {}", claimed, targetDirectory, e.getMessage());
+            return null;
+        }
+    }
+
+    private static void writeError(Path failed, Exception exception) {
+        try {
+            Files.writeString(failed.resolveSibling(failed.getFileName() + ".error"), String.valueOf(exception.getMessage()));
+        } catch (IOException e) {
+            log.warn("Could not write the error file of {}: {}", failed, e.getMessage());
+        }
+    }
+
+    private Counter filesCounter(FileType fileType, String outcome) {
+        return Counter.builder("ingestion.drop.files")
+                .tag("file_type", fileType.name().toLowerCase())
+                .tag("outcome", outcome)
+                .description("Dropped files ingested or moved to the error directory")
+                .register(meterRegistry);
+    }
+
+    private static boolean isCandidate(Path file) {
+        String name = file.getFileName().toString();
+        return !name.startsWith(".") && PARTIAL_SUFFIXES.stream().noneMatch(name::endsWith) && Files.isRegularFile(file);
+    }
+
+    private static String originalName(String claimedName) {
+        return claimedName.length() > CLAIM_PREFIX_LENGTH ? claimedName.substring(CLAIM_PREFIX_LENGTH) : claimedName;
+    }
+
+    /** NDJSON for {@code .ndjson} / {@code .jsonl} files, compressed or not; the wrapper document otherwise. */
+    static RecordFormat formatOf(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        for (String suffix : List.of(".gz", ".zst")) {
+            if (lower.endsWith(suffix)) {
+                lower = lower.substring(0, lower.length() - suffix.length());
+            }
+        }
+        return lower.endsWith(".ndjson") || lower.endsWith(".jsonl") ? RecordFormat.NDJSON : RecordFormat.JSON;
+    }
+}
@@ -0,0 +1,92 @@
+package com.ikea.warehouse_data_ingestion_service.service.drop;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * Reads a file sequentially through read-only memory-mapped regions of at most
+ * {@code regionSize} bytes, mapping the next region once the current one is used up. Reads are
+ * copies out of the page cache without a system call per buffer, and only one region is
+ * referenced at a time. The file must not be truncated while it is read.
+ */
+public class MappedFileInputStream extends InputStream {
+
+    private final FileChannel channel;
+    private final long size;
+    private final long regionSize;
+    private MappedByteBuffer region;
+    private long regionStart;
+
+    public MappedFileInputStream(Path file, long regionSize) throws IOException {
+        if (regionSize <= 0 || regionSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Region size must be between 1 and " + Integer.MAX_VALUE + " bytes: " + regionSize);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.regionSize = regionSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return nextRegion() ? region.get() & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        Objects.checkFromIndexSize(offset, length, buffer.length);
+        if (length == 0) {
+            return 0;
+        }
+        if (!nextRegion()) {
+            return -1;
+        }
+        int read = Math.min(length, region.remaining());
+        region.get(buffer, offset, read);
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && nextRegion()) {
+            int step = (int) Math.min(n - skipped, region.remaining());
+            region.position(region.position() + step);
+            skipped += step;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, size - position());
+    }
+
+    @Override
+    public void close() throws IOException {
+        region = null;
+        channel.close();
+    }
+
+    private long position() {
+        return region == null ? 0 : regionStart + region.position();
+    }
+
+    /** Whether bytes are left, mapping the next region if the current one is exhausted. */
+    private boolean nextRegion() throws IOException {
+        if (region != null && region.hasRemaining()) {
+            return true;
+        }
+        long next = region == null ? 0 : regionStart + region.capacity();
+        if (next >= size) {
+            return false;
+        }
+        region = channel.map(FileChannel.MapMode.READ_ONLY, next, Math.min(regionSize, size - next));
+        regionStart = next;
+        return true;
+    }
+}
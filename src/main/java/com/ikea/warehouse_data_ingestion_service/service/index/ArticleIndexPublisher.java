@@ -0,0 +1,95 @@
+package com.ikea.warehouse_data_ingestion_service.service.index;
+
+import com.ikea.warehouse_data_ingestion_service.data.event.ArticleProductsEvent;
+import com.ikea.warehouse_data_ingestion_service.exception.KafkaProduceFailedException;
+import com.ikea.warehouse_data_ingestion_service.service.BatchSendResult;
+import com.ikea.warehouse_data_ingestion_service.service.KafkaProducerService;
+import com.ikea.warehouse_data_ingestion_service.service.producer.ProducerProfile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Publishes the article -> products reverse index of each products upload to a compacted topic,
+ * so consumers of inventory updates only have to recompute the products of the changed article.
+ * Each upload is treated as the complete product catalogue: chunks that existed in the previously
+ * published snapshot but not in this one are deleted with tombstones. The previous snapshot's
+ * chunk counts are kept in memory only, so stale chunks from before a restart are not deleted;
+ * consumers rely on {@link ArticleProductsEvent#chunkCount()} to ignore them.
+ */
+@Slf4j
+@Component
+public class ArticleIndexPublisher {
+
+    static final char KEY_SEPARATOR = '/';
+
+    private final KafkaProducerService kafkaProducerService;
+    private Map<String, Integer> publishedChunkCounts = new HashMap<>();
+
+    @Value("${app.ingestion.article-index.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.kafka.topics.article-products:ikea.warehouse.article.products.topic}")
+    private String topic = "ikea.warehouse.article.products.topic";
+
+    @Value("${app.ingestion.article-index.chunk-size:500}")
+    private int chunkSize = 500;
+
+    public ArticleIndexPublisher(KafkaProducerService kafkaProducerService) {
+        this.kafkaProducerService = kafkaProducerService;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sends every chunk of {@code index} plus tombstones for chunks that are no longer part of it,
+     * and fails if any of them was not acknowledged.
+     *
+     * @return number of records sent, tombstones included
+     */
+    public synchronized int publish(ArticleProductIndex index, Instant fileCreatedAt) {
+        Map<String, ArticleProductsEvent> records = new LinkedHashMap<>();
+        Map<String, Integer> chunkCounts = new HashMap<>(Math.max(16, index.articleCount() * 4 / 3 + 1));
+        for (int article = 0; article < index.articleCount(); article++) {
+            int products = index.productCount(article);
+            if (products == 0) {
+                continue;
+            }
+            String artId = index.article(article);
+            int chunkCount = (products + chunkSize - 1) / chunkSize;
+            for (int chunk = 0; chunk < chunkCount; chunk++) {
+                records.put(key(artId, chunk), new ArticleProductsEvent(artId, chunk, chunkCount,
+                        index.products(article, chunk * chunkSize, Math.min(products, (chunk + 1) * chunkSize)), fileCreatedAt));
+            }
+            chunkCounts.put(artId, chunkCount);
+        }
+        int tombstones = 0;
+        for (Map.Entry<String, Integer> previous : publishedChunkCounts.entrySet()) {
+            int current = chunkCounts.getOrDefault(previous.getKey(), 0);
+            for (int chunk = current; chunk < previous.getValue(); chunk++) {
+                records.put(key(previous.getKey(), chunk), null);
+                tombstones++;
+            }
+        }
+
+        BatchSendResult result = kafkaProducerService.sendBatch(topic, records, ProducerProfile.BULK);
+        if (result.hasFailures()) {
+            throw new KafkaProduceFailedException(result.failureMessage());
+        }
+        publishedChunkCounts = chunkCounts;
+        log.info("Article index published to topic {} - articles: {}, chunks: {}, tombstones: {}",
+                topic, chunkCounts.size(), records.size() - tombstones, tombstones);
+        return records.size();
+    }
+
+    static String key(String artId, int chunk) {
+        return artId + KEY_SEPARATOR + chunk;
+    }
+}
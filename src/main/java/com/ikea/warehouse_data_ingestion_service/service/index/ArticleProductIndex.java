@@ -0,0 +1,167 @@
+package com.ikea.warehouse_data_ingestion_service.service.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reverse index from article id to the products that contain it, built from one products file.
+ * Articles and products are interned to dense int ids and the adjacency is stored in compressed
+ * sparse row form: the products of article {@code a} are
+ * {@code productIds[offsets[a]] .. productIds[offsets[a + 1] - 1]}. Apart from the id strings
+ * there are no per-edge objects.
+ */
+public final class ArticleProductIndex {
+
+    private final String[] articles;
+    private final String[] products;
+    private final int[] offsets;
+    private final int[] productIds;
+
+    private ArticleProductIndex(String[] articles, String[] products, int[] offsets, int[] productIds) {
+        this.articles = articles;
+        this.products = products;
+        this.offsets = offsets;
+        this.productIds = productIds;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int articleCount() {
+        return articles.length;
+    }
+
+    public String article(int article) {
+        return articles[article];
+    }
+
+    /** Number of distinct products that contain {@code article}. */
+    public int productCount(int article) {
+        return offsets[article + 1] - offsets[article];
+    }
+
+    /** Names of the products at positions {@code [from, to)} of {@code article}'s adjacency. */
+    public List<String> products(int article, int from, int to) {
+        int start = offsets[article];
+        List<String> names = new ArrayList<>(to - from);
+        for (int i = start + from; i < start + to; i++) {
+            names.add(products[productIds[i]]);
+        }
+        return names;
+    }
+
+    /**
+     * Collects product -> article edges one product at a time. A product that is added again
+     * (a repeated product name under the last-wins policy) replaces its earlier articles.
+     * Not thread-safe; fed by the single stage that builds product events.
+     */
+    public static final class Builder {
+
+        private final Map<String, Integer> articleIds = new HashMap<>();
+        private final List<String> articleNames = new ArrayList<>();
+        private final Map<String, Integer> productIds = new HashMap<>();
+        private final List<String> productNames = new ArrayList<>();
+        private int[] productStart = new int[256];
+        private int[] productEnd = new int[256];
+        private int[] edges = new int[1024];
+        private int edgeCount;
+        private int currentProduct = -1;
+
+        private Builder() {
+        }
+
+        /** Starts (or restarts) the article list of {@code name}; null names are ignored. */
+        public Builder product(String name) {
+            if (name == null) {
+                currentProduct = -1;
+                return this;
+            }
+            Integer id = productIds.get(name);
+            if (id == null) {
+                id = productNames.size();
+                productIds.put(name, id);
+                productNames.add(name);
+                if (id == productStart.length) {
+                    productStart = Arrays.copyOf(productStart, id * 2);
+                    productEnd = Arrays.copyOf(productEnd, id * 2);
+                }
+            }
+            currentProduct = id;
+            // edges of the product are appended from here; earlier ones become unreachable
+            productStart[id] = edgeCount;
+            productEnd[id] = edgeCount;
+            return this;
+        }
+
+        /** Adds {@code artId} to the product started last; null ids are ignored. */
+        public Builder article(String artId) {
+            if (currentProduct < 0 || artId == null) {
+                return this;
+            }
+            if (productEnd[currentProduct] != edgeCount) {
+                // another product was started in between; move this product's edges to the end
+                int start = productStart[currentProduct];
+                int length = productEnd[currentProduct] - start;
+                ensureEdgeCapacity(length + 1);
+                System.arraycopy(edges, start, edges, edgeCount, length);
+                productStart[currentProduct] = edgeCount;
+                edgeCount += length;
+            }
+            Integer id = articleIds.get(artId);
+            if (id == null) {
+                id = articleNames.size();
+                articleIds.put(artId, id);
+                articleNames.add(artId);
+            }
+            ensureEdgeCapacity(1);
+            edges[edgeCount++] = id;
+            productEnd[currentProduct] = edgeCount;
+            return this;
+        }
+
+        public ArticleProductIndex build() {
+            int articleCount = articleNames.size();
+            int productCount = productNames.size();
+            int[] offsets = new int[articleCount + 1];
+            // last product counted per article, so an article listed twice in a product counts once
+            int[] lastProduct = new int[articleCount];
+            Arrays.fill(lastProduct, -1);
+            for (int product = 0; product < productCount; product++) {
+                for (int e = productStart[product]; e < productEnd[product]; e++) {
+                    int article = edges[e];
+                    if (lastProduct[article] != product) {
+                        lastProduct[article] = product;
+                        offsets[article + 1]++;
+                    }
+                }
+            }
+            for (int article = 0; article < articleCount; article++) {
+                offsets[article + 1] += offsets[article];
+            }
+            int[] adjacency = new int[offsets[articleCount]];
+            int[] fill = Arrays.copyOf(offsets, articleCount);
+            Arrays.fill(lastProduct, -1);
+            for (int product = 0; product < productCount; product++) {
+                for (int e = productStart[product]; e < productEnd[product]; e++) {
+                    int article = edges[e];
+                    if (lastProduct[article] != product) {
+                        lastProduct[article] = product;
+                        adjacency[fill[article]++] = product;
+                    }
+                }
+            }
+            return new ArticleProductIndex(articleNames.toArray(new String[0]), productNames.toArray(new String[0]),
+                    offsets, adjacency);
+        }
+
+        private void ensureEdgeCapacity(int additional) {
+            if (edgeCount + additional > edges.length) {
+                edges = Arrays.copyOf(edges, Math.max(edges.length * 2, edgeCount + additional));
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.ikea.warehouse_data_ingestion_service.service.job;
+
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
+import com.ikea.warehouse_data_ingestion_service.data.dto.IngestionJobResponse;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionProgress;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * In-memory state of an asynchronous upload. Status transitions are written by the job
+ * executor thread and read by status polling requests.
+ */
+@Getter
+public class IngestionJob {
+
+    private final String id;
+    private final FileType fileType;
+    private final String filename;
+    private final long sizeBytes;
+    private final Instant submittedAt;
+    private final IngestionProgress progress;
+
+    private volatile IngestionJobStatus status = IngestionJobStatus.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    public IngestionJob(String id, FileType fileType, String filename, long sizeBytes, Instant submittedAt) {
+        this.id = id;
+        this.fileType = fileType;
+        this.filename = filename;
+        this.sizeBytes = sizeBytes;
+        this.submittedAt = submittedAt;
+        this.progress = new IngestionProgress(sizeBytes);
+    }
+
+    void markRunning() {
+        startedAt = Instant.now();
+        status = IngestionJobStatus.RUNNING;
+    }
+
+    void markSucceeded() {
+        finishedAt = Instant.now();
+        status = IngestionJobStatus.SUCCEEDED;
+    }
+
+    void markFailed(String message) {
+        error = message;
+        finishedAt = Instant.now();
+        status = IngestionJobStatus.FAILED;
+    }
+
+    /** Finished without running, e.g. because the same content was ingested recently. */
+    void markSkipped(String reason) {
+        error = reason;
+        finishedAt = Instant.now();
+        status = IngestionJobStatus.SKIPPED;
+    }
+
+    public boolean isFinished() {
+        return status == IngestionJobStatus.SUCCEEDED || status == IngestionJobStatus.FAILED
+                || status == IngestionJobStatus.SKIPPED;
+    }
+
+    public IngestionJobResponse toResponse() {
+        return new IngestionJobResponse(id, fileType, filename, sizeBytes, status.name(),
+                progress.parsed(), progress.sent(), progress.acked(), progress.failed(),
+                progress.suppressed(), progress.duplicates(), progress.producerProfile().tag(), error, submittedAt, startedAt, finishedAt);
+    }
+}
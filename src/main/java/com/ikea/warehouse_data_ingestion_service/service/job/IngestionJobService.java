@@ -0,0 +1,163 @@
+package com.ikea.warehouse_data_ingestion_service.service.job;
+
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
+import com.ikea.warehouse_data_ingestion_service.exception.FileProcessingException;
+import com.ikea.warehouse_data_ingestion_service.service.dedup.UploadDeduplicator;
+import com.ikea.warehouse_data_ingestion_service.util.ErrorMessages;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.ObjectUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static com.ikea.warehouse_data_ingestion_service.util.ErrorTypes.FILE_PROCESSING_ERROR;
+
+/**
+ * Runs uploads in the background on {@code ingestionJobExecutor} and keeps their state in
+ * memory for status polling. The upload is spooled to a local file before the request
+ * returns, because the multipart temp file is removed once the request completes.
+ * The content hash is computed while spooling; an upload identical to a recent successful one
+ * is registered as {@link IngestionJobStatus#SKIPPED} without running.
+ * At most {@code max-retained} jobs are kept; the oldest finished jobs are evicted first.
+ */
+@Slf4j
+@Service
+public class IngestionJobService {
+
+    private final Executor jobExecutor;
+    private final UploadDeduplicator uploadDeduplicator;
+    private final Map<String, IngestionJob> jobs = new LinkedHashMap<>();
+
+    @Value("${app.ingestion.jobs.max-retained:1000}")
+    private int maxRetainedJobs = 1000;
+
+    @Value("${app.ingestion.jobs.spool-dir:${java.io.tmpdir}/ingestion-jobs}")
+    private String spoolDir;
+
+    public IngestionJobService(@Qualifier("ingestionJobExecutor") Executor jobExecutor, UploadDeduplicator uploadDeduplicator) {
+        this.jobExecutor = jobExecutor;
+        this.uploadDeduplicator = uploadDeduplicator;
+    }
+
+    public IngestionJob submit(FileType fileType, MultipartFile file, IngestionTask task) throws IOException {
+        if (ObjectUtils.isEmpty(file)) {
+            throw new FileProcessingException(ErrorMessages.FILE_EMPTY, FILE_PROCESSING_ERROR);
+        }
+        Path directory = Files.createDirectories(Path.of(spoolDir));
+        Path spooled = Files.createTempFile(directory, fileType.name().toLowerCase() + "-", ".upload");
+        String contentHash;
+        try {
+            contentHash = spool(file, spooled);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spooled);
+            throw e;
+        }
+
+        try {
+            return submit(fileType, spooled, file.getOriginalFilename(), contentHash, task);
+        } catch (RejectedExecutionException e) {
+            Files.deleteIfExists(spooled);
+            throw e;
+        }
+    }
+
+    /**
+     * Runs {@code task} against an upload that has already been spooled to {@code spooled}, e.g.
+     * a committed resumable upload. The job takes ownership of the file and deletes it when it
+     * finishes, or right away when the upload is skipped as a duplicate; if the executor rejects
+     * the job the file is left to the caller.
+     */
+    public IngestionJob submit(FileType fileType, Path spooled, String filename, String contentHash, IngestionTask task) throws IOException {
+        IngestionJob job = new IngestionJob(UUID.randomUUID().toString(), fileType, filename, Files.size(spooled), Instant.now());
+        if (uploadDeduplicator.isDuplicate(fileType, contentHash)) {
+            Files.deleteIfExists(spooled);
+            job.markSkipped("Duplicate of a recent upload (SHA-256 " + contentHash + "), skipped");
+            register(job);
+            return job;
+        }
+        register(job);
+        try {
+            jobExecutor.execute(() -> execute(job, spooled, contentHash, task));
+        } catch (RejectedExecutionException e) {
+            unregister(job);
+            throw e;
+        }
+        log.info("Accepted {} upload as job {} - filename: {}, size: {} bytes", fileType, job.getId(), job.getFilename(), job.getSizeBytes());
+        return job;
+    }
+
+    public Optional<IngestionJob> find(String jobId) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(jobId));
+        }
+    }
+
+    /**
+     * Copies the upload to {@code target}, hashing it on the way when deduplication is enabled.
+     */
+    private String spool(MultipartFile file, Path target) throws IOException {
+        if (!uploadDeduplicator.isEnabled()) {
+            file.transferTo(target);
+            return null;
+        }
+        MessageDigest digest = UploadDeduplicator.newDigest();
+        try (InputStream inputStream = new DigestInputStream(file.getInputStream(), digest)) {
+            Files.copy(inputStream, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return UploadDeduplicator.toHex(digest);
+    }
+
+    private void execute(IngestionJob job, Path spooled, String contentHash, IngestionTask task) {
+        job.markRunning();
+        try (InputStream inputStream = Files.newInputStream(spooled)) {
+            task.run(inputStream, job.getProgress());
+            job.markSucceeded();
+            uploadDeduplicator.remember(job.getFileType(), contentHash);
+            log.info("Job {} finished - parsed: {}, acked: {}", job.getId(), job.getProgress().parsed(), job.getProgress().acked());
+        } catch (Exception e) {
+            job.markFailed(e.getMessage());
+            log.error("Job {} failed: {}", job.getId(), e.getMessage(), e);
+        } finally {
+            try {
+                Files.deleteIfExists(spooled);
+            } catch (IOException e) {
+                log.warn("Could not delete spooled upload {}: {}", spooled, e.getMessage());
+            }
+        }
+    }
+
+    private void register(IngestionJob job) {
+        synchronized (jobs) {
+            jobs.put(job.getId(), job);
+            Iterator<IngestionJob> eldest = jobs.values().iterator();
+            while (jobs.size() > maxRetainedJobs && eldest.hasNext()) {
+                if (eldest.next().isFinished()) {
+                    eldest.remove();
+                }
+            }
+        }
+    }
+
+    private void unregister(IngestionJob job) {
+        synchronized (jobs) {
+            jobs.remove(job.getId());
+        }
+    }
+}
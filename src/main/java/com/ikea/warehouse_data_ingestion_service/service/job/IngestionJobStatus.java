@@ -0,0 +1,9 @@
+package com.ikea.warehouse_data_ingestion_service.service.job;
+
+public enum IngestionJobStatus {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED,
+    SKIPPED
+}
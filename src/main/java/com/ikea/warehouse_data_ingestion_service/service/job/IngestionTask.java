@@ -0,0 +1,15 @@
+package com.ikea.warehouse_data_ingestion_service.service.job;
+
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionProgress;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Work performed by an asynchronous ingestion job against the spooled upload.
+ */
+@FunctionalInterface
+public interface IngestionTask {
+
+    void run(InputStream inputStream, IngestionProgress progress) throws IOException;
+}
@@ -0,0 +1,107 @@
+package com.ikea.warehouse_data_ingestion_service.service.metrics;
+
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.Compression;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionProgress;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionStage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-stage instruments of the ingestion path, all tagged by {@code file_type}. An upload is
+ * registered with {@link #started} so its in-flight sends show up in the gauge while it runs;
+ * {@link #finished} records the time it spent in every {@link IngestionStage} together with its
+ * record and byte counts; byte counters are also tagged by {@code compression}.
+ */
+@Component
+public class IngestionMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<FileType, Map<IngestionStage, Timer>> stageTimers = new EnumMap<>(FileType.class);
+    private final Map<FileType, DistributionSummary> fileRecords = new EnumMap<>(FileType.class);
+    private final Map<FileType, Set<IngestionProgress>> activeUploads = new EnumMap<>(FileType.class);
+
+    public IngestionMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (FileType fileType : FileType.values()) {
+            Map<IngestionStage, Timer> timers = new EnumMap<>(IngestionStage.class);
+            for (IngestionStage stage : IngestionStage.values()) {
+                timers.put(stage, Timer.builder("ingestion.stage")
+                        .tag("file_type", tag(fileType))
+                        .tag("stage", stage.tag())
+                        .description("Time one upload spent in an ingestion stage")
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+            }
+            stageTimers.put(fileType, timers);
+            fileRecords.put(fileType, DistributionSummary.builder("ingestion.file.records")
+                    .tag("file_type", tag(fileType))
+                    .description("Records parsed per uploaded file")
+                    .baseUnit("records")
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            Set<IngestionProgress> active = ConcurrentHashMap.newKeySet();
+            activeUploads.put(fileType, active);
+            Gauge.builder("ingestion.sends.in.flight", active, uploads -> uploads.stream().mapToLong(IngestionProgress::inFlight).sum())
+                    .tag("file_type", tag(fileType))
+                    .description("Records handed to the producer and not yet acknowledged")
+                    .register(meterRegistry);
+        }
+    }
+
+    public void started(FileType fileType, IngestionProgress progress) {
+        activeUploads.get(fileType).add(progress);
+    }
+
+    /** Records handed to the producer and not yet acknowledged, across running uploads of every file type. */
+    public long inFlight() {
+        long inFlight = 0;
+        for (Set<IngestionProgress> uploads : activeUploads.values()) {
+            for (IngestionProgress progress : uploads) {
+                inFlight += progress.inFlight();
+            }
+        }
+        return inFlight;
+    }
+
+    /** Records a finished upload, successful or not, into the stage timers and counters. */
+    public void finished(FileType fileType, String topic, IngestionProgress progress) {
+        activeUploads.get(fileType).remove(progress);
+        Map<IngestionStage, Timer> timers = stageTimers.get(fileType);
+        for (IngestionStage stage : IngestionStage.values()) {
+            timers.get(stage).record(Duration.ofNanos(Math.max(0, progress.stageNanos(stage))));
+        }
+        fileRecords.get(fileType).record(progress.parsed());
+        counter("ingestion.records", fileType, topic, "Records acknowledged by the broker").increment(progress.acked());
+        String compression = progress.compression().tag();
+        counter("ingestion.bytes", fileType, topic, "Uploaded bytes read, after decompression", "compression", compression)
+                .increment(progress.bytesRead());
+        if (progress.compression() != Compression.NONE) {
+            counter("ingestion.bytes.compressed", fileType, topic, "Compressed bytes received for compressed uploads", "compression", compression)
+                    .increment(progress.compressedBytesRead());
+        }
+    }
+
+    private Counter counter(String name, FileType fileType, String topic, String description, String... extraTags) {
+        return Counter.builder(name)
+                .tag("file_type", tag(fileType))
+                .tag("topic", topic)
+                .tags(extraTags)
+                .description(description)
+                .register(meterRegistry);
+    }
+
+    private static String tag(FileType fileType) {
+        return fileType.name().toLowerCase();
+    }
+}
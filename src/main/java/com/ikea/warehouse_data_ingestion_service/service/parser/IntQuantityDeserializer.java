@@ -0,0 +1,26 @@
+package com.ikea.warehouse_data_ingestion_service.service.parser;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+
+/** Non-negative {@code int} quantity given as a JSON number or a quoted number; see {@link Quantities}. */
+public class IntQuantityDeserializer extends StdDeserializer<Integer> {
+
+    public IntQuantityDeserializer() {
+        super(Integer.class);
+    }
+
+    @Override
+    public Integer deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        return (int) Quantities.read(parser, Integer.MAX_VALUE, Integer.class);
+    }
+
+    @Override
+    public Integer getNullValue(DeserializationContext context) throws JsonMappingException {
+        return context.reportInputMismatch(this, "Quantity must not be null");
+    }
+}
@@ -0,0 +1,109 @@
+package com.ikea.warehouse_data_ingestion_service.service.parser;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ikea.warehouse_data_ingestion_service.exception.FileProcessingException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+import static com.ikea.warehouse_data_ingestion_service.util.ErrorTypes.FILE_PROCESSING_ERROR;
+
+/**
+ * Token-level reader for the wrapper documents accepted by the upload endpoints
+ * ({@code {"inventory": [...]}} / {@code {"products": [...]}}) and for newline-delimited records.
+ * Walks the named top-level array (or the lines) one element at a time, so only a single record
+ * is materialized on the heap regardless of the file size. Newline-delimited records are parsed
+ * on several cores by {@link ParallelNdjsonReader}, if one is given.
+ */
+@Component
+public class JsonRecordStreamReader {
+
+    private final ObjectMapper objectMapper;
+    private final ParallelNdjsonReader parallelNdjsonReader;
+
+    /** Parses newline-delimited records on the calling thread. */
+    public JsonRecordStreamReader(ObjectMapper objectMapper) {
+        this(objectMapper, null);
+    }
+
+    @Autowired
+    public JsonRecordStreamReader(ObjectMapper objectMapper, ParallelNdjsonReader parallelNdjsonReader) {
+        this.objectMapper = objectMapper;
+        this.parallelNdjsonReader = parallelNdjsonReader;
+    }
+
+    /** Reads the records of an upload in {@code format}; {@code arrayField} applies to {@link RecordFormat#JSON} only. */
+    public <T> long read(InputStream inputStream, RecordFormat format, String arrayField, Class<T> type,
+                         Consumer<? super T> consumer) throws IOException {
+        return format == RecordFormat.NDJSON
+                ? readLines(inputStream, type, consumer)
+                : readArray(inputStream, arrayField, type, consumer);
+    }
+
+    /**
+     * Reads every element of the top-level array {@code arrayField} as {@code type}
+     * and hands it to {@code consumer} as soon as it is parsed.
+     *
+     * @return number of records read
+     */
+    public <T> long readArray(InputStream inputStream, String arrayField, Class<T> type, Consumer<? super T> consumer) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new FileProcessingException("Expected a JSON object wrapping the '" + arrayField + "' array", FILE_PROCESSING_ERROR);
+            }
+            long count = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                JsonToken valueToken = parser.nextToken();
+                if (!arrayField.equals(fieldName)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                if (valueToken == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                if (valueToken != JsonToken.START_ARRAY) {
+                    throw new FileProcessingException("Field '" + arrayField + "' must be an array", FILE_PROCESSING_ERROR);
+                }
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    T record = objectMapper.readValue(parser, type);
+                    if (record != null) {
+                        consumer.accept(record);
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Reads newline-delimited JSON: one {@code type} object per line, handed to {@code consumer}
+     * in input order. Blank lines are ignored.
+     *
+     * @return number of records read
+     */
+    public <T> long readLines(InputStream inputStream, Class<T> type, Consumer<? super T> consumer) throws IOException {
+        if (parallelNdjsonReader != null) {
+            return parallelNdjsonReader.read(inputStream, type, consumer);
+        }
+        try (JsonParser parser = objectMapper.getFactory().createParser(inputStream);
+             MappingIterator<T> records = objectMapper.readerFor(type).readValues(parser)) {
+            long count = 0;
+            while (records.hasNextValue()) {
+                T record = records.nextValue();
+                if (record != null) {
+                    consumer.accept(record);
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+}
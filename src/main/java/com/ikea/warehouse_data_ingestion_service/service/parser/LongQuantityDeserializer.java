@@ -0,0 +1,26 @@
+package com.ikea.warehouse_data_ingestion_service.service.parser;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+
+/** Non-negative {@code long} quantity given as a JSON number or a quoted number; see {@link Quantities}. */
+public class LongQuantityDeserializer extends StdDeserializer<Long> {
+
+    public LongQuantityDeserializer() {
+        super(Long.class);
+    }
+
+    @Override
+    public Long deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        return Quantities.read(parser, Long.MAX_VALUE, Long.class);
+    }
+
+    @Override
+    public Long getNullValue(DeserializationContext context) throws JsonMappingException {
+        return context.reportInputMismatch(this, "Quantity must not be null");
+    }
+}
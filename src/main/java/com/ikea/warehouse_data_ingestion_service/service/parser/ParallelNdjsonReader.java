@@ -0,0 +1,180 @@
+package com.ikea.warehouse_data_ingestion_service.service.parser;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * Parses newline-delimited JSON on several cores. The input is cut into chunks of about
+ * {@code chunk-size} bytes that end at a newline, and each chunk is parsed on the
+ * {@code ndjsonParserPool} while the calling thread reads the next one. Parsed chunks are handed
+ * to the consumer strictly in input order on the calling thread, so records of the same key reach
+ * the send stage in file order and the consumer needs no synchronization.
+ * At most two chunks per pool thread are read ahead, which bounds memory per upload. A parsed
+ * chunk is handed over as soon as it is the oldest one, and while no further input is available
+ * the calling thread waits for the oldest chunk instead, so a slowly arriving body (e.g. a raw
+ * request body) does not hold back its first records until the read-ahead is full.
+ */
+@Component
+public class ParallelNdjsonReader {
+
+    private static final byte NEWLINE = '\n';
+
+    private final ObjectMapper objectMapper;
+    private final ForkJoinPool parserPool;
+
+    @Value("${app.ingestion.ndjson.chunk-size:1MB}")
+    private DataSize chunkSize = DataSize.ofMegabytes(1);
+
+    public ParallelNdjsonReader(ObjectMapper objectMapper, @Qualifier("ndjsonParserPool") ForkJoinPool parserPool) {
+        this.objectMapper = objectMapper;
+        this.parserPool = parserPool;
+    }
+
+    /**
+     * Reads one {@code type} object per line and hands the records to {@code consumer} in input
+     * order. Blank lines are ignored; a record must not span lines.
+     *
+     * @return number of records read
+     */
+    public <T> long read(InputStream inputStream, Class<T> type, Consumer<? super T> consumer) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(type);
+        int maxPendingChunks = 2 * parserPool.getParallelism();
+        Deque<CompletableFuture<List<T>>> pending = new ArrayDeque<>(maxPendingChunks);
+        try {
+            long count = 0;
+            ChunkSplitter splitter = new ChunkSplitter(inputStream, (int) chunkSize.toBytes());
+            byte[] chunk;
+            while ((chunk = splitter.next()) != null) {
+                byte[] lines = chunk;
+                pending.add(CompletableFuture.supplyAsync(() -> parse(reader, lines), parserPool));
+                while (!pending.isEmpty()
+                        && (pending.size() >= maxPendingChunks || pending.peek().isDone() || splitter.awaitsInput())) {
+                    count += emit(pending.poll(), consumer);
+                }
+            }
+            while (!pending.isEmpty()) {
+                count += emit(pending.poll(), consumer);
+            }
+            return count;
+        } finally {
+            pending.forEach(future -> future.cancel(false));
+        }
+    }
+
+    private static <T> List<T> parse(ObjectReader reader, byte[] lines) {
+        List<T> records = new ArrayList<>();
+        try (MappingIterator<T> iterator = reader.readValues(lines)) {
+            while (iterator.hasNextValue()) {
+                T record = iterator.nextValue();
+                if (record != null) {
+                    records.add(record);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return records;
+    }
+
+    private static <T> int emit(CompletableFuture<List<T>> parsed, Consumer<? super T> consumer) throws IOException {
+        List<T> records;
+        try {
+            records = parsed.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while parsing NDJSON");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(e.getCause());
+        }
+        records.forEach(consumer);
+        return records.size();
+    }
+
+    /**
+     * Cuts a stream into chunks of at most {@code chunkSize} bytes that end right after the last
+     * newline they contain; only the final chunk may end without one. A chunk is cut as soon as a
+     * read brings a newline, so while input arrives slowly chunks are smaller than
+     * {@code chunkSize} rather than waiting for it to fill. A line longer than {@code chunkSize}
+     * grows the buffer until the line ends.
+     */
+    static final class ChunkSplitter {
+
+        private final InputStream inputStream;
+        private byte[] buffer;
+        private int length;
+        private boolean endOfInput;
+
+        ChunkSplitter(InputStream inputStream, int chunkSize) {
+            this.inputStream = inputStream;
+            this.buffer = new byte[Math.max(1, chunkSize)];
+        }
+
+        /** Next chunk, or {@code null} once the input is exhausted. */
+        byte[] next() throws IOException {
+            while (!endOfInput) {
+                int read = inputStream.read(buffer, length, buffer.length - length);
+                if (read < 0) {
+                    endOfInput = true;
+                    break;
+                }
+                // the bytes kept from the previous chunk end without a newline
+                int searchFrom = length;
+                length += read;
+                int lineEnd = lastNewline(searchFrom);
+                if (lineEnd >= 0) {
+                    return take(lineEnd + 1);
+                }
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+            }
+            return length > 0 ? take(length) : null;
+        }
+
+        /** Whether the next chunk needs input that has not arrived yet. */
+        boolean awaitsInput() throws IOException {
+            return !endOfInput && inputStream.available() == 0;
+        }
+
+        private int lastNewline(int from) {
+            for (int i = length - 1; i >= from; i--) {
+                if (buffer[i] == NEWLINE) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private byte[] take(int chunkLength) {
+            byte[] chunk = Arrays.copyOf(buffer, chunkLength);
+            length -= chunkLength;
+            System.arraycopy(buffer, chunkLength, buffer, 0, length);
+            return chunk;
+        }
+    }
+}
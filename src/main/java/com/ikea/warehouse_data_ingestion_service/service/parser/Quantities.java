@@ -0,0 +1,61 @@
+package com.ikea.warehouse_data_ingestion_service.service.parser;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import lombok.experimental.UtilityClass;
+
+import java.io.IOException;
+
+/**
+ * Reads non-negative integer quantities straight from the current JSON token. Numbers are taken
+ * from the parser's numeric value and quoted numbers are parsed from its character buffer, so
+ * no {@code String} is created on the happy path. Anything else (signs, decimals, blanks,
+ * overflow) is rejected.
+ */
+@UtilityClass
+class Quantities {
+
+    static long read(JsonParser parser, long max, Class<?> targetType) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            if (parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER) {
+                throw malformed(parser, targetType, parser.getText());
+            }
+            long value = parser.getLongValue();
+            if (value < 0 || value > max) {
+                throw malformed(parser, targetType, parser.getText());
+            }
+            return value;
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            long value = parseDigits(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength(), max);
+            if (value < 0) {
+                throw malformed(parser, targetType, parser.getText());
+            }
+            return value;
+        }
+        throw malformed(parser, targetType, token == null ? null : parser.getText());
+    }
+
+    /** Value of the unsigned decimal in {@code chars[offset, offset + length)}, or -1 if malformed or above {@code max}. */
+    static long parseDigits(char[] chars, int offset, int length, long max) {
+        if (length == 0) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9 || value > (max - digit) / 10) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static MismatchedInputException malformed(JsonParser parser, Class<?> targetType, String value) throws IOException {
+        return MismatchedInputException.from(parser, targetType,
+                "Malformed quantity '%s' for field '%s': expected a non-negative integer".formatted(value, parser.currentName()));
+    }
+}
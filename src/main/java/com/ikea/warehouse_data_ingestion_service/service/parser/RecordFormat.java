@@ -0,0 +1,17 @@
+package com.ikea.warehouse_data_ingestion_service.service.parser;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Layout of the records in an upload.
+ */
+public enum RecordFormat {
+    /** One JSON object wrapping the record array, e.g. {@code {"inventory": [...]}}. */
+    JSON,
+    /** Newline-delimited JSON ({@code application/x-ndjson}): one record object per line. */
+    NDJSON;
+
+    public static RecordFormat of(MediaType contentType) {
+        return contentType != null && MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType) ? NDJSON : JSON;
+    }
+}
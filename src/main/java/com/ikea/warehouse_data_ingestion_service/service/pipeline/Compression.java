@@ -0,0 +1,118 @@
+package com.ikea.warehouse_data_ingestion_service.service.pipeline;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.ikea.warehouse_data_ingestion_service.exception.FileProcessingException;
+import com.ikea.warehouse_data_ingestion_service.util.ErrorMessages;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+import static com.ikea.warehouse_data_ingestion_service.util.ErrorTypes.FILE_PROCESSING_ERROR;
+
+/**
+ * Compression of an uploaded payload. Compressed uploads are inflated as a stream in front of
+ * the JSON parser, so only the decompressor's window is held in memory, never the whole file.
+ */
+public enum Compression {
+    NONE,
+    GZIP,
+    ZSTD;
+
+    private static final int MAGIC_LENGTH = 4;
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    public String tag() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Compression declared by a {@code Content-Encoding} header; {@link #NONE} if the header is
+     * absent or {@code identity}, in which case {@link #decode} still looks at the magic bytes.
+     */
+    public static Compression fromContentEncoding(String contentEncoding) {
+        if (contentEncoding == null || contentEncoding.isBlank()) {
+            return NONE;
+        }
+        return switch (contentEncoding.trim().toLowerCase(Locale.ROOT)) {
+            case "identity" -> NONE;
+            case "gzip", "x-gzip" -> GZIP;
+            case "zstd" -> ZSTD;
+            default -> throw new FileProcessingException(
+                    ErrorMessages.UNSUPPORTED_CONTENT_ENCODING.formatted(contentEncoding), FILE_PROCESSING_ERROR);
+        };
+    }
+
+    /** Compression recognised from the first bytes of a payload. */
+    static Compression detect(byte[] header, int length) {
+        if (length >= 2 && header[0] == (byte) 0x1f && header[1] == (byte) 0x8b) {
+            return GZIP;
+        }
+        if (length >= 4 && header[0] == (byte) 0x28 && header[1] == (byte) 0xb5 && header[2] == (byte) 0x2f && header[3] == (byte) 0xfd) {
+            return ZSTD;
+        }
+        return NONE;
+    }
+
+    /**
+     * Returns the uncompressed content of {@code inputStream}. A {@code declared} compression
+     * other than {@link #NONE} is trusted; otherwise the payload is sniffed for the gzip or zstd
+     * magic bytes. For compressed payloads the compression and the compressed bytes read are
+     * recorded into {@code progress}.
+     */
+    public static InputStream decode(InputStream inputStream, Compression declared, IngestionProgress progress) throws IOException {
+        InputStream source = inputStream;
+        Compression compression = declared;
+        if (compression == NONE) {
+            PushbackInputStream pushback = new PushbackInputStream(inputStream, MAGIC_LENGTH);
+            byte[] header = pushback.readNBytes(MAGIC_LENGTH);
+            pushback.unread(header);
+            compression = detect(header, header.length);
+            source = pushback;
+        }
+        if (compression == NONE) {
+            return source;
+        }
+        progress.useCompression(compression);
+        InputStream compressed = new CompressedBytesCounter(source, progress);
+        return compression == GZIP ? new GZIPInputStream(compressed, GZIP_BUFFER_SIZE) : new ZstdInputStream(compressed);
+    }
+
+    private static final class CompressedBytesCounter extends FilterInputStream {
+
+        private final IngestionProgress progress;
+
+        private CompressedBytesCounter(InputStream in, IngestionProgress progress) {
+            super(in);
+            this.progress = progress;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                progress.addCompressedBytesRead(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                progress.addCompressedBytesRead(read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            progress.addCompressedBytesRead(skipped);
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.ikea.warehouse_data_ingestion_service.service.pipeline;
+
+import com.ikea.warehouse_data_ingestion_service.exception.KafkaProduceFailedException;
+import com.ikea.warehouse_data_ingestion_service.service.KafkaProducerService;
+import com.ikea.warehouse_data_ingestion_service.service.producer.ProducerProfile;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Parse -> map -> publish pipeline. The parse stage runs on the caller's thread, the map
+ * and publish stages run on {@code ingestionPipelineExecutor}; stages are connected by
+ * bounded queues so a slow stage pushes back on the one before it. The publish stage
+ * keeps at most {@code max-in-flight} unacknowledged records, which bounds producer
+ * buffer usage independently of the file size. At most {@code max-concurrent-runs} uploads
+ * run at once, so both stages of an admitted run always get a thread.
+ */
+@Slf4j
+@Component
+public class IngestionPipeline {
+
+    private static final Object END = new Object();
+    private static final long POLL_MILLIS = 100;
+
+    private final KafkaProducerService kafkaProducerService;
+    private final Executor pipelineExecutor;
+    private final int maxConcurrentRuns;
+    private final Semaphore runPermits;
+    private final Set<Run> activeRuns = ConcurrentHashMap.newKeySet();
+
+    @Value("${app.ingestion.pipeline.queue-capacity:1024}")
+    private int queueCapacity = 1024;
+
+    @Value("${app.ingestion.pipeline.max-in-flight:10000}")
+    private int maxInFlight = 10000;
+
+    public IngestionPipeline(KafkaProducerService kafkaProducerService,
+                             @Qualifier("ingestionPipelineExecutor") Executor pipelineExecutor,
+                             @Value("${app.ingestion.pipeline.max-concurrent-runs:8}") int maxConcurrentRuns,
+                             MeterRegistry meterRegistry) {
+        this.kafkaProducerService = kafkaProducerService;
+        this.pipelineExecutor = pipelineExecutor;
+        this.maxConcurrentRuns = maxConcurrentRuns;
+        this.runPermits = new Semaphore(maxConcurrentRuns);
+        registerGauge(meterRegistry, "ingestion.pipeline.queue.depth", "map", run -> run.parsedQueue.size(),
+                "Parsed records waiting for the map stage");
+        registerGauge(meterRegistry, "ingestion.pipeline.queue.depth", "publish", run -> run.mappedQueue.size(),
+                "Mapped events waiting for the publish stage");
+        registerGauge(meterRegistry, "ingestion.pipeline.in.flight", "ack", run -> run.inFlight.get(),
+                "Records sent to Kafka and not yet acknowledged");
+        Gauge.builder("ingestion.pipeline.active", activeRuns, Set::size)
+                .description("Pipeline runs currently in progress")
+                .register(meterRegistry);
+    }
+
+    private void registerGauge(MeterRegistry meterRegistry, String name, String stage, ToIntFunction<Run> depth, String description) {
+        Gauge.builder(name, activeRuns, runs -> runs.stream().mapToInt(depth).sum())
+                .tag("stage", stage)
+                .description(description)
+                .register(meterRegistry);
+    }
+
+    public <R> PipelineResult run(String topic, RecordSource<R> source, Function<? super R, String> keyMapper,
+                                  BiFunction<? super R, String, ?> eventMapper) throws IOException {
+        return run(topic, source, keyMapper, eventMapper, new IngestionProgress());
+    }
+
+    /**
+     * Runs one file through the pipeline and returns once every record has been acknowledged.
+     * The map stage derives each record's key once and hands it to {@code eventMapper} along with the
+     * record; records for which it returns {@code null} are dropped.
+     * The first parse, mapping or send failure aborts all stages and is rethrown.
+     *
+     * @throws RejectedExecutionException if {@code max-concurrent-runs} uploads are already running
+     *                                    or the executor has no thread for a stage
+     */
+    public <R> PipelineResult run(String topic, RecordSource<R> source, Function<? super R, String> keyMapper,
+                                  BiFunction<? super R, String, ?> eventMapper, IngestionProgress progress) throws IOException {
+        if (!runPermits.tryAcquire()) {
+            throw new RejectedExecutionException("All %d pipeline runs are busy".formatted(maxConcurrentRuns));
+        }
+        Run run = new Run(topic, progress);
+        activeRuns.add(run);
+        try {
+            CompletableFuture<Void> mapStage = CompletableFuture.runAsync(() -> run.map(keyMapper, eventMapper), pipelineExecutor);
+            CompletableFuture<Void> publishStage;
+            try {
+                publishStage = CompletableFuture.runAsync(run::publish, pipelineExecutor);
+            } catch (RejectedExecutionException e) {
+                // unwind the map stage, which would otherwise wait for records forever
+                run.fail(e);
+                mapStage.exceptionally(throwable -> null).join();
+                throw e;
+            }
+            mapStage.whenComplete((ignored, throwable) -> run.failOn(throwable));
+            publishStage.whenComplete((ignored, throwable) -> run.failOn(throwable));
+
+            long parseStart = System.nanoTime();
+            long readNanosBefore = progress.stageNanos(IngestionStage.READ);
+            try {
+                source.emit(record -> {
+                    long handoffStart = System.nanoTime();
+                    run.put(run.parsedQueue, record);
+                    run.handoffNanos += System.nanoTime() - handoffStart;
+                    progress.recordParsed();
+                });
+                run.put(run.parsedQueue, END);
+            } catch (Aborted aborted) {
+                // a downstream stage failed; its cause is rethrown below
+            } catch (IOException | RuntimeException e) {
+                run.fail(e);
+            }
+            // map and publish record their stages concurrently, so only reads and queue waits are subtracted
+            progress.addStageNanos(IngestionStage.PARSE, System.nanoTime() - parseStart - run.handoffNanos
+                    - (progress.stageNanos(IngestionStage.READ) - readNanosBefore));
+
+            CompletableFuture.allOf(mapStage, publishStage).exceptionally(throwable -> null).join();
+            run.rethrowFailure();
+            PipelineResult result = progress.snapshot();
+            log.info("Pipeline finished for topic {} - parsed: {}, duplicates: {}, suppressed: {}, sent: {}, acked: {}",
+                    topic, result.parsed(), result.duplicates(), result.suppressed(), result.sent(), result.acked());
+            return result;
+        } finally {
+            activeRuns.remove(run);
+            runPermits.release();
+        }
+    }
+
+    private final class Run {
+
+        private final String topic;
+        private final IngestionProgress progress;
+        private final BlockingQueue<Object> parsedQueue = new ArrayBlockingQueue<>(queueCapacity);
+        private final BlockingQueue<Object> mappedQueue = new ArrayBlockingQueue<>(queueCapacity);
+        private final Semaphore window = new Semaphore(maxInFlight);
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        /** Time the parse stage spent waiting for space in {@code parsedQueue}; parse thread only. */
+        private long handoffNanos;
+
+        private Run(String topic, IngestionProgress progress) {
+            this.topic = topic;
+            this.progress = progress;
+        }
+
+        @SuppressWarnings("unchecked")
+        private <R> void map(Function<? super R, String> keyMapper, BiFunction<? super R, String, ?> eventMapper) {
+            Object item;
+            while ((item = take(parsedQueue)) != END) {
+                R record = (R) item;
+                long mapStart = System.nanoTime();
+                String key = keyMapper.apply(record);
+                Object event = eventMapper.apply(record, key);
+                progress.addStageNanos(IngestionStage.MAP, System.nanoTime() - mapStart);
+                if (event != null) {
+                    put(mappedQueue, new KeyedEvent(key, event));
+                }
+            }
+            put(mappedQueue, END);
+        }
+
+        private void publish() {
+            ProducerProfile profile = progress.producerProfile();
+            Object item;
+            while ((item = take(mappedQueue)) != END) {
+                KeyedEvent keyedEvent = (KeyedEvent) item;
+                long windowWait = System.nanoTime();
+                acquire(1);
+                progress.addStageNanos(IngestionStage.ACK, System.nanoTime() - windowWait);
+                inFlight.incrementAndGet();
+                progress.recordSent();
+                long enqueueStart = System.nanoTime();
+                CompletableFuture<?> ack = kafkaProducerService.send(topic, keyedEvent.key(), keyedEvent.event(), progress);
+                progress.addStageNanos(IngestionStage.ENQUEUE, System.nanoTime() - enqueueStart);
+                ack.whenComplete((result, throwable) -> {
+                    inFlight.decrementAndGet();
+                    window.release();
+                    if (throwable == null) {
+                        progress.recordAcked();
+                    } else {
+                        progress.recordFailed();
+                        fail(new KafkaProduceFailedException(throwable.getMessage(), throwable));
+                    }
+                });
+            }
+            long drainStart = System.nanoTime();
+            kafkaProducerService.flush(profile);
+            // every permit is back once the last outstanding record has been acknowledged
+            acquire(maxInFlight);
+            window.release(maxInFlight);
+            progress.addStageNanos(IngestionStage.ACK, System.nanoTime() - drainStart);
+        }
+
+        private void put(BlockingQueue<Object> queue, Object item) {
+            try {
+                while (!queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    checkNotAborted();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new Aborted();
+            }
+        }
+
+        private Object take(BlockingQueue<Object> queue) {
+            try {
+                Object item;
+                while ((item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                    checkNotAborted();
+                }
+                return item;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new Aborted();
+            }
+        }
+
+        private void acquire(int permits) {
+            try {
+                while (!window.tryAcquire(permits, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    checkNotAborted();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new Aborted();
+            }
+        }
+
+        private void checkNotAborted() {
+            if (failure.get() != null) {
+                throw new Aborted();
+            }
+        }
+
+        private void failOn(Throwable throwable) {
+            Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+            if (cause != null && !(cause instanceof Aborted)) {
+                fail(cause);
+            }
+        }
+
+        private void fail(Throwable throwable) {
+            if (failure.compareAndSet(null, throwable)) {
+                log.error("Aborting ingestion pipeline for topic {}: {}", topic, throwable.getMessage());
+            }
+        }
+
+        private void rethrowFailure() throws IOException {
+            Throwable throwable = failure.get();
+            if (throwable == null) {
+                return;
+            }
+            if (throwable instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (throwable instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(throwable.getMessage(), throwable);
+        }
+    }
+
+    private record KeyedEvent(String key, Object event) {}
+
+    /** Unwinds a stage once another stage has recorded a failure. */
+    private static final class Aborted extends RuntimeException {
+        private Aborted() {
+            super(null, null, false, false);
+        }
+    }
+}
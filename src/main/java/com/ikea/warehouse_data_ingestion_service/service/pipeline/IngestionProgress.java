@@ -0,0 +1,187 @@
+package com.ikea.warehouse_data_ingestion_service.service.pipeline;
+
+import com.ikea.warehouse_data_ingestion_service.service.producer.ProducerProfile;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Live record counters and per-stage timings of a single ingestion run. Updated by the
+ * pipeline stages and safe to read from any thread while the run is in progress.
+ */
+public class IngestionProgress {
+
+    /** Tenant of uploads that do not name their warehouse. */
+    public static final String DEFAULT_TENANT = "default";
+
+    private final long sizeBytes;
+    private final AtomicLong parsed = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong acked = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong suppressed = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong compressedBytesRead = new AtomicLong();
+    private final AtomicLongArray stageNanos = new AtomicLongArray(IngestionStage.values().length);
+    private volatile ProducerProfile producerProfile = ProducerProfile.BALANCED;
+    private volatile Compression compression = Compression.NONE;
+    private volatile String tenant = DEFAULT_TENANT;
+
+    public IngestionProgress() {
+        this(-1);
+    }
+
+    /**
+     * @param sizeBytes size of the uploaded file, or -1 when unknown
+     */
+    public IngestionProgress(long sizeBytes) {
+        this.sizeBytes = sizeBytes;
+    }
+
+    public void recordParsed() {
+        parsed.incrementAndGet();
+    }
+
+    public void recordSent() {
+        sent.incrementAndGet();
+    }
+
+    public void recordAcked() {
+        acked.incrementAndGet();
+    }
+
+    public void recordFailed() {
+        failed.incrementAndGet();
+    }
+
+    /** A parsed record that was deliberately not published (e.g. unchanged since the last upload). */
+    public void recordSuppressed() {
+        suppressed.incrementAndGet();
+    }
+
+    /** A parsed record whose key already appeared earlier in the same file. */
+    public void recordDuplicate() {
+        duplicates.incrementAndGet();
+    }
+
+    public void addSent(long count) {
+        sent.addAndGet(count);
+    }
+
+    public void addAcked(long count) {
+        acked.addAndGet(count);
+    }
+
+    public void addFailed(long count) {
+        failed.addAndGet(count);
+    }
+
+    public void addBytesRead(long count) {
+        bytesRead.addAndGet(count);
+    }
+
+    /** Bytes of a compressed payload read before decompression; {@link #bytesRead()} counts them uncompressed. */
+    public void addCompressedBytesRead(long count) {
+        compressedBytesRead.addAndGet(count);
+    }
+
+    public void addStageNanos(IngestionStage stage, long nanos) {
+        stageNanos.addAndGet(stage.ordinal(), nanos);
+    }
+
+    /**
+     * Starts timing a parse loop on the calling thread; pass the result to {@link #parseFinished(long)}.
+     * Time that nested stages (read, map, enqueue, ack) record while the loop runs is not
+     * counted as parse time.
+     */
+    public long parseStarted() {
+        return System.nanoTime() - totalStageNanos();
+    }
+
+    public void parseFinished(long parseStarted) {
+        addStageNanos(IngestionStage.PARSE, System.nanoTime() - totalStageNanos() - parseStarted);
+    }
+
+    public void useProducerProfile(ProducerProfile producerProfile) {
+        this.producerProfile = producerProfile;
+    }
+
+    public void useCompression(Compression compression) {
+        this.compression = compression;
+    }
+
+    /** Schedules the upload's records as {@code tenant}'s; {@code null} or blank means {@link #DEFAULT_TENANT}. */
+    public void useTenant(String tenant) {
+        this.tenant = tenant == null || tenant.isBlank() ? DEFAULT_TENANT : tenant.strip();
+    }
+
+    public long sizeBytes() {
+        return sizeBytes;
+    }
+
+    public String tenant() {
+        return tenant;
+    }
+
+    public ProducerProfile producerProfile() {
+        return producerProfile;
+    }
+
+    public long parsed() {
+        return parsed.get();
+    }
+
+    public long sent() {
+        return sent.get();
+    }
+
+    public long acked() {
+        return acked.get();
+    }
+
+    public long failed() {
+        return failed.get();
+    }
+
+    public long suppressed() {
+        return suppressed.get();
+    }
+
+    public long duplicates() {
+        return duplicates.get();
+    }
+
+    /** Records handed to the producer that are neither acknowledged nor failed yet. */
+    public long inFlight() {
+        return Math.max(0, sent.get() - acked.get() - failed.get());
+    }
+
+    public long bytesRead() {
+        return bytesRead.get();
+    }
+
+    public long compressedBytesRead() {
+        return compressedBytesRead.get();
+    }
+
+    public Compression compression() {
+        return compression;
+    }
+
+    public long stageNanos(IngestionStage stage) {
+        return stageNanos.get(stage.ordinal());
+    }
+
+    private long totalStageNanos() {
+        long total = 0;
+        for (int i = 0; i < stageNanos.length(); i++) {
+            total += stageNanos.get(i);
+        }
+        return total;
+    }
+
+    public PipelineResult snapshot() {
+        return new PipelineResult(parsed.get(), sent.get(), acked.get(), failed.get(), suppressed.get(), duplicates.get());
+    }
+}
@@ -0,0 +1,24 @@
+package com.ikea.warehouse_data_ingestion_service.service.pipeline;
+
+import java.util.Locale;
+
+/**
+ * Steps an upload goes through between the request body and the broker acknowledgement.
+ * {@link IngestionProgress} accumulates the time an upload spends in each of them.
+ */
+public enum IngestionStage {
+    /** Blocked reading the uploaded bytes (multipart part or spooled job file). */
+    READ,
+    /** JSON parsing into records, excluding the reads it triggers. */
+    PARSE,
+    /** Turning records into keys and events, including duplicate-key and delta checks. */
+    MAP,
+    /** Handing events to the producer: serialization, partitioning and waiting for buffer space. */
+    ENQUEUE,
+    /** Waiting for broker acknowledgements, including flushes and in-flight window limits. */
+    ACK;
+
+    public String tag() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,3 @@
+package com.ikea.warehouse_data_ingestion_service.service.pipeline;
+
+public record PipelineResult(long parsed, long sent, long acked, long failed, long suppressed, long duplicates) {}
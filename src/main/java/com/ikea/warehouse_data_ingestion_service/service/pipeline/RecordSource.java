@@ -0,0 +1,14 @@
+package com.ikea.warehouse_data_ingestion_service.service.pipeline;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Parse stage of the ingestion pipeline: pushes every record it reads into {@code sink}
+ * and returns the number of records emitted.
+ */
+@FunctionalInterface
+public interface RecordSource<R> {
+
+    long emit(Consumer<? super R> sink) throws IOException;
+}
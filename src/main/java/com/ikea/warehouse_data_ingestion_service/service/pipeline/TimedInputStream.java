@@ -0,0 +1,48 @@
+package com.ikea.warehouse_data_ingestion_service.service.pipeline;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Records the time spent blocked in reads as {@link IngestionStage#READ} and the number of
+ * bytes read into an {@link IngestionProgress}.
+ */
+public class TimedInputStream extends FilterInputStream {
+
+    private final IngestionProgress progress;
+
+    public TimedInputStream(InputStream in, IngestionProgress progress) {
+        super(in);
+        this.progress = progress;
+    }
+
+    @Override
+    public int read() throws IOException {
+        long start = System.nanoTime();
+        int b = super.read();
+        progress.addStageNanos(IngestionStage.READ, System.nanoTime() - start);
+        if (b >= 0) {
+            progress.addBytesRead(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        long start = System.nanoTime();
+        int read = super.read(buffer, offset, length);
+        progress.addStageNanos(IngestionStage.READ, System.nanoTime() - start);
+        if (read > 0) {
+            progress.addBytesRead(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        progress.addBytesRead(skipped);
+        return skipped;
+    }
+}
@@ -0,0 +1,205 @@
+package com.ikea.warehouse_data_ingestion_service.service.producer;
+
+import com.ikea.warehouse_data_ingestion_service.exception.KafkaProduceFailedException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Weighted fair queuing of records into the producers across tenants (warehouses). At most
+ * {@code capacity} records of all uploads together may be handed to the producers and not yet
+ * acknowledged. While that capacity is used up, senders wait and are let through in the order
+ * of their virtual finish time:
+ * <pre>
+ * finish = max(virtual time, previous finish of the tenant) + records / weight
+ * </pre>
+ * where the virtual time is the start tag of the last sender let through (self-clocked fair
+ * queuing). A tenant with a small backlog therefore gets ahead of a tenant that has been
+ * sending a bulk load, and over time every waiting tenant gets capacity in proportion to its
+ * weight. Tenants not listed in {@code weights} have weight 1.
+ */
+public class FairSendScheduler {
+
+    /** Tags wait times of tenants without a configured weight, to keep the tag set bounded. */
+    private static final String OTHER_TENANTS = "other";
+
+    private final long capacity;
+    private final Map<String, Double> weights;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final PriorityQueue<Waiter> waiting = new PriorityQueue<>(
+            Comparator.comparingDouble(Waiter::finish).thenComparingLong(Waiter::sequence));
+    private final Map<String, Double> lastFinish = new HashMap<>();
+    private final Map<String, Timer> waitTimers = new HashMap<>();
+    private final MeterRegistry meterRegistry;
+    private long available;
+    private double virtualTime;
+    private long sequence;
+
+    /**
+     * @param capacity records in flight across all uploads; 0 or less disables scheduling
+     * @param weights  share of each tenant relative to the default weight of 1
+     */
+    public FairSendScheduler(long capacity, Map<String, Double> weights, MeterRegistry meterRegistry) {
+        weights.forEach((tenant, weight) -> {
+            if (!(weight > 0)) {
+                throw new IllegalArgumentException("Weight of tenant " + tenant + " must be positive: " + weight);
+            }
+        });
+        this.capacity = capacity;
+        this.available = capacity;
+        this.weights = Map.copyOf(weights);
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("ingestion.scheduler.waiting", this, FairSendScheduler::waiting)
+                .description("Uploads waiting for send capacity")
+                .register(meterRegistry);
+    }
+
+    /** A scheduler that lets every sender through immediately. */
+    public static FairSendScheduler unlimited() {
+        return new FairSendScheduler(0, Map.of(), new SimpleMeterRegistry());
+    }
+
+    /**
+     * Waits until {@code records} records of {@code tenant} may be sent. Requests larger than the
+     * capacity are granted the whole capacity.
+     *
+     * @return the number of records to {@link #release} once they are acknowledged or failed
+     * @throws KafkaProduceFailedException if interrupted while waiting
+     */
+    public long acquire(String tenant, int records) {
+        if (capacity <= 0) {
+            return 0;
+        }
+        long cost = Math.min(Math.max(records, 1), capacity);
+        lock.lock();
+        try {
+            double start = Math.max(virtualTime, lastFinish.getOrDefault(tenant, 0.0));
+            double finish = start + cost / weights.getOrDefault(tenant, 1.0);
+            lastFinish.put(tenant, finish);
+            if (waiting.isEmpty() && available >= cost) {
+                available -= cost;
+                virtualTime = start;
+                return cost;
+            }
+            Waiter waiter = new Waiter(cost, start, finish, sequence++, lock.newCondition());
+            waiting.add(waiter);
+            long waitStart = System.nanoTime();
+            try {
+                while (!waiter.granted) {
+                    waiter.condition.await();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (waiter.granted) {
+                    releaseLocked(cost);
+                } else {
+                    waiting.remove(waiter);
+                    grant();
+                }
+                throw new KafkaProduceFailedException("Interrupted while waiting to send records of tenant " + tenant);
+            }
+            waitTimer(tenant).record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+            return cost;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Returns capacity taken by {@link #acquire}; releasing 0 does nothing. */
+    public void release(long records) {
+        if (records <= 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            releaseLocked(records);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    public int waiting() {
+        lock.lock();
+        try {
+            return waiting.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void releaseLocked(long records) {
+        available += records;
+        grant();
+        if (available == capacity && waiting.isEmpty()) {
+            // idle: start the next busy period without history, so finish tags stay small
+            lastFinish.clear();
+            virtualTime = 0;
+        }
+    }
+
+    private void grant() {
+        while (!waiting.isEmpty() && waiting.peek().cost() <= available) {
+            Waiter waiter = waiting.poll();
+            available -= waiter.cost();
+            virtualTime = Math.max(virtualTime, waiter.start());
+            waiter.granted = true;
+            waiter.condition.signal();
+        }
+    }
+
+    private Timer waitTimer(String tenant) {
+        String tag = weights.containsKey(tenant) ? tenant : OTHER_TENANTS;
+        return waitTimers.computeIfAbsent(tag, t -> Timer.builder("ingestion.scheduler.wait")
+                .tag("tenant", t)
+                .description("Time senders of a tenant waited for send capacity")
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    private static final class Waiter {
+
+        private final long cost;
+        private final double start;
+        private final double finish;
+        private final long sequence;
+        private final Condition condition;
+        private boolean granted;
+
+        private Waiter(long cost, double start, double finish, long sequence, Condition condition) {
+            this.cost = cost;
+            this.start = start;
+            this.finish = finish;
+            this.sequence = sequence;
+            this.condition = condition;
+        }
+
+        long cost() {
+            return cost;
+        }
+
+        double start() {
+            return start;
+        }
+
+        double finish() {
+            return finish;
+        }
+
+        long sequence() {
+            return sequence;
+        }
+    }
+}
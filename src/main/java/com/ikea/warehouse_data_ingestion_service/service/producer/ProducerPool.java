@@ -0,0 +1,67 @@
+package com.ikea.warehouse_data_ingestion_service.service.producer;
+
+import org.apache.kafka.common.utils.Utils;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The producers of one {@link ProducerProfile}. Every partition of a topic is owned by exactly
+ * one member ({@code partition % size}), so all records of a key go through the same producer
+ * in the order they were sent, and each partition's batches fill up in a single accumulator.
+ * Members have their own sender thread and record accumulator lock.
+ */
+public class ProducerPool {
+
+    private final List<KafkaTemplate<String, Object>> members;
+    private final Map<String, Integer> partitionCounts = new ConcurrentHashMap<>();
+
+    public ProducerPool(List<KafkaTemplate<String, Object>> members) {
+        if (members.isEmpty()) {
+            throw new IllegalArgumentException("A producer pool needs at least one producer");
+        }
+        this.members = List.copyOf(members);
+    }
+
+    public int size() {
+        return members.size();
+    }
+
+    public List<KafkaTemplate<String, Object>> members() {
+        return members;
+    }
+
+    public KafkaTemplate<String, Object> member(int index) {
+        return members.get(index);
+    }
+
+    /** The member owning the partition {@code key} is written to; always 0 for a pool of one. */
+    public int memberFor(String topic, String key) {
+        if (members.size() == 1 || key == null) {
+            return 0;
+        }
+        return partitionFor(topic, key) % members.size();
+    }
+
+    public KafkaTemplate<String, Object> forKey(String topic, String key) {
+        return members.get(memberFor(topic, key));
+    }
+
+    /**
+     * Partition of {@code key} as chosen by the producer's default partitioner (murmur2 of the
+     * serialized key). The partition count is looked up once per topic.
+     */
+    int partitionFor(String topic, String key) {
+        int partitions = partitionCounts.computeIfAbsent(topic, t -> members.get(0).partitionsFor(t).size());
+        return Utils.toPositive(Utils.murmur2(key.getBytes(StandardCharsets.UTF_8))) % partitions;
+    }
+
+    public void flush() {
+        for (KafkaTemplate<String, Object> member : members) {
+            member.flush();
+        }
+    }
+}
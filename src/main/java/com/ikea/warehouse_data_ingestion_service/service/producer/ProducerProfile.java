@@ -0,0 +1,24 @@
+package com.ikea.warehouse_data_ingestion_service.service.producer;
+
+/**
+ * Producer tuning used for an upload, chosen per upload by {@link ProducerProfileRouter}.
+ */
+public enum ProducerProfile {
+    /** Small corrections: no linger, no compression, so a handful of records is acked right away. */
+    LOW_LATENCY("low-latency"),
+    /** Default tuning ({@code spring.kafka.producer.*}). */
+    BALANCED("balanced"),
+    /** Large loads: big batches, longer linger and compression to maximise records per request. */
+    BULK("bulk");
+
+    private final String tag;
+
+    ProducerProfile(String tag) {
+        this.tag = tag;
+    }
+
+    /** Name used in configuration keys and metric tags. */
+    public String tag() {
+        return tag;
+    }
+}
@@ -0,0 +1,97 @@
+package com.ikea.warehouse_data_ingestion_service.service.producer;
+
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionProgress;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Picks the {@link ProducerProfile} of an upload. The record count is used when it is known
+ * before sending (batch mode), otherwise the upload size in bytes; uploads of unknown size
+ * use {@link ProducerProfile#BALANCED}.
+ */
+@Slf4j
+@Component
+public class ProducerProfileRouter {
+
+    public static final long UNKNOWN = -1;
+
+    private final ProducerTemplates producerTemplates;
+    private final Map<ProducerProfile, Counter> uploads = new EnumMap<>(ProducerProfile.class);
+    private final Map<ProducerProfile, DistributionSummary> fillRatios = new EnumMap<>(ProducerProfile.class);
+
+    @Value("${app.kafka.profiles.routing.low-latency-max-bytes:64KB}")
+    private DataSize lowLatencyMaxBytes = DataSize.ofKilobytes(64);
+
+    @Value("${app.kafka.profiles.routing.bulk-min-bytes:16MB}")
+    private DataSize bulkMinBytes = DataSize.ofMegabytes(16);
+
+    @Value("${app.kafka.profiles.routing.low-latency-max-records:500}")
+    private long lowLatencyMaxRecords = 500;
+
+    @Value("${app.kafka.profiles.routing.bulk-min-records:100000}")
+    private long bulkMinRecords = 100_000;
+
+    public ProducerProfileRouter(ProducerTemplates producerTemplates, MeterRegistry meterRegistry) {
+        this.producerTemplates = producerTemplates;
+        for (ProducerProfile profile : ProducerProfile.values()) {
+            uploads.put(profile, Counter.builder("ingestion.producer.profile.uploads")
+                    .tag("profile", profile.tag())
+                    .description("Uploads published with this producer profile")
+                    .register(meterRegistry));
+            fillRatios.put(profile, DistributionSummary.builder("ingestion.producer.batch.fill.ratio")
+                    .tag("profile", profile.tag())
+                    .description("Average producer batch size over batch.size, sampled when an upload finishes")
+                    .register(meterRegistry));
+            Gauge.builder("ingestion.producer.buffer.available", producerTemplates, templates -> templates.bufferAvailableBytes(profile))
+                    .tag("profile", profile.tag())
+                    .description("Unused producer buffer.memory; uploads block in the enqueue stage when it runs out")
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        }
+    }
+
+    public ProducerProfile select(long sizeBytes, long recordCount) {
+        if (recordCount >= 0) {
+            return recordCount <= lowLatencyMaxRecords ? ProducerProfile.LOW_LATENCY
+                    : recordCount >= bulkMinRecords ? ProducerProfile.BULK : ProducerProfile.BALANCED;
+        }
+        if (sizeBytes >= 0) {
+            return sizeBytes <= lowLatencyMaxBytes.toBytes() ? ProducerProfile.LOW_LATENCY
+                    : sizeBytes >= bulkMinBytes.toBytes() ? ProducerProfile.BULK : ProducerProfile.BALANCED;
+        }
+        return ProducerProfile.BALANCED;
+    }
+
+    /**
+     * Selects the profile for the upload tracked by {@code progress}, stores it there and
+     * counts the upload against it.
+     */
+    public ProducerProfile route(IngestionProgress progress, long recordCount) {
+        ProducerProfile profile = select(progress.sizeBytes(), recordCount);
+        progress.useProducerProfile(profile);
+        uploads.get(profile).increment();
+        log.debug("Upload of {} bytes / {} records routed to producer profile {}", progress.sizeBytes(), recordCount, profile.tag());
+        return profile;
+    }
+
+    /** Samples the batch fill ratio of the producer an upload used once it has been flushed. */
+    public void recordBatchFill(ProducerProfile profile) {
+        try {
+            double ratio = producerTemplates.batchFillRatio(profile);
+            if (!Double.isNaN(ratio)) {
+                fillRatios.get(profile).record(ratio);
+            }
+        } catch (RuntimeException e) {
+            log.debug("Could not read batch metrics of producer profile {}: {}", profile.tag(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.ikea.warehouse_data_ingestion_service.service.producer;
+
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One {@link ProducerPool} per {@link ProducerProfile}, each member backed by its own producer,
+ * together with the {@code batch.size} the profile was configured with.
+ */
+public class ProducerTemplates implements AutoCloseable {
+
+    private static final String PRODUCER_METRICS_GROUP = "producer-metrics";
+    private static final String BATCH_SIZE_AVG = "batch-size-avg";
+    private static final String BUFFER_AVAILABLE_BYTES = "buffer-available-bytes";
+    private static final String BUFFER_TOTAL_BYTES = "buffer-total-bytes";
+
+    private final Map<ProducerProfile, ProducerPool> pools = new EnumMap<>(ProducerProfile.class);
+    private final Map<ProducerProfile, Integer> batchSizes = new EnumMap<>(ProducerProfile.class);
+
+    public ProducerTemplates register(ProducerProfile profile, KafkaTemplate<String, Object> template, int batchSize) {
+        return register(profile, List.of(template), batchSize);
+    }
+
+    public ProducerTemplates register(ProducerProfile profile, List<KafkaTemplate<String, Object>> templates, int batchSize) {
+        pools.put(profile, new ProducerPool(templates));
+        batchSizes.put(profile, batchSize);
+        return this;
+    }
+
+    /** Routes every profile to the same template; used where profiles are not configured. */
+    public static ProducerTemplates single(KafkaTemplate<String, Object> template, int batchSize) {
+        ProducerTemplates producerTemplates = new ProducerTemplates();
+        for (ProducerProfile profile : ProducerProfile.values()) {
+            producerTemplates.register(profile, template, batchSize);
+        }
+        return producerTemplates;
+    }
+
+    public ProducerPool pool(ProducerProfile profile) {
+        ProducerPool pool = pools.get(profile);
+        if (pool == null) {
+            throw new IllegalArgumentException("No producer registered for profile " + profile);
+        }
+        return pool;
+    }
+
+    public int batchSize(ProducerProfile profile) {
+        return batchSizes.getOrDefault(profile, 0);
+    }
+
+    /**
+     * Average bytes per batch over the producers' metrics window divided by the configured
+     * {@code batch.size}, averaged over the pool; {@link Double#NaN} while no producer has sent
+     * anything yet.
+     */
+    public double batchFillRatio(ProducerProfile profile) {
+        int batchSize = batchSize(profile);
+        if (batchSize <= 0) {
+            return Double.NaN;
+        }
+        double sum = 0;
+        int reporting = 0;
+        for (KafkaTemplate<String, Object> member : pool(profile).members()) {
+            double average = producerMetric(member, BATCH_SIZE_AVG);
+            if (!Double.isNaN(average)) {
+                sum += average;
+                reporting++;
+            }
+        }
+        return reporting == 0 ? Double.NaN : sum / reporting / batchSize;
+    }
+
+    /**
+     * Unused bytes of {@code buffer.memory}, summed over the pool; {@link Double#NaN} when not
+     * reported.
+     */
+    public double bufferAvailableBytes(ProducerProfile profile) {
+        return sumOverPool(profile, BUFFER_AVAILABLE_BYTES);
+    }
+
+    /**
+     * Configured {@code buffer.memory}, summed over the pool; {@link Double#NaN} when not
+     * reported.
+     */
+    public double bufferTotalBytes(ProducerProfile profile) {
+        return sumOverPool(profile, BUFFER_TOTAL_BYTES);
+    }
+
+    /**
+     * Share of {@code buffer.memory} in use, for the fullest profile; 0 when no producer
+     * reports its buffer.
+     */
+    public double bufferUtilization() {
+        double utilization = 0;
+        for (ProducerProfile profile : pools.keySet()) {
+            double total = bufferTotalBytes(profile);
+            double available = bufferAvailableBytes(profile);
+            if (total > 0 && !Double.isNaN(available)) {
+                utilization = Math.max(utilization, 1 - available / total);
+            }
+        }
+        return utilization;
+    }
+
+    /** Closes the producers of every pool member. */
+    @Override
+    public void close() {
+        for (ProducerPool pool : pools.values()) {
+            for (KafkaTemplate<String, Object> member : pool.members()) {
+                member.getProducerFactory().reset();
+            }
+        }
+    }
+
+    private double sumOverPool(ProducerProfile profile, String metricName) {
+        double sum = Double.NaN;
+        for (KafkaTemplate<String, Object> member : pool(profile).members()) {
+            double value = producerMetric(member, metricName);
+            if (!Double.isNaN(value)) {
+                sum = Double.isNaN(sum) ? value : sum + value;
+            }
+        }
+        return sum;
+    }
+
+    private static double producerMetric(KafkaTemplate<String, Object> template, String metricName) {
+        for (Map.Entry<MetricName, ? extends Metric> metric : template.metrics().entrySet()) {
+            MetricName name = metric.getKey();
+            if (metricName.equals(name.name()) && PRODUCER_METRICS_GROUP.equals(name.group())
+                    && metric.getValue().metricValue() instanceof Double value) {
+                return value;
+            }
+        }
+        return Double.NaN;
+    }
+}
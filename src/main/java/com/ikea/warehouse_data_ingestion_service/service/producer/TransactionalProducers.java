@@ -0,0 +1,91 @@
+package com.ikea.warehouse_data_ingestion_service.service.producer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.producer.Producer;
+import org.springframework.kafka.core.ProducerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transactional producers for atomic uploads. Each running transaction holds one producer, and
+ * at most {@code size} run at a time, so concurrent uploads commit independently instead of
+ * queueing on a single transactional producer. Producers are created by the factory on first
+ * use, with transactional ids {@code <prefix><n>}, and reused afterwards.
+ */
+public class TransactionalProducers implements AutoCloseable {
+
+    private final ProducerFactory<String, Object> producerFactory;
+    private final int size;
+    private final Semaphore permits;
+    private final Duration acquireTimeout;
+    private final MeterRegistry meterRegistry;
+
+    public TransactionalProducers(ProducerFactory<String, Object> producerFactory, int size, Duration acquireTimeout,
+                                  MeterRegistry meterRegistry) {
+        if (!producerFactory.transactionCapable()) {
+            throw new IllegalArgumentException("Transactional producers need a factory with a transactional.id prefix");
+        }
+        this.producerFactory = producerFactory;
+        this.size = size;
+        this.permits = new Semaphore(size);
+        this.acquireTimeout = acquireTimeout;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Waits up to {@code acquire-timeout} for a free producer, which must be handed back with
+     * {@link #release}.
+     *
+     * @throws RejectedExecutionException if every producer stayed busy
+     */
+    public Producer<String, Object> acquire() {
+        try {
+            if (!permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new RejectedExecutionException("All %d transactional producers stayed busy for %s".formatted(size, acquireTimeout));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for a transactional producer", e);
+        }
+        try {
+            return producerFactory.createProducer();
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /** Returns {@code producer} to the factory's cache; a producer that failed is closed instead. */
+    public void release(Producer<String, Object> producer) {
+        try {
+            producer.close();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /** Closes the cached producers. */
+    @Override
+    public void close() {
+        producerFactory.reset();
+    }
+
+    /** Records how long committing or aborting a transaction to {@code topic} took. */
+    public void recordCompletion(String topic, boolean committed, long nanos) {
+        Timer.builder("ingestion.transaction")
+                .tag("topic", topic)
+                .tag("outcome", committed ? "committed" : "aborted")
+                .description("Time to commit or abort the transaction of an atomic upload")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
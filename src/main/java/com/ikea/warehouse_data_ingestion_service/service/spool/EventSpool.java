@@ -0,0 +1,521 @@
+package com.ikea.warehouse_data_ingestion_service.service.spool;
+
+import com.ikea.warehouse_data_ingestion_service.service.KafkaProducerService;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionProgress;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionStage;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Local write-ahead log of events that are published to Kafka later by the {@link SpoolDrainer}.
+ * Uploads in {@code spooled} mode append their events through a {@link Session}. Once closed, the
+ * session's records have been fsynced, so the upload can be acknowledged without waiting for the
+ * broker.
+ * <p>
+ * The log is a sequence of segment files in {@code dir}, written sequentially through a
+ * {@link FileChannel}. A segment is named after the log offset of its first byte, so every record
+ * has one offset across segments. A new segment is started once the current one reaches
+ * {@code segment-size}. Each record is framed as
+ * <pre>
+ * int length | int CRC32C of the body | body: topic, key, event (binary event encoding)
+ * </pre>
+ * Concurrent uploads share fsyncs: a session that finds its records already made durable by
+ * another session's fsync returns without one (group commit). The drainer reads only up to
+ * the durable offset and checkpoints the offset it has published up to, so it resumes there
+ * after a restart. Segments wholly below the checkpoint are deleted. On start, a torn record at
+ * the end of the last segment (a crash during a write) is truncated.
+ */
+@Slf4j
+@Component
+public class EventSpool {
+
+    static final String SEGMENT_SUFFIX = ".segment";
+    static final String CHECKPOINT_FILE = "drained.checkpoint";
+    static final String DEAD_LETTER_FILE = "dead-letter.log";
+    private static final int HEADER_BYTES = 8;
+    private static final int WRITE_BUFFER_BYTES = 64 * 1024;
+    private static final int READ_BUFFER_BYTES = 1024 * 1024;
+
+    private final Path directory;
+    private final long segmentSize;
+    private final NavigableMap<Long, Path> segments = new ConcurrentSkipListMap<>();
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final ReentrantLock durableLock = new ReentrantLock();
+    private final Condition durableAdvanced = durableLock.newCondition();
+    private final Timer fsyncTimer;
+    private ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+
+    private boolean opened;
+    private FileChannel active;
+    private long activeBase;
+    private long writeOffset;
+    private volatile long durableOffset;
+    private volatile long drainedOffset;
+
+    public EventSpool(@Value("${app.ingestion.spool.dir:${java.io.tmpdir}/ingestion-spool}") Path directory,
+                      @Value("${app.ingestion.spool.segment-size:64MB}") DataSize segmentSize,
+                      MeterRegistry meterRegistry) {
+        this.directory = directory;
+        this.segmentSize = segmentSize.toBytes();
+        this.fsyncTimer = Timer.builder("ingestion.spool.fsync")
+                .description("Time to fsync spooled records, once per group of uploads committing together")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("ingestion.spool.backlog", this, EventSpool::backlogBytes)
+                .description("Spooled bytes not yet published to Kafka")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("ingestion.spool.segments", segments, Map::size)
+                .description("Segment files in the spool directory")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a session appending the records of one upload to {@code topic}. The records are
+     * durable once {@link Session#close()} returned.
+     */
+    public Session openSession(String topic, IngestionProgress progress) {
+        return new Session(topic, progress);
+    }
+
+    /**
+     * Recovers the segments and checkpoint left by a previous run; the directory is created with
+     * the first append. Does nothing once opened.
+     */
+    public synchronized void open() throws IOException {
+        if (opened) {
+            return;
+        }
+        long checkpoint = readCheckpoint();
+        if (Files.isDirectory(directory)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+                for (Path file : files) {
+                    segments.put(baseOffset(file), file);
+                }
+            }
+        }
+        writeOffset = checkpoint;
+        if (!segments.isEmpty()) {
+            Map.Entry<Long, Path> last = segments.lastEntry();
+            writeOffset = last.getKey() + recoverLength(last.getValue());
+            checkpoint = Math.max(checkpoint, segments.firstKey());
+        }
+        durableOffset = writeOffset;
+        drainedOffset = Math.min(checkpoint, writeOffset);
+        opened = true;
+        deleteDrainedSegments();
+        if (writeOffset > drainedOffset) {
+            log.info("Recovered {} spooled bytes in {} segments of {}; draining from offset {}",
+                    writeOffset - drainedOffset, segments.size(), directory, drainedOffset);
+        }
+    }
+
+    /** Fsyncs and closes the current segment; a later append starts a new one. */
+    public synchronized void close() throws IOException {
+        if (active != null) {
+            activeChannel().force(false);
+            active.close();
+            active = null;
+            advanceDurable(writeOffset);
+        }
+    }
+
+    /** Offset up to which records have been fsynced and may be drained. */
+    public long durableOffset() {
+        return durableOffset;
+    }
+
+    /** Offset up to which records have been published, as last checkpointed. */
+    public long drainedOffset() {
+        return drainedOffset;
+    }
+
+    public long backlogBytes() {
+        return Math.max(0, durableOffset - drainedOffset);
+    }
+
+    /** Waits up to {@code timeout} for records beyond {@code offset} to become durable. */
+    public boolean awaitDurable(long offset, Duration timeout) throws InterruptedException {
+        long nanos = timeout.toNanos();
+        durableLock.lock();
+        try {
+            while (durableOffset <= offset) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = durableAdvanced.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    /**
+     * Reads up to {@code maxRecords} durable records starting at {@code offset}, without crossing
+     * into the next segment. A record that fails its checksum ends the batch at the end of its
+     * segment, so the rest of a damaged segment is skipped. Called by one drainer at a time.
+     */
+    public Batch read(long offset, int maxRecords) throws IOException {
+        Map.Entry<Long, Path> segment = segments.floorEntry(offset);
+        Long nextBase = segments.higherKey(offset);
+        long limit = nextBase != null ? Math.min(nextBase, durableOffset) : durableOffset;
+        if (segment == null || offset >= limit) {
+            return new Batch(List.of(), offset);
+        }
+        List<SpoolRecord> records = new ArrayList<>();
+        long position = offset;
+        try (FileChannel channel = FileChannel.open(segment.getValue(), StandardOpenOption.READ)) {
+            while (records.size() < maxRecords && position < limit) {
+                ByteBuffer buffer = fill(channel, position - segment.getKey(), limit - position);
+                if (buffer.remaining() < HEADER_BYTES) {
+                    return corrupt(segment.getValue(), position, records, limit);
+                }
+                while (records.size() < maxRecords && buffer.remaining() >= HEADER_BYTES) {
+                    int length = buffer.getInt(buffer.position());
+                    if (length < 0 || length > limit - position - HEADER_BYTES) {
+                        return corrupt(segment.getValue(), position, records, limit);
+                    }
+                    if (buffer.remaining() < HEADER_BYTES + length) {
+                        if (buffer.position() == 0) {
+                            readBuffer = ByteBuffer.allocate(HEADER_BYTES + length);
+                        }
+                        break;
+                    }
+                    int checksum = buffer.getInt(buffer.position() + 4);
+                    byte[] body = new byte[length];
+                    buffer.position(buffer.position() + HEADER_BYTES).get(body);
+                    if (checksum != crc(body)) {
+                        return corrupt(segment.getValue(), position, records, limit);
+                    }
+                    records.add(SpoolRecord.decode(body));
+                    position += HEADER_BYTES + length;
+                }
+            }
+        }
+        return new Batch(records, position);
+    }
+
+    /**
+     * Records that everything below {@code offset} has been published, persisting it atomically,
+     * and deletes the segments that are wholly below it.
+     */
+    public void checkpoint(long offset) throws IOException {
+        Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+        Path temporary = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.wrap(Long.toString(offset).getBytes(StandardCharsets.US_ASCII)));
+            channel.force(false);
+        }
+        Files.move(temporary, checkpoint, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        drainedOffset = offset;
+        deleteDrainedSegments();
+    }
+
+    /**
+     * Appends {@code records} the broker rejected for good to the dead-letter file of the spool
+     * directory, framed as in the segments, and fsyncs it. The file is never drained or deleted.
+     */
+    public synchronized void deadLetter(List<SpoolRecord> records) throws IOException {
+        Files.createDirectories(directory);
+        try (FileChannel channel = FileChannel.open(directory.resolve(DEAD_LETTER_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            for (SpoolRecord record : records) {
+                ByteBuffer frame = frame(record);
+                while (frame.hasRemaining()) {
+                    channel.write(frame);
+                }
+            }
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Appends whole records to the current segment, starting a new segment first if they would
+     * not fit.
+     *
+     * @return the offset just past the appended records
+     */
+    synchronized long append(ByteBuffer records) throws IOException {
+        open();
+        long length = records.remaining();
+        if (active == null || (writeOffset > activeBase && writeOffset - activeBase + length > segmentSize)) {
+            roll();
+        }
+        FileChannel channel = activeChannel();
+        try {
+            while (records.hasRemaining()) {
+                channel.write(records);
+            }
+        } catch (IOException e) {
+            // the next append reopens the segment and cuts off a partial write at the last record boundary
+            channel.close();
+            throw e;
+        }
+        writeOffset += length;
+        return writeOffset;
+    }
+
+    /**
+     * Makes the records up to {@code offset} durable. A single fsync covers every record written
+     * so far, so sessions waiting here behind another session's fsync usually need none of their own.
+     */
+    void sync(long offset) throws IOException {
+        syncLock.lock();
+        try {
+            while (durableOffset < offset) {
+                long target;
+                FileChannel channel;
+                synchronized (this) {
+                    target = writeOffset;
+                    channel = active != null ? activeChannel() : null;
+                }
+                if (channel == null) {
+                    // closed since, which fsynced it
+                    advanceDurable(target);
+                    continue;
+                }
+                long fsyncStart = System.nanoTime();
+                try {
+                    channel.force(false);
+                } catch (ClosedByInterruptException e) {
+                    throw e;
+                } catch (ClosedChannelException e) {
+                    // rolled over (which fsynced it) or closed by an interrupted writer; look again
+                    continue;
+                }
+                fsyncTimer.record(System.nanoTime() - fsyncStart, TimeUnit.NANOSECONDS);
+                advanceDurable(target);
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void roll() throws IOException {
+        close();
+        Files.createDirectories(directory);
+        Path file = directory.resolve(segmentName(writeOffset));
+        active = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        active.truncate(0);
+        activeBase = writeOffset;
+        segments.put(activeBase, file);
+    }
+
+    /** The current segment's channel, reopened if an interrupted thread closed it. */
+    private FileChannel activeChannel() throws IOException {
+        if (!active.isOpen()) {
+            active = FileChannel.open(segments.get(activeBase), StandardOpenOption.WRITE);
+            active.truncate(writeOffset - activeBase);
+            active.position(writeOffset - activeBase);
+        }
+        return active;
+    }
+
+    private void advanceDurable(long offset) {
+        durableLock.lock();
+        try {
+            if (offset > durableOffset) {
+                durableOffset = offset;
+                durableAdvanced.signalAll();
+            }
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    private synchronized void deleteDrainedSegments() throws IOException {
+        for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+            Long nextBase = segments.higherKey(segment.getKey());
+            boolean drained = nextBase != null ? nextBase <= drainedOffset : writeOffset <= drainedOffset;
+            if (!drained || (active != null && segment.getKey() == activeBase)) {
+                return;
+            }
+            Files.deleteIfExists(segment.getValue());
+            segments.remove(segment.getKey());
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(checkpoint)) {
+            return 0;
+        }
+        return Long.parseLong(Files.readString(checkpoint, StandardCharsets.US_ASCII).strip());
+    }
+
+    /** Length of the valid records of {@code segment}, truncating anything after them. */
+    private long recoverLength(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            long position = 0;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (position + HEADER_BYTES <= size) {
+                header.clear();
+                channel.read(header, position);
+                int length = header.getInt(0);
+                if (length < 0 || position + HEADER_BYTES + length > size) {
+                    break;
+                }
+                ByteBuffer body = ByteBuffer.allocate(length);
+                channel.read(body, position + HEADER_BYTES);
+                if (header.getInt(4) != crc(body.array())) {
+                    break;
+                }
+                position += HEADER_BYTES + length;
+            }
+            if (position < size) {
+                log.warn("Truncating {} bytes of an incomplete record at the end of {}", size - position, segment);
+                channel.truncate(position);
+                channel.force(false);
+            }
+            return position;
+        }
+    }
+
+    /** Reads from {@code position} of the segment into the read buffer, returning it ready to get. */
+    private ByteBuffer fill(FileChannel channel, long position, long available) throws IOException {
+        ByteBuffer buffer = readBuffer.clear();
+        buffer.limit((int) Math.min(buffer.capacity(), available));
+        while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) >= 0) {
+            // read until the buffer or the available bytes are exhausted
+        }
+        return buffer.flip();
+    }
+
+    private Batch corrupt(Path segment, long position, List<SpoolRecord> records, long limit) {
+        if (!records.isEmpty()) {
+            return new Batch(records, position);
+        }
+        log.error("Corrupt spool record at offset {} of {}; skipping {} bytes to the end of the segment",
+                position, segment, limit - position);
+        return new Batch(List.of(), limit);
+    }
+
+    static ByteBuffer frame(SpoolRecord record) {
+        byte[] body = record.encode();
+        return ByteBuffer.allocate(HEADER_BYTES + body.length).putInt(body.length).putInt(crc(body)).put(body).flip();
+    }
+
+    private static int crc(byte[] body) {
+        CRC32C crc = new CRC32C();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    private static String segmentName(long baseOffset) {
+        return "%020d%s".formatted(baseOffset, SEGMENT_SUFFIX);
+    }
+
+    private static long baseOffset(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /** Records read for draining, and the offset to checkpoint once they are published. */
+    public record Batch(List<SpoolRecord> records, long endOffset) {
+    }
+
+    /**
+     * The records of one upload. They are buffered and appended in blocks; {@link #close()}
+     * appends the rest and returns once all of them are durable, counting them as acknowledged.
+     * Records sent before a failure are spooled as well and will be published, as in streaming mode.
+     */
+    public final class Session implements KafkaProducerService.PublishSession {
+
+        private final String topic;
+        private final IngestionProgress progress;
+        private ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_BYTES);
+        private long sent;
+        private long endOffset;
+
+        private Session(String topic, IngestionProgress progress) {
+            this.topic = topic;
+            this.progress = progress;
+        }
+
+        @Override
+        public void send(String key, Object event) {
+            long enqueueStart = System.nanoTime();
+            try {
+                ByteBuffer record = frame(new SpoolRecord(topic, key, event));
+                if (record.remaining() > buffer.remaining()) {
+                    appendBuffer();
+                    if (record.remaining() > buffer.capacity()) {
+                        buffer = ByteBuffer.allocate(record.remaining());
+                    }
+                }
+                buffer.put(record);
+                sent++;
+                progress.recordSent();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not spool a record for " + topic, e);
+            } finally {
+                progress.addStageNanos(IngestionStage.ENQUEUE, System.nanoTime() - enqueueStart);
+            }
+        }
+
+        @Override
+        public long sent() {
+            return sent;
+        }
+
+        /** Nothing to commit: {@link #close()} makes the records durable. */
+        @Override
+        public void commit() {
+        }
+
+        @Override
+        public void close() {
+            long syncStart = System.nanoTime();
+            try {
+                appendBuffer();
+                if (sent > 0) {
+                    sync(endOffset);
+                }
+                progress.addAcked(sent);
+            } catch (IOException e) {
+                progress.addFailed(sent);
+                throw new UncheckedIOException("Could not spool %d records for %s".formatted(sent, topic), e);
+            } finally {
+                progress.addStageNanos(IngestionStage.ACK, System.nanoTime() - syncStart);
+            }
+        }
+
+        private void appendBuffer() throws IOException {
+            if (buffer.position() > 0) {
+                endOffset = append(buffer.flip());
+                buffer.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.ikea.warehouse_data_ingestion_service.service.spool;
+
+import com.ikea.warehouse_data_ingestion_service.exception.KafkaProduceFailedException;
+import com.ikea.warehouse_data_ingestion_service.service.KafkaProducerService;
+import com.ikea.warehouse_data_ingestion_service.service.producer.ProducerProfile;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.errors.AuthorizationException;
+import org.apache.kafka.common.errors.InvalidTopicException;
+import org.apache.kafka.common.errors.RecordBatchTooLargeException;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes the {@link EventSpool} to Kafka on a background thread. Batches of up to
+ * {@code drain-batch-size} durable records are sent through the {@code bulk} producers, flushed
+ * and awaited, and then checkpointed. A batch that fails or is not acknowledged within
+ * {@code ack-timeout} is sent again after {@code retry-backoff}, until the broker takes it, so
+ * records are published at least once and in spool order. Records the broker rejects for good
+ * (too large, not serializable, not authorized, unknown topic) would fail every attempt, so they
+ * are moved to the spool's dead-letter file instead and the batch is checkpointed past them. Runs
+ * whatever the ingestion mode, so a spool left behind after switching away from {@code spooled}
+ * mode is still drained.
+ */
+@Slf4j
+@Component
+public class SpoolDrainer implements SmartLifecycle {
+
+    private static final Duration IDLE_WAIT = Duration.ofSeconds(1);
+    private static final List<Class<? extends Throwable>> NON_RETRIABLE = List.of(
+            RecordTooLargeException.class, RecordBatchTooLargeException.class, SerializationException.class,
+            AuthorizationException.class, InvalidTopicException.class, UnknownTopicOrPartitionException.class);
+
+    private final EventSpool eventSpool;
+    private final KafkaProducerService kafkaProducerService;
+    private final Counter drainedCounter;
+    private final Counter failureCounter;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.ingestion.spool.drain-batch-size:5000}")
+    private int batchSize = 5000;
+
+    @Value("${app.kafka.batch.ack-timeout:30s}")
+    private Duration ackTimeout = Duration.ofSeconds(30);
+
+    @Value("${app.ingestion.spool.retry-backoff:1s}")
+    private Duration retryBackoff = Duration.ofSeconds(1);
+
+    private volatile boolean running;
+    private Thread drainerThread;
+
+    public SpoolDrainer(EventSpool eventSpool, KafkaProducerService kafkaProducerService, MeterRegistry meterRegistry) {
+        this.eventSpool = eventSpool;
+        this.kafkaProducerService = kafkaProducerService;
+        this.drainedCounter = Counter.builder("ingestion.spool.drained")
+                .description("Spooled records published to Kafka")
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("ingestion.spool.drain.failures")
+                .description("Spooled batches that failed to publish and are retried")
+                .register(meterRegistry);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void start() {
+        try {
+            eventSpool.open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the event spool", e);
+        }
+        running = true;
+        drainerThread = Thread.ofPlatform().name("spool-drainer").daemon().start(this::drain);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (drainerThread == null) {
+            return;
+        }
+        drainerThread.interrupt();
+        try {
+            drainerThread.join(TimeUnit.SECONDS.toMillis(5));
+            eventSpool.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.warn("Could not close the event spool: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void drain() {
+        while (running) {
+            try {
+                if (drainOnce() == 0) {
+                    eventSpool.awaitDurable(eventSpool.drainedOffset(), IDLE_WAIT);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                failureCounter.increment();
+                log.warn("Publishing spooled records failed, retrying in {}: {}", retryBackoff, e.getMessage());
+                try {
+                    Thread.sleep(retryBackoff);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Publishes and checkpoints the next batch of durable records.
+     *
+     * @return the number of records published, not counting records moved to the dead-letter file
+     */
+    int drainOnce() throws IOException, InterruptedException {
+        long offset = eventSpool.drainedOffset();
+        EventSpool.Batch batch = eventSpool.read(offset, batchSize);
+        if (batch.endOffset() == offset) {
+            return 0;
+        }
+        int published = publish(batch.records());
+        eventSpool.checkpoint(batch.endOffset());
+        drainedCounter.increment(published);
+        return published;
+    }
+
+    private int publish(List<SpoolRecord> records) throws IOException, InterruptedException {
+        if (records.isEmpty()) {
+            return 0;
+        }
+        List<CompletableFuture<?>> acks = new ArrayList<>(records.size());
+        for (SpoolRecord record : records) {
+            try {
+                acks.add(kafkaProducerService.send(record.topic(), record.key(), record.event(), ProducerProfile.BULK));
+            } catch (RuntimeException e) {
+                acks.add(CompletableFuture.failedFuture(e));
+            }
+        }
+        kafkaProducerService.flush(ProducerProfile.BULK);
+        try {
+            CompletableFuture.allOf(acks.toArray(CompletableFuture[]::new)).get(ackTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            return records.size() - deadLetterRejected(records, acks, e.getCause());
+        } catch (TimeoutException e) {
+            throw new KafkaProduceFailedException("Timed out after %s waiting for acks of %d spooled records"
+                    .formatted(ackTimeout, records.size()));
+        }
+        return records.size();
+    }
+
+    /**
+     * Moves the records of a failed batch that can never be published to the dead-letter file.
+     * If any record failed for a reason that may pass, the whole batch is left to be sent again.
+     *
+     * @return the number of records moved
+     */
+    private int deadLetterRejected(List<SpoolRecord> records, List<CompletableFuture<?>> acks, Throwable failure)
+            throws IOException {
+        List<SpoolRecord> rejected = new ArrayList<>();
+        Throwable reason = null;
+        for (int i = 0; i < records.size(); i++) {
+            Throwable cause = acks.get(i).handle((result, throwable) -> throwable).join();
+            if (cause == null) {
+                continue;
+            }
+            Throwable nonRetriable = nonRetriable(cause);
+            if (nonRetriable == null) {
+                throw new KafkaProduceFailedException("Publishing %d spooled records failed: %s"
+                        .formatted(records.size(), cause.getMessage()), cause);
+            }
+            rejected.add(records.get(i));
+            reason = reason != null ? reason : nonRetriable;
+        }
+        if (rejected.isEmpty()) {
+            throw new KafkaProduceFailedException("Publishing %d spooled records failed: %s"
+                    .formatted(records.size(), failure.getMessage()), failure);
+        }
+        eventSpool.deadLetter(rejected);
+        Counter.builder("ingestion.spool.dead.letters")
+                .tag("reason", reason.getClass().getSimpleName())
+                .description("Spooled records the broker rejected for good, moved to the dead-letter file")
+                .register(meterRegistry)
+                .increment(rejected.size());
+        log.error("Moved {} of {} spooled records to the dead-letter file, first key {} to topic {}: {}",
+                rejected.size(), records.size(), rejected.getFirst().key(), rejected.getFirst().topic(), reason.toString());
+        return rejected.size();
+    }
+
+    /** The cause in {@code failure}'s chain that no retry will get past, or {@code null}. */
+    static Throwable nonRetriable(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            for (Class<? extends Throwable> type : NON_RETRIABLE) {
+                if (type.isInstance(cause)) {
+                    return cause;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,47 @@
+package com.ikea.warehouse_data_ingestion_service.service.spool;
+
+import com.ikea.warehouse_data_ingestion_service.serialization.EventBinaryCodec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An event waiting in the {@link EventSpool} to be published to {@code topic}. The event is
+ * spooled in its binary encoding and published with the configured value format, so the spool
+ * does not depend on {@code app.kafka.value-format}.
+ */
+public record SpoolRecord(String topic, String key, Object event) {
+
+    private static final int NULL_KEY = -1;
+
+    /** {@code short} topic length, topic, {@code int} key length (-1 for none), key, event. */
+    byte[] encode() {
+        byte[] topicBytes = topic.getBytes(StandardCharsets.UTF_8);
+        byte[] keyBytes = key != null ? key.getBytes(StandardCharsets.UTF_8) : null;
+        byte[] eventBytes = EventBinaryCodec.encode(event);
+        ByteBuffer body = ByteBuffer.allocate(2 + topicBytes.length + 4 + (keyBytes != null ? keyBytes.length : 0) + eventBytes.length);
+        body.putShort((short) topicBytes.length).put(topicBytes);
+        if (keyBytes != null) {
+            body.putInt(keyBytes.length).put(keyBytes);
+        } else {
+            body.putInt(NULL_KEY);
+        }
+        return body.put(eventBytes).array();
+    }
+
+    static SpoolRecord decode(byte[] body) {
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        String topic = readString(buffer, Short.toUnsignedInt(buffer.getShort()));
+        int keyLength = buffer.getInt();
+        String key = keyLength != NULL_KEY ? readString(buffer, keyLength) : null;
+        byte[] event = new byte[buffer.remaining()];
+        buffer.get(event);
+        return new SpoolRecord(topic, key, EventBinaryCodec.decode(event));
+    }
+
+    private static String readString(ByteBuffer buffer, int length) {
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,40 @@
+package com.ikea.warehouse_data_ingestion_service.service.upload;
+
+import com.ikea.warehouse_data_ingestion_service.exception.FileProcessingException;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.ikea.warehouse_data_ingestion_service.util.ErrorMessages.INVALID_CONTENT_RANGE;
+import static com.ikea.warehouse_data_ingestion_service.util.ErrorTypes.FILE_PROCESSING_ERROR;
+
+/**
+ * The byte range of one chunk, parsed from a {@code Content-Range: bytes <first>-<last>/<total>}
+ * request header. {@code total} is {@code null} when the client sent {@code *} (size not yet known).
+ */
+public record ContentRange(long first, long last, Long total) {
+
+    private static final Pattern BYTES_RANGE = Pattern.compile("bytes (\\d{1,18})-(\\d{1,18})/(\\d{1,18}|\\*)");
+
+    public static ContentRange parse(String header) {
+        Matcher matcher = header == null ? null : BYTES_RANGE.matcher(header.trim());
+        if (matcher == null || !matcher.matches()) {
+            throw invalid(header);
+        }
+        long first = Long.parseLong(matcher.group(1));
+        long last = Long.parseLong(matcher.group(2));
+        Long total = matcher.group(3).equals("*") ? null : Long.parseLong(matcher.group(3));
+        if (last < first || (total != null && last >= total)) {
+            throw invalid(header);
+        }
+        return new ContentRange(first, last, total);
+    }
+
+    public long length() {
+        return last - first + 1;
+    }
+
+    private static FileProcessingException invalid(String header) {
+        return new FileProcessingException(INVALID_CONTENT_RANGE.formatted(header), FILE_PROCESSING_ERROR);
+    }
+}
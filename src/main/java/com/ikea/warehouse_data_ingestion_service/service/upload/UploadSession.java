@@ -0,0 +1,93 @@
+package com.ikea.warehouse_data_ingestion_service.service.upload;
+
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
+import com.ikea.warehouse_data_ingestion_service.data.dto.UploadSessionResponse;
+import com.ikea.warehouse_data_ingestion_service.service.dedup.UploadDeduplicator;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory state of a resumable upload. Chunks are appended to {@code spoolFile} by
+ * {@link UploadSessionService} while holding {@link #lock}; {@code offset} is the number of bytes
+ * written to the spool file so far and is where the next chunk has to start. Writes are not forced
+ * to disk, since sessions are kept in memory and do not survive a restart anyway.
+ */
+@Getter
+public class UploadSession {
+
+    private final String id;
+    private final FileType fileType;
+    private final String filename;
+    /** {@code X-Warehouse-Id} given when the upload started, {@code null} if none. */
+    private final String tenant;
+    private final Path spoolFile;
+    private final Instant createdAt;
+
+    private volatile Long totalBytes;
+    private volatile long offset;
+    private volatile Instant lastActivityAt;
+
+    /** SHA-256 of the bytes appended so far, {@code null} when deduplication is disabled. */
+    @Getter(AccessLevel.NONE)
+    private final MessageDigest digest;
+    @Getter(AccessLevel.PACKAGE)
+    private final ReentrantLock lock = new ReentrantLock();
+
+    UploadSession(String id, FileType fileType, String filename, String tenant, Long totalBytes, Path spoolFile, MessageDigest digest,
+                  Instant createdAt) {
+        this.id = id;
+        this.fileType = fileType;
+        this.filename = filename;
+        this.tenant = tenant;
+        this.totalBytes = totalBytes;
+        this.spoolFile = spoolFile;
+        this.digest = digest;
+        this.createdAt = createdAt;
+        this.lastActivityAt = createdAt;
+    }
+
+    void appended(byte[] buffer, int length) {
+        if (digest != null) {
+            digest.update(buffer, 0, length);
+        }
+        offset += length;
+    }
+
+    void declareTotal(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    void touch(Instant now) {
+        lastActivityAt = now;
+    }
+
+    boolean isExpired(Instant now, Duration ttl) {
+        return lastActivityAt.plus(ttl).isBefore(now);
+    }
+
+    boolean isComplete() {
+        return totalBytes == null || offset == totalBytes;
+    }
+
+    /** SHA-256 of the content appended so far, without resetting the running digest. */
+    String contentHash() {
+        if (digest == null) {
+            return null;
+        }
+        try {
+            return UploadDeduplicator.toHex((MessageDigest) digest.clone());
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("SHA-256 digest cannot be cloned", e);
+        }
+    }
+
+    public UploadSessionResponse toResponse(Duration ttl) {
+        return new UploadSessionResponse(id, fileType, filename, offset, totalBytes, createdAt, lastActivityAt.plus(ttl));
+    }
+}
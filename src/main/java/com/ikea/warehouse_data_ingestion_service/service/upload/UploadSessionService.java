@@ -0,0 +1,242 @@
+package com.ikea.warehouse_data_ingestion_service.service.upload;
+
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
+import com.ikea.warehouse_data_ingestion_service.exception.FileProcessingException;
+import com.ikea.warehouse_data_ingestion_service.exception.UploadConflictException;
+import com.ikea.warehouse_data_ingestion_service.exception.UploadSessionNotFoundException;
+import com.ikea.warehouse_data_ingestion_service.service.dedup.UploadDeduplicator;
+import com.ikea.warehouse_data_ingestion_service.service.job.IngestionJob;
+import com.ikea.warehouse_data_ingestion_service.service.job.IngestionJobService;
+import com.ikea.warehouse_data_ingestion_service.service.job.IngestionTask;
+import com.ikea.warehouse_data_ingestion_service.util.ErrorMessages;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.ikea.warehouse_data_ingestion_service.util.ErrorTypes.FILE_PROCESSING_ERROR;
+
+/**
+ * Resumable uploads: a client starts a session, appends byte-range chunks to a local spool file
+ * and commits it, which hands the spool file to {@link IngestionJobService} like an asynchronous
+ * multipart upload. A chunk must start exactly at the current offset; if a connection drops, the
+ * bytes that reached the spool file are kept and the client resumes from the offset it queries.
+ * The content hash for duplicate detection is computed while chunks are appended.
+ * Sessions live in memory and expire, together with their spool file, after {@code session-ttl}
+ * without a chunk; idle sessions are swept every {@code sweep-interval}. A session is only
+ * discarded while holding its lock, so an abort or expiry never deletes a file being appended to.
+ */
+@Slf4j
+@Service
+public class UploadSessionService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final IngestionJobService ingestionJobService;
+    private final UploadDeduplicator uploadDeduplicator;
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    @Value("${app.ingestion.uploads.session-ttl:24h}")
+    private Duration sessionTtl = Duration.ofHours(24);
+
+    @Value("${app.ingestion.uploads.max-size:10GB}")
+    private DataSize maxSize = DataSize.ofGigabytes(10);
+
+    @Value("${app.ingestion.jobs.spool-dir:${java.io.tmpdir}/ingestion-jobs}")
+    private String spoolDir;
+
+    public UploadSessionService(IngestionJobService ingestionJobService, UploadDeduplicator uploadDeduplicator) {
+        this.ingestionJobService = ingestionJobService;
+        this.uploadDeduplicator = uploadDeduplicator;
+    }
+
+    /**
+     * Starts an upload; {@code totalBytes} may be {@code null} and declared later by a chunk. The
+     * committed job sends as {@code tenant}, {@code null} meaning the default tenant.
+     */
+    public UploadSession start(FileType fileType, String filename, Long totalBytes, String tenant) throws IOException {
+        expireIdleSessions();
+        if (totalBytes != null) {
+            checkMaxSize(totalBytes);
+        }
+        Path directory = Files.createDirectories(Path.of(spoolDir));
+        Path spoolFile = Files.createTempFile(directory, fileType.name().toLowerCase() + "-", ".part");
+        UploadSession session = new UploadSession(UUID.randomUUID().toString(), fileType, filename, tenant, totalBytes, spoolFile,
+                uploadDeduplicator.isEnabled() ? UploadDeduplicator.newDigest() : null, Instant.now());
+        sessions.put(session.getId(), session);
+        log.info("Started resumable {} upload {} - filename: {}, size: {}", fileType, session.getId(), filename,
+                totalBytes != null ? totalBytes + " bytes" : "unknown");
+        return session;
+    }
+
+    public Optional<UploadSession> find(String uploadId) {
+        UploadSession session = sessions.get(uploadId);
+        if (session != null && expireIfIdle(session)) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(session);
+    }
+
+    public UploadSession get(String uploadId) {
+        return find(uploadId).orElseThrow(() -> new UploadSessionNotFoundException(uploadId));
+    }
+
+    /**
+     * Appends the chunk {@code range} read from {@code body}. Bytes are counted into the offset
+     * as they are written, so a chunk cut short by a dropped connection still advances it.
+     */
+    public UploadSession append(String uploadId, ContentRange range, InputStream body) throws IOException {
+        UploadSession session = lock(uploadId);
+        try {
+            checkAppendable(session, range);
+            long remaining = range.length();
+            try (OutputStream out = Files.newOutputStream(session.getSpoolFile(), StandardOpenOption.APPEND)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while (remaining > 0 && (read = body.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+                    out.write(buffer, 0, read);
+                    session.appended(buffer, read);
+                    remaining -= read;
+                }
+            } finally {
+                session.touch(Instant.now());
+            }
+            if (remaining > 0) {
+                throw new FileProcessingException(ErrorMessages.UPLOAD_CHUNK_TRUNCATED.formatted(
+                        range.length() - remaining, range.length(), uploadId, session.getOffset()), FILE_PROCESSING_ERROR);
+            }
+            return session;
+        } finally {
+            session.getLock().unlock();
+        }
+    }
+
+    /**
+     * Closes the upload and submits the spooled file as an ingestion job running {@code task}.
+     * If the job queue is full the session stays open, so the commit can be retried.
+     */
+    public IngestionJob commit(String uploadId, IngestionTask task) throws IOException {
+        UploadSession session = lock(uploadId);
+        try {
+            if (session.getOffset() == 0) {
+                throw new FileProcessingException(ErrorMessages.FILE_EMPTY, FILE_PROCESSING_ERROR);
+            }
+            if (!session.isComplete()) {
+                throw new FileProcessingException(ErrorMessages.UPLOAD_INCOMPLETE.formatted(
+                        uploadId, session.getOffset(), session.getTotalBytes()), FILE_PROCESSING_ERROR);
+            }
+            IngestionJob job = ingestionJobService.submit(session.getFileType(), session.getSpoolFile(), session.getFilename(),
+                    session.contentHash(), task);
+            sessions.remove(uploadId);
+            log.info("Committed resumable {} upload {} as job {} - {} bytes", session.getFileType(), uploadId, job.getId(), session.getOffset());
+            return job;
+        } finally {
+            session.getLock().unlock();
+        }
+    }
+
+    /** Discards the upload and its spool file; fails like {@link #append} while a chunk is being written. */
+    public void abort(String uploadId) {
+        UploadSession session = lock(uploadId);
+        try {
+            discard(session, "aborted");
+        } finally {
+            session.getLock().unlock();
+        }
+    }
+
+    /** Discards sessions without a chunk for {@code session-ttl}, so abandoned spool files do not wait for the next request. */
+    @Scheduled(fixedDelayString = "${app.ingestion.uploads.sweep-interval:5m}", initialDelayString = "${app.ingestion.uploads.sweep-interval:5m}")
+    public void expireIdleSessions() {
+        for (UploadSession session : sessions.values()) {
+            expireIfIdle(session);
+        }
+    }
+
+    public Duration getSessionTtl() {
+        return sessionTtl;
+    }
+
+    /** Locks the session for writing; fails if another request holds it or it was committed meanwhile. */
+    private UploadSession lock(String uploadId) {
+        UploadSession session = get(uploadId);
+        if (!session.getLock().tryLock()) {
+            throw new UploadConflictException(ErrorMessages.UPLOAD_CHUNK_IN_PROGRESS.formatted(uploadId), session.getOffset());
+        }
+        if (sessions.get(uploadId) != session) {
+            session.getLock().unlock();
+            throw new UploadSessionNotFoundException(uploadId);
+        }
+        return session;
+    }
+
+    private void checkAppendable(UploadSession session, ContentRange range) {
+        if (range.first() != session.getOffset()) {
+            throw new UploadConflictException(ErrorMessages.UPLOAD_OFFSET_MISMATCH.formatted(
+                    range.first(), session.getId(), session.getOffset(), session.getOffset()), session.getOffset());
+        }
+        if (range.total() != null) {
+            if (session.getTotalBytes() == null) {
+                checkMaxSize(range.total());
+                session.declareTotal(range.total());
+            } else if (!range.total().equals(session.getTotalBytes())) {
+                throw new FileProcessingException(ErrorMessages.UPLOAD_SIZE_MISMATCH.formatted(
+                        session.getId(), session.getTotalBytes(), range.total()), FILE_PROCESSING_ERROR);
+            }
+        }
+        long end = range.last() + 1;
+        if (session.getTotalBytes() != null && end > session.getTotalBytes()) {
+            throw new FileProcessingException(ErrorMessages.UPLOAD_CHUNK_BEYOND_SIZE.formatted(
+                    end, session.getId(), session.getTotalBytes()), FILE_PROCESSING_ERROR);
+        }
+        checkMaxSize(end);
+    }
+
+    private void checkMaxSize(long bytes) {
+        if (bytes > maxSize.toBytes()) {
+            throw new MaxUploadSizeExceededException(maxSize.toBytes());
+        }
+    }
+
+    /** Discards {@code session} if it is idle; a session with a chunk in progress is not. */
+    private boolean expireIfIdle(UploadSession session) {
+        if (!session.isExpired(Instant.now(), sessionTtl) || !session.getLock().tryLock()) {
+            return false;
+        }
+        try {
+            // a chunk may have completed between the check and taking the lock
+            return session.isExpired(Instant.now(), sessionTtl) && discard(session, "expired");
+        } finally {
+            session.getLock().unlock();
+        }
+    }
+
+    /** Removes the session and deletes its spool file; the caller holds the session's lock. */
+    private boolean discard(UploadSession session, String reason) {
+        if (sessions.remove(session.getId(), session)) {
+            try {
+                Files.deleteIfExists(session.getSpoolFile());
+            } catch (IOException e) {
+                log.warn("Could not delete spool file {} of upload {}: {}", session.getSpoolFile(), session.getId(), e.getMessage());
+            }
+            log.info("Resumable {} upload {} {} at {} bytes", session.getFileType(), session.getId(), reason, session.getOffset());
+            return true;
+        }
+        return false;
+    }
+}
@@ -9,5 +9,17 @@ public class ErrorMessages {
     public static final String INVALID_INVENTORY_DATA = "Invalid inventory data provided";
     public static final String PRODUCTS_UPLOADED_SUCCESS = "Products uploaded successfully.";
     public static final String INVENTORY_UPLOADED_SUCCESS = "Inventory uploaded successfully.";
+    public static final String PRODUCTS_DUPLICATE_SKIPPED = "Products file is identical to a recent upload, duplicate skipped.";
+    public static final String INVENTORY_DUPLICATE_SKIPPED = "Inventory file is identical to a recent upload, duplicate skipped.";
+    public static final String INGESTION_BUSY = "Too many uploads are being processed. Please retry later.";
+    public static final String INGESTION_OVERLOADED = "Producers are saturated (%s); retry in %d s";
+    public static final String INVALID_CONTENT_RANGE = "Invalid Content-Range header '%s', expected 'bytes <first>-<last>/<total or *>'";
+    public static final String UPLOAD_OFFSET_MISMATCH = "Chunk starts at byte %d but upload %s has received %d bytes; resume from byte %d";
+    public static final String UPLOAD_CHUNK_IN_PROGRESS = "Another chunk of upload %s is still being written; query the upload and resume from its offset";
+    public static final String UPLOAD_SIZE_MISMATCH = "Upload %s was declared with %d bytes, chunk declares %d";
+    public static final String UPLOAD_CHUNK_BEYOND_SIZE = "Chunk ends at byte %d, beyond the declared size of upload %s (%d bytes)";
+    public static final String UPLOAD_CHUNK_TRUNCATED = "Chunk body ended after %d of %d bytes; upload %s has received %d bytes";
+    public static final String UPLOAD_INCOMPLETE = "Upload %s is incomplete: %d of %d bytes received";
+    public static final String UNSUPPORTED_CONTENT_ENCODING = "Unsupported Content-Encoding '%s', expected gzip, zstd or identity";
 
 }
@@ -0,0 +1,9 @@
+package com.ikea.warehouse_data_ingestion_service.util;
+
+import lombok.experimental.UtilityClass;
+
+@UtilityClass
+public class RequestHeaders {
+    /** Warehouse (tenant) an upload belongs to; see FairSendScheduler. */
+    public static final String WAREHOUSE_ID = "X-Warehouse-Id";
+}
@@ -0,0 +1,167 @@
+package com.ikea.warehouse_data_ingestion_service.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ikea.warehouse_data_ingestion_service.service.IngestionMode;
+import com.ikea.warehouse_data_ingestion_service.service.InventoryService;
+import com.ikea.warehouse_data_ingestion_service.service.KafkaProducerService;
+import com.ikea.warehouse_data_ingestion_service.service.KafkaProducerServices;
+import com.ikea.warehouse_data_ingestion_service.service.dedup.DuplicateKeyCollapser;
+import com.ikea.warehouse_data_ingestion_service.service.dedup.UploadDeduplicator;
+import com.ikea.warehouse_data_ingestion_service.service.delta.DeltaTracker;
+import com.ikea.warehouse_data_ingestion_service.service.metrics.IngestionMetrics;
+import com.ikea.warehouse_data_ingestion_service.service.parser.JsonRecordStreamReader;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionProgress;
+import com.ikea.warehouse_data_ingestion_service.service.producer.ProducerProfileRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Compares concurrent-upload throughput and p99 latency with platform request threads
+ * (a Tomcat-sized pool, completions inline on the producer thread) against virtual threads
+ * (one virtual thread per upload and per ack completion). The broker is simulated by a
+ * template that acknowledges every record after a fixed delay, so uploads spend most of
+ * their time blocked waiting for acks.
+ *
+ * <pre>
+ * mvn test -Pbenchmark -Dtest=ConcurrentUploadBenchmark \
+ *     -Dbench.uploads=2000 -Dbench.records=100 -Dbench.ackLatencyMs=50 -Dbench.platformThreads=200
+ * </pre>
+ */
+@Tag("benchmark")
+class ConcurrentUploadBenchmark {
+
+    private static final int UPLOADS = Integer.getInteger("bench.uploads", 2000);
+    private static final int RECORDS = Integer.getInteger("bench.records", 100);
+    private static final long ACK_LATENCY_MS = Long.getLong("bench.ackLatencyMs", 50);
+    private static final int PLATFORM_THREADS = Integer.getInteger("bench.platformThreads", 200);
+
+    @Test
+    void platformVersusVirtualThreads() throws Exception {
+        byte[] file = SyntheticFiles.inventory(RECORDS);
+        run("platform", file); // warm-up
+        Result platform = run("platform", file);
+        run("virtual", file); // warm-up
+        Result virtual = run("virtual", file);
+
+        System.out.printf("%nConcurrent uploads: %d x %d records, ack latency %d ms, platform pool %d threads%n",
+                UPLOADS, RECORDS, ACK_LATENCY_MS, PLATFORM_THREADS);
+        System.out.printf("%-10s %14s %14s %10s %10s%n", "mode", "uploads/s", "records/s", "p50 ms", "p99 ms");
+        for (Result result : List.of(platform, virtual)) {
+            System.out.printf("%-10s %14.1f %14.1f %10.1f %10.1f%n", result.mode(), result.uploadsPerSecond(),
+                    result.uploadsPerSecond() * RECORDS, result.p50Millis(), result.p99Millis());
+        }
+    }
+
+    private Result run(String mode, byte[] file) throws Exception {
+        boolean virtual = mode.equals("virtual");
+        ScheduledExecutorService broker = Executors.newSingleThreadScheduledExecutor();
+        ExecutorService requestExecutor = virtual
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(PLATFORM_THREADS);
+        Executor completionExecutor = virtual ? virtualCompletionExecutor() : new SyncTaskExecutor();
+        try {
+            InventoryService service = inventoryService(KafkaProducerServices.sendingThrough(new DelayedAckTemplate(broker))
+                    .completionExecutor(completionExecutor).build());
+            long[] latencies = new long[UPLOADS];
+            List<Future<?>> uploads = new ArrayList<>(UPLOADS);
+            long start = System.nanoTime();
+            for (int i = 0; i < UPLOADS; i++) {
+                int upload = i;
+                long submitted = System.nanoTime();
+                uploads.add(requestExecutor.submit(() -> {
+                    IngestionProgress progress = new IngestionProgress();
+                    service.ingest(new ByteArrayInputStream(file), Instant.now(), progress);
+                    latencies[upload] = System.nanoTime() - submitted;
+                    assertEquals(RECORDS, progress.acked());
+                    return null;
+                }));
+            }
+            for (Future<?> upload : uploads) {
+                upload.get();
+            }
+            long elapsed = System.nanoTime() - start;
+            Arrays.sort(latencies);
+            return new Result(mode, UPLOADS / (elapsed / 1e9), percentile(latencies, 0.50), percentile(latencies, 0.99));
+        } finally {
+            requestExecutor.shutdownNow();
+            broker.shutdownNow();
+        }
+    }
+
+    private static Executor virtualCompletionExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("kafka-ack-");
+        executor.setVirtualThreads(true);
+        return executor;
+    }
+
+    private static InventoryService inventoryService(KafkaProducerService kafkaProducerService) {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        InventoryService service = new InventoryService(objectMapper, kafkaProducerService, new JsonRecordStreamReader(objectMapper), null,
+                mock(ProducerProfileRouter.class), new DeltaTracker(1, new SimpleMeterRegistry()), mock(UploadDeduplicator.class),
+                new DuplicateKeyCollapser(new SimpleMeterRegistry()), new IngestionMetrics(new SimpleMeterRegistry()), null);
+        ReflectionTestUtils.setField(service, "inventoryTopic", "inventory-topic");
+        ReflectionTestUtils.setField(service, "ingestionMode", IngestionMode.STREAMING);
+        return service;
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, index)] / 1e6;
+    }
+
+    private record Result(String mode, double uploadsPerSecond, double p50Millis, double p99Millis) {}
+
+    /**
+     * Acknowledges every record {@code ACK_LATENCY_MS} after it was sent; {@code flush()} blocks
+     * for one ack round trip like a producer waiting for its last in-flight batch.
+     */
+    private static final class DelayedAckTemplate extends KafkaTemplate<String, Object> {
+
+        private final ScheduledExecutorService broker;
+
+        @SuppressWarnings("unchecked")
+        private DelayedAckTemplate(ScheduledExecutorService broker) {
+            super(mock(ProducerFactory.class));
+            this.broker = broker;
+        }
+
+        @Override
+        public CompletableFuture<SendResult<String, Object>> send(String topic, String key, Object data) {
+            CompletableFuture<SendResult<String, Object>> future = new CompletableFuture<>();
+            broker.schedule(() -> future.complete(null), ACK_LATENCY_MS, TimeUnit.MILLISECONDS);
+            return future;
+        }
+
+        @Override
+        public void flush() {
+            try {
+                Thread.sleep(ACK_LATENCY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
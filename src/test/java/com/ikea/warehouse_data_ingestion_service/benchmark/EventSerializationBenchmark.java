@@ -0,0 +1,120 @@
+package com.ikea.warehouse_data_ingestion_service.benchmark;
+
+import com.ikea.warehouse_data_ingestion_service.data.dto.ArticleAmount;
+import com.ikea.warehouse_data_ingestion_service.data.dto.ArticleAmountV2;
+import com.ikea.warehouse_data_ingestion_service.data.event.InventoryUpdateEvent;
+import com.ikea.warehouse_data_ingestion_service.data.event.InventoryUpdateEventV2;
+import com.ikea.warehouse_data_ingestion_service.data.event.ProductUpdateEvent;
+import com.ikea.warehouse_data_ingestion_service.data.event.ProductUpdateEventV2;
+import com.ikea.warehouse_data_ingestion_service.serialization.EventBinaryDeserializer;
+import com.ikea.warehouse_data_ingestion_service.serialization.EventBinarySerializer;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares payload size and serialize/deserialize time of the JSON and binary event formats
+ * on synthetic inventory and product events of both event schemas ({@code inventory2} and
+ * {@code product2} are v2). Headers (JSON type id, binary schema id) are
+ * counted in the size since they travel to the broker with every record.
+ *
+ * <pre>
+ * mvn test -Pbenchmark -Dtest=EventSerializationBenchmark -Dbench.events=200000 -Dbench.rounds=5
+ * </pre>
+ */
+@Tag("benchmark")
+class EventSerializationBenchmark {
+
+    private static final int EVENTS = Integer.getInteger("bench.events", 200_000);
+    private static final int ROUNDS = Integer.getInteger("bench.rounds", 5);
+    private static final Map<String, Object> CONSUMER_CONFIG =
+            Map.of(JsonDeserializer.TRUSTED_PACKAGES, "com.ikea.warehouse_data_ingestion_service.data.*");
+
+    @Test
+    void jsonVersusBinary() {
+        Instant fileCreatedAt = Instant.now();
+        List<Object> inventory = new ArrayList<>(EVENTS);
+        List<Object> products = new ArrayList<>(EVENTS);
+        List<Object> inventoryV2 = new ArrayList<>(EVENTS);
+        List<Object> productsV2 = new ArrayList<>(EVENTS);
+        for (int i = 0; i < EVENTS; i++) {
+            inventory.add(new InventoryUpdateEvent(String.valueOf(i), "article-" + i, String.valueOf(i % 500), fileCreatedAt));
+            products.add(new ProductUpdateEvent("product-" + i,
+                    List.of(new ArticleAmount(String.valueOf(i), "4"), new ArticleAmount(String.valueOf(i + 1), "2"),
+                            new ArticleAmount(String.valueOf(i + 2), "1")),
+                    fileCreatedAt));
+            inventoryV2.add(new InventoryUpdateEventV2(String.valueOf(i), "article-" + i, i % 500, fileCreatedAt));
+            productsV2.add(new ProductUpdateEventV2("product-" + i,
+                    List.of(new ArticleAmountV2(String.valueOf(i), 4), new ArticleAmountV2(String.valueOf(i + 1), 2),
+                            new ArticleAmountV2(String.valueOf(i + 2), 1)),
+                    fileCreatedAt));
+        }
+
+        System.out.printf("%nEvent serialization: %d events per type, best of %d rounds%n", EVENTS, ROUNDS);
+        System.out.printf("%-10s %-8s %12s %12s %14s %14s%n", "type", "format", "value B", "header B", "ser ns/event", "de ns/event");
+        for (Map.Entry<String, List<Object>> events : Map.of("inventory", inventory, "product", products,
+                "inventory2", inventoryV2, "product2", productsV2).entrySet()) {
+            print(events.getKey(), "json", measure(events.getValue(), new JsonSerializer<>(), new JsonDeserializer<>()));
+            print(events.getKey(), "binary", measure(events.getValue(), new EventBinarySerializer(), new EventBinaryDeserializer()));
+        }
+    }
+
+    private static Result measure(List<Object> events, Serializer<Object> serializer, Deserializer<Object> deserializer) {
+        deserializer.configure(CONSUMER_CONFIG, false);
+        byte[][] payloads = new byte[events.size()][];
+        RecordHeaders[] headers = new RecordHeaders[events.size()];
+        long bestSerialize = Long.MAX_VALUE;
+        long bestDeserialize = Long.MAX_VALUE;
+        long valueBytes = 0;
+        long headerBytes = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < events.size(); i++) {
+                headers[i] = new RecordHeaders();
+                payloads[i] = serializer.serialize("topic", headers[i], events.get(i));
+            }
+            bestSerialize = Math.min(bestSerialize, System.nanoTime() - start);
+            // the JSON deserializer removes its type headers, so count them before decoding
+            valueBytes = 0;
+            headerBytes = 0;
+            for (int i = 0; i < events.size(); i++) {
+                valueBytes += payloads[i].length;
+                for (Header header : headers[i]) {
+                    headerBytes += header.key().length() + header.value().length;
+                }
+            }
+
+            start = System.nanoTime();
+            for (int i = 0; i < events.size(); i++) {
+                Object decoded = deserializer.deserialize("topic", headers[i], payloads[i]);
+                if (i == 0) {
+                    assertEquals(events.get(0), decoded);
+                }
+            }
+            bestDeserialize = Math.min(bestDeserialize, System.nanoTime() - start);
+        }
+        serializer.close();
+        deserializer.close();
+        int n = events.size();
+        return new Result((double) valueBytes / n, (double) headerBytes / n, (double) bestSerialize / n, (double) bestDeserialize / n);
+    }
+
+    private static void print(String type, String format, Result result) {
+        System.out.printf("%-10s %-8s %12.1f %12.1f %14.1f %14.1f%n", type, format,
+                result.valueBytes(), result.headerBytes(), result.serializeNanos(), result.deserializeNanos());
+    }
+
+    private record Result(double valueBytes, double headerBytes, double serializeNanos, double deserializeNanos) {}
+}
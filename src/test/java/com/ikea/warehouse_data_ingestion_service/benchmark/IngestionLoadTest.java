@@ -0,0 +1,286 @@
+package com.ikea.warehouse_data_ingestion_service.benchmark;
+
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End-to-end load test: starts the application against an embedded Kafka broker, drives
+ * concurrent uploads of synthetic files through the synchronous upload endpoints and consumes
+ * both topics to measure records/s and upload latency. Every upload gets its own key range,
+ * so each consumed record is attributed to the upload that produced it and no file is
+ * skipped as a duplicate upload.
+ * <ul>
+ *   <li>{@code http} latency: upload start until the response, which is sent once every record is acknowledged</li>
+ *   <li>{@code e2e} latency: upload start until the last record of the upload is consumed</li>
+ * </ul>
+ * Service settings ({@code app.ingestion.mode}, {@code app.kafka.value-format}, ...) can be
+ * overridden with {@code -D} like any other property.
+ *
+ * <pre>
+ * mvn test -Pbenchmark -Dtest=IngestionLoadTest \
+ *     -Dload.uploads=200 -Dload.concurrency=16 -Dload.fileTypes=inventory,products \
+ *     -Dload.inventoryRecords=10000 -Dload.productRecords=2000 -Dload.articlesPerProduct=4 \
+ *     -Dapp.ingestion.mode=pipeline
+ * </pre>
+ * Records are consumed {@code read_committed}, so with {@code -Dapp.ingestion.mode=atomic} an
+ * upload counts as consumed only once its transaction is committed.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.kafka.topics.inventory=" + IngestionLoadTest.INVENTORY_TOPIC,
+        "app.kafka.topics.product=" + IngestionLoadTest.PRODUCT_TOPIC,
+        "spring.servlet.multipart.max-file-size=-1",
+        "spring.servlet.multipart.max-request-size=-1",
+        "otel.sdk.disabled=true",
+        "logging.level.com.ikea.warehouse_data_ingestion_service=WARN"
+})
+@ActiveProfiles("kafka")
+@EmbeddedKafka(partitions = 6, topics = {IngestionLoadTest.INVENTORY_TOPIC, IngestionLoadTest.PRODUCT_TOPIC},
+        bootstrapServersProperty = "spring.kafka.bootstrap-servers",
+        // a single broker has to host the transaction state log for app.ingestion.mode=atomic
+        brokerProperties = {"transaction.state.log.replication.factor=1", "transaction.state.log.min.isr=1"})
+class IngestionLoadTest {
+
+    static final String INVENTORY_TOPIC = "load-test.inventory";
+    static final String PRODUCT_TOPIC = "load-test.product";
+
+    private static final int UPLOADS = Integer.getInteger("load.uploads", 200);
+    private static final int WARMUP_UPLOADS = Integer.getInteger("load.warmupUploads", 20);
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 16);
+    private static final List<FileType> FILE_TYPES = Arrays.stream(System.getProperty("load.fileTypes", "inventory,products").split(","))
+            .map(type -> FileType.valueOf(type.trim().toUpperCase(Locale.ROOT)))
+            .toList();
+    private static final int INVENTORY_RECORDS = Integer.getInteger("load.inventoryRecords", 10_000);
+    private static final int PRODUCT_RECORDS = Integer.getInteger("load.productRecords", 2_000);
+    private static final int ARTICLES_PER_PRODUCT = Integer.getInteger("load.articlesPerProduct", 4);
+    private static final int ARTICLE_SPACE = Integer.getInteger("load.articleSpace", 100_000);
+    private static final long TIMEOUT_SECONDS = Long.getLong("load.timeoutSeconds", 600);
+
+    /** Keys of upload {@code u} are {@code u * KEY_STRIDE ..}, so a key identifies its upload. */
+    private static final long KEY_STRIDE = Math.max(INVENTORY_RECORDS, PRODUCT_RECORDS);
+    private static final String PRODUCT_PREFIX = "product-";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+
+    @Autowired
+    private Environment environment;
+
+    @Test
+    void concurrentUploads() throws Exception {
+        List<Upload> warmup = uploads(0, WARMUP_UPLOADS);
+        List<Upload> measured = uploads(WARMUP_UPLOADS, UPLOADS);
+        RestClient restClient = RestClient.create("http://localhost:" + port);
+
+        try (RecordTracker tracker = new RecordTracker(WARMUP_UPLOADS + UPLOADS)) {
+            run(restClient, tracker, warmup);
+            tracker.rejected.set(0);
+            long start = System.nanoTime();
+            run(restClient, tracker, measured);
+            long elapsed = measured.stream().mapToLong(upload -> tracker.lastReceived[upload.index()]).max().orElse(start) - start;
+            report(measured, tracker, elapsed);
+        }
+    }
+
+    private static List<Upload> uploads(int first, int count) {
+        List<Upload> uploads = new ArrayList<>(count);
+        for (int index = first; index < first + count; index++) {
+            FileType fileType = FILE_TYPES.get(index % FILE_TYPES.size());
+            long firstKey = index * KEY_STRIDE;
+            uploads.add(fileType == FileType.INVENTORY
+                    ? new Upload(index, fileType, INVENTORY_RECORDS, SyntheticFiles.inventory(INVENTORY_RECORDS, firstKey))
+                    : new Upload(index, fileType, PRODUCT_RECORDS,
+                            SyntheticFiles.products(PRODUCT_RECORDS, firstKey, ARTICLES_PER_PRODUCT, ARTICLE_SPACE)));
+        }
+        return uploads;
+    }
+
+    private static void run(RestClient restClient, RecordTracker tracker, List<Upload> uploads) throws Exception {
+        CountDownLatch consumed = tracker.expect(uploads);
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+        try {
+            List<Future<?>> responses = new ArrayList<>(uploads.size());
+            for (Upload upload : uploads) {
+                responses.add(executor.submit(() -> {
+                    MultipartBodyBuilder body = new MultipartBodyBuilder();
+                    body.part("file", upload.file()).filename(upload.fileType().name().toLowerCase(Locale.ROOT) + ".json")
+                            .contentType(MediaType.APPLICATION_JSON);
+                    tracker.started[upload.index()] = System.nanoTime();
+                    while (true) {
+                        try {
+                            restClient.post()
+                                    .uri(upload.fileType() == FileType.INVENTORY ? "/api/v1/inventory/upload" : "/api/v1/products/upload")
+                                    .contentType(MediaType.MULTIPART_FORM_DATA)
+                                    .body(body.build())
+                                    .retrieve()
+                                    .toBodilessEntity();
+                            break;
+                        } catch (HttpClientErrorException.TooManyRequests e) {
+                            // not admitted; latency keeps counting from the first attempt, like a client that retries
+                            tracker.rejected.incrementAndGet();
+                            String retryAfter = e.getResponseHeaders() != null ? e.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER) : null;
+                            Thread.sleep(TimeUnit.SECONDS.toMillis(retryAfter != null ? Long.parseLong(retryAfter) : 1));
+                        }
+                    }
+                    tracker.responded[upload.index()] = System.nanoTime();
+                    return null;
+                }));
+            }
+            for (Future<?> response : responses) {
+                response.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(consumed.await(TIMEOUT_SECONDS, TimeUnit.SECONDS),
+                "Not every record was consumed within " + TIMEOUT_SECONDS + "s, %d uploads incomplete".formatted(consumed.getCount()));
+    }
+
+    private void report(List<Upload> uploads, RecordTracker tracker, long elapsedNanos) {
+        System.out.printf("%nIngestion load test: %d uploads (+%d warm-up), %d concurrent, mode %s, event schema %s, value format %s%n",
+                UPLOADS, WARMUP_UPLOADS, CONCURRENCY, environment.getProperty("app.ingestion.mode", "batch"),
+                environment.getProperty("app.ingestion.event-schema", "v1"), environment.getProperty("app.kafka.value-format", "json"));
+        System.out.printf("%-10s %8s %12s %12s %12s %12s %12s %12s%n",
+                "type", "uploads", "records", "records/s", "http p50 ms", "http p99 ms", "e2e p50 ms", "e2e p99 ms");
+        for (FileType fileType : FILE_TYPES) {
+            print(fileType.name().toLowerCase(Locale.ROOT), uploads.stream().filter(upload -> upload.fileType() == fileType).toList(),
+                    tracker, elapsedNanos);
+        }
+        if (FILE_TYPES.size() > 1) {
+            print("all", uploads, tracker, elapsedNanos);
+        }
+        System.out.printf("429 responses (retried after Retry-After): %d%n", tracker.rejected.get());
+    }
+
+    private static void print(String label, List<Upload> uploads, RecordTracker tracker, long elapsedNanos) {
+        long[] http = uploads.stream().mapToLong(upload -> tracker.responded[upload.index()] - tracker.started[upload.index()]).sorted().toArray();
+        long[] e2e = uploads.stream().mapToLong(upload -> tracker.lastReceived[upload.index()] - tracker.started[upload.index()]).sorted().toArray();
+        long records = uploads.stream().mapToLong(Upload::records).sum();
+        System.out.printf("%-10s %8d %12d %12.1f %12.1f %12.1f %12.1f %12.1f%n", label, uploads.size(), records,
+                records / (elapsedNanos / 1e9), percentile(http, 0.50), percentile(http, 0.99), percentile(e2e, 0.50), percentile(e2e, 0.99));
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, index)] / 1e6;
+    }
+
+    private record Upload(int index, FileType fileType, int records, byte[] file) {}
+
+    /**
+     * Consumes both topics from the beginning on its own thread and records, per upload, how many
+     * records arrived and when the last one did. Values are not deserialized.
+     */
+    private final class RecordTracker implements AutoCloseable {
+
+        private final long[] started;
+        private final long[] responded;
+        private final long[] lastReceived;
+        private final int[] received;
+        private final int[] expected;
+        private final AtomicInteger rejected = new AtomicInteger();
+        private volatile CountDownLatch completed = new CountDownLatch(0);
+        private volatile boolean closed;
+        private final CountDownLatch assigned = new CountDownLatch(1);
+        private final Thread thread;
+
+        private RecordTracker(int uploads) throws InterruptedException {
+            started = new long[uploads];
+            responded = new long[uploads];
+            lastReceived = new long[uploads];
+            received = new int[uploads];
+            expected = new int[uploads];
+            thread = Thread.ofPlatform().name("load-test-consumer").start(this::consume);
+            assertTrue(assigned.await(30, TimeUnit.SECONDS), "Load test consumer did not start");
+        }
+
+        /** Must be called before {@code uploads} start; the latch opens once all of their records were consumed. */
+        private CountDownLatch expect(List<Upload> uploads) {
+            for (Upload upload : uploads) {
+                expected[upload.index()] = upload.records();
+            }
+            completed = new CountDownLatch(uploads.size());
+            return completed;
+        }
+
+        private void consume() {
+            Map<String, Object> config = Map.of(
+                    ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, embeddedKafka.getBrokersAsString(),
+                    ConsumerConfig.GROUP_ID_CONFIG, "ingestion-load-test",
+                    ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false,
+                    ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 10_000,
+                    // atomic uploads become visible on commit, so e2e latency includes the commit
+                    ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+            try (KafkaConsumer<String, byte[]> consumer = new KafkaConsumer<>(config, new StringDeserializer(), new ByteArrayDeserializer())) {
+                List<TopicPartition> partitions = new ArrayList<>();
+                for (String topic : List.of(INVENTORY_TOPIC, PRODUCT_TOPIC)) {
+                    consumer.partitionsFor(topic).forEach(partition -> partitions.add(new TopicPartition(topic, partition.partition())));
+                }
+                consumer.assign(partitions);
+                consumer.seekToBeginning(partitions);
+                partitions.forEach(consumer::position);
+                assigned.countDown();
+                while (!closed) {
+                    // read before expected[]: expect() fills it in before publishing the latch
+                    CountDownLatch latch = completed;
+                    for (ConsumerRecord<String, byte[]> record : consumer.poll(Duration.ofMillis(100))) {
+                        long now = System.nanoTime();
+                        int upload = uploadOf(record);
+                        lastReceived[upload] = now;
+                        if (++received[upload] == expected[upload]) {
+                            latch.countDown();
+                        }
+                    }
+                }
+            }
+        }
+
+        private static int uploadOf(ConsumerRecord<String, byte[]> record) {
+            String key = record.topic().equals(PRODUCT_TOPIC) ? record.key().substring(PRODUCT_PREFIX.length()) : record.key();
+            return (int) (Long.parseLong(key) / KEY_STRIDE);
+        }
+
+        @Override
+        public void close() throws InterruptedException {
+            closed = true;
+            thread.join();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.ikea.warehouse_data_ingestion_service.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Generates upload files in the accepted wrapper format, or as NDJSON, for benchmarks and
+ * load tests. Output is deterministic for the same arguments.
+ */
+public final class SyntheticFiles {
+
+    private SyntheticFiles() {
+    }
+
+    /** {@code {"inventory": [...]}} with art ids {@code 0 .. records - 1} and quoted stock values. */
+    public static byte[] inventory(int records) {
+        return inventory(records, 0);
+    }
+
+    /** {@code {"inventory": [...]}} with art ids {@code firstArtId .. firstArtId + records - 1}. */
+    public static byte[] inventory(int records, long firstArtId) {
+        return inventory(records, firstArtId, false);
+    }
+
+    /** The records of {@link #inventory(int)} as NDJSON, one per line. */
+    public static byte[] inventoryNdjson(int records) {
+        return inventory(records, 0, true);
+    }
+
+    private static byte[] inventory(int records, long firstArtId, boolean ndjson) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(32, records * 52));
+        write(out, ndjson ? "" : "{\"inventory\":[");
+        StringBuilder record = new StringBuilder(64);
+        for (int i = 0; i < records; i++) {
+            long artId = firstArtId + i;
+            record.setLength(0);
+            record.append(separator(i, ndjson))
+                    .append("{\"art_id\":\"").append(artId).append("\",\"name\":\"article-").append(artId)
+                    .append("\",\"stock\":\"").append(artId % 500).append("\"}");
+            write(out, record);
+        }
+        write(out, ndjson ? "\n" : "]}");
+        return out.toByteArray();
+    }
+
+    /**
+     * {@code {"products": [...]}} where product {@code i} contains {@code articlesPerProduct} articles
+     * drawn from {@code 0 .. articleSpace - 1}.
+     */
+    public static byte[] products(int records, int articlesPerProduct, int articleSpace) {
+        return products(records, 0, articlesPerProduct, articleSpace);
+    }
+
+    /** Like {@link #products(int, int, int)} with product names {@code product-<firstProduct> ..}. */
+    public static byte[] products(int records, long firstProduct, int articlesPerProduct, int articleSpace) {
+        return products(records, firstProduct, articlesPerProduct, articleSpace, false);
+    }
+
+    /** The records of {@link #products(int, int, int)} as NDJSON, one per line. */
+    public static byte[] productsNdjson(int records, int articlesPerProduct, int articleSpace) {
+        return products(records, 0, articlesPerProduct, articleSpace, true);
+    }
+
+    private static byte[] products(int records, long firstProduct, int articlesPerProduct, int articleSpace, boolean ndjson) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(32, records * (40 + articlesPerProduct * 34)));
+        write(out, ndjson ? "" : "{\"products\":[");
+        StringBuilder record = new StringBuilder(128);
+        for (int i = 0; i < records; i++) {
+            long product = firstProduct + i;
+            record.setLength(0);
+            record.append(separator(i, ndjson)).append("{\"name\":\"product-").append(product).append("\",\"contain_articles\":[");
+            for (int a = 0; a < articlesPerProduct; a++) {
+                long artId = (product * 31 + a * 7919L) % articleSpace;
+                record.append(a == 0 ? "" : ",")
+                        .append("{\"art_id\":\"").append(artId).append("\",\"amount_of\":\"").append(1 + (product + a) % 8).append("\"}");
+            }
+            record.append("]}");
+            write(out, record);
+        }
+        write(out, ndjson ? "\n" : "]}");
+        return out.toByteArray();
+    }
+
+    private static String separator(int record, boolean ndjson) {
+        if (record == 0) {
+            return "";
+        }
+        return ndjson ? "\n" : ",";
+    }
+
+    private static void write(ByteArrayOutputStream out, CharSequence text) {
+        out.writeBytes(text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,80 @@
+package com.ikea.warehouse_data_ingestion_service.benchmark.jmh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ikea.warehouse_data_ingestion_service.benchmark.SyntheticFiles;
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
+import com.ikea.warehouse_data_ingestion_service.service.EventMapping;
+import com.ikea.warehouse_data_ingestion_service.service.EventSchema;
+import com.ikea.warehouse_data_ingestion_service.service.InventoryService;
+import com.ikea.warehouse_data_ingestion_service.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps already parsed records to their Kafka key and event, as the map stage does for every
+ * record of an upload. Records are parsed once per trial; each invocation maps all of them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class EventMappingBenchmark {
+
+    @Param({"10000"})
+    public int records;
+
+    @Param({"INVENTORY", "PRODUCTS"})
+    public FileType fileType;
+
+    @Param({"V1", "V2"})
+    public EventSchema schema;
+
+    private final Instant fileCreatedAt = Instant.now();
+    private Mapper<?> mapper;
+
+    @Setup
+    public void parseRecords() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        mapper = fileType == FileType.INVENTORY
+                ? Mapper.of(InventoryService.eventMapping(schema), SyntheticFiles.inventory(records), objectMapper)
+                : Mapper.of(ProductService.eventMapping(schema), SyntheticFiles.products(records, 4, records), objectMapper);
+    }
+
+    @Benchmark
+    public void toEvents(RecordCounter counter, Blackhole blackhole) {
+        counter.records += mapper.map(fileCreatedAt, blackhole);
+    }
+
+    /** Captures the record type of an {@link EventMapping} together with the records it parsed. */
+    private record Mapper<R>(EventMapping<?, R, ?> mapping, List<R> records) {
+
+        private static <D, R> Mapper<R> of(EventMapping<D, R, ?> mapping, byte[] file, ObjectMapper objectMapper) throws IOException {
+            return new Mapper<>(mapping, mapping.records().apply(objectMapper.readValue(file, mapping.documentType())));
+        }
+
+        private int map(Instant fileCreatedAt, Blackhole blackhole) {
+            for (R record : records) {
+                blackhole.consume(mapping.key().apply(record));
+                blackhole.consume(mapping.toEvent().apply(record, fileCreatedAt));
+            }
+            return records.size();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.ikea.warehouse_data_ingestion_service.benchmark.jmh;
+
+import com.ikea.warehouse_data_ingestion_service.data.dto.ArticleAmount;
+import com.ikea.warehouse_data_ingestion_service.data.dto.ArticleAmountV2;
+import com.ikea.warehouse_data_ingestion_service.data.event.InventoryUpdateEvent;
+import com.ikea.warehouse_data_ingestion_service.data.event.InventoryUpdateEventV2;
+import com.ikea.warehouse_data_ingestion_service.data.event.ProductUpdateEvent;
+import com.ikea.warehouse_data_ingestion_service.data.event.ProductUpdateEventV2;
+import com.ikea.warehouse_data_ingestion_service.serialization.EventFormat;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Serializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes one event per invocation with the Kafka value serializer of each {@code app.kafka.value-format},
+ * including the type headers the serializer adds to every record.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class EventSerializerBenchmark {
+
+    @Param({"inventory", "product", "inventory2", "product2"})
+    public String eventType;
+
+    @Param({"JSON", "BINARY"})
+    public EventFormat format;
+
+    private Serializer<Object> serializer;
+    private Object event;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void createEvent() throws ReflectiveOperationException {
+        Instant fileCreatedAt = Instant.now();
+        serializer = format.serializer().getDeclaredConstructor().newInstance();
+        event = switch (eventType) {
+            case "inventory" -> new InventoryUpdateEvent("4711", "article-4711", "211", fileCreatedAt);
+            case "product" -> new ProductUpdateEvent("product-4711",
+                    List.of(new ArticleAmount("4711", "4"), new ArticleAmount("4712", "2"), new ArticleAmount("4713", "1")),
+                    fileCreatedAt);
+            case "inventory2" -> new InventoryUpdateEventV2("4711", "article-4711", 211, fileCreatedAt);
+            case "product2" -> new ProductUpdateEventV2("product-4711",
+                    List.of(new ArticleAmountV2("4711", 4), new ArticleAmountV2("4712", 2), new ArticleAmountV2("4713", 1)),
+                    fileCreatedAt);
+            default -> throw new IllegalArgumentException("Unknown event type " + eventType);
+        };
+    }
+
+    @TearDown
+    public void closeSerializer() {
+        serializer.close();
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize("topic", new RecordHeaders(), event);
+    }
+}
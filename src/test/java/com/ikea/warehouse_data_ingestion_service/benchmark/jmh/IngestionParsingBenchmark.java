@@ -0,0 +1,87 @@
+package com.ikea.warehouse_data_ingestion_service.benchmark.jmh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ikea.warehouse_data_ingestion_service.benchmark.SyntheticFiles;
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
+import com.ikea.warehouse_data_ingestion_service.service.EventMapping;
+import com.ikea.warehouse_data_ingestion_service.service.EventSchema;
+import com.ikea.warehouse_data_ingestion_service.service.InventoryService;
+import com.ikea.warehouse_data_ingestion_service.service.ProductService;
+import com.ikea.warehouse_data_ingestion_service.service.parser.JsonRecordStreamReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses a whole synthetic upload file per invocation, either as one document (batch mode)
+ * or record by record off the stream (streaming and pipeline modes). The file is generated
+ * once per trial and held in memory, so only JSON parsing and DTO allocation are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-Xmx8g"})
+public class IngestionParsingBenchmark {
+
+    @Param({"1000", "100000", "1000000", "5000000"})
+    public int records;
+
+    @Param({"INVENTORY", "PRODUCTS"})
+    public FileType fileType;
+
+    @Param({"V1", "V2"})
+    public EventSchema schema;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final JsonRecordStreamReader recordStreamReader = new JsonRecordStreamReader(objectMapper);
+    private EventMapping<?, ?, ?> mapping;
+    private String arrayField;
+    private byte[] file;
+
+    @Setup
+    public void generateFile() {
+        if (fileType == FileType.INVENTORY) {
+            mapping = InventoryService.eventMapping(schema);
+            arrayField = "inventory";
+            file = SyntheticFiles.inventory(records);
+        } else {
+            mapping = ProductService.eventMapping(schema);
+            arrayField = "products";
+            file = SyntheticFiles.products(records, 4, Math.max(1, records / 2));
+        }
+    }
+
+    @Benchmark
+    public List<?> batch(RecordCounter counter) throws IOException {
+        List<?> parsed = records(mapping);
+        counter.records += parsed.size();
+        return parsed;
+    }
+
+    @Benchmark
+    public long streaming(RecordCounter counter, Blackhole blackhole) throws IOException {
+        long parsed = recordStreamReader.readArray(new ByteArrayInputStream(file), arrayField, mapping.recordType(), blackhole::consume);
+        counter.records += parsed;
+        return parsed;
+    }
+
+    private <D> List<?> records(EventMapping<D, ?, ?> mapping) throws IOException {
+        return mapping.records().apply(objectMapper.readValue(file, mapping.documentType()));
+    }
+}
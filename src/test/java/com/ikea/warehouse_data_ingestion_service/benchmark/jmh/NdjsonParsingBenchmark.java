@@ -0,0 +1,95 @@
+package com.ikea.warehouse_data_ingestion_service.benchmark.jmh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ikea.warehouse_data_ingestion_service.benchmark.SyntheticFiles;
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
+import com.ikea.warehouse_data_ingestion_service.data.dto.InventoryItem;
+import com.ikea.warehouse_data_ingestion_service.data.dto.Product;
+import com.ikea.warehouse_data_ingestion_service.service.parser.JsonRecordStreamReader;
+import com.ikea.warehouse_data_ingestion_service.service.parser.ParallelNdjsonReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses a whole synthetic NDJSON file per invocation with {@link ParallelNdjsonReader} on a
+ * pool of {@code parallelism} threads. {@code parallelism=0} is the sequential reader on the
+ * calling thread, the baseline for the speedup. Records are consumed in input order on the
+ * benchmark thread, as in the services.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-Xmx4g"})
+public class NdjsonParsingBenchmark {
+
+    @Param({"0", "1", "2", "4", "8", "16"})
+    public int parallelism;
+
+    @Param({"1000000"})
+    public int records;
+
+    @Param({"INVENTORY", "PRODUCTS"})
+    public FileType fileType;
+
+    @Param({"1MB"})
+    public String chunkSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private ForkJoinPool pool;
+    private JsonRecordStreamReader recordStreamReader;
+    private Class<?> recordType;
+    private byte[] file;
+
+    @Setup
+    public void setUp() {
+        if (parallelism > 0) {
+            pool = new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+            ParallelNdjsonReader parallelReader = new ParallelNdjsonReader(objectMapper, pool);
+            ReflectionTestUtils.setField(parallelReader, "chunkSize", DataSize.parse(chunkSize));
+            recordStreamReader = new JsonRecordStreamReader(objectMapper, parallelReader);
+        } else {
+            recordStreamReader = new JsonRecordStreamReader(objectMapper);
+        }
+        if (fileType == FileType.INVENTORY) {
+            recordType = InventoryItem.class;
+            file = SyntheticFiles.inventoryNdjson(records);
+        } else {
+            recordType = Product.class;
+            file = SyntheticFiles.productsNdjson(records, 4, Math.max(1, records / 2));
+        }
+    }
+
+    @TearDown
+    public void shutdownPool() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public long parse(RecordCounter counter, Blackhole blackhole) throws IOException {
+        long parsed = recordStreamReader.readLines(new ByteArrayInputStream(file), recordType, blackhole::consume);
+        counter.records += parsed;
+        return parsed;
+    }
+}
@@ -0,0 +1,103 @@
+package com.ikea.warehouse_data_ingestion_service.benchmark.jmh;
+
+import ch.qos.logback.classic.Logger;
+import com.ikea.warehouse_data_ingestion_service.data.event.InventoryUpdateEvent;
+import com.ikea.warehouse_data_ingestion_service.service.BatchSendResult;
+import com.ikea.warehouse_data_ingestion_service.service.KafkaProducerService;
+import com.ikea.warehouse_data_ingestion_service.service.KafkaProducerServices;
+import com.ikea.warehouse_data_ingestion_service.service.producer.MockProducers;
+import com.ikea.warehouse_data_ingestion_service.service.producer.ProducerProfile;
+import com.ikea.warehouse_data_ingestion_service.service.producer.ProducerTemplates;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@link KafkaProducerService#sendBatch} over producer pools of different sizes. Each
+ * member is a {@link MockProducer} that acknowledges on send, so the score covers partitioning,
+ * the fan-out and value serialization under each producer's lock, without network I/O; the
+ * extra sender threads of real producers come on top of this.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class ProducerPoolBenchmark {
+
+    private static final String TOPIC = "inventory-topic";
+
+    @Param({"1", "2", "4", "8"})
+    public int poolSize;
+
+    @Param({"100000"})
+    public int records;
+
+    @Param({"12"})
+    public int partitions;
+
+    private final List<MockProducer<String, Object>> producers = new ArrayList<>();
+    private ExecutorService publishExecutor;
+    private KafkaProducerService kafkaProducerService;
+    private Map<String, InventoryUpdateEvent> events;
+
+    @Setup
+    public void setUp() {
+        // one INFO line per batch would otherwise dominate small batches
+        ((Logger) LoggerFactory.getLogger(KafkaProducerService.class)).setLevel(ch.qos.logback.classic.Level.WARN);
+        for (int i = 0; i < poolSize; i++) {
+            producers.add(MockProducers.producer(TOPIC, partitions));
+        }
+        ProducerTemplates templates = new ProducerTemplates()
+                .register(ProducerProfile.BULK, producers.stream().map(MockProducers::template).toList(), 524288);
+        publishExecutor = Executors.newFixedThreadPool(Math.max(1, poolSize - 1));
+        kafkaProducerService = KafkaProducerServices.sendingThrough(templates).publishExecutor(publishExecutor).build();
+
+        Instant fileCreatedAt = Instant.now();
+        events = new LinkedHashMap<>(records * 2);
+        for (int i = 0; i < records; i++) {
+            events.put(String.valueOf(i), new InventoryUpdateEvent(String.valueOf(i), "article-" + i, String.valueOf(i % 500), fileCreatedAt));
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void clearHistory() {
+        for (MockProducer<String, Object> producer : producers) {
+            producer.clear();
+        }
+    }
+
+    @TearDown
+    public void shutdown() {
+        publishExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public BatchSendResult sendBatch(RecordCounter counter) {
+        BatchSendResult result = kafkaProducerService.sendBatch(TOPIC, events, ProducerProfile.BULK);
+        counter.records += result.succeeded();
+        return result;
+    }
+}
@@ -0,0 +1,88 @@
+package com.ikea.warehouse_data_ingestion_service.benchmark.jmh;
+
+import ch.qos.logback.classic.Logger;
+import com.ikea.warehouse_data_ingestion_service.data.event.InventoryUpdateEvent;
+import com.ikea.warehouse_data_ingestion_service.service.BatchSendResult;
+import com.ikea.warehouse_data_ingestion_service.service.KafkaProducerService;
+import com.ikea.warehouse_data_ingestion_service.service.KafkaProducerServices;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@link KafkaProducerService#sendBatch} against a {@link MockProducer} that acknowledges every
+ * record on send, so the score covers windowing, template overhead, value serialization and ack
+ * bookkeeping without any network I/O.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class SendBatchBenchmark {
+
+    @Param({"1000", "100000"})
+    public int records;
+
+    private final ReusableMockProducer producer = new ReusableMockProducer();
+    private final KafkaProducerService kafkaProducerService =
+            KafkaProducerServices.sendingThrough(new KafkaTemplate<>(() -> producer)).build();
+    private Map<String, InventoryUpdateEvent> events;
+
+    @Setup
+    public void createEvents() {
+        // one INFO line per batch would otherwise dominate small batches
+        ((Logger) LoggerFactory.getLogger(KafkaProducerService.class)).setLevel(ch.qos.logback.classic.Level.WARN);
+        Instant fileCreatedAt = Instant.now();
+        events = new LinkedHashMap<>(records * 2);
+        for (int i = 0; i < records; i++) {
+            events.put(String.valueOf(i), new InventoryUpdateEvent(String.valueOf(i), "article-" + i, String.valueOf(i % 500), fileCreatedAt));
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void clearHistory() {
+        producer.clear();
+    }
+
+    @Benchmark
+    public BatchSendResult sendBatch(RecordCounter counter) {
+        BatchSendResult result = kafkaProducerService.sendBatch("inventory-topic", events);
+        counter.records += result.succeeded();
+        return result;
+    }
+
+    /** The template closes its producer after every send unless the factory hands out a close-safe one. */
+    private static final class ReusableMockProducer extends MockProducer<String, Object> {
+
+        private ReusableMockProducer() {
+            super(true, new StringSerializer(), new JsonSerializer<>());
+        }
+
+        @Override
+        public void close(Duration timeout) {
+        }
+    }
+}
@@ -1,19 +1,43 @@
 package com.ikea.warehouse_data_ingestion_service.controller;
 
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
+import com.ikea.warehouse_data_ingestion_service.exception.IngestionOverloadedException;
 import com.ikea.warehouse_data_ingestion_service.service.InventoryService;
+import com.ikea.warehouse_data_ingestion_service.service.UploadOutcome;
+import com.ikea.warehouse_data_ingestion_service.service.admission.UploadAdmission;
+import com.ikea.warehouse_data_ingestion_service.service.job.IngestionJob;
+import com.ikea.warehouse_data_ingestion_service.service.job.IngestionJobService;
+import com.ikea.warehouse_data_ingestion_service.service.parser.RecordFormat;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.Compression;
 import com.ikea.warehouse_data_ingestion_service.util.ErrorMessages;
+import com.ikea.warehouse_data_ingestion_service.util.RequestHeaders;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = InventoryController.class)
@@ -25,6 +49,17 @@ class InventoryControllerTest {
     @MockBean
     private InventoryService inventoryService;
 
+    @MockBean
+    private IngestionJobService ingestionJobService;
+
+    @MockBean
+    private UploadAdmission uploadAdmission;
+
+    @BeforeEach
+    void admitEverything() {
+        when(uploadAdmission.admit(any(), anyLong())).thenReturn(mock(UploadAdmission.Ticket.class));
+    }
+
     @Test
     void uploadInventory_success() throws Exception {
         MockMultipartFile file = new MockMultipartFile("file", "inventory.json", MediaType.APPLICATION_JSON_VALUE, "{}".getBytes());
@@ -33,6 +68,87 @@ class InventoryControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().string(ErrorMessages.INVENTORY_UPLOADED_SUCCESS));
 
-        verify(inventoryService).proceedFile(any(), any());
+        verify(inventoryService).proceedFile(any(), any(), any());
+    }
+
+    @Test
+    void uploadInventory_duplicate_returnsSkippedMessage() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "inventory.json", MediaType.APPLICATION_JSON_VALUE, "{}".getBytes());
+        when(inventoryService.proceedFile(any(), any(), any())).thenReturn(UploadOutcome.DUPLICATE_SKIPPED);
+
+        mockMvc.perform(multipart("/api/v1/inventory/upload").file(file))
+                .andExpect(status().isOk())
+                .andExpect(content().string(ErrorMessages.INVENTORY_DUPLICATE_SKIPPED));
+    }
+
+    @Test
+    void uploadInventory_withWarehouseHeader_schedulesTheUploadAsThatWarehouse() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "inventory.json", MediaType.APPLICATION_JSON_VALUE, "{}".getBytes());
+
+        mockMvc.perform(multipart("/api/v1/inventory/upload").file(file).header(RequestHeaders.WAREHOUSE_ID, "store-042"))
+                .andExpect(status().isOk());
+
+        verify(inventoryService).proceedFile(any(), any(), argThat(progress -> progress.tenant().equals("store-042")));
+    }
+
+    @Test
+    void uploadInventoryRaw_whenNotAdmitted_returnsTooManyRequestsWithRetryAfter() throws Exception {
+        when(uploadAdmission.admit(FileType.INVENTORY, 2)).thenThrow(new IngestionOverloadedException("saturated", Duration.ofSeconds(7)));
+
+        mockMvc.perform(post("/api/v1/inventory/upload/raw").contentType(MediaType.APPLICATION_NDJSON).content("{}"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "7"))
+                .andExpect(jsonPath("$.error").value("INGESTION_OVERLOADED"));
+
+        verify(inventoryService, never()).ingest(any(InputStream.class), any(), any(), any(), any());
+    }
+
+    @Test
+    void uploadInventoryRaw_passesTheRequestBodyStraightToTheService() throws Exception {
+        String ndjson = "{\"art_id\":\"1\",\"name\":\"leg\",\"stock\":\"5\"}\n";
+
+        mockMvc.perform(post("/api/v1/inventory/upload/raw").contentType(MediaType.APPLICATION_NDJSON).content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(content().string(ErrorMessages.INVENTORY_UPLOADED_SUCCESS));
+
+        verify(inventoryService).ingest(any(InputStream.class), eq(RecordFormat.NDJSON), eq(Compression.NONE), any(), any());
+    }
+
+    @Test
+    void uploadInventoryRaw_withJsonBody_readsTheWrapperDocument() throws Exception {
+        mockMvc.perform(post("/api/v1/inventory/upload/raw").contentType(MediaType.APPLICATION_JSON).content("{\"inventory\":[]}"))
+                .andExpect(status().isOk());
+
+        verify(inventoryService).ingest(any(InputStream.class), eq(RecordFormat.JSON), eq(Compression.NONE), any(), any());
+    }
+
+    @Test
+    void uploadInventoryRaw_withContentEncoding_passesTheDeclaredCompression() throws Exception {
+        mockMvc.perform(post("/api/v1/inventory/upload/raw").contentType(MediaType.APPLICATION_NDJSON)
+                        .header(HttpHeaders.CONTENT_ENCODING, "zstd").content(new byte[] {0x28, (byte) 0xb5, 0x2f, (byte) 0xfd}))
+                .andExpect(status().isOk());
+
+        verify(inventoryService).ingest(any(InputStream.class), eq(RecordFormat.NDJSON), eq(Compression.ZSTD), any(), any());
+    }
+
+    @Test
+    void uploadInventoryRaw_withUnsupportedContentEncoding_returnsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/v1/inventory/upload/raw").contentType(MediaType.APPLICATION_NDJSON)
+                        .header(HttpHeaders.CONTENT_ENCODING, "br").content("{}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(ErrorMessages.UNSUPPORTED_CONTENT_ENCODING.formatted("br")));
+    }
+
+    @Test
+    void uploadInventoryAsync_returnsAcceptedWithJobLocation() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "inventory.json", MediaType.APPLICATION_JSON_VALUE, "{}".getBytes());
+        IngestionJob job = new IngestionJob("job-1", FileType.INVENTORY, "inventory.json", 2, Instant.now());
+        when(ingestionJobService.submit(eq(FileType.INVENTORY), any(), any())).thenReturn(job);
+
+        mockMvc.perform(multipart("/api/v1/inventory/upload/async").file(file))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/v1/jobs/job-1"))
+                .andExpect(jsonPath("$.jobId").value("job-1"))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
     }
 }
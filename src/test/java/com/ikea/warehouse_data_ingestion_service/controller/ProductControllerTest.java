@@ -1,7 +1,10 @@
 package com.ikea.warehouse_data_ingestion_service.controller;
 
 import com.ikea.warehouse_data_ingestion_service.service.ProductService;
+import com.ikea.warehouse_data_ingestion_service.service.admission.UploadAdmission;
+import com.ikea.warehouse_data_ingestion_service.service.job.IngestionJobService;
 import com.ikea.warehouse_data_ingestion_service.util.ErrorMessages;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -11,7 +14,10 @@ import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -25,6 +31,17 @@ class ProductControllerTest {
     @MockBean
     private ProductService productService;
 
+    @MockBean
+    private IngestionJobService ingestionJobService;
+
+    @MockBean
+    private UploadAdmission uploadAdmission;
+
+    @BeforeEach
+    void admitEverything() {
+        when(uploadAdmission.admit(any(), anyLong())).thenReturn(mock(UploadAdmission.Ticket.class));
+    }
+
     @Test
     void uploadProducts_success() throws Exception {
         MockMultipartFile file = new MockMultipartFile("file", "products.json", MediaType.APPLICATION_JSON_VALUE, "{}".getBytes());
@@ -33,6 +50,6 @@ class ProductControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().string(ErrorMessages.PRODUCTS_UPLOADED_SUCCESS));
 
-        verify(productService).proceedFile(any(), any());
+        verify(productService).proceedFile(any(), any(), any());
     }
 }
@@ -0,0 +1,139 @@
+package com.ikea.warehouse_data_ingestion_service.controller;
+
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
+import com.ikea.warehouse_data_ingestion_service.data.dto.UploadSessionResponse;
+import com.ikea.warehouse_data_ingestion_service.exception.UploadConflictException;
+import com.ikea.warehouse_data_ingestion_service.service.InventoryService;
+import com.ikea.warehouse_data_ingestion_service.service.ProductService;
+import com.ikea.warehouse_data_ingestion_service.service.job.IngestionJob;
+import com.ikea.warehouse_data_ingestion_service.service.job.IngestionTask;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionProgress;
+import com.ikea.warehouse_data_ingestion_service.service.upload.ContentRange;
+import com.ikea.warehouse_data_ingestion_service.service.upload.UploadSession;
+import com.ikea.warehouse_data_ingestion_service.service.upload.UploadSessionService;
+import com.ikea.warehouse_data_ingestion_service.util.RequestHeaders;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = UploadController.class)
+class UploadControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private UploadSessionService uploadSessionService;
+
+    @MockBean
+    private InventoryService inventoryService;
+
+    @MockBean
+    private ProductService productService;
+
+    private UploadSession session(long offset) {
+        UploadSession session = mock(UploadSession.class);
+        when(session.getId()).thenReturn("upload-1");
+        when(session.getFileType()).thenReturn(FileType.INVENTORY);
+        when(session.toResponse(any())).thenReturn(new UploadSessionResponse(
+                "upload-1", FileType.INVENTORY, "inventory.json", offset, null, Instant.now(), Instant.now()));
+        when(uploadSessionService.getSessionTtl()).thenReturn(Duration.ofHours(24));
+        return session;
+    }
+
+    @Test
+    void startUpload_returnsCreatedWithUploadLocation() throws Exception {
+        UploadSession session = session(0);
+        when(uploadSessionService.start(FileType.INVENTORY, "inventory.json", null, null)).thenReturn(session);
+
+        mockMvc.perform(post("/api/v1/uploads").param("fileType", "INVENTORY").param("filename", "inventory.json"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Location", "/api/v1/uploads/upload-1"))
+                .andExpect(jsonPath("$.uploadId").value("upload-1"))
+                .andExpect(jsonPath("$.offset").value(0));
+    }
+
+    @Test
+    void appendChunk_passesTheParsedRangeAndReturnsTheNewOffset() throws Exception {
+        UploadSession session = session(4);
+        when(uploadSessionService.append(eq("upload-1"), eq(new ContentRange(0, 3, null)), any())).thenReturn(session);
+
+        mockMvc.perform(put("/api/v1/uploads/upload-1")
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes 0-3/*")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[] {'{', '"', 'i', '"'}))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.offset").value(4));
+    }
+
+    @Test
+    void appendChunk_atWrongOffset_returnsConflict() throws Exception {
+        when(uploadSessionService.append(eq("upload-1"), any(), any()))
+                .thenThrow(new UploadConflictException("resume from byte 4", 4));
+
+        mockMvc.perform(put("/api/v1/uploads/upload-1")
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes 0-3/*")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[4]))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("UPLOAD_OFFSET_CONFLICT"));
+    }
+
+    @Test
+    void commitUpload_returnsAcceptedWithJobLocation() throws Exception {
+        UploadSession session = session(4);
+        when(uploadSessionService.get("upload-1")).thenReturn(session);
+        IngestionJob job = new IngestionJob("job-1", FileType.INVENTORY, "inventory.json", 4, Instant.now());
+        when(uploadSessionService.commit(eq("upload-1"), any())).thenReturn(job);
+
+        mockMvc.perform(post("/api/v1/uploads/upload-1/commit"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/v1/jobs/job-1"))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+
+        verify(uploadSessionService).commit(eq("upload-1"), any());
+    }
+
+    @Test
+    void commitUpload_sendsAsTheWarehouseGivenOnStart() throws Exception {
+        UploadSession session = session(4);
+        when(session.getTenant()).thenReturn("store-042");
+        when(uploadSessionService.start(FileType.INVENTORY, null, null, "store-042")).thenReturn(session);
+        when(uploadSessionService.get("upload-1")).thenReturn(session);
+        when(uploadSessionService.commit(eq("upload-1"), any()))
+                .thenReturn(new IngestionJob("job-1", FileType.INVENTORY, "inventory.json", 4, Instant.now()));
+
+        mockMvc.perform(post("/api/v1/uploads").param("fileType", "INVENTORY").header(RequestHeaders.WAREHOUSE_ID, "store-042"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/api/v1/uploads/upload-1/commit"))
+                .andExpect(status().isAccepted());
+
+        ArgumentCaptor<IngestionTask> task = ArgumentCaptor.forClass(IngestionTask.class);
+        verify(uploadSessionService).commit(eq("upload-1"), task.capture());
+        IngestionProgress progress = new IngestionProgress(4);
+        task.getValue().run(InputStream.nullInputStream(), progress);
+        assertEquals("store-042", progress.tenant());
+        verify(inventoryService).ingest(any(), any(), eq(progress));
+    }
+}
@@ -3,6 +3,7 @@ package com.ikea.warehouse_data_ingestion_service.exception;
 import com.ikea.warehouse_data_ingestion_service.util.ErrorMessages;
 import jakarta.servlet.http.HttpServletRequest;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.web.HttpMediaTypeNotSupportedException;
@@ -11,6 +12,7 @@ import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartException;
 
 import java.io.IOException;
+import java.time.Duration;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -61,6 +63,20 @@ class GlobalExceptionHandlerTest {
         assertEquals("INTERNAL_SERVER_ERROR", response.getBody().error());
     }
 
+    @Test
+    void handleUploadExceptions_mapToNotFoundAndConflict() {
+        ResponseEntity<ErrorResponse> notFound = handler.handleUploadSessionNotFoundException(
+                new UploadSessionNotFoundException("u-1"), request("/api/v1/uploads/u-1"));
+        assertEquals(404, notFound.getStatusCode().value());
+        assertEquals("UPLOAD_NOT_FOUND", notFound.getBody().error());
+
+        ResponseEntity<ErrorResponse> conflict = handler.handleUploadConflictException(
+                new UploadConflictException("resume from byte 10", 10), request("/api/v1/uploads/u-1"));
+        assertEquals(409, conflict.getStatusCode().value());
+        assertEquals("UPLOAD_OFFSET_CONFLICT", conflict.getBody().error());
+        assertTrue(conflict.getBody().message().contains("resume from byte 10"));
+    }
+
     @Test
     void handleJsonAndMultipartAndOthers_coverAll() throws Exception {
         ResponseEntity<ErrorResponse> json = handler.handleJsonProcessingException(new com.fasterxml.jackson.core.JsonParseException(null, "bad"), request("/api/v1/products/upload"));
@@ -89,6 +105,16 @@ class GlobalExceptionHandlerTest {
         assertEquals("INVALID_ARGUMENT", illegal.getBody().error());
     }
 
+    @Test
+    void handleIngestionOverloadedException_returnsTooManyRequestsWithRetryAfter() {
+        ResponseEntity<ErrorResponse> response = handler.handleIngestionOverloadedException(
+                new IngestionOverloadedException("saturated", Duration.ofSeconds(12)), request("/api/v1/inventory/upload"));
+        assertEquals(429, response.getStatusCode().value());
+        assertEquals("12", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertNotNull(response.getBody());
+        assertEquals("INGESTION_OVERLOADED", response.getBody().error());
+    }
+
     @Test
     void handleMethodArgumentNotValid_usesUriToPickMessage() throws Exception {
         org.springframework.core.MethodParameter mp = new org.springframework.core.MethodParameter(
@@ -0,0 +1,128 @@
+package com.ikea.warehouse_data_ingestion_service.serialization;
+
+import com.ikea.warehouse_data_ingestion_service.data.dto.ArticleAmount;
+import com.ikea.warehouse_data_ingestion_service.data.dto.ArticleAmountV2;
+import com.ikea.warehouse_data_ingestion_service.data.event.InventoryUpdateEvent;
+import com.ikea.warehouse_data_ingestion_service.data.event.InventoryUpdateEventV2;
+import com.ikea.warehouse_data_ingestion_service.data.event.ProductUpdateEvent;
+import com.ikea.warehouse_data_ingestion_service.data.event.ProductUpdateEventV2;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventBinaryCodecTest {
+
+    private static final Instant FILE_CREATED_AT = Instant.parse("2025-09-01T10:15:30.123456789Z");
+
+    @Test
+    void roundTripsInventoryEvent() {
+        InventoryUpdateEvent event = new InventoryUpdateEvent("1", "leg – ünïcode", "12", FILE_CREATED_AT);
+
+        byte[] payload = EventBinaryCodec.encode(event);
+
+        assertEquals(EventBinaryCodec.MAGIC, payload[0]);
+        assertEquals(EventBinaryCodec.INVENTORY_UPDATE_V1, payload[1]);
+        assertEquals(event, EventBinaryCodec.decode(payload));
+    }
+
+    @Test
+    void roundTripsProductEvent() {
+        ProductUpdateEvent event = new ProductUpdateEvent("Dining Chair",
+                List.of(new ArticleAmount("1", "4"), new ArticleAmount("2", "8")), FILE_CREATED_AT);
+
+        byte[] payload = EventBinaryCodec.encode(event);
+
+        assertEquals(EventBinaryCodec.PRODUCT_UPDATE_V1, payload[1]);
+        assertEquals(event, EventBinaryCodec.decode(payload));
+    }
+
+    @Test
+    void roundTripsV2Events() {
+        InventoryUpdateEventV2 inventory = new InventoryUpdateEventV2("1", "leg", 1_000_000_000_000L, FILE_CREATED_AT);
+        ProductUpdateEventV2 product = new ProductUpdateEventV2("Dining Chair",
+                List.of(new ArticleAmountV2("1", 4), new ArticleAmountV2("2", Integer.MAX_VALUE)), FILE_CREATED_AT);
+
+        byte[] inventoryPayload = EventBinaryCodec.encode(inventory);
+        byte[] productPayload = EventBinaryCodec.encode(product);
+
+        assertEquals(EventBinaryCodec.INVENTORY_UPDATE_V2, inventoryPayload[1]);
+        assertEquals(EventBinaryCodec.PRODUCT_UPDATE_V2, productPayload[1]);
+        assertEquals(inventory, EventBinaryCodec.decode(inventoryPayload));
+        assertEquals(product, EventBinaryCodec.decode(productPayload));
+        assertTrue(inventoryPayload.length < EventBinaryCodec.encode(new InventoryUpdateEvent("1", "leg", "1000000000000", FILE_CREATED_AT)).length);
+    }
+
+    @Test
+    void preservesNullsAndEmptyLists() {
+        assertEquals(new InventoryUpdateEvent(null, "", null, null),
+                EventBinaryCodec.decode(EventBinaryCodec.encode(new InventoryUpdateEvent(null, "", null, null))));
+        assertEquals(new ProductUpdateEvent("p", null, null),
+                EventBinaryCodec.decode(EventBinaryCodec.encode(new ProductUpdateEvent("p", null, null))));
+        assertEquals(new ProductUpdateEvent("p", List.of(), FILE_CREATED_AT),
+                EventBinaryCodec.decode(EventBinaryCodec.encode(new ProductUpdateEvent("p", List.of(), FILE_CREATED_AT))));
+    }
+
+    @Test
+    void rejectsUnknownSchemaIdAndTruncatedPayloads() {
+        byte[] payload = EventBinaryCodec.encode(new InventoryUpdateEvent("1", "leg", "12", FILE_CREATED_AT));
+        byte[] unknown = payload.clone();
+        unknown[1] = 99;
+        byte[] truncated = Arrays.copyOf(payload, payload.length - 3);
+
+        assertThrows(SerializationException.class, () -> EventBinaryCodec.decode(unknown));
+        assertThrows(SerializationException.class, () -> EventBinaryCodec.decode(truncated));
+    }
+
+    @Test
+    void serializerAddsSchemaHeaderAndDeserializerReadsIt() {
+        InventoryUpdateEvent event = new InventoryUpdateEvent("1", "leg", "12", FILE_CREATED_AT);
+        RecordHeaders headers = new RecordHeaders();
+
+        try (EventBinarySerializer serializer = new EventBinarySerializer();
+             EventBinaryDeserializer deserializer = new EventBinaryDeserializer()) {
+            byte[] payload = serializer.serialize("inventory-topic", headers, event);
+
+            assertArrayEquals(new byte[]{EventBinaryCodec.INVENTORY_UPDATE_V1},
+                    headers.lastHeader(EventBinarySerializer.SCHEMA_ID_HEADER).value());
+            assertEquals(event, deserializer.deserialize("inventory-topic", headers, payload));
+        }
+    }
+
+    @Test
+    void deserializerStillReadsJsonPayloads() {
+        InventoryUpdateEvent event = new InventoryUpdateEvent("1", "leg", "12", FILE_CREATED_AT);
+        RecordHeaders headers = new RecordHeaders();
+
+        try (JsonSerializer<Object> jsonSerializer = new JsonSerializer<>();
+             EventBinaryDeserializer deserializer = new EventBinaryDeserializer()) {
+            deserializer.configure(Map.of(JsonDeserializer.TRUSTED_PACKAGES, "com.ikea.warehouse_data_ingestion_service.data.*"), false);
+            byte[] json = jsonSerializer.serialize("inventory-topic", headers, event);
+
+            assertTrue(json.length > 0 && json[0] == '{');
+            assertEquals(event, deserializer.deserialize("inventory-topic", headers, json));
+        }
+    }
+
+    @Test
+    void binaryPayloadIsSmallerThanJson() {
+        InventoryUpdateEvent event = new InventoryUpdateEvent("1", "leg", "12", FILE_CREATED_AT);
+
+        try (JsonSerializer<Object> jsonSerializer = new JsonSerializer<>()) {
+            byte[] json = jsonSerializer.serialize("inventory-topic", event);
+
+            assertTrue(EventBinaryCodec.encode(event).length * 3 < json.length);
+        }
+    }
+}
@@ -1,26 +1,58 @@
 package com.ikea.warehouse_data_ingestion_service.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
 import com.ikea.warehouse_data_ingestion_service.data.dto.InventoryData;
 import com.ikea.warehouse_data_ingestion_service.data.dto.InventoryItem;
+import com.ikea.warehouse_data_ingestion_service.data.event.InventoryUpdateEvent;
+import com.ikea.warehouse_data_ingestion_service.data.event.InventoryUpdateEventV2;
 import com.ikea.warehouse_data_ingestion_service.exception.FileProcessingException;
+import com.ikea.warehouse_data_ingestion_service.exception.KafkaProduceFailedException;
+import com.ikea.warehouse_data_ingestion_service.service.dedup.DuplicateKeyCollapser;
+import com.ikea.warehouse_data_ingestion_service.service.dedup.DuplicateKeyPolicy;
+import com.ikea.warehouse_data_ingestion_service.service.dedup.UploadDeduplicator;
+import com.ikea.warehouse_data_ingestion_service.service.delta.DeltaTracker;
+import com.ikea.warehouse_data_ingestion_service.service.metrics.IngestionMetrics;
+import com.ikea.warehouse_data_ingestion_service.service.parser.JsonRecordStreamReader;
+import com.ikea.warehouse_data_ingestion_service.service.parser.RecordFormat;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.Compression;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionPipeline;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionProgress;
+import com.ikea.warehouse_data_ingestion_service.service.producer.ProducerProfile;
+import com.ikea.warehouse_data_ingestion_service.service.producer.ProducerProfileRouter;
+import com.ikea.warehouse_data_ingestion_service.service.spool.EventSpool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
 
 class InventoryServiceTest {
 
@@ -30,6 +62,24 @@ class InventoryServiceTest {
     @Mock
     private KafkaProducerService kafkaProducerService;
 
+    @Mock
+    private ProducerProfileRouter producerProfileRouter;
+
+    @Mock
+    private UploadDeduplicator uploadDeduplicator;
+
+    @Spy
+    private DeltaTracker deltaTracker = new DeltaTracker(1_000, new SimpleMeterRegistry());
+
+    @Spy
+    private DuplicateKeyCollapser duplicateKeyCollapser = new DuplicateKeyCollapser(new SimpleMeterRegistry());
+
+    @Spy
+    private IngestionMetrics ingestionMetrics = new IngestionMetrics(new SimpleMeterRegistry());
+
+    @Mock
+    private EventSpool eventSpool;
+
     @InjectMocks
     private InventoryService inventoryService;
 
@@ -55,16 +105,276 @@ class InventoryServiceTest {
         ));
         org.mockito.Mockito.when(objectMapper.readValue(any(java.io.InputStream.class), eq(InventoryData.class)))
                 .thenReturn(data);
+        org.mockito.Mockito.when(kafkaProducerService.sendBatch(eq("inventory-topic"), any(), any(), any()))
+                .thenReturn(new BatchSendResult("inventory-topic", 2, 2, List.of()));
+        org.mockito.Mockito.when(producerProfileRouter.route(any(), eq(2L))).thenReturn(ProducerProfile.LOW_LATENCY);
 
         inventoryService.proceedFile(file, Instant.parse("2025-01-01T00:00:00Z"));
 
         @SuppressWarnings("unchecked")
         ArgumentCaptor<Map<String, Object>> mapCaptor = ArgumentCaptor.forClass(Map.class);
-        verify(kafkaProducerService).sendBatch(eq("inventory-topic"), mapCaptor.capture());
+        verify(kafkaProducerService).sendBatch(eq("inventory-topic"), mapCaptor.capture(), eq(ProducerProfile.LOW_LATENCY), any());
 
         Map<String, Object> sentMap = mapCaptor.getValue();
         assertEquals(2, sentMap.size());
         assertTrue(sentMap.containsKey("1"));
         assertTrue(sentMap.containsKey("2"));
     }
+
+    @Test
+    void proceedStream_shouldPublishEachRecordAsItIsRead() throws Exception {
+        String json = "{\"inventory\":[{\"art_id\":\"1\",\"name\":\"leg\",\"stock\":\"5\"},{\"art_id\":\"2\",\"name\":\"screw\",\"stock\":\"10\"}]}";
+        ObjectMapper realMapper = new ObjectMapper().findAndRegisterModules();
+        InventoryService streamingService = new InventoryService(realMapper, kafkaProducerService, new JsonRecordStreamReader(realMapper),
+                mock(IngestionPipeline.class), producerProfileRouter, deltaTracker, uploadDeduplicator, duplicateKeyCollapser, ingestionMetrics, eventSpool);
+        ReflectionTestUtils.setField(streamingService, "inventoryTopic", "inventory-topic");
+        KafkaProducerService.StreamSession session = mock(KafkaProducerService.StreamSession.class);
+        when(kafkaProducerService.openStream(eq("inventory-topic"), any())).thenReturn(session);
+
+        long count = streamingService.proceedStream(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), Instant.parse("2025-01-01T00:00:00Z"));
+
+        assertEquals(2, count);
+        ArgumentCaptor<Object> eventCaptor = ArgumentCaptor.forClass(Object.class);
+        verify(session).send(eq("1"), eventCaptor.capture());
+        verify(session).send(eq("2"), any());
+        verify(session).close();
+        assertEquals("5", ((InventoryUpdateEvent) eventCaptor.getValue()).stock());
+    }
+
+    @Test
+    void ingest_ndjsonBodyInStreamingMode_shouldPublishEachLine() throws Exception {
+        String ndjson = "{\"art_id\":\"1\",\"name\":\"leg\",\"stock\":\"5\"}\n{\"art_id\":\"2\",\"name\":\"screw\",\"stock\":\"10\"}\n";
+        ObjectMapper realMapper = new ObjectMapper().findAndRegisterModules();
+        InventoryService streamingService = new InventoryService(realMapper, kafkaProducerService, new JsonRecordStreamReader(realMapper),
+                mock(IngestionPipeline.class), producerProfileRouter, deltaTracker, uploadDeduplicator, duplicateKeyCollapser, ingestionMetrics, eventSpool);
+        ReflectionTestUtils.setField(streamingService, "inventoryTopic", "inventory-topic");
+        ReflectionTestUtils.setField(streamingService, "ingestionMode", IngestionMode.STREAMING);
+        KafkaProducerService.StreamSession session = mock(KafkaProducerService.StreamSession.class);
+        when(kafkaProducerService.openStream(eq("inventory-topic"), any())).thenReturn(session);
+        IngestionProgress progress = new IngestionProgress();
+
+        streamingService.ingest(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), RecordFormat.NDJSON,
+                Instant.parse("2025-01-01T00:00:00Z"), progress);
+
+        assertEquals(2, progress.parsed());
+        verify(session).send(eq("1"), any());
+        verify(session).send(eq("2"), any());
+    }
+
+    @Test
+    void ingest_atomicMode_shouldCommitOneTransactionAfterTheLastRecord() throws Exception {
+        String ndjson = "{\"art_id\":\"1\",\"name\":\"leg\",\"stock\":\"5\"}\n{\"art_id\":\"2\",\"name\":\"screw\",\"stock\":\"10\"}\n";
+        ObjectMapper realMapper = new ObjectMapper().findAndRegisterModules();
+        InventoryService atomicService = new InventoryService(realMapper, kafkaProducerService, new JsonRecordStreamReader(realMapper),
+                mock(IngestionPipeline.class), producerProfileRouter, deltaTracker, uploadDeduplicator, duplicateKeyCollapser, ingestionMetrics, eventSpool);
+        ReflectionTestUtils.setField(atomicService, "inventoryTopic", "inventory-topic");
+        ReflectionTestUtils.setField(atomicService, "ingestionMode", IngestionMode.ATOMIC);
+        KafkaProducerService.TransactionSession session = mock(KafkaProducerService.TransactionSession.class);
+        when(kafkaProducerService.openTransaction(eq("inventory-topic"), any())).thenReturn(session);
+
+        atomicService.ingest(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), RecordFormat.NDJSON,
+                Instant.parse("2025-01-01T00:00:00Z"), new IngestionProgress());
+
+        InOrder inOrder = inOrder(session);
+        inOrder.verify(session).send(eq("1"), any());
+        inOrder.verify(session).send(eq("2"), any());
+        inOrder.verify(session).commit();
+        inOrder.verify(session).close();
+        verify(kafkaProducerService, never()).openStream(any(), any());
+    }
+
+    @Test
+    void ingest_atomicMode_shouldNotCommitWhenTheFileIsMalformed() throws Exception {
+        String ndjson = "{\"art_id\":\"1\",\"name\":\"leg\",\"stock\":\"5\"}\n{\"art_id\":\n";
+        ObjectMapper realMapper = new ObjectMapper().findAndRegisterModules();
+        InventoryService atomicService = new InventoryService(realMapper, kafkaProducerService, new JsonRecordStreamReader(realMapper),
+                mock(IngestionPipeline.class), producerProfileRouter, deltaTracker, uploadDeduplicator, duplicateKeyCollapser, ingestionMetrics, eventSpool);
+        ReflectionTestUtils.setField(atomicService, "inventoryTopic", "inventory-topic");
+        ReflectionTestUtils.setField(atomicService, "ingestionMode", IngestionMode.ATOMIC);
+        KafkaProducerService.TransactionSession session = mock(KafkaProducerService.TransactionSession.class);
+        when(kafkaProducerService.openTransaction(eq("inventory-topic"), any())).thenReturn(session);
+
+        assertThrows(Exception.class, () -> atomicService.ingest(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)),
+                RecordFormat.NDJSON, Instant.parse("2025-01-01T00:00:00Z"), new IngestionProgress()));
+
+        verify(session, never()).commit();
+        verify(session).close();
+    }
+
+    @Test
+    void ingest_spooledMode_shouldWriteEveryRecordToTheSpoolInsteadOfKafka() throws Exception {
+        String ndjson = "{\"art_id\":\"1\",\"name\":\"leg\",\"stock\":\"5\"}\n{\"art_id\":\"2\",\"name\":\"screw\",\"stock\":\"10\"}\n";
+        ObjectMapper realMapper = new ObjectMapper().findAndRegisterModules();
+        InventoryService spooledService = new InventoryService(realMapper, kafkaProducerService, new JsonRecordStreamReader(realMapper),
+                mock(IngestionPipeline.class), producerProfileRouter, deltaTracker, uploadDeduplicator, duplicateKeyCollapser, ingestionMetrics, eventSpool);
+        ReflectionTestUtils.setField(spooledService, "inventoryTopic", "inventory-topic");
+        ReflectionTestUtils.setField(spooledService, "ingestionMode", IngestionMode.SPOOLED);
+        EventSpool.Session session = mock(EventSpool.Session.class);
+        when(eventSpool.openSession(eq("inventory-topic"), any())).thenReturn(session);
+
+        spooledService.ingest(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), RecordFormat.NDJSON,
+                Instant.parse("2025-01-01T00:00:00Z"), new IngestionProgress());
+
+        InOrder inOrder = inOrder(session);
+        inOrder.verify(session).send(eq("1"), any());
+        inOrder.verify(session).send(eq("2"), any());
+        inOrder.verify(session).close();
+        verifyNoInteractions(kafkaProducerService, producerProfileRouter);
+    }
+
+    @Test
+    void ingest_ndjsonBodyInBatchMode_shouldSendAllLinesAsOneBatch() throws Exception {
+        String ndjson = "{\"art_id\":\"1\",\"name\":\"leg\",\"stock\":\"5\"}\n{\"art_id\":\"2\",\"name\":\"screw\",\"stock\":\"10\"}";
+        ObjectMapper realMapper = new ObjectMapper().findAndRegisterModules();
+        InventoryService batchService = new InventoryService(realMapper, kafkaProducerService, new JsonRecordStreamReader(realMapper),
+                mock(IngestionPipeline.class), producerProfileRouter, deltaTracker, uploadDeduplicator, duplicateKeyCollapser, ingestionMetrics, eventSpool);
+        ReflectionTestUtils.setField(batchService, "inventoryTopic", "inventory-topic");
+        when(kafkaProducerService.sendBatch(eq("inventory-topic"), any(), any(), any()))
+                .thenReturn(new BatchSendResult("inventory-topic", 2, 2, List.of()));
+
+        batchService.ingest(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), RecordFormat.NDJSON,
+                Instant.parse("2025-01-01T00:00:00Z"), new IngestionProgress());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Object>> mapCaptor = ArgumentCaptor.forClass(Map.class);
+        verify(kafkaProducerService).sendBatch(eq("inventory-topic"), mapCaptor.capture(), any(), any());
+        assertEquals(List.of("1", "2"), List.copyOf(mapCaptor.getValue().keySet()));
+    }
+
+    @Test
+    void ingest_gzipCompressedFile_shouldBeInflatedWhileStreaming() throws Exception {
+        String json = "{\"inventory\":[{\"art_id\":\"1\",\"name\":\"leg\",\"stock\":\"5\"},{\"art_id\":\"2\",\"name\":\"screw\",\"stock\":\"10\"}]}";
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(json.getBytes(StandardCharsets.UTF_8));
+        }
+        ObjectMapper realMapper = new ObjectMapper().findAndRegisterModules();
+        InventoryService streamingService = new InventoryService(realMapper, kafkaProducerService, new JsonRecordStreamReader(realMapper),
+                mock(IngestionPipeline.class), producerProfileRouter, deltaTracker, uploadDeduplicator, duplicateKeyCollapser, ingestionMetrics, eventSpool);
+        ReflectionTestUtils.setField(streamingService, "inventoryTopic", "inventory-topic");
+        ReflectionTestUtils.setField(streamingService, "ingestionMode", IngestionMode.STREAMING);
+        KafkaProducerService.StreamSession session = mock(KafkaProducerService.StreamSession.class);
+        when(kafkaProducerService.openStream(eq("inventory-topic"), any())).thenReturn(session);
+        IngestionProgress progress = new IngestionProgress(compressed.size());
+
+        streamingService.ingest(new ByteArrayInputStream(compressed.toByteArray()), Instant.parse("2025-01-01T00:00:00Z"), progress);
+
+        assertEquals(2, progress.parsed());
+        assertEquals(Compression.GZIP, progress.compression());
+        assertEquals(compressed.size(), progress.compressedBytesRead());
+        assertEquals(json.length(), progress.bytesRead());
+        verify(session).send(eq("1"), any());
+        verify(session).send(eq("2"), any());
+    }
+
+    @Test
+    void proceedStream_withV2Schema_shouldPublishTypedStockAndRejectMalformedQuantities() throws Exception {
+        ObjectMapper realMapper = new ObjectMapper().findAndRegisterModules();
+        InventoryService streamingService = new InventoryService(realMapper, kafkaProducerService, new JsonRecordStreamReader(realMapper),
+                mock(IngestionPipeline.class), producerProfileRouter, deltaTracker, uploadDeduplicator, duplicateKeyCollapser, ingestionMetrics, eventSpool);
+        ReflectionTestUtils.setField(streamingService, "inventoryTopic", "inventory-topic");
+        ReflectionTestUtils.setField(streamingService, "eventSchema", EventSchema.V2);
+        KafkaProducerService.StreamSession session = mock(KafkaProducerService.StreamSession.class);
+        when(kafkaProducerService.openStream(eq("inventory-topic"), any())).thenReturn(session);
+
+        streamingService.proceedStream(new ByteArrayInputStream("{\"inventory\":[{\"art_id\":\"1\",\"name\":\"leg\",\"stock\":\"5\"}]}"
+                .getBytes(StandardCharsets.UTF_8)), Instant.parse("2025-01-01T00:00:00Z"));
+        verify(session).send("1", new InventoryUpdateEventV2("1", "leg", 5, Instant.parse("2025-01-01T00:00:00Z")));
+
+        assertThrows(MismatchedInputException.class, () -> streamingService.proceedStream(new ByteArrayInputStream(
+                "{\"inventory\":[{\"art_id\":\"2\",\"name\":\"screw\",\"stock\":\"ten\"}]}".getBytes(StandardCharsets.UTF_8)), Instant.now()));
+        verify(session, never()).send(eq("2"), any());
+    }
+
+    @Test
+    void proceedFile_whenBatchHasFailedKeys_shouldThrow() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "inventory.json", "application/json", "{}".getBytes(StandardCharsets.UTF_8));
+        when(objectMapper.readValue(any(java.io.InputStream.class), eq(InventoryData.class)))
+                .thenReturn(new InventoryData(List.of(new InventoryItem("1", "leg", "5"))));
+        when(kafkaProducerService.sendBatch(eq("inventory-topic"), any(), any(), any()))
+                .thenReturn(new BatchSendResult("inventory-topic", 1, 0, List.of("1")));
+
+        KafkaProduceFailedException ex = assertThrows(KafkaProduceFailedException.class,
+                () -> inventoryService.proceedFile(file, Instant.parse("2025-01-01T00:00:00Z")));
+        assertTrue(ex.getMessage().contains("[1]"));
+    }
+
+    @Test
+    void proceedFile_whenKeyRepeats_shouldPublishItOnceWithTheLastValue() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "inventory.json", "application/json", "{}".getBytes(StandardCharsets.UTF_8));
+        when(objectMapper.readValue(any(java.io.InputStream.class), eq(InventoryData.class)))
+                .thenReturn(new InventoryData(List.of(new InventoryItem("1", "leg", "5"), new InventoryItem("1", "leg", "7"))));
+        when(kafkaProducerService.sendBatch(eq("inventory-topic"), any(), any(), any()))
+                .thenReturn(new BatchSendResult("inventory-topic", 1, 1, List.of()));
+        IngestionProgress progress = new IngestionProgress();
+
+        inventoryService.ingest(file.getInputStream(), Instant.parse("2025-01-01T00:00:00Z"), progress);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, InventoryUpdateEvent>> mapCaptor = ArgumentCaptor.forClass(Map.class);
+        verify(kafkaProducerService).sendBatch(eq("inventory-topic"), mapCaptor.capture(), any(), any());
+        assertEquals(1, mapCaptor.getValue().size());
+        assertEquals("7", mapCaptor.getValue().get("1").stock());
+        assertEquals(1, progress.duplicates());
+    }
+
+    @Test
+    void proceedFile_whenKeyRepeatsAndPolicyIsReject_shouldFailBeforePublishing() throws Exception {
+        ReflectionTestUtils.setField(duplicateKeyCollapser, "policy", DuplicateKeyPolicy.REJECT);
+        MockMultipartFile file = new MockMultipartFile("file", "inventory.json", "application/json", "{}".getBytes(StandardCharsets.UTF_8));
+        when(objectMapper.readValue(any(java.io.InputStream.class), eq(InventoryData.class)))
+                .thenReturn(new InventoryData(List.of(new InventoryItem("1", "leg", "5"), new InventoryItem("1", "leg", "7"))));
+
+        assertThrows(FileProcessingException.class, () -> inventoryService.proceedFile(file, Instant.now()));
+
+        verify(kafkaProducerService, never()).sendBatch(any(), any(), any(), any());
+    }
+
+    @Test
+    void proceedFile_inDeltaMode_shouldSkipRecordsUnchangedSinceLastUpload() throws Exception {
+        ReflectionTestUtils.setField(deltaTracker, "enabled", true);
+        MockMultipartFile file = new MockMultipartFile("file", "inventory.json", "application/json", "{}".getBytes(StandardCharsets.UTF_8));
+        when(objectMapper.readValue(any(java.io.InputStream.class), eq(InventoryData.class)))
+                .thenReturn(new InventoryData(List.of(new InventoryItem("1", "leg", "5"), new InventoryItem("2", "screw", "10"))))
+                .thenReturn(new InventoryData(List.of(new InventoryItem("1", "leg", "5"), new InventoryItem("2", "screw", "9"))));
+        when(kafkaProducerService.sendBatch(eq("inventory-topic"), any(), any(), any()))
+                .thenReturn(new BatchSendResult("inventory-topic", 2, 2, List.of()))
+                .thenReturn(new BatchSendResult("inventory-topic", 1, 1, List.of()));
+
+        inventoryService.proceedFile(file, Instant.parse("2025-01-01T00:00:00Z"));
+        IngestionProgress progress = new IngestionProgress();
+        inventoryService.ingest(file.getInputStream(), Instant.parse("2025-01-02T00:00:00Z"), progress);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Object>> mapCaptor = ArgumentCaptor.forClass(Map.class);
+        verify(kafkaProducerService, times(2)).sendBatch(eq("inventory-topic"), mapCaptor.capture(), any(), any());
+        assertEquals(Set.of("2"), mapCaptor.getAllValues().get(1).keySet());
+        assertEquals(1, progress.suppressed());
+    }
+
+    @Test
+    void proceedFile_whenIdenticalToRecentUpload_shouldSkipWithoutPublishing() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "inventory.json", "application/json", "{}".getBytes(StandardCharsets.UTF_8));
+        when(uploadDeduplicator.digest(file)).thenReturn("abc");
+        when(uploadDeduplicator.isDuplicate(FileType.INVENTORY, "abc")).thenReturn(true);
+
+        assertEquals(UploadOutcome.DUPLICATE_SKIPPED, inventoryService.proceedFile(file, Instant.now()));
+
+        verifyNoInteractions(objectMapper, kafkaProducerService);
+        verify(uploadDeduplicator, never()).remember(any(), any());
+    }
+
+    @Test
+    void proceedFile_whenPublished_shouldRememberContentHash() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "inventory.json", "application/json", "{}".getBytes(StandardCharsets.UTF_8));
+        when(uploadDeduplicator.digest(file)).thenReturn("abc");
+        when(objectMapper.readValue(any(java.io.InputStream.class), eq(InventoryData.class)))
+                .thenReturn(new InventoryData(List.of(new InventoryItem("1", "leg", "5"))));
+        when(kafkaProducerService.sendBatch(eq("inventory-topic"), any(), any(), any()))
+                .thenReturn(new BatchSendResult("inventory-topic", 1, 1, List.of()));
+
+        assertEquals(UploadOutcome.PUBLISHED, inventoryService.proceedFile(file, Instant.now()));
+
+        verify(uploadDeduplicator).remember(FileType.INVENTORY, "abc");
+    }
 }
@@ -1,18 +1,41 @@
 package com.ikea.warehouse_data_ingestion_service.service;
 
+import com.ikea.warehouse_data_ingestion_service.exception.KafkaProduceFailedException;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionProgress;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionStage;
+import com.ikea.warehouse_data_ingestion_service.service.producer.FairSendScheduler;
+import com.ikea.warehouse_data_ingestion_service.service.producer.MockProducers;
+import com.ikea.warehouse_data_ingestion_service.service.producer.ProducerPool;
+import com.ikea.warehouse_data_ingestion_service.service.producer.ProducerProfile;
+import com.ikea.warehouse_data_ingestion_service.service.producer.ProducerTemplates;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -22,12 +45,12 @@ class KafkaProducerServiceTest {
     @Mock
     KafkaTemplate<String, Object> kafkaTemplate;
 
-    @InjectMocks
     KafkaProducerService service;
 
     @BeforeEach
     void setup() {
         MockitoAnnotations.openMocks(this);
+        service = KafkaProducerServices.sendingThrough(kafkaTemplate).build();
     }
 
     @Test
@@ -43,4 +66,263 @@ class KafkaProducerServiceTest {
 
         verify(kafkaTemplate, times(2)).send(eq("topic"), any(String.class), any());
     }
+
+    @Test
+    void openStream_closeSurfacesFirstFailure() {
+        CompletableFuture<SendResult<String, Object>> ok = CompletableFuture.completedFuture(null);
+        CompletableFuture<SendResult<String, Object>> failed = CompletableFuture.failedFuture(new RuntimeException("broker down"));
+        when(kafkaTemplate.send(eq("topic"), eq("k1"), any())).thenReturn(ok);
+        when(kafkaTemplate.send(eq("topic"), eq("k2"), any())).thenReturn(failed);
+
+        KafkaProducerService.StreamSession session = service.openStream("topic");
+        session.send("k1", Map.of("v", 1));
+        session.send("k2", Map.of("v", 2));
+
+        assertEquals(2, session.sent());
+        assertEquals(1, session.failed());
+        assertThrows(KafkaProduceFailedException.class, session::close);
+        verify(kafkaTemplate).flush();
+    }
+
+    @Test
+    void sendBatch_returnsAckedCountWhenAllSucceed() {
+        ReflectionTestUtils.setField(service, "windowSize", 2);
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("k1", "v1");
+        map.put("k2", "v2");
+        map.put("k3", "v3");
+        when(kafkaTemplate.send(eq("topic"), any(String.class), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        BatchSendResult result = service.sendBatch("topic", map);
+
+        assertEquals(3, result.succeeded());
+        assertFalse(result.hasFailures());
+        // one flush per window
+        verify(kafkaTemplate, times(2)).flush();
+    }
+
+    @Test
+    void sendBatch_retriesFailedKeysInBulk() {
+        ReflectionTestUtils.setField(service, "retryBackoff", Duration.ZERO);
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("k1", "v1");
+        map.put("k2", "v2");
+        when(kafkaTemplate.send("topic", "k1", "v1")).thenReturn(CompletableFuture.completedFuture(null));
+        when(kafkaTemplate.send("topic", "k2", "v2"))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("not leader")))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        BatchSendResult result = service.sendBatch("topic", map);
+
+        assertEquals(2, result.succeeded());
+        verify(kafkaTemplate, times(1)).send("topic", "k1", "v1");
+        verify(kafkaTemplate, times(2)).send("topic", "k2", "v2");
+    }
+
+    @Test
+    void sendBatch_returnsSendCapacityBeforeTheBackoffAndRetriesWithinCapacityForTheFailedKeysOnly() {
+        FairSendScheduler scheduler = spy(new FairSendScheduler(2, Map.of(), new SimpleMeterRegistry()));
+        KafkaProducerService scheduled = KafkaProducerServices.sendingThrough(kafkaTemplate).sendScheduler(scheduler).build();
+        ReflectionTestUtils.setField(scheduled, "retryBackoff", Duration.ZERO);
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("k1", "v1");
+        map.put("k2", "v2");
+        when(kafkaTemplate.send("topic", "k1", "v1")).thenReturn(CompletableFuture.completedFuture(null));
+        when(kafkaTemplate.send("topic", "k2", "v2"))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("not leader")))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        BatchSendResult result = scheduled.sendBatch("topic", map);
+
+        assertEquals(2, result.succeeded());
+        InOrder inOrder = inOrder(scheduler);
+        inOrder.verify(scheduler).acquire(IngestionProgress.DEFAULT_TENANT, 2);
+        inOrder.verify(scheduler).release(2);
+        inOrder.verify(scheduler).acquire(IngestionProgress.DEFAULT_TENANT, 1);
+        inOrder.verify(scheduler).release(1);
+        assertEquals(2, scheduler.acquire("store-043", 2));
+    }
+
+    @Test
+    void sendBatch_reportsKeysNotAckedWithinTimeout() {
+        ReflectionTestUtils.setField(service, "ackTimeout", Duration.ofMillis(50));
+        ReflectionTestUtils.setField(service, "retryAttempts", 0);
+        when(kafkaTemplate.send(eq("topic"), eq("k1"), any())).thenReturn(new CompletableFuture<>());
+
+        BatchSendResult result = service.sendBatch("topic", Map.of("k1", "v1"));
+
+        assertEquals(0, result.succeeded());
+        assertEquals(List.of("k1"), result.failedKeys());
+    }
+
+    @Test
+    void sendBatch_countsWindowsIntoProgress() {
+        ReflectionTestUtils.setField(service, "retryAttempts", 0);
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("k1", "v1");
+        map.put("k2", "v2");
+        when(kafkaTemplate.send("topic", "k1", "v1")).thenReturn(CompletableFuture.completedFuture(null));
+        when(kafkaTemplate.send("topic", "k2", "v2")).thenReturn(CompletableFuture.failedFuture(new RuntimeException("not leader")));
+        IngestionProgress progress = new IngestionProgress();
+
+        service.sendBatch("topic", map, ProducerProfile.BALANCED, progress);
+
+        assertEquals(2, progress.sent());
+        assertEquals(1, progress.acked());
+        assertEquals(1, progress.failed());
+        assertEquals(0, progress.inFlight());
+        assertTrue(progress.stageNanos(IngestionStage.ENQUEUE) > 0);
+        assertTrue(progress.stageNanos(IngestionStage.ACK) > 0);
+    }
+
+    @Test
+    void sendsThroughTheTemplateOfTheSelectedProfile() {
+        @SuppressWarnings("unchecked")
+        KafkaTemplate<String, Object> bulkTemplate = mock(KafkaTemplate.class);
+        ProducerTemplates templates = ProducerTemplates.single(kafkaTemplate, 16384)
+                .register(ProducerProfile.BULK, bulkTemplate, 524288);
+        KafkaProducerService profiled = KafkaProducerServices.sendingThrough(templates).build();
+        CompletableFuture<SendResult<String, Object>> ok = CompletableFuture.completedFuture(null);
+        when(bulkTemplate.send(eq("topic"), any(String.class), any())).thenReturn(ok);
+        IngestionProgress progress = new IngestionProgress();
+        progress.useProducerProfile(ProducerProfile.BULK);
+
+        profiled.sendBatch("topic", Map.of("k1", "v1"), ProducerProfile.BULK);
+        try (KafkaProducerService.StreamSession session = profiled.openStream("topic", progress)) {
+            session.send("k2", "v2");
+        }
+
+        verify(bulkTemplate).send("topic", "k1", "v1");
+        verify(bulkTemplate).send("topic", "k2", "v2");
+        verify(bulkTemplate, times(2)).flush();
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    void sendBatch_fansOutOverThePoolKeepingEachPartitionOnOneProducerInOrder() {
+        List<MockProducer<String, Object>> producers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            producers.add(MockProducers.producer("topic", 12));
+        }
+        ProducerTemplates templates = new ProducerTemplates()
+                .register(ProducerProfile.BULK, producers.stream().map(MockProducers::template).toList(), 524288);
+        ExecutorService publishExecutor = Executors.newFixedThreadPool(2);
+        KafkaProducerService pooled = KafkaProducerServices.sendingThrough(templates).publishExecutor(publishExecutor).build();
+        ReflectionTestUtils.setField(pooled, "windowSize", 100);
+        Map<String, Object> events = new LinkedHashMap<>();
+        for (int i = 0; i < 1_000; i++) {
+            events.put("article-" + i, "v" + i);
+        }
+
+        try {
+            BatchSendResult result = pooled.sendBatch("topic", events, ProducerProfile.BULK);
+            assertEquals(1_000, result.succeeded());
+        } finally {
+            publishExecutor.shutdown();
+        }
+
+        ProducerPool pool = templates.pool(ProducerProfile.BULK);
+        int sent = 0;
+        for (int member = 0; member < producers.size(); member++) {
+            int owner = member;
+            List<String> expected = events.keySet().stream().filter(key -> pool.memberFor("topic", key) == owner).toList();
+            List<String> actual = producers.get(member).history().stream().map(ProducerRecord::key).toList();
+            assertEquals(expected, actual);
+            assertFalse(actual.isEmpty());
+            sent += actual.size();
+        }
+        assertEquals(1_000, sent);
+    }
+
+    @Test
+    void openTransaction_commitsEveryRecordAtOnce() {
+        MockProducer<String, Object> producer = MockProducers.producer("topic", 6);
+        KafkaProducerService transactional = KafkaProducerServices.sendingThrough(ProducerTemplates.single(kafkaTemplate, 16384))
+                .transactionalProducers(MockProducers.transactional(producer, 2, Duration.ofSeconds(1))).build();
+        IngestionProgress progress = new IngestionProgress();
+
+        try (KafkaProducerService.TransactionSession session = transactional.openTransaction("topic", progress)) {
+            session.send("k1", "v1");
+            session.send("k2", "v2");
+            session.send("k3", "v3");
+            assertEquals(3, progress.inFlight());
+            assertTrue(producer.history().isEmpty());
+            session.commit();
+        }
+
+        assertTrue(producer.transactionCommitted());
+        assertEquals(List.of("k1", "k2", "k3"), producer.history().stream().map(ProducerRecord::key).toList());
+        assertEquals(3, progress.acked());
+        assertEquals(0, progress.inFlight());
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    void openTransaction_abortsWhenClosedWithoutCommit() {
+        MockProducer<String, Object> producer = MockProducers.producer("topic", 6);
+        KafkaProducerService transactional = KafkaProducerServices.sendingThrough(ProducerTemplates.single(kafkaTemplate, 16384))
+                .transactionalProducers(MockProducers.transactional(producer, 2, Duration.ofSeconds(1))).build();
+        IngestionProgress progress = new IngestionProgress();
+
+        try (KafkaProducerService.TransactionSession session = transactional.openTransaction("topic", progress)) {
+            session.send("k1", "v1");
+            session.send("k2", "v2");
+        }
+
+        assertTrue(producer.transactionAborted());
+        assertTrue(producer.history().isEmpty());
+        assertEquals(0, progress.acked());
+        assertEquals(2, progress.failed());
+    }
+
+    @Test
+    void openTransaction_commitFailsAndAbortsAfterAFailedSend() {
+        MockProducer<String, Object> producer = MockProducers.producer("topic", 6, false);
+        KafkaProducerService transactional = KafkaProducerServices.sendingThrough(ProducerTemplates.single(kafkaTemplate, 16384))
+                .transactionalProducers(MockProducers.transactional(producer, 2, Duration.ofSeconds(1))).build();
+        IngestionProgress progress = new IngestionProgress();
+
+        KafkaProducerService.TransactionSession session = transactional.openTransaction("topic", progress);
+        session.send("k1", "v1");
+        session.send("k2", "v2");
+        producer.errorNext(new RuntimeException("record too large"));
+
+        assertThrows(KafkaProduceFailedException.class, session::commit);
+        session.close();
+        assertTrue(producer.transactionAborted());
+        assertEquals(2, progress.failed());
+    }
+
+    @Test
+    void openTransaction_rejectsUploadsWhileEveryProducerIsBusy() {
+        MockProducer<String, Object> producer = MockProducers.producer("topic", 6);
+        KafkaProducerService transactional = KafkaProducerServices.sendingThrough(ProducerTemplates.single(kafkaTemplate, 16384))
+                .transactionalProducers(MockProducers.transactional(producer, 1, Duration.ofMillis(10))).build();
+
+        try (KafkaProducerService.TransactionSession ignored = transactional.openTransaction("topic", new IngestionProgress())) {
+            assertThrows(RejectedExecutionException.class, () -> transactional.openTransaction("topic", new IngestionProgress()));
+        }
+        assertDoesNotThrow(() -> transactional.openTransaction("topic", new IngestionProgress()).close());
+    }
+
+    @Test
+    void openStream_sendsThroughTheSchedulerAndReturnsItsCapacityOnAck() {
+        MockProducer<String, Object> producer = MockProducers.producer("topic", 6);
+        FairSendScheduler scheduler = new FairSendScheduler(2, Map.of(), new SimpleMeterRegistry());
+        KafkaProducerService scheduled = KafkaProducerServices.sendingThrough(ProducerTemplates.single(MockProducers.template(producer), 16384))
+                .sendScheduler(scheduler).build();
+        IngestionProgress progress = new IngestionProgress();
+        progress.useTenant("store-042");
+
+        try (KafkaProducerService.StreamSession session = scheduled.openStream("topic", progress)) {
+            for (int i = 0; i < 5; i++) {
+                session.send("k" + i, "v" + i);
+            }
+        }
+
+        assertEquals(5, producer.history().size());
+        assertEquals(5, progress.acked());
+        assertEquals(0, scheduler.waiting());
+        assertEquals(2, scheduler.acquire("store-043", 2));
+    }
 }
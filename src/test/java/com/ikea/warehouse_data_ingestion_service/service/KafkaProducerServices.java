@@ -0,0 +1,65 @@
+package com.ikea.warehouse_data_ingestion_service.service;
+
+import com.ikea.warehouse_data_ingestion_service.service.producer.FairSendScheduler;
+import com.ikea.warehouse_data_ingestion_service.service.producer.ProducerTemplates;
+import com.ikea.warehouse_data_ingestion_service.service.producer.TransactionalProducers;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.concurrent.Executor;
+
+/**
+ * {@link KafkaProducerService}s for tests and benchmarks. Unless set otherwise, acks complete and
+ * pool members are fed on the calling thread, senders are not scheduled across tenants and
+ * {@link KafkaProducerService#openTransaction} is not available.
+ */
+public final class KafkaProducerServices {
+
+    private KafkaProducerServices() {
+    }
+
+    /** A service sending every profile through {@code kafkaTemplate}. */
+    public static Builder sendingThrough(KafkaTemplate<String, Object> kafkaTemplate) {
+        return sendingThrough(ProducerTemplates.single(kafkaTemplate, 0));
+    }
+
+    public static Builder sendingThrough(ProducerTemplates producerTemplates) {
+        return new Builder(producerTemplates);
+    }
+
+    public static final class Builder {
+
+        private final ProducerTemplates producerTemplates;
+        private Executor completionExecutor = Runnable::run;
+        private Executor publishExecutor = Runnable::run;
+        private TransactionalProducers transactionalProducers;
+        private FairSendScheduler sendScheduler = FairSendScheduler.unlimited();
+
+        private Builder(ProducerTemplates producerTemplates) {
+            this.producerTemplates = producerTemplates;
+        }
+
+        public Builder completionExecutor(Executor completionExecutor) {
+            this.completionExecutor = completionExecutor;
+            return this;
+        }
+
+        public Builder publishExecutor(Executor publishExecutor) {
+            this.publishExecutor = publishExecutor;
+            return this;
+        }
+
+        public Builder transactionalProducers(TransactionalProducers transactionalProducers) {
+            this.transactionalProducers = transactionalProducers;
+            return this;
+        }
+
+        public Builder sendScheduler(FairSendScheduler sendScheduler) {
+            this.sendScheduler = sendScheduler;
+            return this;
+        }
+
+        public KafkaProducerService build() {
+            return new KafkaProducerService(producerTemplates, completionExecutor, publishExecutor, transactionalProducers, sendScheduler);
+        }
+    }
+}
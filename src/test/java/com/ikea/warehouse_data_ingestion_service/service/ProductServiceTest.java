@@ -1,17 +1,36 @@
 package com.ikea.warehouse_data_ingestion_service.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ikea.warehouse_data_ingestion_service.data.dto.ArticleAmount;
 import com.ikea.warehouse_data_ingestion_service.data.dto.Product;
 import com.ikea.warehouse_data_ingestion_service.data.dto.ProductsData;
 import com.ikea.warehouse_data_ingestion_service.exception.FileProcessingException;
+import com.ikea.warehouse_data_ingestion_service.service.dedup.DuplicateKeyCollapser;
+import com.ikea.warehouse_data_ingestion_service.service.dedup.UploadDeduplicator;
+import com.ikea.warehouse_data_ingestion_service.service.delta.DeltaTracker;
+import com.ikea.warehouse_data_ingestion_service.service.index.ArticleIndexPublisher;
+import com.ikea.warehouse_data_ingestion_service.service.index.ArticleProductIndex;
+import com.ikea.warehouse_data_ingestion_service.service.metrics.IngestionMetrics;
+import com.ikea.warehouse_data_ingestion_service.service.parser.JsonRecordStreamReader;
+import com.ikea.warehouse_data_ingestion_service.service.parser.RecordFormat;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionPipeline;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionProgress;
+import com.ikea.warehouse_data_ingestion_service.service.producer.ProducerProfile;
+import com.ikea.warehouse_data_ingestion_service.service.producer.ProducerProfileRouter;
+import com.ikea.warehouse_data_ingestion_service.service.spool.EventSpool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.ByteArrayInputStream;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.List;
@@ -20,7 +39,11 @@ import java.util.Map;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
 
 class ProductServiceTest {
 
@@ -30,6 +53,27 @@ class ProductServiceTest {
     @Mock
     private KafkaProducerService kafkaProducerService;
 
+    @Mock
+    private ProducerProfileRouter producerProfileRouter;
+
+    @Mock
+    private UploadDeduplicator uploadDeduplicator;
+
+    @Mock
+    private ArticleIndexPublisher articleIndexPublisher;
+
+    @Spy
+    private DeltaTracker deltaTracker = new DeltaTracker(1_000, new SimpleMeterRegistry());
+
+    @Spy
+    private DuplicateKeyCollapser duplicateKeyCollapser = new DuplicateKeyCollapser(new SimpleMeterRegistry());
+
+    @Spy
+    private IngestionMetrics ingestionMetrics = new IngestionMetrics(new SimpleMeterRegistry());
+
+    @Mock
+    private EventSpool eventSpool;
+
     @InjectMocks
     private ProductService productService;
 
@@ -57,16 +101,70 @@ class ProductServiceTest {
         // mock mapper
         org.mockito.Mockito.when(objectMapper.readValue(any(java.io.InputStream.class), eq(ProductsData.class)))
                 .thenReturn(data);
+        org.mockito.Mockito.when(kafkaProducerService.sendBatch(eq("product-topic"), any(), any(), any()))
+                .thenReturn(new BatchSendResult("product-topic", 2, 2, List.of()));
+        org.mockito.Mockito.when(producerProfileRouter.route(any(), eq(2L))).thenReturn(ProducerProfile.LOW_LATENCY);
 
         productService.proceedFile(file, Instant.parse("2025-01-01T00:00:00Z"));
 
         @SuppressWarnings("unchecked")
         ArgumentCaptor<Map<String, Object>> mapCaptor = ArgumentCaptor.forClass(Map.class);
-        verify(kafkaProducerService).sendBatch(eq("product-topic"), mapCaptor.capture());
+        verify(kafkaProducerService).sendBatch(eq("product-topic"), mapCaptor.capture(), eq(ProducerProfile.LOW_LATENCY), any());
 
         Map<String, Object> sentMap = mapCaptor.getValue();
         assertEquals(2, sentMap.size());
         assertTrue(sentMap.containsKey("table"));
         assertTrue(sentMap.containsKey("chair"));
     }
+
+    @Test
+    void proceedFile_withArticleIndexEnabled_shouldPublishReverseIndexAfterProducts() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "products.json", "application/json", "{}".getBytes(StandardCharsets.UTF_8));
+        when(objectMapper.readValue(any(java.io.InputStream.class), eq(ProductsData.class)))
+                .thenReturn(new ProductsData(List.of(
+                        new Product("table", List.of(new ArticleAmount("1", "4"), new ArticleAmount("2", "1"))),
+                        new Product("chair", List.of(new ArticleAmount("1", "4"))))));
+        when(kafkaProducerService.sendBatch(eq("product-topic"), any(), any(), any()))
+                .thenReturn(new BatchSendResult("product-topic", 2, 2, List.of()));
+        when(articleIndexPublisher.isEnabled()).thenReturn(true);
+
+        productService.proceedFile(file, Instant.parse("2025-01-01T00:00:00Z"));
+
+        ArgumentCaptor<ArticleProductIndex> indexCaptor = ArgumentCaptor.forClass(ArticleProductIndex.class);
+        InOrder inOrder = inOrder(kafkaProducerService, articleIndexPublisher);
+        inOrder.verify(kafkaProducerService).sendBatch(eq("product-topic"), any(), any(), any());
+        inOrder.verify(articleIndexPublisher).publish(indexCaptor.capture(), eq(Instant.parse("2025-01-01T00:00:00Z")));
+        ArticleProductIndex index = indexCaptor.getValue();
+        assertEquals(2, index.articleCount());
+        assertEquals(List.of("table", "chair"), index.products(0, 0, index.productCount(0)));
+        assertEquals(List.of("table"), index.products(1, 0, index.productCount(1)));
+    }
+
+    @Test
+    void ingest_spooledMode_shouldSpoolProductsAndPublishTheArticleIndexDirectlyAfterThem() throws Exception {
+        String ndjson = "{\"name\":\"table\",\"contain_articles\":[{\"art_id\":\"1\",\"amount_of\":\"4\"}]}\n"
+                + "{\"name\":\"chair\",\"contain_articles\":[{\"art_id\":\"1\",\"amount_of\":\"4\"}]}\n";
+        ObjectMapper realMapper = new ObjectMapper().findAndRegisterModules();
+        ProductService spooledService = new ProductService(realMapper, kafkaProducerService, new JsonRecordStreamReader(realMapper),
+                mock(IngestionPipeline.class), producerProfileRouter, deltaTracker, uploadDeduplicator, duplicateKeyCollapser,
+                articleIndexPublisher, ingestionMetrics, eventSpool);
+        ReflectionTestUtils.setField(spooledService, "productTopic", "product-topic");
+        ReflectionTestUtils.setField(spooledService, "ingestionMode", IngestionMode.SPOOLED);
+        EventSpool.Session session = mock(EventSpool.Session.class);
+        when(eventSpool.openSession(eq("product-topic"), any())).thenReturn(session);
+        when(articleIndexPublisher.isEnabled()).thenReturn(true);
+
+        spooledService.ingest(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), RecordFormat.NDJSON,
+                Instant.parse("2025-01-01T00:00:00Z"), new IngestionProgress());
+
+        // the index is not spooled: it goes to Kafka through the publisher once the products are durable
+        ArgumentCaptor<ArticleProductIndex> indexCaptor = ArgumentCaptor.forClass(ArticleProductIndex.class);
+        InOrder inOrder = inOrder(session, articleIndexPublisher);
+        inOrder.verify(session).send(eq("table"), any());
+        inOrder.verify(session).send(eq("chair"), any());
+        inOrder.verify(session).close();
+        inOrder.verify(articleIndexPublisher).publish(indexCaptor.capture(), eq(Instant.parse("2025-01-01T00:00:00Z")));
+        assertEquals(List.of("table", "chair"), indexCaptor.getValue().products(0, 0, indexCaptor.getValue().productCount(0)));
+        verifyNoInteractions(kafkaProducerService, producerProfileRouter);
+    }
 }
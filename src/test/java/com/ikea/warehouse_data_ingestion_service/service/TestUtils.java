@@ -1,33 +1,30 @@
 package com.ikea.warehouse_data_ingestion_service.service;
 
 import java.lang.reflect.Field;
+import java.util.List;
 
 final class TestUtils {
     private TestUtils() {}
 
+    private static final List<String> TOPIC_FIELDS = List.of("productTopic", "inventoryTopic");
+
     static void setField(Object target, Object value) {
-        try {
-            Field f = target.getClass().getDeclaredField("productTopic");
-            f.setAccessible(true);
-            f.set(target, value);
-        } catch (NoSuchFieldException e) {
-            // search in super classes
-            Class<?> c = target.getClass().getSuperclass();
-            while (c != null) {
+        Class<?> c = target.getClass();
+        while (c != null) {
+            for (String name : TOPIC_FIELDS) {
                 try {
-                    Field f = c.getDeclaredField("productTopic");
+                    Field f = c.getDeclaredField(name);
                     f.setAccessible(true);
                     f.set(target, value);
                     return;
                 } catch (NoSuchFieldException ignored) {
-                    c = c.getSuperclass();
+                    // try the next candidate
                 } catch (IllegalAccessException iae) {
                     throw new RuntimeException(iae);
                 }
             }
-            throw new RuntimeException(e);
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException(e);
+            c = c.getSuperclass();
         }
+        throw new RuntimeException("No topic field found on " + target.getClass().getName());
     }
 }
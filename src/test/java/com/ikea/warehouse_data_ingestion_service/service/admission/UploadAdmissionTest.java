@@ -0,0 +1,145 @@
+package com.ikea.warehouse_data_ingestion_service.service.admission;
+
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
+import com.ikea.warehouse_data_ingestion_service.exception.IngestionOverloadedException;
+import com.ikea.warehouse_data_ingestion_service.service.IngestionMode;
+import com.ikea.warehouse_data_ingestion_service.service.metrics.IngestionMetrics;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionProgress;
+import com.ikea.warehouse_data_ingestion_service.service.producer.ProducerTemplates;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UploadAdmissionTest {
+
+    private static final long MB = 1024 * 1024;
+
+    private final AtomicLong nanos = new AtomicLong();
+    private SimpleMeterRegistry meterRegistry;
+    private IngestionMetrics ingestionMetrics;
+    private double bufferUtilization;
+    private UploadAdmission admission;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ingestionMetrics = new IngestionMetrics(meterRegistry);
+        ProducerTemplates producerTemplates = new ProducerTemplates() {
+            @Override
+            public double bufferUtilization() {
+                return bufferUtilization;
+            }
+        };
+        admission = new UploadAdmission(producerTemplates, ingestionMetrics, meterRegistry, nanos::get);
+        ReflectionTestUtils.setField(admission, "enabled", true);
+        ReflectionTestUtils.setField(admission, "targetLatency", Duration.ofSeconds(10));
+    }
+
+    private static IngestionProgress read(long bytes) {
+        IngestionProgress progress = new IngestionProgress();
+        progress.addBytesRead(bytes);
+        return progress;
+    }
+
+    @Test
+    void admit_rejectsUploadsThatWouldMissTheTargetLatency() {
+        UploadAdmission.Ticket first = admission.admit(FileType.INVENTORY, 2 * MB);
+        nanos.addAndGet(Duration.ofSeconds(2).toNanos());
+        first.published(read(2 * MB));
+        first.close();
+        assertEquals(MB, admission.throughput(), 1.0);
+
+        admission.admit(FileType.INVENTORY, 8 * MB);
+
+        IngestionOverloadedException rejected = assertThrows(IngestionOverloadedException.class,
+                () -> admission.admit(FileType.PRODUCTS, 4 * MB));
+        assertEquals(Duration.ofSeconds(2), rejected.getRetryAfter());
+        assertEquals(1, meterRegistry.get("ingestion.admission.rejected").tag("reason", "latency").counter().count());
+
+        admission.admit(FileType.PRODUCTS, MB);
+    }
+
+    @Test
+    void admit_alwaysAdmitsAnUploadWhenNothingElseRuns() {
+        UploadAdmission.Ticket first = admission.admit(FileType.INVENTORY, MB);
+        nanos.addAndGet(Duration.ofSeconds(1).toNanos());
+        first.published(read(MB));
+        first.close();
+
+        UploadAdmission.Ticket large = admission.admit(FileType.INVENTORY, 100 * MB);
+        large.close();
+        large.close();
+
+        admission.admit(FileType.INVENTORY, 5 * MB);
+    }
+
+    @Test
+    void close_countsOnlyTheBytesReadByPublishedUploadsIntoTheThroughput() {
+        UploadAdmission.Ticket failed = admission.admit(FileType.INVENTORY, 4 * MB);
+        UploadAdmission.Ticket undeclared = admission.admit(FileType.INVENTORY, -1);
+        nanos.addAndGet(Duration.ofSeconds(2).toNanos());
+        failed.close();
+        assertEquals(0, admission.throughput());
+
+        undeclared.published(read(3 * MB));
+        undeclared.close();
+        assertEquals(1.5 * MB, admission.throughput(), 1.0);
+    }
+
+    @Test
+    void admit_rejectsWhileTheProducerBufferIsNearlyFull() {
+        bufferUtilization = 0.95;
+
+        IngestionOverloadedException rejected = assertThrows(IngestionOverloadedException.class,
+                () -> admission.admit(FileType.INVENTORY, MB));
+
+        assertTrue(rejected.getMessage().contains("95%"));
+        assertEquals(Duration.ofSeconds(1), rejected.getRetryAfter());
+        assertEquals(1, meterRegistry.get("ingestion.admission.rejected").tag("reason", "buffer").counter().count());
+    }
+
+    @Test
+    void admit_rejectsWhileTooManyRecordsAwaitAcks() {
+        ReflectionTestUtils.setField(admission, "maxInFlightRecords", 100L);
+        IngestionProgress running = new IngestionProgress();
+        running.addSent(150);
+        ingestionMetrics.started(FileType.PRODUCTS, running);
+
+        assertThrows(IngestionOverloadedException.class, () -> admission.admit(FileType.INVENTORY, -1));
+
+        running.addAcked(100);
+        admission.admit(FileType.INVENTORY, -1);
+    }
+
+    @Test
+    void admit_inSpooledMode_ignoresTheProducerLoadTheSpoolDrainerCauses() {
+        ReflectionTestUtils.setField(admission, "ingestionMode", IngestionMode.SPOOLED);
+        ReflectionTestUtils.setField(admission, "maxInFlightRecords", 100L);
+        bufferUtilization = 1;
+        IngestionProgress draining = new IngestionProgress();
+        draining.addSent(150);
+        ingestionMetrics.started(FileType.INVENTORY, draining);
+
+        admission.admit(FileType.INVENTORY, MB).close();
+    }
+
+    @Test
+    void admit_admitsEverythingUnlessEnabled() {
+        UploadAdmission byDefault = new UploadAdmission(new ProducerTemplates() {
+            @Override
+            public double bufferUtilization() {
+                return 1;
+            }
+        }, ingestionMetrics, meterRegistry, nanos::get);
+
+        byDefault.admit(FileType.INVENTORY, MB).close();
+    }
+}
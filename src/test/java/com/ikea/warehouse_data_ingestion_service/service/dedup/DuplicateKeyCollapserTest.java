@@ -0,0 +1,95 @@
+package com.ikea.warehouse_data_ingestion_service.service.dedup;
+
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
+import com.ikea.warehouse_data_ingestion_service.exception.FileProcessingException;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionProgress;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DuplicateKeyCollapserTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private DuplicateKeyCollapser collapser;
+    private IngestionProgress progress;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        collapser = new DuplicateKeyCollapser(meterRegistry);
+        progress = new IngestionProgress();
+    }
+
+    @Test
+    void lastWinsKeepsTheLaterValueInBatchMode() {
+        KeyCollapseSession session = collapser.open(FileType.INVENTORY, progress);
+        Map<String, String> events = new LinkedHashMap<>();
+
+        session.put(events, "1", "first");
+        session.put(events, "2", "other");
+        session.put(events, "1", "second");
+
+        assertEquals(Map.of("1", "second", "2", "other"), events);
+        assertEquals(1, session.duplicates());
+        assertEquals(1, progress.duplicates());
+        assertEquals(1.0, meterRegistry.get("ingestion.duplicate.keys").tag("file_type", "inventory").counter().count());
+    }
+
+    @Test
+    void firstWinsKeepsTheEarlierValueAndDropsRepeatsWhenStreaming() {
+        ReflectionTestUtils.setField(collapser, "policy", DuplicateKeyPolicy.FIRST_WINS);
+        KeyCollapseSession session = collapser.open(FileType.PRODUCTS, progress);
+        Map<String, String> events = new LinkedHashMap<>();
+
+        session.put(events, "chair", "first");
+        session.put(events, "chair", "second");
+        assertEquals(Map.of("chair", "first"), events);
+
+        KeyCollapseSession streaming = collapser.open(FileType.PRODUCTS, progress);
+        assertTrue(streaming.admit("chair"));
+        assertTrue(streaming.admit("table"));
+        assertFalse(streaming.admit("chair"));
+        assertEquals(2, progress.duplicates());
+    }
+
+    @Test
+    void lastWinsRepublishesRepeatsWhenStreaming() {
+        KeyCollapseSession session = collapser.open(FileType.INVENTORY, progress);
+
+        assertTrue(session.admit("1"));
+        assertTrue(session.admit("1"));
+        assertEquals(1, session.duplicates());
+    }
+
+    @Test
+    void rejectFailsOnTheFirstRepeatedKey() {
+        ReflectionTestUtils.setField(collapser, "policy", DuplicateKeyPolicy.REJECT);
+        KeyCollapseSession session = collapser.open(FileType.INVENTORY, progress);
+        session.admit("1");
+
+        FileProcessingException ex = assertThrows(FileProcessingException.class, () -> session.admit("1"));
+        assertTrue(ex.getMessage().contains("'1'"));
+        assertEquals(0, progress.duplicates());
+    }
+
+    @Test
+    void keyIndexGrowsWithoutLosingKeys() {
+        KeyCollapseSession session = collapser.open(FileType.INVENTORY, progress);
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(session.admit(Integer.toString(i)));
+        }
+        for (int i = 0; i < 100_000; i += 1000) {
+            session.admit(Integer.toString(i));
+        }
+        assertEquals(100, session.duplicates());
+    }
+}
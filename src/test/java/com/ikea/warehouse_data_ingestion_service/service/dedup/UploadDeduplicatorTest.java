@@ -0,0 +1,76 @@
+package com.ikea.warehouse_data_ingestion_service.service.dedup;
+
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UploadDeduplicatorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private UploadDeduplicator deduplicator;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        deduplicator = new UploadDeduplicator(meterRegistry);
+        ReflectionTestUtils.setField(deduplicator, "enabled", true);
+    }
+
+    @Test
+    void digestIsSha256OfTheContent() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "inventory.json", "application/json", "abc".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", deduplicator.digest(file));
+    }
+
+    @Test
+    void remembersHashesPerFileType() {
+        deduplicator.remember(FileType.INVENTORY, "h1");
+
+        assertTrue(deduplicator.isDuplicate(FileType.INVENTORY, "h1"));
+        assertFalse(deduplicator.isDuplicate(FileType.PRODUCTS, "h1"));
+        assertFalse(deduplicator.isDuplicate(FileType.INVENTORY, "h2"));
+        assertEquals(1.0, meterRegistry.get("ingestion.dedup.skipped").tag("file_type", "inventory").counter().count());
+    }
+
+    @Test
+    void expiredHashesAreNotDuplicates() {
+        ReflectionTestUtils.setField(deduplicator, "ttl", Duration.ZERO);
+        deduplicator.remember(FileType.INVENTORY, "h1");
+
+        assertFalse(deduplicator.isDuplicate(FileType.INVENTORY, "h1"));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondMaxEntries() {
+        ReflectionTestUtils.setField(deduplicator, "maxEntries", 2);
+        deduplicator.remember(FileType.INVENTORY, "h1");
+        deduplicator.remember(FileType.INVENTORY, "h2");
+        assertTrue(deduplicator.isDuplicate(FileType.INVENTORY, "h1"));
+        deduplicator.remember(FileType.INVENTORY, "h3");
+
+        assertTrue(deduplicator.isDuplicate(FileType.INVENTORY, "h1"));
+        assertFalse(deduplicator.isDuplicate(FileType.INVENTORY, "h2"));
+        assertTrue(deduplicator.isDuplicate(FileType.INVENTORY, "h3"));
+    }
+
+    @Test
+    void disabledDeduplicatorNeverHashesOrSkips() throws Exception {
+        ReflectionTestUtils.setField(deduplicator, "enabled", false);
+        deduplicator.remember(FileType.INVENTORY, "h1");
+
+        assertNull(deduplicator.digest(new MockMultipartFile("file", "x".getBytes(StandardCharsets.UTF_8))));
+        assertFalse(deduplicator.isDuplicate(FileType.INVENTORY, "h1"));
+    }
+}
@@ -0,0 +1,97 @@
+package com.ikea.warehouse_data_ingestion_service.service.delta;
+
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionProgress;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeltaTrackerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private DeltaTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        tracker = new DeltaTracker(100_000, meterRegistry);
+        ReflectionTestUtils.setField(tracker, "enabled", true);
+    }
+
+    @Test
+    void suppressesRecordsPublishedWithTheSameContent() {
+        upload(FileType.INVENTORY, "1", Fingerprints.of("leg", "5"));
+
+        IngestionProgress progress = new IngestionProgress();
+        DeltaSession session = tracker.open(FileType.INVENTORY, progress);
+        assertFalse(session.isChanged("1", Fingerprints.of("leg", "5")));
+        assertTrue(session.isChanged("1", Fingerprints.of("leg", "6")));
+        assertTrue(session.isChanged("2", Fingerprints.of("screw", "5")));
+        session.commit();
+
+        assertEquals(1, progress.suppressed());
+        assertEquals(1.0, meterRegistry.get("ingestion.delta.suppressed").tag("file_type", "inventory").counter().count());
+    }
+
+    @Test
+    void fingerprintsOfAnUncommittedUploadAreNotRemembered() {
+        DeltaSession failed = tracker.open(FileType.INVENTORY, new IngestionProgress());
+        assertTrue(failed.isChanged("1", Fingerprints.of("leg", "5")));
+
+        assertTrue(tracker.open(FileType.INVENTORY, new IngestionProgress()).isChanged("1", Fingerprints.of("leg", "5")));
+    }
+
+    @Test
+    void keepsFileTypesApart() {
+        upload(FileType.PRODUCTS, "1", 42L);
+
+        assertTrue(tracker.open(FileType.INVENTORY, new IngestionProgress()).isChanged("1", 42L));
+        assertFalse(tracker.open(FileType.PRODUCTS, new IngestionProgress()).isChanged("1", 42L));
+    }
+
+    @Test
+    void growsBeyondInitialCapacityAndStopsAtMaxKeys() {
+        SimpleMeterRegistry smallRegistry = new SimpleMeterRegistry();
+        DeltaTracker small = new DeltaTracker(5_000, smallRegistry);
+        ReflectionTestUtils.setField(small, "enabled", true);
+        DeltaSession session = small.open(FileType.INVENTORY, new IngestionProgress());
+        for (int i = 0; i < 6_000; i++) {
+            session.isChanged(String.valueOf(i), i);
+        }
+        session.commit();
+
+        DeltaSession next = small.open(FileType.INVENTORY, new IngestionProgress());
+        assertFalse(next.isChanged("0", 0));
+        assertFalse(next.isChanged("4999", 4999));
+        assertTrue(next.isChanged("5999", 5999));
+        assertEquals(5_000.0, smallRegistry.get("ingestion.delta.keys").tag("file_type", "inventory").gauge().value());
+    }
+
+    @Test
+    void disabledTrackerPublishesEverything() {
+        ReflectionTestUtils.setField(tracker, "enabled", false);
+        upload(FileType.INVENTORY, "1", 7L);
+
+        IngestionProgress progress = new IngestionProgress();
+        assertTrue(tracker.open(FileType.INVENTORY, progress).isChanged("1", 7L));
+        assertEquals(0, progress.suppressed());
+    }
+
+    @Test
+    void fingerprintsSeparateFields() {
+        assertNotEquals(Fingerprints.of("ab", "c"), Fingerprints.of("a", "bc"));
+        assertNotEquals(Fingerprints.of(null, "5"), Fingerprints.of("", "5"));
+    }
+
+    private void upload(FileType fileType, String key, long fingerprint) {
+        DeltaSession session = tracker.open(fileType, new IngestionProgress());
+        session.isChanged(key, fingerprint);
+        session.commit();
+    }
+}
@@ -0,0 +1,196 @@
+package com.ikea.warehouse_data_ingestion_service.service.drop;
+
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
+import com.ikea.warehouse_data_ingestion_service.exception.FileProcessingException;
+import com.ikea.warehouse_data_ingestion_service.service.InventoryService;
+import com.ikea.warehouse_data_ingestion_service.service.ProductService;
+import com.ikea.warehouse_data_ingestion_service.service.parser.RecordFormat;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.Compression;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class DropDirectoryWatcherTest {
+
+    private static final String INVENTORY = "{\"inventory\":[{\"art_id\":\"1\",\"name\":\"leg\",\"stock\":\"5\"}]}";
+
+    @TempDir
+    Path tempDir;
+
+    private InventoryService inventoryService;
+    private ProductService productService;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        inventoryService = mock(InventoryService.class);
+        productService = mock(ProductService.class);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private DropDirectoryWatcher watcher(Executor executor, int workers) {
+        DropDirectoryWatcher watcher = new DropDirectoryWatcher(inventoryService, productService, executor, workers, meterRegistry);
+        ReflectionTestUtils.setField(watcher, "settleTime", Duration.ZERO);
+        return watcher;
+    }
+
+    private static List<String> names(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    @Test
+    void scan_ingestsSettledFilesAndArchivesThem() throws Exception {
+        DropDirectoryWatcher watcher = watcher(new SyncTaskExecutor(), 2);
+        DropDirectory directory = watcher.register(FileType.INVENTORY, tempDir.resolve("inventory"));
+        Files.writeString(directory.incoming().resolve("site-1.json"), INVENTORY);
+        Files.writeString(directory.incoming().resolve("site-2.ndjson"), "{\"art_id\":\"1\",\"name\":\"leg\",\"stock\":\"5\"}\n");
+
+        assertFalse(watcher.scan(directory));
+
+        verify(inventoryService).ingest(any(), eq(RecordFormat.JSON), eq(Compression.NONE), any(), any());
+        verify(inventoryService).ingest(any(), eq(RecordFormat.NDJSON), eq(Compression.NONE), any(), any());
+        verifyNoInteractions(productService);
+        List<String> archived = names(directory.archive());
+        assertEquals(2, archived.size());
+        assertTrue(archived.get(0).endsWith("-site-1.json"));
+        assertTrue(archived.get(1).endsWith("-site-2.ndjson"));
+        assertEquals(List.of(), names(directory.processing()));
+        assertEquals(2.0, meterRegistry.get("ingestion.drop.files").tag("outcome", "archived").counter().count());
+    }
+
+    @Test
+    void scan_movesFailedFilesToTheErrorDirectoryWithTheReason() throws Exception {
+        doThrow(new FileProcessingException("Unexpected end of input", "FILE_PROCESSING_ERROR"))
+                .when(productService).ingest(any(), any(), any(), any(), any());
+        DropDirectoryWatcher watcher = watcher(new SyncTaskExecutor(), 2);
+        DropDirectory directory = watcher.register(FileType.PRODUCTS, tempDir.resolve("products"));
+        Files.writeString(directory.incoming().resolve("broken.json"), "{");
+
+        watcher.scan(directory);
+
+        List<String> failed = names(directory.error());
+        assertEquals(2, failed.size());
+        assertTrue(failed.get(0).endsWith("-broken.json"));
+        assertEquals("Unexpected end of input", Files.readString(directory.error().resolve(failed.get(1)), StandardCharsets.UTF_8));
+        assertEquals(List.of(), names(directory.archive()));
+        assertEquals(1.0, meterRegistry.get("ingestion.drop.files").tag("outcome", "failed").counter().count());
+    }
+
+    @Test
+    void scan_leavesPartialHiddenAndUnsettledFilesAlone() throws Exception {
+        DropDirectoryWatcher watcher = watcher(new SyncTaskExecutor(), 2);
+        ReflectionTestUtils.setField(watcher, "settleTime", Duration.ofMinutes(1));
+        DropDirectory directory = watcher.register(FileType.INVENTORY, tempDir.resolve("inventory"));
+        Files.writeString(directory.incoming().resolve("upload.json.part"), INVENTORY);
+        Files.writeString(directory.incoming().resolve(".upload.json"), INVENTORY);
+        Path settled = Files.writeString(directory.incoming().resolve("settled.json"), INVENTORY);
+        Files.setLastModifiedTime(settled, FileTime.from(Instant.now().minus(Duration.ofMinutes(2))));
+        Files.writeString(directory.incoming().resolve("writing.json"), INVENTORY);
+
+        assertTrue(watcher.scan(directory));
+
+        verify(inventoryService).ingest(any(), eq(RecordFormat.JSON), eq(Compression.NONE), any(), any());
+        assertEquals(1, names(directory.archive()).size());
+        assertTrue(names(directory.incoming()).containsAll(List.of(".upload.json", "upload.json.part", "writing.json")));
+    }
+
+    @Test
+    void scan_claimsNoMoreFilesThanThereAreFreeWorkers() throws Exception {
+        List<Runnable> submitted = new ArrayList<>();
+        DropDirectoryWatcher watcher = watcher(submitted::add, 1);
+        DropDirectory directory = watcher.register(FileType.INVENTORY, tempDir.resolve("inventory"));
+        Files.writeString(directory.incoming().resolve("a.json"), INVENTORY);
+        Files.writeString(directory.incoming().resolve("b.json"), INVENTORY);
+
+        assertTrue(watcher.scan(directory));
+        assertEquals(1, submitted.size());
+        assertEquals(1, names(directory.processing()).size());
+
+        submitted.get(0).run();
+        assertFalse(watcher.scan(directory));
+        assertEquals(2, submitted.size());
+        submitted.get(1).run();
+
+        assertEquals(2, names(directory.archive()).size());
+    }
+
+    @Test
+    void scan_whenAFileCannotBeClaimed_shouldSkipItAndFreeTheWorker() throws Exception {
+        DropDirectoryWatcher watcher = watcher(new SyncTaskExecutor(), 1);
+        DropDirectory directory = watcher.register(FileType.INVENTORY, tempDir.resolve("inventory"));
+        Files.delete(directory.processing());
+        Files.writeString(directory.processing(), "not a directory");
+        Files.writeString(directory.incoming().resolve("a.json"), INVENTORY);
+
+        assertFalse(watcher.scan(directory));
+        assertTrue(Files.exists(directory.incoming().resolve("a.json")));
+
+        Files.delete(directory.processing());
+        Files.createDirectory(directory.processing());
+        assertFalse(watcher.scan(directory));
+
+        assertEquals(1, names(directory.archive()).size());
+    }
+
+    @Test
+    void register_requeuesFilesLeftClaimedByAPreviousRun() throws Exception {
+        DropDirectoryWatcher watcher = watcher(new SyncTaskExecutor(), 2);
+        Path incoming = tempDir.resolve("inventory");
+        Path processing = incoming.resolve(DropDirectory.PROCESSING_DIR).resolve("local");
+        Files.createDirectories(processing);
+        Files.writeString(processing.resolve("20250101T000000000-site-1.json"), INVENTORY);
+
+        DropDirectory directory = watcher.register(FileType.INVENTORY, incoming);
+
+        assertEquals(List.of(), names(directory.processing()));
+        assertTrue(Files.exists(incoming.resolve("site-1.json")));
+    }
+
+    @Test
+    void register_whenAFileOfTheSameNameWasDroppedMeanwhile_shouldKeepBoth() throws Exception {
+        DropDirectoryWatcher watcher = watcher(new SyncTaskExecutor(), 2);
+        Path incoming = tempDir.resolve("inventory");
+        Path processing = incoming.resolve(DropDirectory.PROCESSING_DIR).resolve("local");
+        Files.createDirectories(processing);
+        Files.writeString(processing.resolve("20250101T000000000-site-1.json"), INVENTORY);
+        Files.writeString(incoming.resolve("site-1.json"), "newer");
+
+        watcher.register(FileType.INVENTORY, incoming);
+
+        assertEquals("newer", Files.readString(incoming.resolve("site-1.json")));
+        assertEquals(INVENTORY, Files.readString(incoming.resolve("20250101T000000000-site-1.json")));
+    }
+
+    @Test
+    void formatOf_followsTheFileExtension() {
+        assertEquals(RecordFormat.JSON, DropDirectoryWatcher.formatOf("inventory.json"));
+        assertEquals(RecordFormat.JSON, DropDirectoryWatcher.formatOf("inventory.json.gz"));
+        assertEquals(RecordFormat.NDJSON, DropDirectoryWatcher.formatOf("inventory.ndjson"));
+        assertEquals(RecordFormat.NDJSON, DropDirectoryWatcher.formatOf("INVENTORY.JSONL.ZST"));
+    }
+}
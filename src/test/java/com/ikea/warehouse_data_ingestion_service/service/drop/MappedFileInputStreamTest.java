@@ -0,0 +1,63 @@
+package com.ikea.warehouse_data_ingestion_service.service.drop;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedFileInputStreamTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path file(String content) throws IOException {
+        return Files.writeString(tempDir.resolve("file.json"), content);
+    }
+
+    @Test
+    void readsTheWholeFileAcrossRegionBoundaries() throws IOException {
+        String content = "{\"inventory\":[{\"art_id\":\"1\",\"name\":\"leg\",\"stock\":\"5\"}]}";
+
+        try (InputStream inputStream = new MappedFileInputStream(file(content), 7)) {
+            assertEquals(content, new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+            assertEquals(-1, inputStream.read());
+        }
+    }
+
+    @Test
+    void singleByteReadsSkipAndAvailableTrackThePosition() throws IOException {
+        try (InputStream inputStream = new MappedFileInputStream(file("abcdefghij"), 3)) {
+            assertEquals(10, inputStream.available());
+            assertEquals('a', inputStream.read());
+            assertEquals(5, inputStream.skip(5));
+            assertEquals(4, inputStream.available());
+            assertEquals('g', inputStream.read());
+            byte[] rest = new byte[10];
+            assertEquals(2, inputStream.read(rest, 0, 10));
+            assertEquals(1, inputStream.read(rest, 2, 8));
+            assertEquals("hij", new String(rest, 0, 3, StandardCharsets.US_ASCII));
+            assertEquals(0, inputStream.skip(1));
+            assertEquals(-1, inputStream.read(rest, 0, 10));
+        }
+    }
+
+    @Test
+    void emptyFileIsImmediatelyExhausted() throws IOException {
+        try (InputStream inputStream = new MappedFileInputStream(file(""), 1024)) {
+            assertEquals(0, inputStream.available());
+            assertEquals(-1, inputStream.read());
+        }
+    }
+
+    @Test
+    void rejectsRegionsThatCannotBeMapped() {
+        assertThrows(IllegalArgumentException.class, () -> new MappedFileInputStream(file("x"), 0));
+        assertThrows(IllegalArgumentException.class, () -> new MappedFileInputStream(file("x"), Integer.MAX_VALUE + 1L));
+    }
+}
@@ -0,0 +1,100 @@
+package com.ikea.warehouse_data_ingestion_service.service.index;
+
+import com.ikea.warehouse_data_ingestion_service.data.event.ArticleProductsEvent;
+import com.ikea.warehouse_data_ingestion_service.exception.KafkaProduceFailedException;
+import com.ikea.warehouse_data_ingestion_service.service.BatchSendResult;
+import com.ikea.warehouse_data_ingestion_service.service.KafkaProducerService;
+import com.ikea.warehouse_data_ingestion_service.service.producer.ProducerProfile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ArticleIndexPublisherTest {
+
+    private static final Instant FILE_CREATED_AT = Instant.parse("2025-01-01T00:00:00Z");
+
+    private KafkaProducerService kafkaProducerService;
+    private ArticleIndexPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        kafkaProducerService = mock(KafkaProducerService.class);
+        publisher = new ArticleIndexPublisher(kafkaProducerService);
+        ReflectionTestUtils.setField(publisher, "topic", "article-topic");
+        ReflectionTestUtils.setField(publisher, "chunkSize", 2);
+        when(kafkaProducerService.sendBatch(eq("article-topic"), anyMap(), eq(ProducerProfile.BULK)))
+                .thenAnswer(invocation -> {
+                    int size = invocation.<Map<?, ?>>getArgument(1).size();
+                    return new BatchSendResult("article-topic", size, size, List.of());
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, ArticleProductsEvent> sent(int invocations) {
+        ArgumentCaptor<Map<String, ArticleProductsEvent>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(kafkaProducerService, times(invocations)).sendBatch(eq("article-topic"), captor.capture(), any());
+        return captor.getValue();
+    }
+
+    @Test
+    void splitsArticlesIntoChunksKeyedByArticleAndChunk() {
+        ArticleProductIndex index = ArticleProductIndex.builder()
+                .product("table").article("1")
+                .product("chair").article("1")
+                .product("stool").article("1").article("2")
+                .build();
+
+        assertEquals(3, publisher.publish(index, FILE_CREATED_AT));
+
+        Map<String, ArticleProductsEvent> records = sent(1);
+        assertEquals(new ArticleProductsEvent("1", 0, 2, List.of("table", "chair"), FILE_CREATED_AT), records.get("1/0"));
+        assertEquals(new ArticleProductsEvent("1", 1, 2, List.of("stool"), FILE_CREATED_AT), records.get("1/1"));
+        assertEquals(new ArticleProductsEvent("2", 0, 1, List.of("stool"), FILE_CREATED_AT), records.get("2/0"));
+    }
+
+    @Test
+    void deletesChunksMissingFromTheNextSnapshotWithTombstones() {
+        publisher.publish(ArticleProductIndex.builder()
+                .product("table").article("1").article("2")
+                .product("chair").article("1")
+                .product("stool").article("1")
+                .build(), FILE_CREATED_AT);
+
+        publisher.publish(ArticleProductIndex.builder()
+                .product("table").article("1")
+                .build(), FILE_CREATED_AT);
+
+        Map<String, ArticleProductsEvent> records = sent(2);
+        assertEquals(List.of("table"), records.get("1/0").products());
+        assertTrue(records.containsKey("1/1"));
+        assertNull(records.get("1/1"));
+        assertTrue(records.containsKey("2/0"));
+        assertNull(records.get("2/0"));
+    }
+
+    @Test
+    void failsWhenChunksAreNotAcknowledged() {
+        when(kafkaProducerService.sendBatch(eq("article-topic"), anyMap(), eq(ProducerProfile.BULK)))
+                .thenReturn(new BatchSendResult("article-topic", 1, 0, List.of("1/0")));
+
+        assertThrows(KafkaProduceFailedException.class,
+                () -> publisher.publish(ArticleProductIndex.builder().product("table").article("1").build(), FILE_CREATED_AT));
+    }
+}
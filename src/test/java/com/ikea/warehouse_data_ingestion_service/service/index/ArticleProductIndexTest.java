@@ -0,0 +1,82 @@
+package com.ikea.warehouse_data_ingestion_service.service.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ArticleProductIndexTest {
+
+    private static Map<String, List<String>> asMap(ArticleProductIndex index) {
+        Map<String, List<String>> map = new HashMap<>();
+        for (int article = 0; article < index.articleCount(); article++) {
+            map.put(index.article(article), index.products(article, 0, index.productCount(article)));
+        }
+        return map;
+    }
+
+    @Test
+    void mapsEveryArticleToTheProductsContainingIt() {
+        ArticleProductIndex index = ArticleProductIndex.builder()
+                .product("table").article("1").article("2").article("3")
+                .product("chair").article("1").article("4")
+                .product("stool").article("4")
+                .build();
+
+        assertEquals(Map.of(
+                "1", List.of("table", "chair"),
+                "2", List.of("table"),
+                "3", List.of("table"),
+                "4", List.of("chair", "stool")), asMap(index));
+    }
+
+    @Test
+    void countsAnArticleListedTwiceInAProductOnce() {
+        ArticleProductIndex index = ArticleProductIndex.builder()
+                .product("table").article("1").article("1")
+                .build();
+
+        assertEquals(Map.of("1", List.of("table")), asMap(index));
+    }
+
+    @Test
+    void productAddedAgainReplacesItsEarlierArticles() {
+        ArticleProductIndex index = ArticleProductIndex.builder()
+                .product("table").article("1").article("2")
+                .product("chair").article("2")
+                .product("table").article("3")
+                .build();
+
+        assertEquals(Map.of(
+                "1", List.of(),
+                "2", List.of("chair"),
+                "3", List.of("table")), asMap(index));
+    }
+
+    @Test
+    void ignoresNullNamesAndIds() {
+        ArticleProductIndex index = ArticleProductIndex.builder()
+                .product(null).article("1")
+                .product("table").article(null).article("2")
+                .build();
+
+        assertEquals(Map.of("2", List.of("table")), asMap(index));
+    }
+
+    @Test
+    void growsPastInitialCapacity() {
+        ArticleProductIndex.Builder builder = ArticleProductIndex.builder();
+        for (int product = 0; product < 10_000; product++) {
+            builder.product("p" + product).article("a" + product % 100).article("shared");
+        }
+        ArticleProductIndex index = builder.build();
+
+        Map<String, List<String>> map = asMap(index);
+        assertEquals(101, map.size());
+        assertEquals(10_000, map.get("shared").size());
+        assertEquals(100, map.get("a7").size());
+    }
+}
@@ -0,0 +1,127 @@
+package com.ikea.warehouse_data_ingestion_service.service.job;
+
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
+import com.ikea.warehouse_data_ingestion_service.exception.FileProcessingException;
+import com.ikea.warehouse_data_ingestion_service.service.dedup.UploadDeduplicator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngestionJobServiceTest {
+
+    @TempDir
+    Path spoolDir;
+
+    private UploadDeduplicator uploadDeduplicator;
+    private IngestionJobService service;
+
+    @BeforeEach
+    void setUp() {
+        uploadDeduplicator = new UploadDeduplicator(new SimpleMeterRegistry());
+        service = new IngestionJobService(Runnable::run, uploadDeduplicator);
+        ReflectionTestUtils.setField(service, "spoolDir", spoolDir.toString());
+        ReflectionTestUtils.setField(service, "maxRetainedJobs", 2);
+    }
+
+    private static MockMultipartFile file(String content) {
+        return new MockMultipartFile("file", "inventory.json", "application/json", content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void submit_runsTaskAgainstSpooledCopyAndTracksProgress() throws Exception {
+        IngestionJob job = service.submit(FileType.INVENTORY, file("{\"inventory\":[]}"), (inputStream, progress) -> {
+            assertEquals("{\"inventory\":[]}", new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+            progress.recordParsed();
+            progress.recordSent();
+            progress.recordAcked();
+        });
+
+        assertEquals(IngestionJobStatus.SUCCEEDED, job.getStatus());
+        assertEquals(1, job.toResponse().acked());
+        assertSame(job, service.find(job.getId()).orElseThrow());
+        try (var files = Files.list(spoolDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void submit_whenTaskFails_marksJobFailed() throws Exception {
+        IngestionJob job = service.submit(FileType.PRODUCTS, file("{}"), (inputStream, progress) -> {
+            throw new IOException("boom");
+        });
+
+        assertEquals(IngestionJobStatus.FAILED, job.getStatus());
+        assertEquals("boom", job.getError());
+        assertNotNull(job.getFinishedAt());
+    }
+
+    @Test
+    void submit_evictsOldestFinishedJobsBeyondRetentionLimit() throws Exception {
+        IngestionJob first = service.submit(FileType.INVENTORY, file("{\"inventory\":[1]}"), (inputStream, progress) -> {});
+        IngestionJob second = service.submit(FileType.INVENTORY, file("{\"inventory\":[2]}"), (inputStream, progress) -> {});
+        IngestionJob third = service.submit(FileType.INVENTORY, file("{\"inventory\":[3]}"), (inputStream, progress) -> {});
+
+        assertTrue(service.find(first.getId()).isEmpty());
+        assertTrue(service.find(second.getId()).isPresent());
+        assertTrue(service.find(third.getId()).isPresent());
+    }
+
+    @Test
+    void submit_whenExecutorRejects_shouldCleanUpAndRethrow() throws Exception {
+        IngestionJobService rejecting = new IngestionJobService(command -> {
+            throw new RejectedExecutionException("full");
+        }, new UploadDeduplicator(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(rejecting, "spoolDir", spoolDir.toString());
+
+        assertThrows(RejectedExecutionException.class,
+                () -> rejecting.submit(FileType.INVENTORY, file("{}"), (inputStream, progress) -> {}));
+        try (var files = Files.list(spoolDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void submit_whenFileEmpty_shouldThrow() {
+        assertThrows(FileProcessingException.class, () -> service.submit(FileType.INVENTORY, null, (inputStream, progress) -> {}));
+    }
+
+    @Test
+    void submit_whenContentMatchesRecentSuccessfulUpload_skipsJob() throws Exception {
+        ReflectionTestUtils.setField(uploadDeduplicator, "enabled", true);
+        AtomicInteger runs = new AtomicInteger();
+        IngestionJob first = service.submit(FileType.INVENTORY, file("{\"inventory\":[]}"), (inputStream, progress) -> runs.incrementAndGet());
+        IngestionJob duplicate = service.submit(FileType.INVENTORY, file("{\"inventory\":[]}"), (inputStream, progress) -> runs.incrementAndGet());
+        IngestionJob otherType = service.submit(FileType.PRODUCTS, file("{\"inventory\":[]}"), (inputStream, progress) -> runs.incrementAndGet());
+
+        assertEquals(IngestionJobStatus.SUCCEEDED, first.getStatus());
+        assertEquals(IngestionJobStatus.SKIPPED, duplicate.getStatus());
+        assertTrue(duplicate.getError().contains("Duplicate"));
+        assertEquals(IngestionJobStatus.SUCCEEDED, otherType.getStatus());
+        assertEquals(2, runs.get());
+        try (var files = Files.list(spoolDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void submit_afterFailedUpload_doesNotSkipRetry() throws Exception {
+        service.submit(FileType.INVENTORY, file("{}"), (inputStream, progress) -> {
+            throw new IOException("boom");
+        });
+        IngestionJob retry = service.submit(FileType.INVENTORY, file("{}"), (inputStream, progress) -> {});
+
+        assertEquals(IngestionJobStatus.SUCCEEDED, retry.getStatus());
+    }
+}
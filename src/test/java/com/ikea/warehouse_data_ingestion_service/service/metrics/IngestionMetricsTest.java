@@ -0,0 +1,129 @@
+package com.ikea.warehouse_data_ingestion_service.service.metrics;
+
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.Compression;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionProgress;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionStage;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.TimedInputStream;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IngestionMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private IngestionMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new IngestionMetrics(meterRegistry);
+    }
+
+    @Test
+    void finishedRecordsStageTimesCountersAndRecordsPerFile() {
+        IngestionProgress progress = new IngestionProgress();
+        metrics.started(FileType.INVENTORY, progress);
+        for (int i = 0; i < 3; i++) {
+            progress.recordParsed();
+        }
+        progress.addSent(3);
+        progress.addAcked(2);
+        progress.addFailed(1);
+        progress.addBytesRead(512);
+        progress.addStageNanos(IngestionStage.MAP, TimeUnit.MILLISECONDS.toNanos(5));
+        progress.addStageNanos(IngestionStage.ACK, TimeUnit.MILLISECONDS.toNanos(20));
+
+        metrics.finished(FileType.INVENTORY, "inventory-topic", progress);
+
+        Timer ack = meterRegistry.get("ingestion.stage").tag("file_type", "inventory").tag("stage", "ack").timer();
+        assertEquals(1, ack.count());
+        assertEquals(20.0, ack.totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(5.0, meterRegistry.get("ingestion.stage").tag("file_type", "inventory").tag("stage", "map").timer()
+                .totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(0, meterRegistry.get("ingestion.stage").tag("file_type", "products").tag("stage", "ack").timer().count());
+        assertEquals(2.0, meterRegistry.get("ingestion.records").tag("topic", "inventory-topic").counter().count());
+        assertEquals(512.0, meterRegistry.get("ingestion.bytes").tag("file_type", "inventory").counter().count());
+        assertEquals(3.0, meterRegistry.get("ingestion.file.records").tag("file_type", "inventory").summary().totalAmount());
+    }
+
+    @Test
+    void finishedCountsCompressedAndUncompressedBytesByCompression() {
+        IngestionProgress gzip = new IngestionProgress();
+        gzip.useCompression(Compression.GZIP);
+        gzip.addCompressedBytesRead(100);
+        gzip.addBytesRead(1_000);
+        IngestionProgress plain = new IngestionProgress();
+        plain.addBytesRead(300);
+
+        metrics.finished(FileType.PRODUCTS, "product-topic", gzip);
+        metrics.finished(FileType.PRODUCTS, "product-topic", plain);
+
+        assertEquals(1_000.0, meterRegistry.get("ingestion.bytes").tag("compression", "gzip").counter().count());
+        assertEquals(100.0, meterRegistry.get("ingestion.bytes.compressed").tag("compression", "gzip").counter().count());
+        assertEquals(300.0, meterRegistry.get("ingestion.bytes").tag("compression", "none").counter().count());
+        assertEquals(1, meterRegistry.find("ingestion.bytes.compressed").counters().size());
+    }
+
+    @Test
+    void inFlightGaugeFollowsActiveUploadsOnly() {
+        IngestionProgress first = new IngestionProgress();
+        IngestionProgress second = new IngestionProgress();
+        metrics.started(FileType.PRODUCTS, first);
+        metrics.started(FileType.PRODUCTS, second);
+        first.addSent(10);
+        first.addAcked(4);
+        second.addSent(5);
+        second.addFailed(5);
+
+        assertEquals(6.0, inFlight(FileType.PRODUCTS));
+        assertEquals(0.0, inFlight(FileType.INVENTORY));
+
+        metrics.finished(FileType.PRODUCTS, "product-topic", first);
+
+        assertEquals(0.0, inFlight(FileType.PRODUCTS));
+    }
+
+    @Test
+    void parseTimeExcludesTimeSpentReadingTheUpload() throws IOException {
+        IngestionProgress progress = new IngestionProgress();
+        InputStream slow = new ByteArrayInputStream(new byte[64]) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                sleepMillis(30);
+                return super.read(b, off, len);
+            }
+        };
+
+        long parseStarted = progress.parseStarted();
+        try (InputStream in = new TimedInputStream(slow, progress)) {
+            assertEquals(64, in.readAllBytes().length);
+        }
+        progress.parseFinished(parseStarted);
+
+        assertEquals(64, progress.bytesRead());
+        assertTrue(progress.stageNanos(IngestionStage.READ) >= TimeUnit.MILLISECONDS.toNanos(30));
+        assertTrue(progress.stageNanos(IngestionStage.PARSE) < TimeUnit.MILLISECONDS.toNanos(30));
+    }
+
+    private double inFlight(FileType fileType) {
+        return meterRegistry.get("ingestion.sends.in.flight").tag("file_type", fileType.name().toLowerCase()).gauge().value();
+    }
+
+    private static void sleepMillis(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
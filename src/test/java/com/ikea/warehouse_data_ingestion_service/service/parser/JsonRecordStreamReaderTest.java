@@ -0,0 +1,85 @@
+package com.ikea.warehouse_data_ingestion_service.service.parser;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ikea.warehouse_data_ingestion_service.data.dto.InventoryItem;
+import com.ikea.warehouse_data_ingestion_service.data.dto.Product;
+import com.ikea.warehouse_data_ingestion_service.exception.FileProcessingException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonRecordStreamReaderTest {
+
+    private final JsonRecordStreamReader reader = new JsonRecordStreamReader(new ObjectMapper());
+
+    private static ByteArrayInputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void readArray_emitsEachInventoryItem() throws Exception {
+        String json = "{\"inventory\":[{\"art_id\":\"1\",\"name\":\"leg\",\"stock\":\"5\"},{\"art_id\":\"2\",\"name\":\"screw\",\"stock\":10}]}";
+        List<InventoryItem> items = new ArrayList<>();
+
+        long count = reader.readArray(stream(json), "inventory", InventoryItem.class, items::add);
+
+        assertEquals(2, count);
+        assertEquals(new InventoryItem("1", "leg", "5"), items.get(0));
+        assertEquals(new InventoryItem("2", "screw", "10"), items.get(1));
+    }
+
+    @Test
+    void readArray_skipsUnrelatedFields() throws Exception {
+        String json = "{\"meta\":{\"source\":\"wh-1\",\"tags\":[1,2]},\"products\":[{\"name\":\"table\",\"contain_articles\":[{\"art_id\":\"1\",\"amount_of\":\"4\"}]}],\"trailer\":true}";
+        List<Product> products = new ArrayList<>();
+
+        long count = reader.readArray(stream(json), "products", Product.class, products::add);
+
+        assertEquals(1, count);
+        assertEquals("table", products.get(0).name());
+        assertEquals("4", products.get(0).containArticles().get(0).amountOf());
+    }
+
+    @Test
+    void readArray_whenFieldIsNotArray_shouldThrow() {
+        assertThrows(FileProcessingException.class,
+                () -> reader.readArray(stream("{\"inventory\":{}}"), "inventory", InventoryItem.class, item -> {}));
+    }
+
+    @Test
+    void readArray_whenRootIsNotObject_shouldThrow() {
+        assertThrows(FileProcessingException.class,
+                () -> reader.readArray(stream("[]"), "inventory", InventoryItem.class, item -> {}));
+    }
+
+    @Test
+    void readLines_emitsOneRecordPerLineAndIgnoresBlankLines() throws Exception {
+        String ndjson = "{\"art_id\":\"1\",\"name\":\"leg\",\"stock\":\"5\"}\n\n{\"art_id\":\"2\",\"name\":\"screw\",\"stock\":10}\n";
+        List<InventoryItem> items = new ArrayList<>();
+
+        long count = reader.read(stream(ndjson), RecordFormat.NDJSON, "inventory", InventoryItem.class, items::add);
+
+        assertEquals(2, count);
+        assertEquals(List.of(new InventoryItem("1", "leg", "5"), new InventoryItem("2", "screw", "10")), items);
+    }
+
+    @Test
+    void readLines_whenLineIsNotJson_shouldThrow() {
+        assertThrows(IOException.class,
+                () -> reader.readLines(stream("{\"art_id\":\"1\"}\nnot json\n"), InventoryItem.class, item -> {}));
+    }
+
+    @Test
+    void recordFormat_followsTheContentType() {
+        assertEquals(RecordFormat.NDJSON, RecordFormat.of(MediaType.APPLICATION_NDJSON));
+        assertEquals(RecordFormat.JSON, RecordFormat.of(MediaType.APPLICATION_JSON));
+        assertEquals(RecordFormat.JSON, RecordFormat.of(null));
+    }
+}
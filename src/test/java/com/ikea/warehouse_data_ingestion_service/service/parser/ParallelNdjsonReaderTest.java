@@ -0,0 +1,141 @@
+package com.ikea.warehouse_data_ingestion_service.service.parser;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ikea.warehouse_data_ingestion_service.data.dto.InventoryItem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelNdjsonReaderTest {
+
+    private ForkJoinPool pool;
+    private ParallelNdjsonReader reader;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(4);
+        reader = new ParallelNdjsonReader(new ObjectMapper(), pool);
+        ReflectionTestUtils.setField(reader, "chunkSize", DataSize.ofBytes(256));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    private static ByteArrayInputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void read_emitsRecordsOfManyChunksInInputOrder() throws Exception {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            // keys repeat every 7 records, stock numbers the updates of one key
+            ndjson.append("{\"art_id\":\"").append(i % 7).append("\",\"name\":\"n\",\"stock\":\"").append(i).append("\"}\n");
+        }
+        List<InventoryItem> items = new ArrayList<>();
+
+        long count = reader.read(stream(ndjson.toString()), InventoryItem.class, items::add);
+
+        assertEquals(2000, count);
+        for (int i = 0; i < items.size(); i++) {
+            assertEquals(String.valueOf(i % 7), items.get(i).artId());
+            assertEquals(String.valueOf(i), items.get(i).stock());
+        }
+    }
+
+    @Test
+    void read_ignoresBlankLinesAndMissingFinalNewline() throws Exception {
+        String ndjson = "\n{\"art_id\":\"1\",\"name\":\"leg\",\"stock\":\"5\"}\n\n  \n{\"art_id\":\"2\",\"name\":\"screw\",\"stock\":10}";
+        List<InventoryItem> items = new ArrayList<>();
+
+        long count = reader.read(stream(ndjson), InventoryItem.class, items::add);
+
+        assertEquals(2, count);
+        assertEquals(new InventoryItem("1", "leg", "5"), items.get(0));
+        assertEquals(new InventoryItem("2", "screw", "10"), items.get(1));
+    }
+
+    @Test
+    void read_whenLineIsMalformed_shouldThrowParseError() {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            ndjson.append("{\"art_id\":\"").append(i).append("\",\"name\":\"n\",\"stock\":\"1\"}\n");
+        }
+        ndjson.append("{\"art_id\":\"broken\"\n");
+        List<InventoryItem> items = new ArrayList<>();
+
+        assertThrows(JsonProcessingException.class, () -> reader.read(stream(ndjson.toString()), InventoryItem.class, items::add));
+    }
+
+    @Test
+    void read_handsOverTheFirstRecordsBeforeTheRestOfASlowBodyArrives() throws Exception {
+        ReflectionTestUtils.setField(reader, "chunkSize", DataSize.ofMegabytes(1));
+        PipedOutputStream client = new PipedOutputStream();
+        PipedInputStream body = new PipedInputStream(client, 64 * 1024);
+        CountDownLatch firstRecord = new CountDownLatch(1);
+        Thread sender = Thread.ofPlatform().start(() -> {
+            try (client) {
+                client.write("{\"art_id\":\"1\",\"name\":\"leg\",\"stock\":\"5\"}\n".getBytes(StandardCharsets.UTF_8));
+                client.flush();
+                // the rest of the body only follows once the first record was handed over
+                if (firstRecord.await(5, TimeUnit.SECONDS)) {
+                    client.write("{\"art_id\":\"2\",\"name\":\"screw\",\"stock\":\"10\"}\n".getBytes(StandardCharsets.UTF_8));
+                }
+            } catch (IOException | InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        List<InventoryItem> items = new ArrayList<>();
+
+        long count = reader.read(body, InventoryItem.class, item -> {
+            items.add(item);
+            firstRecord.countDown();
+        });
+        sender.join();
+
+        assertEquals(2, count);
+        assertEquals("2", items.get(1).artId());
+    }
+
+    @Test
+    void chunkSplitter_cutsAtNewlinesAndGrowsForLongLines() throws IOException {
+        String longLine = "x".repeat(50);
+        String text = "aaaa\nbb\n" + longLine + "\ncc\ndd";
+        ParallelNdjsonReader.ChunkSplitter splitter = new ParallelNdjsonReader.ChunkSplitter(stream(text), 10);
+
+        ByteArrayOutputStream joined = new ByteArrayOutputStream();
+        List<String> chunks = new ArrayList<>();
+        byte[] chunk;
+        while ((chunk = splitter.next()) != null) {
+            chunks.add(new String(chunk, StandardCharsets.UTF_8));
+            joined.writeBytes(chunk);
+        }
+
+        assertEquals(text, joined.toString(StandardCharsets.UTF_8));
+        assertEquals("aaaa\nbb\n", chunks.get(0));
+        assertTrue(chunks.get(1).startsWith(longLine + "\n"));
+        assertEquals("dd", chunks.get(chunks.size() - 1));
+        for (int i = 0; i < chunks.size() - 1; i++) {
+            assertTrue(chunks.get(i).endsWith("\n"));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.ikea.warehouse_data_ingestion_service.service.parser;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.ikea.warehouse_data_ingestion_service.data.dto.ArticleAmountV2;
+import com.ikea.warehouse_data_ingestion_service.data.dto.InventoryItemV2;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantityDeserializerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private InventoryItemV2 inventoryItem(String stock) throws Exception {
+        String json = "{\"art_id\":\"1\",\"name\":\"leg\",\"stock\":" + stock + "}";
+        // byte input exercises the UTF-8 stream parser used for uploads
+        return objectMapper.readValue(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), InventoryItemV2.class);
+    }
+
+    @Test
+    void readsNumbersAndQuotedNumbers() throws Exception {
+        assertEquals(new InventoryItemV2("1", "leg", 12), inventoryItem("12"));
+        assertEquals(new InventoryItemV2("1", "leg", 12), inventoryItem("\"12\""));
+        assertEquals(Long.MAX_VALUE, inventoryItem("\"9223372036854775807\"").stock());
+        assertEquals(0, inventoryItem("\"0\"").stock());
+    }
+
+    @Test
+    void rejectsMalformedStock() {
+        for (String stock : List.of("\"\"", "\" 12\"", "\"12a\"", "\"-1\"", "-1", "1.5", "\"1.5\"", "true", "null",
+                "\"9223372036854775808\"", "9223372036854775808")) {
+            assertThrows(MismatchedInputException.class, () -> inventoryItem(stock), stock);
+        }
+    }
+
+    @Test
+    void rejectsMissingStock() {
+        assertThrows(MismatchedInputException.class,
+                () -> objectMapper.readValue("{\"art_id\":\"1\",\"name\":\"leg\"}", InventoryItemV2.class));
+    }
+
+    @Test
+    void amountOfMustFitAnInt() throws Exception {
+        assertEquals(new ArticleAmountV2("1", 4), objectMapper.readValue("{\"art_id\":\"1\",\"amount_of\":\"4\"}", ArticleAmountV2.class));
+        MismatchedInputException ex = assertThrows(MismatchedInputException.class,
+                () -> objectMapper.readValue("{\"art_id\":\"1\",\"amount_of\":\"2147483648\"}", ArticleAmountV2.class));
+        assertTrue(ex.getMessage().contains("amount_of"));
+    }
+}
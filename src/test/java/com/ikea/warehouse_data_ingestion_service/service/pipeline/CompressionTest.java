@@ -0,0 +1,90 @@
+package com.ikea.warehouse_data_ingestion_service.service.pipeline;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import com.ikea.warehouse_data_ingestion_service.exception.FileProcessingException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressionTest {
+
+    private static final String JSON = "{\"inventory\":[" + "{\"art_id\":\"1\",\"name\":\"leg\",\"stock\":\"5\"},".repeat(1000)
+            + "{\"art_id\":\"2\",\"name\":\"screw\",\"stock\":\"10\"}]}";
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] zstd(String text) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream zstd = new ZstdOutputStream(out)) {
+            zstd.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    private static String decode(byte[] payload, Compression declared, IngestionProgress progress) throws IOException {
+        try (InputStream decoded = Compression.decode(new ByteArrayInputStream(payload), declared, progress)) {
+            return new String(decoded.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    void decode_detectsGzipByMagicBytesAndCountsCompressedBytes() throws IOException {
+        byte[] payload = gzip(JSON);
+        IngestionProgress progress = new IngestionProgress(payload.length);
+
+        assertEquals(JSON, decode(payload, Compression.NONE, progress));
+        assertEquals(Compression.GZIP, progress.compression());
+        assertEquals(payload.length, progress.compressedBytesRead());
+        assertTrue(payload.length < JSON.length() / 10);
+    }
+
+    @Test
+    void decode_detectsZstdByMagicBytes() throws IOException {
+        byte[] payload = zstd(JSON);
+        IngestionProgress progress = new IngestionProgress();
+
+        assertEquals(JSON, decode(payload, Compression.NONE, progress));
+        assertEquals(Compression.ZSTD, progress.compression());
+        assertEquals(payload.length, progress.compressedBytesRead());
+    }
+
+    @Test
+    void decode_passesUncompressedPayloadsThrough() throws IOException {
+        IngestionProgress progress = new IngestionProgress();
+
+        assertEquals(JSON, decode(JSON.getBytes(StandardCharsets.UTF_8), Compression.NONE, progress));
+        assertEquals("{}", decode("{}".getBytes(StandardCharsets.UTF_8), Compression.NONE, progress));
+        assertEquals("", decode(new byte[0], Compression.NONE, progress));
+        assertEquals(Compression.NONE, progress.compression());
+        assertEquals(0, progress.compressedBytesRead());
+    }
+
+    @Test
+    void decode_whenDeclaredCompressionDoesNotMatchPayload_shouldThrow() {
+        assertThrows(IOException.class, () -> decode(JSON.getBytes(StandardCharsets.UTF_8), Compression.GZIP, new IngestionProgress()));
+    }
+
+    @Test
+    void fromContentEncoding_mapsSupportedCodingsAndRejectsOthers() {
+        assertEquals(Compression.NONE, Compression.fromContentEncoding(null));
+        assertEquals(Compression.NONE, Compression.fromContentEncoding("identity"));
+        assertEquals(Compression.GZIP, Compression.fromContentEncoding("gzip"));
+        assertEquals(Compression.GZIP, Compression.fromContentEncoding(" X-GZIP "));
+        assertEquals(Compression.ZSTD, Compression.fromContentEncoding("zstd"));
+        assertThrows(FileProcessingException.class, () -> Compression.fromContentEncoding("br"));
+    }
+}
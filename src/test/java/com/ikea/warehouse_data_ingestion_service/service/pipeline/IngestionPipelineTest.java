@@ -0,0 +1,156 @@
+package com.ikea.warehouse_data_ingestion_service.service.pipeline;
+
+import com.ikea.warehouse_data_ingestion_service.exception.KafkaProduceFailedException;
+import com.ikea.warehouse_data_ingestion_service.service.KafkaProducerService;
+import com.ikea.warehouse_data_ingestion_service.service.producer.ProducerProfile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class IngestionPipelineTest {
+
+    private final KafkaProducerService kafkaProducerService = mock(KafkaProducerService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ExecutorService executor;
+    private IngestionPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newCachedThreadPool();
+        pipeline = new IngestionPipeline(kafkaProducerService, executor, 8, meterRegistry);
+        ReflectionTestUtils.setField(pipeline, "queueCapacity", 2);
+        ReflectionTestUtils.setField(pipeline, "maxInFlight", 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void run_publishesEveryRecordAndWaitsForAcks() throws Exception {
+        CompletableFuture<SendResult<String, Object>> ok = CompletableFuture.completedFuture(null);
+        when(kafkaProducerService.send(eq("topic"), anyString(), any(), any(IngestionProgress.class))).thenReturn(ok);
+        List<String> records = List.of("a", "b", "c", "d", "e", "f", "g");
+
+        PipelineResult result = pipeline.<String>run("topic", sink -> {
+            records.forEach(sink);
+            return records.size();
+        }, record -> record, (record, key) -> record.toUpperCase());
+
+        assertEquals(new PipelineResult(7, 7, 7, 0, 0, 0), result);
+        verify(kafkaProducerService).send(eq("topic"), eq("g"), eq("G"), any(IngestionProgress.class));
+        verify(kafkaProducerService).flush(ProducerProfile.BALANCED);
+        assertEquals(0, meterRegistry.get("ingestion.pipeline.active").gauge().value());
+    }
+
+    @Test
+    void run_derivesEachKeyOnceAndHandsItToTheEventMapper() throws Exception {
+        CompletableFuture<SendResult<String, Object>> ok = CompletableFuture.completedFuture(null);
+        when(kafkaProducerService.send(eq("topic"), anyString(), any(), any(IngestionProgress.class))).thenReturn(ok);
+        AtomicInteger keyCalls = new AtomicInteger();
+
+        PipelineResult result = pipeline.<String>run("topic", sink -> {
+            List.of("a", "b", "c").forEach(sink);
+            return 3;
+        }, record -> {
+            keyCalls.incrementAndGet();
+            return "key-" + record;
+        }, (record, key) -> record.equals("b") ? null : key + "=" + record);
+
+        assertEquals(2, result.sent());
+        assertEquals(3, keyCalls.get());
+        verify(kafkaProducerService).send(eq("topic"), eq("key-c"), eq("key-c=c"), any(IngestionProgress.class));
+    }
+
+    @Test
+    void run_whenSendFails_shouldAbortAndRethrow() {
+        CompletableFuture<SendResult<String, Object>> failed = CompletableFuture.failedFuture(new RuntimeException("broker down"));
+        when(kafkaProducerService.send(eq("topic"), anyString(), any(), any(IngestionProgress.class))).thenReturn(failed);
+
+        assertThrows(KafkaProduceFailedException.class, () -> pipeline.<String>run("topic", sink -> {
+            for (int i = 0; i < 1_000; i++) {
+                sink.accept("k" + i);
+            }
+            return 1_000;
+        }, record -> record, (record, key) -> record));
+    }
+
+    @Test
+    void run_whenMappingFails_shouldRethrowMappingError() {
+        assertThrows(IllegalArgumentException.class, () -> pipeline.<String>run("topic", sink -> {
+            sink.accept("bad");
+            return 1;
+        }, record -> record, (record, key) -> {
+            throw new IllegalArgumentException("cannot map " + record);
+        }));
+        verify(kafkaProducerService, never()).send(anyString(), anyString(), any(), any(IngestionProgress.class));
+    }
+
+    private static final RecordSource<String> NO_RECORDS = sink -> 0;
+
+    @Test
+    void run_whenThePublishStageIsRejected_shouldStopTheMapStageAndRethrow() throws Exception {
+        ThreadPoolExecutor singleThread = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                new ThreadPoolExecutor.AbortPolicy());
+        IngestionPipeline starved = new IngestionPipeline(kafkaProducerService, singleThread, 8, meterRegistry);
+
+        assertThrows(RejectedExecutionException.class, () -> starved.run("topic", NO_RECORDS, record -> record, (record, key) -> record));
+
+        singleThread.shutdown();
+        assertTrue(singleThread.awaitTermination(5, TimeUnit.SECONDS), "map stage still running");
+        verify(kafkaProducerService, never()).send(anyString(), anyString(), any(), any(IngestionProgress.class));
+    }
+
+    @Test
+    void run_beyondMaxConcurrentRuns_shouldBeRejectedWithoutStartingStages() throws Exception {
+        IngestionPipeline single = new IngestionPipeline(kafkaProducerService, executor, 1, meterRegistry);
+        CountDownLatch parsing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<PipelineResult> first = CompletableFuture.supplyAsync(() -> {
+            try {
+                RecordSource<String> blocking = sink -> {
+                    parsing.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new InterruptedIOException();
+                    }
+                    return 0;
+                };
+                return single.run("topic", blocking, record -> record, (record, key) -> record);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(parsing.await(5, TimeUnit.SECONDS));
+
+        assertThrows(RejectedExecutionException.class, () -> single.run("topic", NO_RECORDS, record -> record, (record, key) -> record));
+
+        release.countDown();
+        assertEquals(0, first.get(5, TimeUnit.SECONDS).sent());
+        assertEquals(0, single.run("topic", NO_RECORDS, record -> record, (record, key) -> record).sent());
+    }
+}
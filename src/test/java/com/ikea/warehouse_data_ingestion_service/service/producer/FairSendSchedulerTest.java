@@ -0,0 +1,129 @@
+package com.ikea.warehouse_data_ingestion_service.service.producer;
+
+import com.ikea.warehouse_data_ingestion_service.exception.KafkaProduceFailedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FairSendSchedulerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> granted = new CopyOnWriteArrayList<>();
+
+    @Test
+    void acquire_letsASmallTenantAheadOfAQueuedBulkLoad() throws Exception {
+        FairSendScheduler scheduler = new FairSendScheduler(10, Map.of(), meterRegistry);
+        long bulkWindow = scheduler.acquire("bulk", 10);
+
+        Thread nextBulkWindow = acquireInBackground(scheduler, "bulk", 10, false);
+        awaitWaiting(scheduler, 1);
+        Thread small = acquireInBackground(scheduler, "small", 2, false);
+        awaitWaiting(scheduler, 2);
+
+        scheduler.release(bulkWindow);
+        small.join(5_000);
+        assertEquals(List.of("small"), granted);
+        assertEquals(1, scheduler.waiting());
+
+        scheduler.release(2);
+        nextBulkWindow.join(5_000);
+        assertEquals(List.of("small", "bulk"), granted);
+        assertEquals(2, meterRegistry.get("ingestion.scheduler.wait").tag("tenant", "other").timer().count());
+    }
+
+    @Test
+    void acquire_sharesCapacityInProportionToTheWeights() throws Exception {
+        FairSendScheduler scheduler = new FairSendScheduler(1, Map.of("store-a", 3.0), meterRegistry);
+        long held = scheduler.acquire("store-x", 1);
+
+        List<Thread> senders = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            senders.add(acquireInBackground(scheduler, "store-a", 1, true));
+            awaitWaiting(scheduler, senders.size());
+            senders.add(acquireInBackground(scheduler, "store-b", 1, true));
+            awaitWaiting(scheduler, senders.size());
+        }
+        scheduler.release(held);
+        for (Thread sender : senders) {
+            sender.join(5_000);
+        }
+
+        assertEquals(8, granted.size());
+        assertEquals(3, granted.subList(0, 4).stream().filter("store-a"::equals).count());
+        assertEquals(4, granted.subList(0, 5).stream().filter("store-a"::equals).count());
+        assertEquals(0, scheduler.waiting());
+        assertEquals(4, meterRegistry.get("ingestion.scheduler.wait").tag("tenant", "store-a").timer().count());
+    }
+
+    @Test
+    void acquire_grantsTheWholeCapacityToRequestsLargerThanIt() {
+        FairSendScheduler scheduler = new FairSendScheduler(10, Map.of(), meterRegistry);
+
+        assertEquals(10, scheduler.acquire("bulk", 500));
+        scheduler.release(10);
+        assertEquals(3, scheduler.acquire("bulk", 3));
+    }
+
+    @Test
+    void acquire_whenInterrupted_shouldLeaveTheQueue() throws Exception {
+        FairSendScheduler scheduler = new FairSendScheduler(1, Map.of(), meterRegistry);
+        long held = scheduler.acquire("store-a", 1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread waiter = new Thread(() -> {
+            try {
+                scheduler.acquire("store-b", 1);
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        waiter.start();
+        awaitWaiting(scheduler, 1);
+
+        waiter.interrupt();
+        waiter.join(5_000);
+
+        assertInstanceOf(KafkaProduceFailedException.class, failure.get());
+        assertEquals(0, scheduler.waiting());
+        scheduler.release(held);
+        assertEquals(1, scheduler.acquire("store-c", 1));
+    }
+
+    @Test
+    void unlimited_neverBlocks() {
+        FairSendScheduler scheduler = FairSendScheduler.unlimited();
+
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(0, scheduler.acquire("store-a", 10_000));
+        }
+        scheduler.release(0);
+        assertEquals(0, scheduler.waiting());
+    }
+
+    private Thread acquireInBackground(FairSendScheduler scheduler, String tenant, int records, boolean releaseAtOnce) {
+        Thread thread = new Thread(() -> {
+            long cost = scheduler.acquire(tenant, records);
+            granted.add(tenant);
+            if (releaseAtOnce) {
+                scheduler.release(cost);
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    private static void awaitWaiting(FairSendScheduler scheduler, int waiting) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (scheduler.waiting() < waiting) {
+            assertTrue(System.nanoTime() < deadline, "senders did not queue up");
+            Thread.sleep(1);
+        }
+    }
+}
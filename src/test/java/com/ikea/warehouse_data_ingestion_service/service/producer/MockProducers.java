@@ -0,0 +1,75 @@
+package com.ikea.warehouse_data_ingestion_service.service.producer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * {@link MockProducer}s that know the partitions of one topic, for tests and benchmarks of
+ * {@link ProducerPool} and {@link TransactionalProducers}.
+ */
+public final class MockProducers {
+
+    private MockProducers() {
+    }
+
+    /** A producer for {@code topic} with {@code partitions} partitions that acknowledges on send. */
+    public static MockProducer<String, Object> producer(String topic, int partitions) {
+        return producer(topic, partitions, true);
+    }
+
+    /** Like {@link #producer(String, int)}; without {@code autoComplete}, sends stay pending until completed or failed. */
+    public static MockProducer<String, Object> producer(String topic, int partitions, boolean autoComplete) {
+        Node node = new Node(0, "localhost", 9092);
+        List<PartitionInfo> partitionInfos = IntStream.range(0, partitions)
+                .mapToObj(partition -> new PartitionInfo(topic, partition, node, new Node[]{node}, new Node[]{node}))
+                .toList();
+        Cluster cluster = new Cluster("mock", List.of(node), partitionInfos, Set.of(), Set.of());
+        return new ReusableMockProducer(cluster, autoComplete);
+    }
+
+    public static KafkaTemplate<String, Object> template(MockProducer<String, Object> producer) {
+        return new KafkaTemplate<>(() -> producer);
+    }
+
+    /** Transactional producers that all hand out {@code producer}, after initialising its transactions. */
+    public static TransactionalProducers transactional(MockProducer<String, Object> producer, int size, Duration acquireTimeout) {
+        producer.initTransactions();
+        ProducerFactory<String, Object> producerFactory = new ProducerFactory<>() {
+            @Override
+            public Producer<String, Object> createProducer() {
+                return producer;
+            }
+
+            @Override
+            public boolean transactionCapable() {
+                return true;
+            }
+        };
+        return new TransactionalProducers(producerFactory, size, acquireTimeout, new SimpleMeterRegistry());
+    }
+
+    /** The template closes its producer after every send unless the factory hands out a close-safe one. */
+    private static final class ReusableMockProducer extends MockProducer<String, Object> {
+
+        private ReusableMockProducer(Cluster cluster, boolean autoComplete) {
+            super(cluster, autoComplete, new StringSerializer(), new JsonSerializer<>());
+        }
+
+        @Override
+        public void close(Duration timeout) {
+        }
+    }
+}
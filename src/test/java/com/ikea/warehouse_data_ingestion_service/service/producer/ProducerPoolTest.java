@@ -0,0 +1,72 @@
+package com.ikea.warehouse_data_ingestion_service.service.producer;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProducerPoolTest {
+
+    private static final String TOPIC = "inventory-topic";
+
+    private static ProducerPool pool(int size, int partitions) {
+        List<KafkaTemplate<String, Object>> members = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            members.add(MockProducers.template(MockProducers.producer(TOPIC, partitions)));
+        }
+        return new ProducerPool(members);
+    }
+
+    @Test
+    void keysGoToTheMemberOwningThePartitionTheProducerPicks() throws Exception {
+        ProducerPool pool = pool(3, 12);
+        Map<Integer, Integer> ownerOfPartition = new HashMap<>();
+
+        for (int i = 0; i < 500; i++) {
+            String key = "article-" + i;
+            int member = pool.memberFor(TOPIC, key);
+            SendResult<String, Object> result = pool.member(member).send(TOPIC, key, "v").get();
+            int partition = result.getRecordMetadata().partition();
+
+            assertEquals(partition, pool.partitionFor(TOPIC, key));
+            assertEquals(partition % 3, member);
+            assertEquals(member, (int) ownerOfPartition.computeIfAbsent(partition, p -> member));
+            assertSame(pool.member(member), pool.forKey(TOPIC, key));
+        }
+        assertEquals(12, ownerOfPartition.size());
+    }
+
+    @Test
+    void singleMemberPoolNeverLooksUpPartitions() {
+        MockProducer<String, Object> producer = MockProducers.producer(TOPIC, 12);
+        producer.partitionsForException = new TimeoutException("no metadata");
+        ProducerPool pool = new ProducerPool(List.of(MockProducers.template(producer)));
+
+        assertEquals(0, pool.memberFor(TOPIC, "article-1"));
+        assertSame(pool.member(0), pool.forKey(TOPIC, "article-2"));
+    }
+
+    @Test
+    void metadataFailuresSurfaceFromLargerPools() {
+        MockProducer<String, Object> producer = MockProducers.producer(TOPIC, 12);
+        producer.partitionsForException = new TimeoutException("no metadata");
+        ProducerPool pool = new ProducerPool(List.of(MockProducers.template(producer), MockProducers.template(producer)));
+
+        assertThrows(TimeoutException.class, () -> pool.memberFor(TOPIC, "article-1"));
+    }
+
+    @Test
+    void rejectsEmptyPools() {
+        assertThrows(IllegalArgumentException.class, () -> new ProducerPool(List.of()));
+    }
+}
@@ -0,0 +1,54 @@
+package com.ikea.warehouse_data_ingestion_service.service.producer;
+
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionProgress;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class ProducerProfileRouterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ProducerProfileRouter router;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        router = new ProducerProfileRouter(ProducerTemplates.single(mock(KafkaTemplate.class), 16384), meterRegistry);
+    }
+
+    @Test
+    void selectsByRecordCountWhenKnown() {
+        assertEquals(ProducerProfile.LOW_LATENCY, router.select(50_000_000, 5));
+        assertEquals(ProducerProfile.BALANCED, router.select(ProducerProfileRouter.UNKNOWN, 5_000));
+        assertEquals(ProducerProfile.BULK, router.select(1_000, 2_000_000));
+    }
+
+    @Test
+    void selectsByFileSizeWhenRecordCountIsUnknown() {
+        assertEquals(ProducerProfile.LOW_LATENCY, router.select(2_048, ProducerProfileRouter.UNKNOWN));
+        assertEquals(ProducerProfile.BALANCED, router.select(1_048_576, ProducerProfileRouter.UNKNOWN));
+        assertEquals(ProducerProfile.BULK, router.select(200L * 1_048_576, ProducerProfileRouter.UNKNOWN));
+    }
+
+    @Test
+    void fallsBackToBalancedWhenNothingIsKnown() {
+        assertEquals(ProducerProfile.BALANCED, router.select(ProducerProfileRouter.UNKNOWN, ProducerProfileRouter.UNKNOWN));
+    }
+
+    @Test
+    void routeStoresProfileOnProgressAndCountsUpload() {
+        IngestionProgress progress = new IngestionProgress(100L * 1_048_576);
+
+        ProducerProfile profile = router.route(progress, ProducerProfileRouter.UNKNOWN);
+
+        assertEquals(ProducerProfile.BULK, profile);
+        assertEquals(ProducerProfile.BULK, progress.producerProfile());
+        assertEquals(1.0, meterRegistry.get("ingestion.producer.profile.uploads").tag("profile", "bulk").counter().count());
+        assertEquals(0.0, meterRegistry.get("ingestion.producer.profile.uploads").tag("profile", "balanced").counter().count());
+    }
+}
@@ -0,0 +1,156 @@
+package com.ikea.warehouse_data_ingestion_service.service.spool;
+
+import com.ikea.warehouse_data_ingestion_service.data.event.InventoryUpdateEvent;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionProgress;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventSpoolTest {
+
+    private static final Instant CREATED_AT = Instant.parse("2025-01-01T00:00:00Z");
+
+    @TempDir
+    Path tempDir;
+
+    private EventSpool spool(long segmentBytes) throws IOException {
+        EventSpool spool = new EventSpool(tempDir.resolve("spool"), DataSize.ofBytes(segmentBytes), new SimpleMeterRegistry());
+        spool.open();
+        return spool;
+    }
+
+    private static void write(EventSpool spool, int from, int to, IngestionProgress progress) {
+        try (EventSpool.Session session = spool.openSession("inventory", progress)) {
+            for (int i = from; i < to; i++) {
+                session.send(String.valueOf(i), event(i));
+            }
+        }
+    }
+
+    private static InventoryUpdateEvent event(int i) {
+        return new InventoryUpdateEvent(String.valueOf(i), "part " + i, String.valueOf(i * 10), CREATED_AT);
+    }
+
+    /** Reads and checkpoints everything durable, in batches of {@code batchSize}. */
+    private static List<SpoolRecord> drain(EventSpool spool, int batchSize) throws IOException {
+        List<SpoolRecord> drained = new ArrayList<>();
+        while (spool.drainedOffset() < spool.durableOffset()) {
+            EventSpool.Batch batch = spool.read(spool.drainedOffset(), batchSize);
+            drained.addAll(batch.records());
+            spool.checkpoint(batch.endOffset());
+        }
+        return drained;
+    }
+
+    private List<String> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir.resolve("spool"))) {
+            return files.map(file -> file.getFileName().toString()).filter(name -> name.endsWith(EventSpool.SEGMENT_SUFFIX)).toList();
+        }
+    }
+
+    @Test
+    void session_recordsAreDurableAndReadBackInOrderOnceClosed() throws Exception {
+        EventSpool spool = spool(1024);
+        IngestionProgress progress = new IngestionProgress();
+
+        EventSpool.Session session = spool.openSession("inventory", progress);
+        session.send("1", event(1));
+        assertEquals(0, spool.durableOffset());
+        session.send("2", event(2));
+        session.close();
+
+        assertEquals(2, progress.acked());
+        assertEquals(spool.durableOffset(), spool.backlogBytes());
+        List<SpoolRecord> records = drain(spool, 10);
+        assertEquals(List.of(new SpoolRecord("inventory", "1", event(1)), new SpoolRecord("inventory", "2", event(2))), records);
+        assertEquals(0, spool.backlogBytes());
+    }
+
+    @Test
+    void read_acrossRolledSegments_shouldReturnEveryRecordOnceAndDeleteDrainedSegments() throws Exception {
+        EventSpool spool = spool(256);
+        for (int upload = 0; upload < 5; upload++) {
+            write(spool, upload * 40, upload * 40 + 40, new IngestionProgress());
+        }
+        assertTrue(segmentFiles().size() > 1);
+
+        List<SpoolRecord> records = drain(spool, 7);
+
+        assertEquals(200, records.size());
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals(String.valueOf(i), records.get(i).key());
+        }
+        assertEquals(1, segmentFiles().size());
+    }
+
+    @Test
+    void session_concurrentUploads_shouldAllBeDurableWithTheirRecordsInOrder() throws Exception {
+        EventSpool spool = spool(4096);
+        List<Thread> uploads = new ArrayList<>();
+        for (int upload = 0; upload < 8; upload++) {
+            int from = upload * 1_000;
+            uploads.add(Thread.ofPlatform().start(() -> write(spool, from, from + 500, new IngestionProgress())));
+        }
+        for (Thread upload : uploads) {
+            upload.join();
+        }
+
+        List<SpoolRecord> records = drain(spool, 1_000);
+
+        assertEquals(4_000, records.size());
+        int[] next = new int[8];
+        for (SpoolRecord record : records) {
+            int key = Integer.parseInt(record.key());
+            assertEquals(next[key / 1_000]++, key % 1_000);
+        }
+    }
+
+    @Test
+    void open_afterACrash_shouldTruncateATornRecordAndResumeFromTheCheckpoint() throws Exception {
+        EventSpool spool = spool(DataSize.ofMegabytes(1).toBytes());
+        write(spool, 0, 10, new IngestionProgress());
+        EventSpool.Batch firstFour = spool.read(0, 4);
+        spool.checkpoint(firstFour.endOffset());
+        long durable = spool.durableOffset();
+        Path segment = tempDir.resolve("spool").resolve(segmentFiles().getFirst());
+        Files.write(segment, new byte[]{0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+
+        EventSpool restarted = spool(DataSize.ofMegabytes(1).toBytes());
+
+        assertEquals(firstFour.endOffset(), restarted.drainedOffset());
+        assertEquals(durable, restarted.durableOffset());
+        assertEquals(durable, Files.size(segment));
+        write(restarted, 10, 12, new IngestionProgress());
+        List<String> keys = drain(restarted, 100).stream().map(SpoolRecord::key).toList();
+        assertEquals(List.of("4", "5", "6", "7", "8", "9", "10", "11"), keys);
+    }
+
+    @Test
+    void read_whenARecordIsCorrupt_shouldSkipTheRestOfItsSegment() throws Exception {
+        EventSpool spool = spool(DataSize.ofMegabytes(1).toBytes());
+        write(spool, 0, 3, new IngestionProgress());
+        spool.close();
+        write(spool, 3, 5, new IngestionProgress());
+        Path first = tempDir.resolve("spool").resolve(segmentFiles().stream().sorted().findFirst().orElseThrow());
+        byte[] bytes = Files.readAllBytes(first);
+        bytes[bytes.length - 1] ^= 0x7F;
+        Files.write(first, bytes);
+
+        List<String> keys = drain(spool, 100).stream().map(SpoolRecord::key).toList();
+
+        assertEquals(List.of("0", "1", "3", "4"), keys);
+    }
+}
@@ -0,0 +1,108 @@
+package com.ikea.warehouse_data_ingestion_service.service.spool;
+
+import com.ikea.warehouse_data_ingestion_service.data.event.InventoryUpdateEvent;
+import com.ikea.warehouse_data_ingestion_service.service.KafkaProducerService;
+import com.ikea.warehouse_data_ingestion_service.service.KafkaProducerServices;
+import com.ikea.warehouse_data_ingestion_service.service.pipeline.IngestionProgress;
+import com.ikea.warehouse_data_ingestion_service.service.producer.MockProducers;
+import com.ikea.warehouse_data_ingestion_service.service.producer.ProducerTemplates;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpoolDrainerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private MockProducer<String, Object> producer;
+    private EventSpool spool;
+    private SpoolDrainer drainer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        producer = MockProducers.producer("inventory", 6);
+        spool = new EventSpool(tempDir, DataSize.ofKilobytes(1), meterRegistry);
+        spool.open();
+        KafkaProducerService kafkaProducerService = KafkaProducerServices.sendingThrough(
+                ProducerTemplates.single(MockProducers.template(producer), 16384)).build();
+        drainer = new SpoolDrainer(spool, kafkaProducerService, meterRegistry);
+        ReflectionTestUtils.setField(drainer, "batchSize", 4);
+    }
+
+    private void spool(int records) {
+        try (EventSpool.Session session = spool.openSession("inventory", new IngestionProgress())) {
+            for (int i = 0; i < records; i++) {
+                session.send(String.valueOf(i), new InventoryUpdateEvent(String.valueOf(i), "leg", "5", Instant.EPOCH));
+            }
+        }
+    }
+
+    private List<String> publishedKeys() {
+        return producer.history().stream().map(ProducerRecord::key).toList();
+    }
+
+    @Test
+    void drainOnce_publishesDurableRecordsInBatchesAndCheckpointsThem() throws Exception {
+        spool(10);
+
+        assertEquals(4, drainer.drainOnce());
+        assertEquals(4, drainer.drainOnce());
+        assertEquals(2, drainer.drainOnce());
+        assertEquals(0, drainer.drainOnce());
+
+        assertEquals(List.of("0", "1", "2", "3", "4", "5", "6", "7", "8", "9"), publishedKeys());
+        assertEquals(0, spool.backlogBytes());
+        assertEquals(10, meterRegistry.get("ingestion.spool.drained").counter().count());
+    }
+
+    @Test
+    void drainOnce_whenTheBrokerFails_shouldKeepTheBatchAndPublishItOnTheNextAttempt() throws Exception {
+        spool(3);
+        long offset = spool.drainedOffset();
+        producer.sendException = new KafkaException("broker down");
+
+        assertThrows(Exception.class, drainer::drainOnce);
+        assertEquals(offset, spool.drainedOffset());
+
+        producer.sendException = null;
+        assertEquals(3, drainer.drainOnce());
+        assertEquals(List.of("0", "1", "2"), publishedKeys());
+        assertEquals(0, spool.backlogBytes());
+    }
+
+    @Test
+    void drainOnce_whenTheBrokerRejectsRecordsForGood_shouldDeadLetterThemAndCheckpointPastThem() throws Exception {
+        spool(3);
+        producer.sendException = new RecordTooLargeException("record too large");
+
+        assertEquals(0, drainer.drainOnce());
+
+        assertEquals(spool.durableOffset(), spool.drainedOffset());
+        assertTrue(Files.size(tempDir.resolve(EventSpool.DEAD_LETTER_FILE)) > 0);
+        assertEquals(3, meterRegistry.get("ingestion.spool.dead.letters").tag("reason", "RecordTooLargeException")
+                .counter().count());
+
+        producer.sendException = null;
+        spool(1);
+        assertEquals(1, drainer.drainOnce());
+        assertEquals(List.of("0"), publishedKeys());
+    }
+}
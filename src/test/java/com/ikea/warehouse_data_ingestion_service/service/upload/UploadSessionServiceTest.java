@@ -0,0 +1,235 @@
+package com.ikea.warehouse_data_ingestion_service.service.upload;
+
+import com.ikea.warehouse_data_ingestion_service.data.FileType;
+import com.ikea.warehouse_data_ingestion_service.exception.FileProcessingException;
+import com.ikea.warehouse_data_ingestion_service.exception.UploadConflictException;
+import com.ikea.warehouse_data_ingestion_service.exception.UploadSessionNotFoundException;
+import com.ikea.warehouse_data_ingestion_service.service.dedup.UploadDeduplicator;
+import com.ikea.warehouse_data_ingestion_service.service.job.IngestionJob;
+import com.ikea.warehouse_data_ingestion_service.service.job.IngestionJobService;
+import com.ikea.warehouse_data_ingestion_service.service.job.IngestionJobStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadSessionServiceTest {
+
+    private static final String CONTENT = "{\"inventory\":[{\"art_id\":\"1\",\"name\":\"leg\",\"stock\":\"12\"}]}";
+
+    @TempDir
+    Path spoolDir;
+
+    private UploadDeduplicator uploadDeduplicator;
+    private UploadSessionService service;
+
+    @BeforeEach
+    void setUp() {
+        uploadDeduplicator = new UploadDeduplicator(new SimpleMeterRegistry());
+        service = uploadSessionService(new IngestionJobService(Runnable::run, uploadDeduplicator));
+    }
+
+    private UploadSessionService uploadSessionService(IngestionJobService ingestionJobService) {
+        UploadSessionService uploadSessionService = new UploadSessionService(ingestionJobService, uploadDeduplicator);
+        ReflectionTestUtils.setField(uploadSessionService, "spoolDir", spoolDir.toString());
+        ReflectionTestUtils.setField(ingestionJobService, "spoolDir", spoolDir.toString());
+        return uploadSessionService;
+    }
+
+    private static InputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void chunksAreAppendedAndCommitRunsTheTaskAgainstTheWholeFile() throws Exception {
+        int total = CONTENT.length();
+        UploadSession session = service.start(FileType.INVENTORY, "inventory.json", null, null);
+
+        service.append(session.getId(), ContentRange.parse("bytes 0-9/*"), body(CONTENT.substring(0, 10)));
+        service.append(session.getId(), ContentRange.parse("bytes 10-%d/%d".formatted(total - 1, total)), body(CONTENT.substring(10)));
+        AtomicReference<String> ingested = new AtomicReference<>();
+        IngestionJob job = service.commit(session.getId(),
+                (inputStream, progress) -> ingested.set(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8)));
+
+        assertEquals(total, session.getOffset());
+        assertEquals(total, session.getTotalBytes());
+        assertEquals(CONTENT, ingested.get());
+        assertEquals(IngestionJobStatus.SUCCEEDED, job.getStatus());
+        assertEquals(total, job.getSizeBytes());
+        assertTrue(service.find(session.getId()).isEmpty());
+        try (var files = Files.list(spoolDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void chunkNotStartingAtTheOffsetIsRejectedWithTheResumeOffset() throws Exception {
+        UploadSession session = service.start(FileType.INVENTORY, "inventory.json", null, null);
+        service.append(session.getId(), ContentRange.parse("bytes 0-9/*"), body(CONTENT.substring(0, 10)));
+
+        UploadConflictException replay = assertThrows(UploadConflictException.class,
+                () -> service.append(session.getId(), ContentRange.parse("bytes 0-9/*"), body(CONTENT.substring(0, 10))));
+        UploadConflictException gap = assertThrows(UploadConflictException.class,
+                () -> service.append(session.getId(), ContentRange.parse("bytes 20-29/*"), body(CONTENT.substring(20, 30))));
+
+        assertEquals(10, replay.getOffset());
+        assertEquals(10, gap.getOffset());
+        assertEquals(10, Files.size(session.getSpoolFile()));
+    }
+
+    @Test
+    void truncatedChunkKeepsTheBytesReceivedSoTheClientCanResume() throws Exception {
+        UploadSession session = service.start(FileType.INVENTORY, "inventory.json", (long) CONTENT.length(), null);
+
+        assertThrows(FileProcessingException.class,
+                () -> service.append(session.getId(), ContentRange.parse("bytes 0-19/*"), body(CONTENT.substring(0, 7))));
+        assertEquals(7, service.get(session.getId()).getOffset());
+
+        service.append(session.getId(), ContentRange.parse("bytes 7-%d/*".formatted(CONTENT.length() - 1)), body(CONTENT.substring(7)));
+        AtomicReference<String> ingested = new AtomicReference<>();
+        service.commit(session.getId(), (inputStream, progress) -> ingested.set(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8)));
+
+        assertEquals(CONTENT, ingested.get());
+    }
+
+    @Test
+    void commitBeforeAllDeclaredBytesArrivedIsRejectedAndTheSessionStaysOpen() throws Exception {
+        UploadSession session = service.start(FileType.PRODUCTS, "products.json", 100L, null);
+        service.append(session.getId(), ContentRange.parse("bytes 0-9/100"), body(CONTENT.substring(0, 10)));
+
+        assertThrows(FileProcessingException.class, () -> service.commit(session.getId(), (inputStream, progress) -> {}));
+        assertThrows(FileProcessingException.class,
+                () -> service.append(session.getId(), ContentRange.parse("bytes 10-19/200"), body(CONTENT.substring(10, 20))));
+        assertSame(session, service.get(session.getId()));
+    }
+
+    @Test
+    void uploadsAboveTheMaximumSizeAreRejected() throws Exception {
+        ReflectionTestUtils.setField(service, "maxSize", DataSize.ofBytes(16));
+
+        assertThrows(MaxUploadSizeExceededException.class, () -> service.start(FileType.INVENTORY, "inventory.json", 17L, null));
+        UploadSession session = service.start(FileType.INVENTORY, "inventory.json", null, null);
+        assertThrows(MaxUploadSizeExceededException.class,
+                () -> service.append(session.getId(), ContentRange.parse("bytes 0-16/*"), body(CONTENT.substring(0, 17))));
+    }
+
+    @Test
+    void rejectedCommitLeavesTheUploadOpenForARetry() throws Exception {
+        UploadSessionService rejecting = uploadSessionService(new IngestionJobService(command -> {
+            throw new RejectedExecutionException("full");
+        }, uploadDeduplicator));
+        UploadSession session = rejecting.start(FileType.INVENTORY, "inventory.json", null, null);
+        rejecting.append(session.getId(), ContentRange.parse("bytes 0-9/*"), body(CONTENT.substring(0, 10)));
+
+        assertThrows(RejectedExecutionException.class, () -> rejecting.commit(session.getId(), (inputStream, progress) -> {}));
+
+        assertSame(session, rejecting.get(session.getId()));
+        assertTrue(Files.exists(session.getSpoolFile()));
+    }
+
+    @Test
+    void identicalContentToARecentUploadIsSkippedOnCommit() throws Exception {
+        ReflectionTestUtils.setField(uploadDeduplicator, "enabled", true);
+        for (int i = 0; i < 2; i++) {
+            UploadSession session = service.start(FileType.INVENTORY, "inventory.json", null, null);
+            service.append(session.getId(), ContentRange.parse("bytes 0-9/*"), body(CONTENT.substring(0, 10)));
+            service.append(session.getId(), ContentRange.parse("bytes 10-%d/*".formatted(CONTENT.length() - 1)), body(CONTENT.substring(10)));
+            IngestionJob job = service.commit(session.getId(), (inputStream, progress) -> {});
+
+            assertEquals(i == 0 ? IngestionJobStatus.SUCCEEDED : IngestionJobStatus.SKIPPED, job.getStatus());
+        }
+        try (var files = Files.list(spoolDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void abortedAndExpiredUploadsAreDiscardedWithTheirSpoolFile() throws IOException {
+        UploadSession aborted = service.start(FileType.INVENTORY, "inventory.json", null, null);
+        service.abort(aborted.getId());
+        UploadSession expired = service.start(FileType.INVENTORY, "inventory.json", null, null);
+        ReflectionTestUtils.setField(service, "sessionTtl", Duration.ofNanos(-1));
+
+        assertThrows(UploadSessionNotFoundException.class, () -> service.get(aborted.getId()));
+        assertThrows(UploadSessionNotFoundException.class, () -> service.get(expired.getId()));
+        assertFalse(Files.exists(aborted.getSpoolFile()));
+        assertFalse(Files.exists(expired.getSpoolFile()));
+    }
+
+    @Test
+    void idleUploadsAreSweptWithoutARequest() throws IOException {
+        UploadSession idle = service.start(FileType.INVENTORY, "inventory.json", null, null);
+        ReflectionTestUtils.setField(service, "sessionTtl", Duration.ofNanos(-1));
+
+        service.expireIdleSessions();
+
+        assertFalse(Files.exists(idle.getSpoolFile()));
+        ReflectionTestUtils.setField(service, "sessionTtl", Duration.ofHours(1));
+        assertThrows(UploadSessionNotFoundException.class, () -> service.get(idle.getId()));
+    }
+
+    @Test
+    void aChunkInProgressKeepsItsSpoolFileFromAbortAndExpiry() throws Exception {
+        UploadSession session = service.start(FileType.INVENTORY, "inventory.json", null, null);
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        InputStream slowBody = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                reading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+                return 'x';
+            }
+        };
+        CompletableFuture<UploadSession> chunk = CompletableFuture.supplyAsync(() -> {
+            try {
+                return service.append(session.getId(), ContentRange.parse("bytes 0-0/*"), slowBody);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+
+        assertThrows(UploadConflictException.class, () -> service.abort(session.getId()));
+        ReflectionTestUtils.setField(service, "sessionTtl", Duration.ofNanos(-1));
+        service.expireIdleSessions();
+        assertTrue(Files.exists(session.getSpoolFile()));
+
+        release.countDown();
+        assertEquals(1, chunk.get(5, TimeUnit.SECONDS).getOffset());
+        assertEquals(1, Files.size(session.getSpoolFile()));
+    }
+
+    @Test
+    void contentRangeMustBeAWellFormedByteRange() {
+        assertEquals(new ContentRange(0, 9, null), ContentRange.parse("bytes 0-9/*"));
+        assertEquals(10, ContentRange.parse("bytes 5-14/15").length());
+        for (String invalid : new String[] {null, "", "0-9/10", "bytes 9-0/*", "bytes 0-10/10", "items 0-9/*"}) {
+            assertThrows(FileProcessingException.class, () -> ContentRange.parse(invalid), String.valueOf(invalid));
+        }
+    }
+}